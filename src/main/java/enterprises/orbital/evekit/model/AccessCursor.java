@@ -0,0 +1,112 @@
+package enterprises.orbital.evekit.model;
+
+import org.hibernate.ScrollableResults;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spliterator over the forward-only cursor of a single access query.  The cursor holds its own entity manager
+ * and transaction for the life of the scan.  Each entity is detached once it has been passed to the consumer,
+ * and the persistence context is cleared every fetch size entities, so memory use does not grow with the size
+ * of the result.  The cursor is closed when it is exhausted, when a query error occurs, or when the owning
+ * stream is closed.
+ *
+ * @param <A> subclass of CachedData returned by the cursor.
+ */
+class AccessCursor<A extends CachedData> implements Spliterator<A> {
+  private static final Logger log = Logger.getLogger(AccessCursor.class.getName());
+
+  private final Class<A> type;
+  private final EntityManager em;
+  private final ScrollableResults results;
+  private final boolean reverse;
+  private final int fetchSize;
+  private final CachedData.StreamExceptionHandler exceptionHandler;
+  private long consumed = 0;
+  private boolean closed = false;
+
+  AccessCursor(Class<A> type, EntityManager em, ScrollableResults results, boolean reverse, int fetchSize,
+               CachedData.StreamExceptionHandler exceptionHandler) {
+    this.type = type;
+    this.em = em;
+    this.results = results;
+    this.reverse = reverse;
+    this.fetchSize = Math.max(1, fetchSize);
+    this.exceptionHandler = exceptionHandler;
+  }
+
+  /**
+   * Release the cursor, transaction and entity manager.  Safe to call more than once.
+   */
+  void close() {
+    if (closed) return;
+    closed = true;
+    try {
+      results.close();
+    } catch (RuntimeException e) {
+      log.log(Level.FINE, "Error closing cursor", e);
+    }
+    // Nothing is written through the cursor, so the transaction is simply rolled back
+    if (em.getTransaction()
+          .isActive()) em.getTransaction()
+                         .rollback();
+    em.close();
+  }
+
+  // Advance the cursor, returning null when the scan is complete or fails
+  private A fetch() {
+    if (closed) return null;
+    try {
+      if (results.next()) return type.cast(results.get(0));
+      close();
+    } catch (RuntimeException e) {
+      log.log(Level.FINE, "Query error, truncating stream at last element", e);
+      close();
+      if (exceptionHandler != null) exceptionHandler.handle(new IOException(e));
+    }
+    return null;
+  }
+
+  private void release(A next) {
+    if (closed) return;
+    em.detach(next);
+    if (++consumed % fetchSize == 0) em.clear();
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super A> action) {
+    A next = fetch();
+    if (next == null) return false;
+    action.accept(next);
+    release(next);
+    return true;
+  }
+
+  @Override
+  public Spliterator<A> trySplit() {
+    return null;
+  }
+
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+  }
+
+  @Override
+  public Comparator<? super A> getComparator() {
+    return reverse ? Comparator.comparingLong(CachedData::getCid)
+                               .reversed() : Comparator.comparingLong(CachedData::getCid);
+  }
+
+}
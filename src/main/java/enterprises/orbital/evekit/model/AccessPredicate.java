@@ -0,0 +1,61 @@
+package enterprises.orbital.evekit.model;
+
+/**
+ * Entity specific part of an access query: any joins needed by attribute selectors, and the attribute
+ * constraints themselves.  Each model type provides an accessPredicate method which builds one of these
+ * from the same selectors accepted by its accessQuery method.  The predicate can then be passed to the
+ * generic access methods on {@link CachedData}.
+ * <p>
+ * Constraints are appended to a query over alias "c" which already constrains owner and lifeline, and are
+ * added with the usual AttributeSelector helpers.
+ */
+public class AccessPredicate {
+
+  // Appends attribute constraints to a query
+  public interface Constraints {
+    void add(StringBuilder qs, AttributeParameters p);
+  }
+
+  private final String joins;
+  private final Constraints constraints;
+
+  private AccessPredicate(String joins, Constraints constraints) {
+    this.joins = joins;
+    this.constraints = constraints;
+  }
+
+  /**
+   * Create a predicate over attributes of the model type.
+   *
+   * @param constraints appends attribute constraints.
+   * @return the new predicate.
+   */
+  public static AccessPredicate of(Constraints constraints) {
+    return new AccessPredicate("", constraints);
+  }
+
+  /**
+   * Create a predicate which also constrains joined element collections.  Queries using this predicate
+   * select distinct entities.
+   *
+   * @param joins       join clauses, e.g. "JOIN c.labels d".
+   * @param constraints appends attribute constraints.
+   * @return the new predicate.
+   */
+  public static AccessPredicate joined(String joins, Constraints constraints) {
+    return new AccessPredicate(joins, constraints);
+  }
+
+  public String getJoins() {
+    return joins;
+  }
+
+  public boolean isDistinct() {
+    return !joins.isEmpty();
+  }
+
+  public void addConstraints(StringBuilder qs, AttributeParameters p) {
+    constraints.add(qs, p);
+  }
+
+}
@@ -0,0 +1,181 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.ElementCollection;
+import javax.persistence.EntityManager;
+import javax.persistence.Table;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.EntityType;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk removal of all model data owned by an account.  Every CachedData subclass registered with the persistence
+ * unit is cleaned up in bounded chunks.  Each chunk is removed in a single transaction with bulk deletes issued
+ * in foreign key order: element collection tables first, then the subclass table, then the CachedData base table.
+ * Entities are never loaded, so large bodies and collections are not read just to be deleted.  Subclasses are
+ * independent of each other and are cleaned up in parallel.
+ *
+ * @see CachedData#cleanupAll(SynchronizedEveAccount)
+ */
+class AccountCleanup {
+  private static final Logger log = Logger.getLogger(AccountCleanup.class.getName());
+
+  // Tables which must be cleaned up for a single model type
+  static final class TypeTables {
+    final String       entityName;
+    final String       table;
+    // Element collection tables as {table, join column} pairs, including those inherited from CachedData
+    final List<String[]> collections;
+
+    TypeTables(String entityName, String table, List<String[]> collections) {
+      this.entityName = entityName;
+      this.table = table;
+      this.collections = collections;
+    }
+  }
+
+  private static String tableName(Class<?> type, String entityName) {
+    Table table = type.getAnnotation(Table.class);
+    return table != null && !table.name()
+                                  .isEmpty() ? table.name() : entityName;
+  }
+
+  // Find element collections declared directly on the given class.  Unnamed tables and join columns
+  // follow the JPA defaults: EntityName_attribute and EntityName_cid.
+  private static void addCollections(Class<?> type, String entityName, List<String[]> collections) {
+    for (Field next : type.getDeclaredFields()) {
+      if (Modifier.isStatic(next.getModifiers()) || next.getAnnotation(ElementCollection.class) == null) continue;
+      String table = entityName + "_" + next.getName();
+      String joinColumn = entityName + "_cid";
+      CollectionTable config = next.getAnnotation(CollectionTable.class);
+      if (config != null) {
+        if (!config.name()
+                   .isEmpty()) table = config.name();
+        if (config.joinColumns().length > 0 && !config.joinColumns()[0].name()
+                                                                       .isEmpty())
+          joinColumn = config.joinColumns()[0].name();
+      }
+      collections.add(new String[]{table, joinColumn});
+    }
+  }
+
+  static TypeTables describe(Class<?> type, String entityName) {
+    List<String[]> collections = new ArrayList<>();
+    for (Class<?> next = type; next != CachedData.class; next = next.getSuperclass())
+      addCollections(next, entityName, collections);
+    addCollections(CachedData.class, "CachedData", collections);
+    return new TypeTables(entityName, tableName(type, entityName), collections);
+  }
+
+  /**
+   * Describe every concrete CachedData subclass registered with the persistence unit.
+   *
+   * @return table descriptions for each concrete model type.
+   */
+  static List<TypeTables> registeredTypes() {
+    List<TypeTables> types = new ArrayList<>();
+    for (EntityType<?> next : EveKitUserAccountProvider.getFactory()
+                                                       .getEntityManager()
+                                                       .getMetamodel()
+                                                       .getEntities()) {
+      Class<?> type = next.getJavaType();
+      if (CachedData.class.isAssignableFrom(type) && !Modifier.isAbstract(type.getModifiers()))
+        types.add(describe(type, next.getName()));
+    }
+    return types;
+  }
+
+  private static int deleteIn(EntityManager em, String table, String column, List<Long> cids) {
+    return em.createNativeQuery("DELETE FROM " + table + " WHERE " + column + " IN (:cids)")
+             .setParameter("cids", cids)
+             .executeUpdate();
+  }
+
+  // Remove one chunk of entities of the given type.  Returns the number of entities removed.
+  private static int removeChunk(final SynchronizedEveAccount owner, final TypeTables type,
+                                 final int chunkSize) throws ExecutionException {
+    return EveKitUserAccountProvider.getFactory()
+                                    .runTransaction(() -> {
+                                      EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                                                  .getEntityManager();
+                                      TypedQuery<Long> query = em.createQuery(
+                                          "SELECT c.cid FROM " + type.entityName + " c WHERE c.owner = :owner",
+                                          Long.class);
+                                      query.setParameter("owner", owner);
+                                      query.setMaxResults(chunkSize);
+                                      List<Long> cids = query.getResultList();
+                                      if (cids.isEmpty()) return 0;
+                                      for (String[] next : type.collections)
+                                        deleteIn(em, next[0], next[1], cids);
+                                      deleteIn(em, type.table, "cid", cids);
+                                      int removed = deleteIn(em, "evekit_cached_data", "cid", cids);
+                                      ModelTypeMap.cleanup(cids);
+                                      return removed;
+                                    });
+  }
+
+  /**
+   * Remove all model data owned by the given account.
+   *
+   * @param owner       the account whose data should be removed.
+   * @param chunkSize   maximum number of entities removed per transaction.
+   * @param parallelism number of model types cleaned up concurrently.
+   * @param progress    optional progress listener.  This may be called concurrently from multiple threads.
+   * @return the number of entities removed.
+   * @throws IOException if any model type could not be cleaned up.  Other model types are still cleaned up.
+   */
+  static long cleanup(final SynchronizedEveAccount owner, final int chunkSize, final int parallelism,
+                      final CachedData.CleanupProgress progress) throws IOException {
+    final AtomicLong total = new AtomicLong(0);
+    ExecutorService exec = Executors.newFixedThreadPool(Math.max(1, parallelism));
+    List<Future<Long>> results = new ArrayList<>();
+    try {
+      for (final TypeTables next : registeredTypes()) {
+        results.add(exec.submit(() -> {
+          long removed = 0;
+          int lastRemoved;
+          do {
+            lastRemoved = removeChunk(owner, next, chunkSize);
+            removed += lastRemoved;
+            long sum = total.addAndGet(lastRemoved);
+            if (lastRemoved > 0 && progress != null) progress.removed(next.entityName, removed, sum);
+          } while (lastRemoved > 0);
+          return removed;
+        }));
+      }
+      IOException failure = null;
+      for (Future<Long> next : results) {
+        try {
+          next.get();
+        } catch (ExecutionException e) {
+          log.log(Level.SEVERE, "cleanup error", e);
+          if (failure == null) failure = new IOException(e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread()
+                .interrupt();
+          throw new IOException(e);
+        }
+      }
+      log.info("Removed " + total.get() + " entities from " + owner);
+      if (failure != null) throw failure;
+      return total.get();
+    } finally {
+      exec.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,125 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ID allocator which reserves large blocks of IDs from the database and hands them out locally (a "pooled-lo"
+ * scheme).  A block is reserved by advancing the nextValue of a {@link CidBlock} row with a conditional update,
+ * so multiple processes sharing the same database will always reserve disjoint blocks.  Only one database
+ * round trip is needed per block, regardless of the number of writer threads.
+ * <p>
+ * Reservations are made with a separate entity manager and transaction so that a reserved block is never
+ * returned to the database if the transaction which triggered the reservation rolls back.  IDs in a block
+ * which are not used before the process exits are simply skipped.
+ * <p>
+ * The first reservation for a given allocator name seeds the allocator from the largest existing CachedData ID.
+ * Allocators with different names draw from independent ID spaces, so every process storing CachedData must
+ * use the same name.
+ */
+public class BlockCidAllocator implements CidAllocator {
+  private static final Logger log                  = Logger.getLogger(BlockCidAllocator.class.getName());
+  // Allocator name used by CachedData by default
+  public static final String  DEFAULT_NAME         = "cached_data";
+  // Default number of IDs reserved per block
+  public static final int     DEFAULT_BLOCK_SIZE   = 1000;
+  // First ID handed out by a new allocator if no CachedData exists yet
+  public static final long    INITIAL_VALUE        = 100000L;
+  // Number of times we'll retry a reservation which conflicts with another process
+  private static final int    MAX_RESERVE_ATTEMPTS = 100;
+
+  private final String name;
+  private final int    blockSize;
+  // Current block is [next, limit)
+  private long         next  = 0;
+  private long         limit = 0;
+
+  public BlockCidAllocator(String name, int blockSize) {
+    if (blockSize <= 0) throw new IllegalArgumentException("block size must be positive");
+    this.name = name;
+    this.blockSize = blockSize;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  @Override
+  public synchronized long allocate() throws IOException {
+    if (next >= limit) {
+      next = reserve();
+      limit = next + blockSize;
+    }
+    return next++;
+  }
+
+  /**
+   * Reserve a new block of IDs.
+   *
+   * @return the first ID in the reserved block.
+   * @throws IOException if a block could not be reserved.
+   */
+  protected long reserve() throws IOException {
+    EntityManagerFactory emf = EveKitUserAccountProvider.getFactory()
+                                                        .getEntityManager()
+                                                        .getEntityManagerFactory();
+    for (int attempt = 0; attempt < MAX_RESERVE_ATTEMPTS; attempt++) {
+      EntityManager em = emf.createEntityManager();
+      try {
+        em.getTransaction()
+          .begin();
+        CidBlock block = em.find(CidBlock.class, name);
+        long start;
+        if (block == null) {
+          // First reservation, seed from existing data.  Two processes may race to create the row,
+          // in which case one will fail on commit and retry.
+          start = seed(em);
+          em.persist(new CidBlock(name, start + blockSize));
+        } else {
+          start = block.getNextValue();
+          int updated = em.createQuery(
+              "UPDATE CidBlock b SET b.nextValue = :next WHERE b.name = :name AND b.nextValue = :current")
+                          .setParameter("next", start + blockSize)
+                          .setParameter("name", name)
+                          .setParameter("current", start)
+                          .executeUpdate();
+          if (updated != 1) {
+            // Another process reserved this block first
+            em.getTransaction()
+              .rollback();
+            continue;
+          }
+        }
+        em.getTransaction()
+          .commit();
+        return start;
+      } catch (PersistenceException e) {
+        log.log(Level.FINE, "Block reservation conflict, retrying", e);
+        if (em.getTransaction()
+              .isActive()) em.getTransaction()
+                             .rollback();
+      } finally {
+        em.close();
+      }
+    }
+    throw new IOException("Unable to reserve block for allocator " + name + " after " + MAX_RESERVE_ATTEMPTS + " attempts");
+  }
+
+  private static long seed(
+      EntityManager em) {
+    Number max = (Number) em.createNativeQuery("SELECT MAX(cid) FROM evekit_cached_data")
+                            .getSingleResult();
+    return max == null ? INITIAL_VALUE : Math.max(INITIAL_VALUE, max.longValue() + 1);
+  }
+
+}
@@ -3,16 +3,33 @@ package enterprises.orbital.evekit.model;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import enterprises.orbital.base.OrbitalProperties;
+import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.db.ConnectionFactory.RunInTransaction;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -27,6 +44,10 @@ import java.util.stream.StreamSupport;
 @Entity
 @Inheritance(
     strategy = InheritanceType.JOINED)
+@DiscriminatorColumn(
+    name = "typeName",
+    discriminatorType = DiscriminatorType.STRING,
+    length = 64)
 @Table(
     name = "evekit_cached_data",
     indexes = {
@@ -41,6 +62,10 @@ import java.util.stream.StreamSupport;
         @Index(
             name = "lifeEndIndex",
             columnList = "lifeEnd",
+            unique = false),
+        @Index(
+            name = "liveIndex",
+            columnList = "aid, lifeEnd, cid",
             unique = false)
     })
 @JsonIgnoreProperties({
@@ -54,16 +79,65 @@ public abstract class CachedData {
   // This is limited to avoid excessive caching of data by third party
   // sites
   public static final int          META_DATA_LIMIT = 10;
-  // Unique cached data element ID
+  // Number of entities written in a single transaction by updateAll
+  public static final int          DEFAULT_UPDATE_BATCH_SIZE = 1000;
+  // Number of entities written between persistence context flushes by updateAll.
+  // This should match (or be a multiple of) the JDBC batch size configured for the persistence unit.
+  public static final int          DEFAULT_FLUSH_INTERVAL    = 50;
+  // Number of entities removed in a single transaction by cleanupAll
+  public static final int          DEFAULT_CLEANUP_CHUNK_SIZE = 1000;
+  // Number of model types cleaned up concurrently by cleanupAll
+  public static final int          DEFAULT_CLEANUP_THREADS   = 4;
+  // Number of model types read concurrently by snapshot
+  public static final int          DEFAULT_SNAPSHOT_THREADS  = 8;
+  // Parallel streams are not split into ranges smaller than this many elements
+  public static final int          DEFAULT_STREAM_SPLIT_SIZE = 1000;
+  // Number of pages fetched ahead of the consumer by prefetching streams
+  public static final int          DEFAULT_PREFETCH_DEPTH    = 2;
+  // Page size limits for prefetching streams
+  public static final int          DEFAULT_PREFETCH_MIN_PAGE = 100;
+  public static final int          DEFAULT_PREFETCH_MAX_PAGE = 5000;
+  // Target time (in milliseconds) for a single page fetch by prefetching streams
+  public static final long         DEFAULT_PREFETCH_LATENCY  = 250;
+  // Number of rows fetched at once by cursor based access streams
+  public static final int          DEFAULT_CURSOR_FETCH_SIZE = 500;
+  // Number of change feed entries fetched at once by change streams
+  public static final int          DEFAULT_CHANGE_PAGE_SIZE  = 1000;
+  // Maximum number of entities whose element collections (meta data, labels, etc.) are loaded by a single
+  // query.  Element collections are loaded with one IN query per collection for all entities in a result
+  // page rather than one query per entity.  Persistence units should set hibernate.batch_fetch_style to
+  // DYNAMIC so a page is loaded with exactly one query rather than several of decreasing size.
+  public static final int          COLLECTION_BATCH_SIZE     = 1000;
+  // Number of end-of-life entities kept in memory by the history cache.  Zero disables the cache.
+  public static final int          DEFAULT_HISTORY_CACHE_SIZE = 10000;
+  // Number of point-in-time list results kept in memory by the result cache.  Zero disables the cache.
+  public static final int          DEFAULT_RESULT_CACHE_SIZE  = 1000;
+  // Maximum number of model events waiting for delivery to listeners.  Further events are dropped.
+  public static final int          DEFAULT_EVENT_BUFFER_SIZE  = 65536;
+  // Maximum number of model events delivered to listeners in one batch
+  public static final int          DEFAULT_EVENT_BATCH_SIZE   = 1000;
+  // Default number of IDs reserved at once by the default ID allocator
+  public static final int          DEFAULT_CID_BLOCK_SIZE    = BlockCidAllocator.DEFAULT_BLOCK_SIZE;
+  // End-of-life entities, see HistoryCache
+  private static final HistoryCache historyCache = new HistoryCache(
+      () -> (int) PersistentProperty.getLongPropertyWithFallback(
+          OrbitalProperties.getPropertyName(CachedData.class, "historycache"), DEFAULT_HISTORY_CACHE_SIZE));
+  // Point-in-time list results, see ResultCache
+  private static final ResultCache resultCache = new ResultCache(
+      () -> (int) PersistentProperty.getLongPropertyWithFallback(
+          OrbitalProperties.getPropertyName(CachedData.class, "resultcache"), DEFAULT_RESULT_CACHE_SIZE));
+  // Committed change notifications, see ModelEventBus
+  private static final ModelEventBus eventBus = new ModelEventBus(
+      () -> (int) PersistentProperty.getLongPropertyWithFallback(
+          OrbitalProperties.getPropertyName(CachedData.class, "eventbuffer"), DEFAULT_EVENT_BUFFER_SIZE),
+      () -> (int) PersistentProperty.getLongPropertyWithFallback(
+          OrbitalProperties.getPropertyName(CachedData.class, "eventbatch"), DEFAULT_EVENT_BATCH_SIZE));
+  // Allocator for new entity IDs.  Created on first use if not set explicitly.
+  private static volatile CidAllocator cidAllocator = null;
+  // Shared by all snapshots, created on first use.  Threads are daemons so they don't block shutdown.
+  private static volatile ExecutorService snapshotExecutor = null;
+  // Unique cached data element ID.  Assigned by the current CidAllocator when an entity is first stored.
   @Id
-  @GeneratedValue(
-      strategy = GenerationType.SEQUENCE,
-      generator = "ek_seq")
-  @SequenceGenerator(
-      name = "ek_seq",
-      initialValue = 100000,
-      allocationSize = 10,
-      sequenceName = "cached_sequence")
   @ApiModelProperty(
       value = "Unique ID")
   private long                     cid;
@@ -122,9 +196,14 @@ public abstract class CachedData {
       shape = JsonFormat.Shape.STRING,
       pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
   private Date                     lifeEndDate;
-  // Object meta data - this will be serialized into storage
+  // Object meta data - this will be serialized into storage.  Very few entities have meta data, so it is
+  // loaded lazily: in batches for managed entities, or with a separate query when a detached entity's meta data is
+  // read or duplicated.  Cache copies of detached entities require it to be loaded first.  See loadMetaData and
+  // fetchMetaData.
   @ElementCollection(
-      fetch = FetchType.EAGER)
+      fetch = FetchType.LAZY)
+  @BatchSize(
+      size = COLLECTION_BATCH_SIZE)
   private Map<String, String>      metaData        = null;
 
   /**
@@ -202,10 +281,13 @@ public abstract class CachedData {
     this.lifeStart = start;
     this.accessMask = getMask();
     this.lifeEnd = Long.MAX_VALUE;
+    lifelineChanged();
   }
 
   /**
-   * Duplicate the cached data headers of this object onto the target object.
+   * Duplicate the cached data headers of this object onto the target object.  Meta data is copied as well.  If
+   * this entity is detached and its meta data has not been loaded then it is read with a separate query, callers
+   * which duplicate many detached entities should pass them to {@link #fetchMetaData(Collection)} first.
    * 
    * @param target
    *          the target object to be modified
@@ -215,20 +297,24 @@ public abstract class CachedData {
     target.owner = this.owner;
     target.eveKitVersion = eveKitVersion;
     target.metaData = null;
-    if (metaData != null) {
+    Map<String, String> source = loadMetaData();
+    if (source != null) {
       target.ensureMetaData();
-      for (Entry<String, String> entry : getAllMetaData()) {
-        target.metaData.put(entry.getKey(), entry.getValue());
+      synchronized (this) {
+        for (Entry<String, String> entry : source.entrySet()) {
+          target.metaData.put(entry.getKey(), entry.getValue());
+        }
       }
     }
     target.accessMask = this.accessMask.clone();
     target.lifeStart = this.lifeStart;
     target.lifeEnd = this.lifeEnd;
+    target.lifelineChanged();
   }
 
   /**
    * End of life the current Entity (lifeEnd = time), and configure the other entity to be the next generation of the current entity (lifeStart = time, lifeEnd
-   * = Long.MAX_LONG). Also initializes the CachedData fields of the other entity.
+   * = Long.MAX_LONG). Also initializes the CachedData fields of the other entity, see {@link #dup(CachedData)}.
    * 
    * @param other
    *          object we're evolving to
@@ -246,6 +332,107 @@ public abstract class CachedData {
     }
   }
 
+  /**
+   * Create a copy of an entity which shares no mutable state with the original.  The history and result caches
+   * keep and hand out copies, so that a caller which modifies a returned entity never changes what other callers
+   * see.  Element collections, embeddable values, meta data, dates and arrays are copied.  Other references (e.g.
+   * the owner) are shared.
+   *
+   * @param data the entity to copy, may be null.
+   * @param <A>  subclass of CachedData being copied.
+   * @return a copy of the entity, or null if data is null.
+   * @throws IllegalStateException if the entity is detached and its meta data has not been loaded.
+   */
+  @SuppressWarnings("unchecked")
+  static <A extends CachedData> A copy(
+      A data) {
+    if (data == null) return null;
+    Map<String, String> source = ((CachedData) data).loadedMetaData();
+    A target = (A) copyFields(data);
+    if (source != null) {
+      synchronized (data) {
+        ((CachedData) target).metaData = new HashMap<>(source);
+      }
+    }
+    return target;
+  }
+
+  // Instance fields of each copied class, see copyFields
+  private static final Map<Class<?>, List<Field>> copiedFields = new ConcurrentHashMap<>();
+
+  // Instance fields of a class and its superclasses, excluding meta data which copy handles separately
+  private static List<Field> fieldsOf(Class<?> type) {
+    return copiedFields.computeIfAbsent(type, k -> {
+      List<Field> fields = new ArrayList<>();
+      for (Class<?> next = k; next != Object.class; next = next.getSuperclass()) {
+        for (Field field : next.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()) ||
+              (next == CachedData.class && field.getName()
+                                                .equals("metaData"))) continue;
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+      return fields;
+    });
+  }
+
+  // Create a new instance of the same class with copies of all instance fields
+  private static Object copyFields(Object source) {
+    try {
+      Constructor<?> create = source.getClass()
+                                    .getDeclaredConstructor();
+      create.setAccessible(true);
+      Object target = create.newInstance();
+      for (Field next : fieldsOf(source.getClass()))
+        next.set(target, copyValue(next.get(source)));
+      return target;
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("unable to copy " + source.getClass()
+                                                              .getName(), e);
+    }
+  }
+
+  private static Object copyValue(Object value) {
+    if (value == null) return null;
+    if (value.getClass()
+             .isArray()) {
+      int length = Array.getLength(value);
+      Object copy = Array.newInstance(value.getClass()
+                                           .getComponentType(), length);
+      System.arraycopy(value, 0, copy, 0, length);
+      return copy;
+    }
+    if (value instanceof Date) return ((Date) value).clone();
+    if (value instanceof List) {
+      List<Object> copy = new ArrayList<>();
+      for (Object next : (List<?>) value)
+        copy.add(copyValue(next));
+      return copy;
+    }
+    if (value instanceof Set) {
+      Set<Object> copy = new LinkedHashSet<>();
+      for (Object next : (Set<?>) value)
+        copy.add(copyValue(next));
+      return copy;
+    }
+    if (value instanceof Map) {
+      Map<Object, Object> copy = new LinkedHashMap<>();
+      for (Entry<?, ?> next : ((Map<?, ?>) value).entrySet())
+        copy.put(copyValue(next.getKey()), copyValue(next.getValue()));
+      return copy;
+    }
+    if (value.getClass()
+             .isAnnotationPresent(Embeddable.class)) return copyFields(value);
+    return value;
+  }
+
+  /**
+   * Called whenever the owner or lifeline of this object changes.  Subclasses which keep a copy of these values
+   * override this method, see {@link LifelineIndexedData}.
+   */
+  protected void lifelineChanged() {}
+
   // Required subclass methods
 
   /**
@@ -267,21 +454,60 @@ public abstract class CachedData {
 
   // Meta-data functions
 
+  // Make sure meta data is available.  If this entity is still managed then the lazy collection is initialized
+  // as usual.  If this entity was read by a transaction which has since completed, then meta data is read with a
+  // separate query.
+  private Map<String, String> loadMetaData() {
+    synchronized (this) {
+      if (metaData == null || Persistence.getPersistenceUtil()
+                                         .isLoaded(this, "metaData")) return metaData;
+      try {
+        metaData.size();
+      } catch (RuntimeException e) {
+        // Detached, fall back to a separate query
+        try {
+          Map<String, String> loaded = readMetaData(Collections.singletonList(cid)).get(cid);
+          metaData = loaded == null ? new HashMap<>() : loaded;
+        } catch (IOException f) {
+          throw new PersistenceException("unable to load meta data for " + cid, f);
+        }
+      }
+      return metaData;
+    }
+  }
+
+  // Meta data which is already available without a query of our own.  Lazy collections of managed entities are
+  // initialized as usual.  A detached entity whose meta data was not loaded fails fast rather than running a query
+  // per entity, callers which copy meta data of many entities should use fetchMetaData.
+  private Map<String, String> loadedMetaData() {
+    synchronized (this) {
+      if (metaData == null || Persistence.getPersistenceUtil()
+                                         .isLoaded(this, "metaData")) return metaData;
+      try {
+        metaData.size();
+      } catch (RuntimeException e) {
+        throw new IllegalStateException("meta data not loaded for detached entity " + cid +
+                                            ", use CachedData.fetchMetaData first", e);
+      }
+      return metaData;
+    }
+  }
+
   private void ensureMetaData() {
-    if (metaData == null) metaData = new HashMap<String, String>();
+    if (loadMetaData() == null) metaData = new HashMap<String, String>();
   }
 
   public String getMetaData(
                             String key) {
     synchronized (this) {
-      if (metaData == null) return null;
+      if (loadMetaData() == null) return null;
       return metaData.get(key);
     }
   }
 
   public Set<Entry<String, String>> getAllMetaData() {
     synchronized (this) {
-      if (metaData == null) return Collections.emptySet();
+      if (loadMetaData() == null) return Collections.emptySet();
       return metaData.entrySet();
     }
   }
@@ -304,13 +530,13 @@ public abstract class CachedData {
   public void deleteMetaData(
                              String key) {
     synchronized (this) {
-      if (metaData != null) metaData.remove(key);
+      if (loadMetaData() != null) metaData.remove(key);
     }
   }
 
   public boolean hasMetaData() {
     synchronized (this) {
-      return metaData != null && metaData.size() > 0;
+      return loadMetaData() != null && metaData.size() > 0;
     }
   }
 
@@ -350,6 +576,7 @@ public abstract class CachedData {
   public void setLifeStart(
                            long lifeStart) {
     this.lifeStart = lifeStart;
+    lifelineChanged();
   }
 
   public long getLifeStart() {
@@ -363,6 +590,7 @@ public abstract class CachedData {
   public void setLifeEnd(
                          long lifeEnd) {
     this.lifeEnd = lifeEnd;
+    lifelineChanged();
   }
 
   @Override
@@ -402,24 +630,799 @@ public abstract class CachedData {
         + lifeStart + ", lifeEnd=" + lifeEnd + "]";
   }
 
+  // Read meta data for the given entity IDs.  Entities without meta data are omitted from the result.
+  private static Map<Long, Map<String, String>> readMetaData(
+      final Collection<Long> cids) throws IOException {
+    final int batchSize = updateBatchSize();
+    final List<Long> all = new ArrayList<>(cids);
+    Map<Long, Map<String, String>> result = new HashMap<>();
+    for (int i = 0; i < all.size(); i += batchSize) {
+      final List<Long> chunk = all.subList(i, Math.min(i + batchSize, all.size()));
+      try {
+        List<Object[]> rows = runReadOnly(() -> EveKitUserAccountProvider.getFactory()
+                                                                         .getEntityManager()
+                                                                         .createQuery(
+                                                                             "SELECT c.cid, KEY(m), VALUE(m) FROM CachedData c JOIN c.metaData m WHERE c.cid IN :cids",
+                                                                             Object[].class)
+                                                                         .setParameter("cids", chunk)
+                                                                         .getResultList());
+        for (Object[] row : rows)
+          result.computeIfAbsent((Long) row[0], k -> new HashMap<>())
+                .put((String) row[1], (String) row[2]);
+      } catch (Exception e) {
+        if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+        log.log(Level.SEVERE, "query error", e);
+        throw new IOException(e.getCause());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Load meta data for a collection of detached entities with one query per {@link #DEFAULT_UPDATE_BATCH_SIZE}
+   * entities, rather than one query per entity when meta data is first accessed.  Entities which already have
+   * meta data loaded are skipped.  Entities must not be managed by an open persistence context.
+   *
+   * @param data the entities which need meta data.
+   * @throws IOException on any DB error.
+   */
+  public static void fetchMetaData(
+      final Collection<? extends CachedData> data) throws IOException {
+    Map<Long, CachedData> pending = new HashMap<>();
+    for (CachedData next : data) {
+      if (next.metaData != null && !Persistence.getPersistenceUtil()
+                                               .isLoaded(next, "metaData")) pending.put(next.cid, next);
+    }
+    if (pending.isEmpty()) return;
+    Map<Long, Map<String, String>> loaded = readMetaData(pending.keySet());
+    for (CachedData next : pending.values()) {
+      synchronized (next) {
+        Map<String, String> values = loaded.get(next.cid);
+        next.metaData = values == null ? new HashMap<>() : values;
+      }
+    }
+  }
+
+  // Add the CID constraint and ordering.  Callers bind the continuation ID to the "contid" parameter.
   @SuppressWarnings("Duplicates")
-  protected static void setCIDOrdering(StringBuilder qs, long contid, boolean reverse) {
+  protected static void setCIDOrdering(StringBuilder qs, boolean reverse) {
     if (reverse) {
-      qs.append(" and c.cid < ")
-        .append(contid);
+      qs.append(" and c.cid < :contid");
       qs.append(" order by c.cid desc");
     } else {
-      qs.append(" and c.cid > ")
-        .append(contid);
+      qs.append(" and c.cid > :contid");
       qs.append(" order by c.cid asc");
     }
   }
 
+  // Statement text for an access query built by accessClause.  If reverse is not null, then the CID constraint and
+  // ordering are added and the caller must bind "contid".  The continuation ID and owner are bound as parameters, so
+  // every page of a query has the same statement text, and therefore shares a query plan and prepared statement.
+  static String accessStatement(
+      StringBuilder qs,
+      Boolean reverse) {
+    if (reverse != null) setCIDOrdering(qs, reverse);
+    return qs.toString();
+  }
+
+  // Build the common part of an access query over alias "c": selection, joins, owner, lifeline and attribute
+  // constraints.  Callers add ordering and bind the "owner" parameter and the attribute parameters.
+  static StringBuilder accessClause(
+      String selection,
+      Class<? extends CachedData> type,
+      AccessPredicate predicate,
+      AttributeSelector at,
+      AttributeParameters p) {
+    StringBuilder qs = new StringBuilder();
+    qs.append("SELECT ")
+      .append(selection)
+      .append(" FROM ")
+      .append(type.getSimpleName())
+      .append(" c ");
+    if (!predicate.getJoins()
+                  .isEmpty()) qs.append(predicate.getJoins())
+                                .append(" ");
+    // Constrain to specified owner
+    qs.append("WHERE c.owner = :owner");
+    // Constrain lifeline
+    AttributeSelector.addLifelineSelector(qs, "c", at);
+    // Constrain attributes
+    predicate.addConstraints(qs, p);
+    return qs;
+  }
+
+  /**
+   * Generic form of the accessQuery method provided by each model type.  Returns at most maxresults entities
+   * owned by the given account, live at the times selected by at, and matching the given predicate.  Entities
+   * are returned in CachedData ID order, starting after contid.
+   *
+   * @param type       the model type to query.
+   * @param owner      the owner of the entities.
+   * @param contid     continuation ID.  Only entities after this ID (in query order) are returned.
+   * @param maxresults maximum number of entities to return.
+   * @param reverse    if true, return entities in descending ID order.
+   * @param at         lifeline selector.
+   * @param predicate  entity specific constraints, normally created by the accessPredicate method of the type.
+   * @param <A>        the model type to query.
+   * @return the matching entities.
+   * @throws IOException on any DB error.
+   */
+  public static <A extends CachedData> List<A> accessQuery(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long contid,
+      final int maxresults,
+      final boolean reverse,
+      final AttributeSelector at,
+      final AccessPredicate predicate) throws IOException {
+    return accessQuery(type, owner, contid, maxresults, reverse, at, predicate, false);
+  }
+
+  /**
+   * Same as {@link #accessQuery(Class, SynchronizedEveAccount, long, int, boolean, AttributeSelector, AccessPredicate)}
+   * with control over meta data loading.  Meta data is normally loaded on first access.  Set withMetaData if
+   * the meta data of most results will be needed, so that it is loaded with one query for the whole page.
+   *
+   * @param type         the model type to query.
+   * @param owner        the owner of the entities.
+   * @param contid       continuation ID.  Only entities after this ID (in query order) are returned.
+   * @param maxresults   maximum number of entities to return.
+   * @param reverse      if true, return entities in descending ID order.
+   * @param at           lifeline selector.
+   * @param predicate    entity specific constraints, normally created by the accessPredicate method of the type.
+   * @param withMetaData if true, load meta data for all results before returning.
+   * @param <A>          the model type to query.
+   * @return the matching entities.
+   * @throws IOException on any DB error.
+   */
+  public static <A extends CachedData> List<A> accessQuery(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long contid,
+      final int maxresults,
+      final boolean reverse,
+      final AttributeSelector at,
+      final AccessPredicate predicate,
+      final boolean withMetaData) throws IOException {
+    List<A> result;
+    try {
+      result = runReadOnly(() -> {
+        AttributeParameters p = new AttributeParameters("att");
+        StringBuilder qs = accessClause(predicate.isDistinct() ? "DISTINCT c" : "c", type, predicate, at, p);
+        // Return result, with CID constraint and ordering
+        TypedQuery<A> query = EveKitUserAccountProvider.getFactory()
+                                                       .getEntityManager()
+                                                       .createQuery(accessStatement(qs, reverse), type);
+        query.setParameter("owner", owner);
+        query.setParameter("contid", contid);
+        query.setMaxResults(maxresults);
+        p.fillParams(query);
+        return query.getResultList();
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+    if (withMetaData) fetchMetaData(result);
+    return result;
+  }
+
+  /**
+   * "Live now" form of
+   * {@link #accessQuery(Class, SynchronizedEveAccount, long, int, boolean, AttributeSelector, AccessPredicate)}.
+   * Returns entities which are currently live, i.e. lifeEnd = Long.MAX_VALUE.  This is the same as passing the
+   * current time as the lifeline selector whenever no lifeline ends in the future, which is always the case for
+   * synchronized data.  The equality match on lifeEnd lets the database read the live entities of an owner in ID
+   * order from a single range of the (aid, lifeEnd, cid) index, where the range match on lifeStart and lifeEnd
+   * also has to skip every ended version.
+   *
+   * @param type       the model type to query.
+   * @param owner      the owner of the entities.
+   * @param contid     continuation ID.  Only entities after this ID (in query order) are returned.
+   * @param maxresults maximum number of entities to return.
+   * @param reverse    if true, return entities in descending ID order.
+   * @param predicate  entity specific constraints, normally created by the accessPredicate method of the type.
+   * @param <A>        the model type to query.
+   * @return the matching live entities.
+   * @throws IOException on any DB error.
+   */
+  public static <A extends CachedData> List<A> accessQueryLive(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long contid,
+      final int maxresults,
+      final boolean reverse,
+      final AccessPredicate predicate) throws IOException {
+    try {
+      return runReadOnly(() -> {
+        AttributeParameters p = new AttributeParameters("att");
+        StringBuilder qs = accessClause(predicate.isDistinct() ? "DISTINCT c" : "c", type, predicate,
+                                        AttributeSelector.any(), p);
+        qs.append(" AND c.lifeEnd = :live");
+        TypedQuery<A> query = EveKitUserAccountProvider.getFactory()
+                                                       .getEntityManager()
+                                                       .createQuery(accessStatement(qs, reverse), type);
+        query.setParameter("owner", owner);
+        query.setParameter("contid", contid);
+        query.setParameter("live", Long.MAX_VALUE);
+        query.setMaxResults(maxresults);
+        p.fillParams(query);
+        return query.getResultList();
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Projection form of {@link #accessQuery(Class, SynchronizedEveAccount, long, int, boolean, AttributeSelector, AccessPredicate)}.
+   * Only the CachedData ID and the named fields of each matching entity are read, with a scalar query.  No
+   * entities are loaded, so neither metadata, element collections nor unselected large fields are read, and
+   * nothing is tracked by the persistence context.  Paging works the same as for accessQuery, using
+   * {@link Projection#getCid()} as the continuation ID.
+   *
+   * @param type       the model type to query.
+   * @param owner      the owner of the entities.
+   * @param contid     continuation ID.  Only entities after this ID (in query order) are returned.
+   * @param maxresults maximum number of rows to return.
+   * @param reverse    if true, return rows in descending ID order.
+   * @param at         lifeline selector.
+   * @param predicate  entity specific constraints, normally created by the accessPredicate method of the type.
+   * @param fields     names of the basic fields to read, e.g. "itemID".
+   * @param <A>        the model type to query.
+   * @return the matching rows.
+   * @throws IOException on any DB error, including unknown field names.
+   * @throws IllegalArgumentException if a field name is not a valid identifier.
+   */
+  public static <A extends CachedData> List<Projection> accessProjection(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long contid,
+      final int maxresults,
+      final boolean reverse,
+      final AttributeSelector at,
+      final AccessPredicate predicate,
+      final String... fields) throws IOException {
+    StringBuilder selection = new StringBuilder(predicate.isDistinct() ? "DISTINCT c.cid" : "c.cid");
+    for (String next : fields) {
+      if (!next.matches("[A-Za-z_][A-Za-z0-9_]*")) throw new IllegalArgumentException("invalid field name: " + next);
+      selection.append(", c.")
+               .append(next);
+    }
+    final Projection.Fields index = new Projection.Fields(fields);
+    try {
+      return runReadOnly(() -> {
+        AttributeParameters p = new AttributeParameters("att");
+        StringBuilder qs = accessClause(selection.toString(), type, predicate, at, p);
+        // Return result, with CID constraint and ordering
+        Query query = EveKitUserAccountProvider.getFactory()
+                                               .getEntityManager()
+                                               .createQuery(accessStatement(qs, reverse));
+        query.setParameter("owner", owner);
+        query.setParameter("contid", contid);
+        query.setMaxResults(maxresults);
+        p.fillParams(query);
+        List<?> rows = query.getResultList();
+        List<Projection> result = new ArrayList<>(rows.size());
+        for (Object next : rows) {
+          if (fields.length == 0) {
+            result.add(new Projection(index, (Long) next, new Object[0]));
+          } else {
+            Object[] row = (Object[]) next;
+            result.add(new Projection(index, (Long) row[0],
+                                      Arrays.copyOfRange(row, 1, row.length)));
+          }
+        }
+        return result;
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Count form of {@link #accessQuery(Class, SynchronizedEveAccount, long, int, boolean, AttributeSelector, AccessPredicate)}.
+   * Returns the number of entities which the access query would return over all pages, using a single COUNT
+   * query built from the same predicate.  No entities are loaded.
+   *
+   * @param type      the model type to query.
+   * @param owner     the owner of the entities.
+   * @param at        lifeline selector.
+   * @param predicate entity specific constraints, normally created by the accessPredicate method of the type.
+   * @param <A>       the model type to query.
+   * @return the number of matching entities.
+   * @throws IOException on any DB error.
+   */
+  public static <A extends CachedData> long accessCount(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AccessPredicate predicate) throws IOException {
+    try {
+      return runReadOnly(() -> {
+        AttributeParameters p = new AttributeParameters("att");
+        StringBuilder qs = accessClause(predicate.isDistinct() ? "COUNT(DISTINCT c)" : "COUNT(c)", type, predicate,
+                                        at, p);
+        TypedQuery<Long> query = EveKitUserAccountProvider.getFactory()
+                                                          .getEntityManager()
+                                                          .createQuery(accessStatement(qs, null), Long.class);
+        query.setParameter("owner", owner);
+        p.fillParams(query);
+        return query.getSingleResult();
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Bounded form of {@link #accessCount(Class, SynchronizedEveAccount, AttributeSelector, AccessPredicate)}.  Reads
+   * at most limit matching IDs, so the cost is bounded by the limit rather than by the number of matches.  Useful
+   * when callers only need to know whether there are "more than N" results, e.g. to size a paged display.
+   *
+   * @param type      the model type to query.
+   * @param owner     the owner of the entities.
+   * @param at        lifeline selector.
+   * @param predicate entity specific constraints, normally created by the accessPredicate method of the type.
+   * @param limit     maximum count to return.
+   * @param <A>       the model type to query.
+   * @return the number of matching entities, or limit if there are at least that many.
+   * @throws IOException on any DB error.
+   */
+  public static <A extends CachedData> int accessCount(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AccessPredicate predicate,
+      final int limit) throws IOException {
+    if (limit <= 0) return 0;
+    try {
+      return runReadOnly(() -> {
+        AttributeParameters p = new AttributeParameters("att");
+        StringBuilder qs = accessClause(predicate.isDistinct() ? "DISTINCT c.cid" : "c.cid", type, predicate, at, p);
+        TypedQuery<Long> query = EveKitUserAccountProvider.getFactory()
+                                                          .getEntityManager()
+                                                          .createQuery(accessStatement(qs, null), Long.class);
+        query.setParameter("owner", owner);
+        query.setMaxResults(limit);
+        p.fillParams(query);
+        return query.getResultList()
+                    .size();
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Existence form of {@link #accessQuery(Class, SynchronizedEveAccount, long, int, boolean, AttributeSelector, AccessPredicate)}.
+   * Reads at most one matching ID, so the database can stop at the first match.  No entities are loaded.
+   *
+   * @param type      the model type to query.
+   * @param owner     the owner of the entities.
+   * @param at        lifeline selector.
+   * @param predicate entity specific constraints, normally created by the accessPredicate method of the type.
+   * @param <A>       the model type to query.
+   * @return true if at least one entity matches.
+   * @throws IOException on any DB error.
+   */
+  public static <A extends CachedData> boolean accessExists(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AccessPredicate predicate) throws IOException {
+    return accessCount(type, owner, at, predicate, 1) > 0;
+  }
+
+  /**
+   * Cursor based form of {@link #accessQuery(Class, SynchronizedEveAccount, long, int, boolean, AttributeSelector, AccessPredicate)}.
+   * All matching entities are read with a single forward-only query instead of one query per page.  Rows are
+   * fetched from the database in batches of the size set by the "cursorfetch" property.  Each entity is
+   * detached after it has been consumed, so memory use stays flat regardless of the size of the result.
+   * Note that some JDBC drivers (e.g. MySQL) only honor the fetch size when cursor fetching is enabled on the
+   * connection.
+   * <p>
+   * The stream holds a database connection until it is exhausted or closed, so callers which may not consume
+   * the whole stream should close it (e.g. with try-with-resources).  If a query error occurs, then the stream
+   * is truncated and the exception handler is called.
+   *
+   * @param type             the model type to query.
+   * @param owner            the owner of the entities.
+   * @param contid           continuation ID.  Only entities after this ID (in query order) are returned.
+   * @param reverse          if true, return entities in descending ID order.
+   * @param at               lifeline selector.
+   * @param predicate        entity specific constraints, normally created by the accessPredicate method of the type.
+   * @param exceptionHandler an optional interface which will be called if a query error occurs.
+   * @param <A>              the model type to query.
+   * @return a stream of matching entities.
+   */
+  public static <A extends CachedData> Stream<A> accessStream(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long contid,
+      final boolean reverse,
+      final AttributeSelector at,
+      final AccessPredicate predicate,
+      final StreamExceptionHandler exceptionHandler) {
+    int fetchSize = (int) PersistentProperty.getLongPropertyWithFallback(
+        OrbitalProperties.getPropertyName(CachedData.class, "cursorfetch"), DEFAULT_CURSOR_FETCH_SIZE);
+    EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                .getEntityManager()
+                                                .getEntityManagerFactory()
+                                                .createEntityManager();
+    try {
+      // The cursor never writes, so load entities read-only without snapshots
+      em.unwrap(Session.class)
+        .setDefaultReadOnly(true);
+      em.setFlushMode(FlushModeType.COMMIT);
+      em.getTransaction()
+        .begin();
+      AttributeParameters p = new AttributeParameters("att");
+      StringBuilder qs = accessClause(predicate.isDistinct() ? "DISTINCT c" : "c", type, predicate, at, p);
+      TypedQuery<A> query = em.createQuery(accessStatement(qs, reverse), type);
+      query.setParameter("owner", owner);
+      query.setParameter("contid", contid);
+      p.fillParams(query);
+      org.hibernate.Query cursor = query.unwrap(org.hibernate.Query.class);
+      cursor.setFetchSize(fetchSize);
+      cursor.setReadOnly(true);
+      AccessCursor<A> source = new AccessCursor<>(type, em, cursor.scroll(ScrollMode.FORWARD_ONLY), reverse,
+                                                  fetchSize, exceptionHandler);
+      return StreamSupport.stream(source, false)
+                          .onClose(source::close);
+    } catch (RuntimeException e) {
+      log.log(Level.SEVERE, "query error", e);
+      if (em.getTransaction()
+            .isActive()) em.getTransaction()
+                           .rollback();
+      em.close();
+      if (exceptionHandler != null) exceptionHandler.handle(new IOException(e));
+      return Stream.empty();
+    }
+  }
+
+  /**
+   * Run a query in a read-only transaction.  Model getters and access queries never modify the entities they
+   * return, so the session is marked read-only: entities are loaded without the snapshots normally kept for dirty
+   * checking, nothing is dirty checked or flushed at commit, and the persistence context is cleared as soon as the
+   * query completes rather than when the transaction ends.  Returned entities are detached.
+   * <p>
+   * If called from within an existing transaction, the query runs as part of that transaction unchanged, so that
+   * entities loaded for later modification by the enclosing transaction are still tracked.
+   *
+   * @param query the query to run.
+   * @param <T>   query result type.
+   * @return the query result.
+   * @throws ExecutionException if the query fails.
+   */
+  public static <T> T runReadOnly(
+      final RunInTransaction<T> query) throws ExecutionException {
+    if (inTransaction()) return EveKitUserAccountProvider.getFactory()
+                                                         .runTransaction(query);
+    return EveKitUserAccountProvider.getFactory()
+                                    .runTransaction(() -> {
+                                      EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                                                  .getEntityManager();
+                                      Session session = em.unwrap(Session.class);
+                                      FlushModeType flushMode = em.getFlushMode();
+                                      boolean readOnly = session.isDefaultReadOnly();
+                                      session.setDefaultReadOnly(true);
+                                      em.setFlushMode(FlushModeType.COMMIT);
+                                      try {
+                                        return query.run();
+                                      } finally {
+                                        em.clear();
+                                        em.setFlushMode(flushMode);
+                                        session.setDefaultReadOnly(readOnly);
+                                      }
+                                    });
+  }
+
+  // True if the current thread is already in a transaction
+  private static boolean inTransaction() {
+    return EveKitUserAccountProvider.getFactory()
+                                    .getEntityManager()
+                                    .getTransaction()
+                                    .isActive();
+  }
+
+  /**
+   * Run a natural key getter, consulting the history cache first.  If an end-of-life entity with the same type,
+   * owner and natural key, live at the requested time, has already been read then it is returned without a query.
+   * Otherwise the query is run with {@link #runReadOnly(RunInTransaction)} and the result is cached if it is no
+   * longer live.  Within an existing transaction the cache is bypassed, so that the enclosing transaction sees
+   * entities it manages.
+   *
+   * @param type  the model type returned by the getter.
+   * @param owner the owner passed to the getter.
+   * @param time  the time passed to the getter.
+   * @param key   the natural key values passed to the getter, in a fixed order.
+   * @param query the getter query.
+   * @param <A>   the model type returned by the getter.
+   * @return the getter result.
+   * @throws ExecutionException if the query fails.
+   */
+  public static <A extends CachedData> A runHistorical(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long time,
+      final Object[] key,
+      final RunInTransaction<A> query) throws ExecutionException {
+    if (inTransaction()) return runReadOnly(query);
+    // Read the epoch first so that an entity read concurrently with a write is not cached as current
+    ModelEpoch epoch = runReadOnly(() -> ResultCache.epoch(EveKitUserAccountProvider.getFactory()
+                                                                                    .getEntityManager(), type, owner));
+    A result = historyCache.get(type, owner, time, key, epoch);
+    if (result != null) return result;
+    result = runReadOnly(query);
+    if (result != null && epoch != null && result.getLifeEnd() != Long.MAX_VALUE &&
+        loadForCache(Collections.singletonList(result)))
+      historyCache.put(type, owner, key, result, epoch);
+    return result;
+  }
+
+  // Current epoch of the type and owner of a cached entity, or null if it can't be read
+  private static ModelEpoch currentEpoch(
+      final CachedData data) {
+    try {
+      return runReadOnly(() -> ResultCache.epoch(EveKitUserAccountProvider.getFactory()
+                                                                          .getEntityManager(), data.getClass(),
+                                                 data.getOwner()));
+    } catch (ExecutionException e) {
+      log.log(Level.WARNING, "unable to read epoch, cached entity not used", e);
+      return null;
+    }
+  }
+
+  // Cached entities are copied on every hit, which requires their meta data.  Returns false if it can't be loaded.
+  private static boolean loadForCache(
+      Collection<? extends CachedData> data) {
+    try {
+      fetchMetaData(data);
+      return true;
+    } catch (IOException e) {
+      log.log(Level.WARNING, "unable to load meta data, result not cached", e);
+      return false;
+    }
+  }
+
+  /**
+   * End-of-life entities are immutable other than meta data, so they are cached in memory by {@link #get(long)}
+   * and natural key getters.  The returned cache reports how well this is working.
+   *
+   * @return the history cache.
+   */
+  public static HistoryCache getHistoryCache() {
+    return historyCache;
+  }
+
+  /**
+   * Run a point-in-time list getter, consulting the result cache first.  A cached result is returned if no
+   * entities of the same type and owner have been written since it was read, or if it is a historical result
+   * unaffected by those writes.  Otherwise the query is run with {@link #runReadOnly(RunInTransaction)} and the
+   * result is cached.  Within an existing transaction the cache is bypassed, so that the enclosing transaction
+   * sees entities it manages.
+   *
+   * @param type   the model type returned by the getter.
+   * @param owner  the owner passed to the getter.
+   * @param time   the time passed to the getter.
+   * @param shape  identifies the query, normally the name of the named query.
+   * @param params all other values which determine the result, e.g. continuation ID and maximum results.
+   * @param query  the getter query.
+   * @param <A>    the model type returned by the getter.
+   * @return the getter result.
+   * @throws ExecutionException if the query fails.
+   */
+  public static <A extends CachedData> List<A> runCached(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long time,
+      final String shape,
+      final Object[] params,
+      final RunInTransaction<List<A>> query) throws ExecutionException {
+    if (inTransaction()) return runReadOnly(query);
+    // Read the epoch first so that a result read concurrently with a write is not cached as current
+    ModelEpoch epoch = runReadOnly(() -> ResultCache.epoch(EveKitUserAccountProvider.getFactory()
+                                                                                    .getEntityManager(), type, owner));
+    List<A> result = resultCache.get(type, owner, time, shape, params, epoch);
+    if (result != null) return result;
+    result = runReadOnly(query);
+    if (result != null && epoch != null && loadForCache(result))
+      resultCache.put(type, owner, time, shape, params, epoch, result);
+    return result;
+  }
+
+  /**
+   * Point-in-time list results are cached by {@link #runCached(Class, SynchronizedEveAccount, long, String, Object[], RunInTransaction)}
+   * until entities of the same type and owner are written.  The returned cache reports how well this is working.
+   *
+   * @return the result cache.
+   */
+  public static ResultCache getResultCache() {
+    return resultCache;
+  }
+
+  /**
+   * Committed writes through {@link #update(CachedData)}, {@link #insertAll(Collection)}, {@link #updateAll(Collection)},
+   * {@link #evolveAll(List, List, long)}, {@link #endOfLife(Collection, long)}, account cleanup and
+   * {@link ModelWriteQueue} are published to this bus.  Events are published when the transaction containing the
+   * write commits.  When these methods are called inside a caller's transaction, their events are held until the
+   * outermost transaction commits and are dropped if it rolls back.
+   *
+   * @return the model event bus.
+   */
+  public static ModelEventBus getEventBus() {
+    return eventBus;
+  }
+
+  // Event list for a write transaction, or null if nobody is listening
+  static List<ModelEvent> newEvents() {
+    return eventBus.hasListeners() ? new ArrayList<>() : null;
+  }
+
+  // Publish the events of a write when the current transaction commits.  Writes nested in a caller's transaction
+  // are only committed with the outermost transaction, so listeners never see a write which is later rolled back.
+  // The caller must already be in a transaction.
+  static void publishOnCommit(
+      EntityManager em,
+      final List<ModelEvent> events) {
+    if (events == null || events.isEmpty()) return;
+    em.unwrap(Session.class)
+      .getTransaction()
+      .registerSynchronization(new Synchronization() {
+        @Override
+        public void beforeCompletion() {}
+
+        @Override
+        public void afterCompletion(int status) {
+          if (status == Status.STATUS_COMMITTED) eventBus.publish(events);
+        }
+      });
+  }
+
+  /**
+   * Read all entities of several model types owned by an account and live at a given time.  Each type is read
+   * in its own read-only transaction, and types are read concurrently on a shared pool of "snapshotthreads"
+   * threads.  This replaces a sequence of type specific getters, e.g. to render a whole character.
+   *
+   * @param owner the owner of the entities.
+   * @param time  the time at which entities must be live.
+   * @param types the model types to read.
+   * @return the snapshot.
+   * @throws IOException on any DB error.
+   */
+  public static ModelSnapshot snapshot(
+      final SynchronizedEveAccount owner,
+      final long time,
+      final Collection<Class<? extends CachedData>> types) throws IOException {
+    return snapshot(owner, time, types, false);
+  }
+
+  /**
+   * Same as {@link #snapshot(SynchronizedEveAccount, long, Collection)} with control over consistency.  If
+   * consistent is set, then all types are read one after another in a single read-only transaction.  This is
+   * slower, but no type can reflect a sync which committed after another type was read, provided the database
+   * isolation level gives each transaction a stable view (e.g. REPEATABLE READ on MySQL).  Snapshots requested
+   * within an existing transaction are always read in that transaction.
+   *
+   * @param owner      the owner of the entities.
+   * @param time       the time at which entities must be live.
+   * @param types      the model types to read.
+   * @param consistent if true, read all types in a single transaction.
+   * @return the snapshot.
+   * @throws IOException on any DB error.  If concurrent reads fail, the first failure is thrown once all reads
+   *                     have completed.
+   */
+  public static ModelSnapshot snapshot(
+      final SynchronizedEveAccount owner,
+      final long time,
+      final Collection<Class<? extends CachedData>> types,
+      final boolean consistent) throws IOException {
+    final List<Class<? extends CachedData>> requested = new ArrayList<>(new LinkedHashSet<>(types));
+    final Map<Class<? extends CachedData>, List<? extends CachedData>> data = new LinkedHashMap<>();
+    if (consistent || inTransaction()) {
+      try {
+        runReadOnly(() -> {
+          for (Class<? extends CachedData> next : requested)
+            data.put(next, readLive(next, owner, time));
+          return null;
+        });
+      } catch (Exception e) {
+        if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+        log.log(Level.SEVERE, "query error", e);
+        throw new IOException(e.getCause());
+      }
+      return new ModelSnapshot(owner, time, true, data);
+    }
+    ExecutorService exec = snapshotExecutor();
+    Map<Class<? extends CachedData>, Future<List<? extends CachedData>>> pending = new LinkedHashMap<>();
+    for (Class<? extends CachedData> next : requested) {
+      Callable<List<? extends CachedData>> read = () -> runReadOnly(() -> readLive(next, owner, time));
+      pending.put(next, exec.submit(read));
+    }
+    IOException failure = null;
+    for (Entry<Class<? extends CachedData>, Future<List<? extends CachedData>>> next : pending.entrySet()) {
+      try {
+        data.put(next.getKey(), next.getValue()
+                                    .get());
+      } catch (ExecutionException e) {
+        log.log(Level.SEVERE, "query error", e);
+        if (failure == null) failure = new IOException(e.getCause());
+      } catch (InterruptedException e) {
+        for (Future<?> remaining : pending.values())
+          remaining.cancel(true);
+        Thread.currentThread()
+              .interrupt();
+        throw new IOException(e);
+      }
+    }
+    if (failure != null) throw failure;
+    return new ModelSnapshot(owner, time, false, data);
+  }
+
+  // Read all entities of the given type owned by the given account and live at the given time, in pages
+  // of "updatebatch" entities.  The caller must already be in a transaction.
+  private static <A extends CachedData> List<A> readLive(
+      Class<A> type,
+      SynchronizedEveAccount owner,
+      long time) {
+    EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                .getEntityManager();
+    String query = "SELECT c FROM " + em.getMetamodel()
+                                        .entity(type)
+                                        .getName() +
+        " c WHERE c.owner = :owner AND c.cid > :contid AND c.lifeStart <= :point AND c.lifeEnd > :point" +
+        " ORDER BY c.cid ASC";
+    int pageSize = updateBatchSize();
+    List<A> result = new ArrayList<>();
+    long contid = 0;
+    while (true) {
+      List<A> page = em.createQuery(query, type)
+                       .setParameter("owner", owner)
+                       .setParameter("contid", contid)
+                       .setParameter("point", time)
+                       .setMaxResults(pageSize)
+                       .getResultList();
+      result.addAll(page);
+      if (page.size() < pageSize) return result;
+      contid = page.get(page.size() - 1)
+                   .getCid();
+    }
+  }
+
+  private static ExecutorService snapshotExecutor() {
+    ExecutorService current = snapshotExecutor;
+    if (current == null) {
+      synchronized (CachedData.class) {
+        if (snapshotExecutor == null) {
+          int threads = (int) PersistentProperty.getLongPropertyWithFallback(
+              OrbitalProperties.getPropertyName(CachedData.class, "snapshotthreads"), DEFAULT_SNAPSHOT_THREADS);
+          snapshotExecutor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "model-snapshot");
+            t.setDaemon(true);
+            return t;
+          });
+        }
+        current = snapshotExecutor;
+      }
+    }
+    return current;
+  }
+
   public static CachedData get(
                                final long cid,
                                final String tableName) {
     try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(new RunInTransaction<CachedData>() {
+      return runReadOnly(new RunInTransaction<CachedData>() {
         @Override
         public CachedData run() throws Exception {
           TypedQuery<CachedData> getter = EveKitUserAccountProvider.getFactory().getEntityManager()
@@ -440,33 +1443,524 @@ public abstract class CachedData {
 
   public static CachedData get(
                                final long cid) {
-    String type = ModelTypeMap.retrieveType(cid);
-    if (type == null) return null;
-    return CachedData.get(cid, type);
+    // End-of-life entities never change, so may be served from the history cache
+    boolean cached = !inTransaction();
+    if (cached) {
+      CachedData hit = historyCache.get(cid, CachedData::currentEpoch);
+      if (hit != null) return hit;
+    }
+    try {
+      final ModelEpoch[] epoch = new ModelEpoch[1];
+      CachedData result = runReadOnly(new RunInTransaction<CachedData>() {
+        @Override
+        public CachedData run() throws Exception {
+          String type = retrieveType(cid);
+          if (type == null) return null;
+          // The type and owner of an entity never change, so the epoch can be read before the entity itself
+          if (cached) epoch[0] = ResultCache.epoch(EveKitUserAccountProvider.getFactory()
+                                                                            .getEntityManager(), type,
+                                                   retrieveOwner(cid));
+          return CachedData.get(cid, type);
+        }
+      });
+      if (cached && result != null && epoch[0] != null && result.getLifeEnd() != Long.MAX_VALUE &&
+          loadForCache(Collections.singletonList(result))) historyCache.put(result, epoch[0]);
+      return result;
+    } catch (Exception e) {
+      log.log(Level.SEVERE, "query error", e);
+    }
+    return null;
   }
 
+  /**
+   * Retrieve the concrete model type of a stored entity from the type discriminator column.  Entities stored
+   * before the discriminator column was introduced fall back to the legacy type map until they are migrated
+   * with {@link ModelTypeMap#migrate(int)}.  The caller must already be in a transaction.
+   *
+   * @param cid the ID of the entity.
+   * @return the entity name of the concrete model type, or null if no entity exists with the given ID.
+   */
+  static String retrieveType(
+                             long cid) {
+    EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                .getEntityManager();
+    @SuppressWarnings("unchecked")
+    List<String> types = em.createNativeQuery("SELECT typeName FROM evekit_cached_data WHERE cid = :cid")
+                           .setParameter("cid", cid)
+                           .getResultList();
+    if (!types.isEmpty() && types.get(0) != null) return types.get(0);
+    List<String> legacy = em.createQuery("SELECT c.typeName FROM ModelTypeMap c WHERE c.cid = :cid", String.class)
+                            .setParameter("cid", cid)
+                            .getResultList();
+    return legacy.isEmpty() ? null : legacy.get(0);
+  }
+
+  // Account ID of the owner of a stored entity.  The caller must already be in a transaction.
+  private static long retrieveOwner(
+                                    long cid) {
+    return ((Number) EveKitUserAccountProvider.getFactory()
+                                              .getEntityManager()
+                                              .createNativeQuery("SELECT aid FROM evekit_cached_data WHERE cid = :cid")
+                                              .setParameter("cid", cid)
+                                              .getSingleResult()).longValue();
+  }
+
+  /**
+   * Store an entity.  Entities which have never been stored are inserted with {@link EntityManager#persist(Object)},
+   * while previously stored (detached) entities are merged.
+   *
+   * @param data the entity to store.
+   * @param <A>  subclass of CachedData being stored.
+   * @return the stored entity.  This is the passed entity for inserts, and a copy for merges.
+   * @throws IOException on any DB error.  An entity which has never been stored is left unstored.
+   */
   public static <A extends CachedData> A update(
       final A data) throws IOException {
+    final List<ModelEvent> events = newEvents();
+    final boolean fresh = data.getCid() == 0;
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                  .runTransaction(() -> {
-                                    A result = EveKitUserAccountProvider.getFactory()
-                                                                    .getEntityManager()
-                                                                    .merge(data);
-                                    // Ensure type map entry exists
-                                    String typeName = data.getClass()
-                                                          .getSimpleName();
-                                    ModelTypeMap tn = new ModelTypeMap(result.getCid(), typeName);
-                                    if (ModelTypeMap.update(tn) == null) return null;
-                                    return result;
-                                  });
+      A result = EveKitUserAccountProvider.getFactory()
+                                          .runTransaction(() -> {
+                                            EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                                                        .getEntityManager();
+                                            A written = write(em, data, events);
+                                            ResultCache.modified(em, Collections.singletonList(written));
+                                            publishOnCommit(em, events);
+                                            return written;
+                                          });
+      return result;
     } catch (Exception e) {
+      // An ID assigned by the rolled back insert is discarded so the entity can be stored again
+      if (fresh) clearCid(data);
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
       throw new IOException(e.getCause());
     }
   }
 
+  /**
+   * Insert an entity which has never been stored.  Unlike {@link #update(CachedData)}, this never merges: the
+   * entity is persisted, flushed and then detached so that it is not tracked for changes when the transaction
+   * commits.  This is the cheapest way to store a freshly created entity, particularly one with element
+   * collections which a merge would copy.
+   *
+   * @param data the entity to insert.
+   * @param <A>  subclass of CachedData being inserted.
+   * @return the passed entity, with its assigned ID.
+   * @throws IOException on any DB error.
+   * @throws IllegalArgumentException if the entity has already been stored.
+   */
+  public static <A extends CachedData> A insert(
+      final A data) throws IOException {
+    return insertAll(Collections.singletonList(data)).get(0);
+  }
+
+  /**
+   * Bulk form of {@link #insert(CachedData)}.  Entities are inserted in chunks with one transaction per chunk.
+   * The persistence context is flushed and cleared every "flushinterval" entities and at the end of each
+   * chunk, so that inserts are batched and nothing is left to check for changes at commit.
+   *
+   * @param data the entities to insert.
+   * @param <A>  subclass of CachedData being inserted.
+   * @return the passed entities, in order, with their assigned IDs.
+   * @throws IOException on any DB error.  Chunks committed before the error are not rolled back, entities in
+   *                     later chunks are left unstored.
+   * @throws IllegalArgumentException if any entity has already been stored.  No entities are inserted.
+   */
+  public static <A extends CachedData> List<A> insertAll(
+      final Collection<A> data) throws IOException {
+    for (A next : data)
+      if (next.getCid() != 0) throw new IllegalArgumentException("entity has already been stored: " + next);
+    final int batchSize = updateBatchSize();
+    final int flushInterval = flushInterval();
+    List<A> source = new ArrayList<>(data);
+    for (int i = 0; i < source.size(); i += batchSize) {
+      List<A> chunk = source.subList(i, Math.min(i + batchSize, source.size()));
+      try {
+        writeChunk(chunk, flushInterval, true);
+      } catch (IOException e) {
+        // IDs assigned in the rolled back chunk are discarded so the entities can be inserted again
+        for (A next : chunk)
+          clearCid(next);
+        throw e;
+      }
+    }
+    return source;
+  }
+
+  /**
+   * Store a collection of entities.  This is equivalent to calling {@link #update(CachedData)} on each
+   * element of the collection, except that entities are written in chunks with one transaction per chunk,
+   * and the persistence context is flushed and cleared periodically so that JDBC statement batching can
+   * be used.  Entities returned by this method are detached.
+   * <p>
+   * This method should not be called from within an existing transaction as clearing the persistence
+   * context will detach any entities managed by the enclosing transaction.
+   *
+   * @param data the entities to store.
+   * @param <A>  subclass of CachedData being stored.
+   * @return the stored entities, in the same order as the input collection.
+   * @throws IOException on any DB error.  Chunks committed before the error are not rolled back.
+   */
+  public static <A extends CachedData> List<A> updateAll(
+      final Collection<A> data) throws IOException {
+    List<A> result = new ArrayList<>(data.size());
+    updateAll(data.stream(), result::add);
+    return result;
+  }
+
+  /**
+   * Streaming form of {@link #updateAll(Collection)}.  Entities are pulled from the stream one chunk at a time
+   * so that arbitrarily large sync batches can be written without holding every entity in memory.
+   *
+   * @param data      the entities to store.
+   * @param persisted optional consumer which will receive each stored (detached) entity after its chunk commits.
+   * @param <A>       subclass of CachedData being stored.
+   * @return the number of entities stored.
+   * @throws IOException on any DB error.  Chunks committed before the error are not rolled back.
+   */
+  public static <A extends CachedData> long updateAll(
+      final Stream<A> data,
+      final Consumer<? super A> persisted) throws IOException {
+    final int batchSize = updateBatchSize();
+    final int flushInterval = flushInterval();
+    Iterator<A> source = data.iterator();
+    List<A> chunk = new ArrayList<>(batchSize);
+    long count = 0;
+    while (source.hasNext()) {
+      chunk.clear();
+      while (source.hasNext() && chunk.size() < batchSize)
+        chunk.add(source.next());
+      for (A next : writeChunk(chunk, flushInterval, false)) {
+        if (persisted != null) persisted.accept(next);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  static int updateBatchSize() {
+    return (int) PersistentProperty.getLongPropertyWithFallback(
+        OrbitalProperties.getPropertyName(CachedData.class, "updatebatch"), DEFAULT_UPDATE_BATCH_SIZE);
+  }
+
+  private static int flushInterval() {
+    return (int) PersistentProperty.getLongPropertyWithFallback(
+        OrbitalProperties.getPropertyName(CachedData.class, "flushinterval"), DEFAULT_FLUSH_INTERVAL);
+  }
+
+  // Write a chunk of entities in one transaction.  If insertOnly is set, then every entity must be new and the
+  // persistence context is also cleared before commit.
+  private static <A extends CachedData> List<A> writeChunk(
+      final List<A> chunk,
+      final int flushInterval,
+      final boolean insertOnly) throws IOException {
+    final List<ModelEvent> events = newEvents();
+    try {
+      List<A> result = EveKitUserAccountProvider.getFactory()
+                                      .runTransaction(() -> {
+                                        EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                                                    .getEntityManager();
+                                        List<A> written = new ArrayList<>(chunk.size());
+                                        for (A next : chunk) {
+                                          written.add(insertOnly ? insert(em, next, events) : write(em, next, events));
+                                          if (written.size() % flushInterval == 0) {
+                                            em.flush();
+                                            em.clear();
+                                          }
+                                        }
+                                        if (insertOnly) {
+                                          em.flush();
+                                          em.clear();
+                                        }
+                                        ResultCache.modified(em, written);
+                                        publishOnCommit(em, events);
+                                        return written;
+                                      });
+      return result;
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Set the allocator used to assign IDs to new entities.  This should normally be called once at startup,
+   * before any entities are stored.
+   *
+   * @param allocator the new allocator.
+   */
+  public static void setCidAllocator(
+      CidAllocator allocator) {
+    cidAllocator = allocator;
+  }
+
+  /**
+   * Get the allocator used to assign IDs to new entities.  If no allocator has been set, then a
+   * {@link BlockCidAllocator} is created with a block size given by the "cidblock" property.
+   *
+   * @return the current allocator.
+   */
+  public static CidAllocator getCidAllocator() {
+    CidAllocator current = cidAllocator;
+    if (current == null) {
+      synchronized (CachedData.class) {
+        if (cidAllocator == null) {
+          int blockSize = (int) PersistentProperty.getLongPropertyWithFallback(
+              OrbitalProperties.getPropertyName(CachedData.class, "cidblock"), DEFAULT_CID_BLOCK_SIZE);
+          cidAllocator = new BlockCidAllocator(BlockCidAllocator.DEFAULT_NAME, blockSize);
+        }
+        current = cidAllocator;
+      }
+    }
+    return current;
+  }
+
+  // Store an entity using the current entity manager.  New entities are assigned an ID from the current
+  // allocator and persisted directly, existing entities are merged.  The concrete type of the entity is
+  // recorded in the discriminator column of the base table.  The caller must already be in a transaction.
+  static <A extends CachedData> A write(
+      EntityManager em,
+      A data) throws IOException {
+    return write(em, data, null);
+  }
+
+  // Same as write(EntityManager, CachedData), adding an event describing the write to the given list if it is
+  // not null.  Stored entities may only change by ending their lifeline or changing meta data, so the stored
+  // version is loaded before the merge (which would load it anyway) to tell the two apart.
+  static <A extends CachedData> A write(
+      EntityManager em,
+      A data,
+      List<ModelEvent> events) throws IOException {
+    if (data.getCid() == 0) return insert(em, data, events);
+    // Stored entities may only change meta data once ended, but any write invalidates a cached copy
+    historyCache.invalidate(data.getCid());
+    if (events != null) {
+      CachedData stored = em.find(data.getClass(), data.getCid());
+      boolean ended = stored != null && stored.getLifeEnd() == Long.MAX_VALUE && data.getLifeEnd() != Long.MAX_VALUE;
+      events.add(ended ? ModelEvent.ended(data, data.getLifeEnd()) : ModelEvent.metaDataChanged(data));
+    }
+    return em.merge(data);
+  }
+
+  // Insert a new entity using the current entity manager.  The caller must already be in a transaction.
+  private static <A extends CachedData> A insert(
+      EntityManager em,
+      A data,
+      List<ModelEvent> events) throws IOException {
+    CachedData target = data;
+    target.cid = getCidAllocator().allocate();
+    em.persist(data);
+    if (events != null) events.add(ModelEvent.created(data));
+    return data;
+  }
+
+  // Discard an ID assigned by a write which was subsequently rolled back, so that a retry persists the
+  // entity instead of merging it.
+  static void clearCid(
+      CachedData data) {
+    data.cid = 0;
+  }
+
+  /**
+   * Persist the evolution of an existing entity to a successor.  The lifeline of the existing entity is ended
+   * at the given time and the successor is inserted as the next version of the entity in the same transaction.
+   * This is the persistent equivalent of calling {@link #evolve(CachedData, long)} followed by
+   * {@link #update(CachedData)} on both entities, except that the existing entity is ended with a single bulk
+   * update rather than a merge of the full entity.
+   * <p>
+   * The existing entity is only ended if it is still live in storage.  If another writer has already evolved
+   * the entity then an IOException is thrown and no changes are made.
+   *
+   * @param existing  the stored entity to end.
+   * @param successor the new version of the entity.
+   * @param time      the time at which the existing entity is ended and the successor starts.
+   * @param <A>       subclass of CachedData being evolved.
+   * @return the stored successor.
+   * @throws IOException on any DB error, or if the existing entity is no longer live.
+   */
+  public static <A extends CachedData> A evolve(
+      final CachedData existing,
+      final A successor,
+      final long time) throws IOException {
+    return evolveAll(Collections.singletonList(existing), Collections.singletonList(successor), time).get(0);
+  }
+
+  /**
+   * Bulk form of {@link #evolve(CachedData, CachedData, long)}.  The i'th element of the existing list is
+   * evolved to the i'th element of the successor list.  Entities are processed in chunks with one
+   * transaction per chunk.  If any existing entity in a chunk is no longer live, then the chunk is rolled back
+   * and an IOException is thrown.  Chunks committed before the error are not rolled back.  Entities in a rolled
+   * back chunk are restored to their state before the call, so the evolve can be retried.
+   *
+   * @param existing   the stored entities to end.
+   * @param successors the new versions of the existing entities.
+   * @param time       the time at which existing entities are ended and successors start.
+   * @param <A>        subclass of CachedData being evolved.
+   * @return the stored successors, in the same order as the successor list.
+   * @throws IOException on any DB error, or if an existing entity is no longer live.
+   */
+  public static <A extends CachedData> List<A> evolveAll(
+      final List<? extends CachedData> existing,
+      final List<A> successors,
+      final long time) throws IOException {
+    if (existing.size() != successors.size())
+      throw new IllegalArgumentException("existing and successor lists must be the same size");
+    final int batchSize = updateBatchSize();
+    final int flushInterval = flushInterval();
+    List<A> result = new ArrayList<>(successors.size());
+    for (int i = 0; i < existing.size(); i += batchSize) {
+      final List<? extends CachedData> oldChunk = existing.subList(i, Math.min(i + batchSize, existing.size()));
+      final List<A> newChunk = successors.subList(i, Math.min(i + batchSize, successors.size()));
+      // Meta data is copied to successors, so load it for the whole chunk up front
+      fetchMetaData(oldChunk);
+      final List<ModelEvent> events = newEvents();
+      final long[] previousEnds = new long[oldChunk.size()];
+      final boolean[] fresh = new boolean[newChunk.size()];
+      for (int j = 0; j < oldChunk.size(); j++) {
+        previousEnds[j] = oldChunk.get(j)
+                                  .getLifeEnd();
+        fresh[j] = newChunk.get(j)
+                           .getCid() == 0;
+      }
+      try {
+        result.addAll(EveKitUserAccountProvider.getFactory()
+                                               .runTransaction(() -> {
+                                                 EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                                                             .getEntityManager();
+                                                 int ended = endOfLife(em, oldChunk, time);
+                                                 if (ended != oldChunk.size())
+                                                   throw new IOException((oldChunk.size() - ended) +
+                                                                             " entities are no longer live, evolve aborted");
+                                                 List<A> written = new ArrayList<>(newChunk.size());
+                                                 for (int j = 0; j < oldChunk.size(); j++) {
+                                                   oldChunk.get(j)
+                                                           .evolve(newChunk.get(j), time);
+                                                   written.add(write(em, newChunk.get(j)));
+                                                   if (events != null)
+                                                     events.add(ModelEvent.evolved(oldChunk.get(j), newChunk.get(j),
+                                                                                   time));
+                                                   if (written.size() % flushInterval == 0) {
+                                                     em.flush();
+                                                     em.clear();
+                                                   }
+                                                 }
+                                                 // Existing entities are only changed from the evolve time, when
+                                                 // successors start
+                                                 List<CachedData> changed = new ArrayList<>(oldChunk);
+                                                 changed.addAll(written);
+                                                 ResultCache.modified(em, changed, time);
+                                                 publishOnCommit(em, events);
+                                                 return written;
+                                               }));
+      } catch (Exception e) {
+        // Undo in-memory changes from the rolled back chunk, as ModelWriteQueue does for a failed batch
+        for (int j = 0; j < oldChunk.size(); j++) {
+          oldChunk.get(j)
+                  .setLifeEnd(previousEnds[j]);
+          if (fresh[j]) clearCid(newChunk.get(j));
+        }
+        if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+        log.log(Level.SEVERE, "query error", e);
+        throw new IOException(e.getCause());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * End the lifeline of a collection of stored entities without creating successors.  Lifelines are ended
+   * with bulk updates in chunks of one transaction each.  Entities which are no longer live in storage are
+   * skipped.  The in-memory state of the passed entities is not changed.
+   *
+   * @param toEnd the stored entities to end.
+   * @param time  the time at which the entities are ended.
+   * @return the number of entities actually ended.
+   * @throws IOException on any DB error.
+   */
+  public static long endOfLife(
+      final Collection<? extends CachedData> toEnd,
+      final long time) throws IOException {
+    final int batchSize = updateBatchSize();
+    final List<Long> cids = cidsOf(toEnd);
+    final List<CachedData> entities = new ArrayList<>(toEnd);
+    long count = 0;
+    for (int i = 0; i < cids.size(); i += batchSize) {
+      final List<Long> chunk = cids.subList(i, Math.min(i + batchSize, cids.size()));
+      final List<CachedData> chunkEntities = entities.subList(i, i + chunk.size());
+      final List<ModelEvent> events = newEvents();
+      try {
+        count += EveKitUserAccountProvider.getFactory()
+                                          .runTransaction(() -> {
+                                            EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                                                        .getEntityManager();
+                                            if (events != null) {
+                                              // Only entities still live are ended
+                                              Set<Long> live = new HashSet<>(liveOf(em, chunk));
+                                              for (CachedData next : chunkEntities)
+                                                if (live.contains(next.getCid()))
+                                                  events.add(ModelEvent.ended(next, time));
+                                            }
+                                            int ended = endOfLife(em, chunkEntities, time);
+                                            ResultCache.modified(em, chunkEntities, time);
+                                            publishOnCommit(em, events);
+                                            return ended;
+                                          });
+      } catch (Exception e) {
+        if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+        log.log(Level.SEVERE, "query error", e);
+        throw new IOException(e.getCause());
+      }
+    }
+    return count;
+  }
+
+  private static List<Long> cidsOf(
+      Collection<? extends CachedData> data) {
+    List<Long> cids = new ArrayList<>(data.size());
+    for (CachedData next : data) {
+      if (next.getCid() == 0) throw new IllegalArgumentException("entity has not been stored: " + next);
+      cids.add(next.getCid());
+    }
+    return cids;
+  }
+
+  // Return the IDs of the given entities which are still live.  The caller must already be in a transaction.
+  private static List<Long> liveOf(
+      EntityManager em,
+      List<Long> cids) {
+    if (cids.isEmpty()) return Collections.emptyList();
+    return em.createQuery("SELECT c.cid FROM CachedData c WHERE c.cid IN :cids AND c.lifeEnd = :live", Long.class)
+             .setParameter("cids", cids)
+             .setParameter("live", Long.MAX_VALUE)
+             .getResultList();
+  }
+
+  // End the lifeline of the given live entities using the current entity manager.  The update is
+  // conditional on the entity still being live so that two concurrent writers can't both end the
+  // same entity.  Returns the number of entities actually ended.  The caller must already be in a transaction.
+  static int endOfLife(
+      EntityManager em,
+      List<? extends CachedData> entities,
+      long time) {
+    if (entities.isEmpty()) return 0;
+    int ended = em.createQuery("UPDATE CachedData c SET c.lifeEnd = :end WHERE c.cid IN :cids AND c.lifeEnd = :live")
+                  .setParameter("end", time)
+                  .setParameter("cids", cidsOf(entities))
+                  .setParameter("live", Long.MAX_VALUE)
+                  .executeUpdate();
+    // Keep lifeline copies on subclass tables in step
+    Map<String, List<Long>> indexed = new HashMap<>();
+    for (CachedData next : entities)
+      if (next instanceof LifelineIndexedData)
+        indexed.computeIfAbsent(LifelineIndexedData.tableOf(next.getClass()), k -> new ArrayList<>())
+               .add(next.getCid());
+    for (Map.Entry<String, List<Long>> next : indexed.entrySet())
+      LifelineIndexedData.endOfLife(em, next.getKey(), next.getValue(), time);
+    return ended;
+  }
+
   public static void cleanup(
                              final SynchronizedEveAccount toRemove,
                              final String tableName) {
@@ -476,6 +1970,7 @@ public abstract class CachedData {
     try {
       long lastRemoved = 0;
       do {
+        final List<ModelEvent> events = newEvents();
         lastRemoved = EveKitUserAccountProvider.getFactory().runTransaction(new RunInTransaction<Long>() {
           @Override
           public Long run() throws Exception {
@@ -484,11 +1979,15 @@ public abstract class CachedData {
                 .createQuery("SELECT c FROM " + tableName + " c where c.owner = :owner", CachedData.class);
             query.setParameter("owner", toRemove);
             query.setMaxResults(1000);
+            List<Long> cids = new ArrayList<>();
             for (CachedData next : query.getResultList()) {
               EveKitUserAccountProvider.getFactory().getEntityManager().remove(next);
-              ModelTypeMap.cleanup(next.getCid());
+              cids.add(next.getCid());
+              if (events != null) events.add(ModelEvent.removed(next));
               removed++;
             }
+            ModelTypeMap.cleanup(cids);
+            publishOnCommit(EveKitUserAccountProvider.getFactory().getEntityManager(), events);
             return removed;
           }
         });
@@ -497,9 +1996,65 @@ public abstract class CachedData {
     } catch (Exception e) {
       log.log(Level.SEVERE, "query error", e);
     }
+    // After removal, so that entities read during cleanup are not left behind
+    historyCache.invalidate(toRemove);
+    try {
+      resultCache.invalidate(toRemove);
+    } catch (IOException e) {
+      log.log(Level.SEVERE, "query error", e);
+    }
     log.info("Removed " + removeCount + " entities from " + toRemove);
   }
 
+  // Interface to receive progress updates from cleanupAll
+  public interface CleanupProgress {
+    /**
+     * Called after each chunk of entities has been removed.
+     *
+     * @param entityName   the model type which was cleaned up.
+     * @param typeRemoved  number of entities of this type removed so far.
+     * @param totalRemoved number of entities of all types removed so far.
+     */
+    void removed(String entityName, long typeRemoved, long totalRemoved);
+  }
+
+  /**
+   * Remove all model data owned by the given account.  Unlike {@link #cleanup(SynchronizedEveAccount, String)},
+   * this covers every model type registered with the persistence unit and removes data with bulk deletes in
+   * bounded chunks rather than loading and removing each entity.  Chunk size and the number of model types
+   * cleaned up in parallel are set by the "cleanupchunk" and "cleanupthreads" properties.
+   *
+   * @param toRemove the account whose data should be removed.
+   * @return the number of entities removed.
+   * @throws IOException if any model type could not be cleaned up.  Other model types are still cleaned up.
+   */
+  public static long cleanupAll(
+      final SynchronizedEveAccount toRemove) throws IOException {
+    return cleanupAll(toRemove, null);
+  }
+
+  /**
+   * Same as {@link #cleanupAll(SynchronizedEveAccount)} with progress reporting.
+   *
+   * @param toRemove the account whose data should be removed.
+   * @param progress optional progress listener.  This may be called concurrently from multiple threads.
+   * @return the number of entities removed.
+   * @throws IOException if any model type could not be cleaned up.  Other model types are still cleaned up.
+   */
+  public static long cleanupAll(
+      final SynchronizedEveAccount toRemove,
+      final CleanupProgress progress) throws IOException {
+    int chunkSize = (int) PersistentProperty.getLongPropertyWithFallback(
+        OrbitalProperties.getPropertyName(CachedData.class, "cleanupchunk"), DEFAULT_CLEANUP_CHUNK_SIZE);
+    int parallelism = (int) PersistentProperty.getLongPropertyWithFallback(
+        OrbitalProperties.getPropertyName(CachedData.class, "cleanupthreads"), DEFAULT_CLEANUP_THREADS);
+    long removed = AccountCleanup.cleanup(toRemove, chunkSize, parallelism, progress);
+    historyCache.invalidate(toRemove);
+    resultCache.invalidate(toRemove);
+    eventBus.publish(Collections.singletonList(ModelEvent.removedAll(toRemove.getAid())));
+    return removed;
+  }
+
   //////////////////////////////////
   // Convenience functions for various types of batch processing
   //////////////////////////////////
@@ -509,13 +2064,18 @@ public abstract class CachedData {
     List<A> query(long contid, AttributeSelector at) throws IOException;
   }
 
+  // Interface which forwards a call to the class specific query function, with a caller chosen page size
+  public interface PagedQueryCaller<A extends CachedData> {
+    List<A> query(long contid, int maxresults, AttributeSelector at) throws IOException;
+  }
+
   // Interface to receive any query exceptions generated from a stream constructed below.
   public interface StreamExceptionHandler {
     void handle(IOException e);
   }
 
   public static class SimpleStreamExceptionHandler implements StreamExceptionHandler {
-    private List<IOException> caught = new ArrayList<>();
+    private List<IOException> caught = Collections.synchronizedList(new ArrayList<>());
 
     public void handle(IOException e) {
       caught.add(e);
@@ -550,80 +2110,115 @@ public abstract class CachedData {
    * @return a stream of CachedData objects.
    */
   public static <A extends CachedData> Stream<A> stream(long time, QueryCaller<A> query, boolean ascending, StreamExceptionHandler exceptionHandler) {
-    return StreamSupport.stream(new Spliterator<A>() {
-      final AttributeSelector ats = AttributeSelector.values(time);
-      boolean done = false;
-      long contid = ascending ? -1 : Long.MAX_VALUE;
-      Deque<A> nextBatch = new ArrayDeque<>();
-
-      private void attemptFill() {
-        if (done || !nextBatch.isEmpty()) return;
-        try {
-          nextBatch.addAll(query.query(contid, ats));
-          if (nextBatch.isEmpty()) {
-            done = true;
-          } else {
-            contid = nextBatch.getLast()
-                              .getCid();
-          }
-        } catch (IOException e) {
-          log.log(Level.FINE, "Query error, truncating stream at last element", e);
-          nextBatch.clear();
-          done = true;
-          if (exceptionHandler != null) exceptionHandler.handle(e);
-        }
-      }
-
-      private boolean hasNext() {
-        attemptFill();
-        return !done;
-      }
-
-      @Override
-      public boolean tryAdvance(Consumer<? super A> action) {
-        if (hasNext()) {
-          action.accept(nextBatch.remove());
-          return true;
-        }
-        return false;
-      }
-
-      @Override
-      public void forEachRemaining(Consumer<? super A> action) {
-        while (hasNext())
-          action.accept(nextBatch.remove());
-      }
-
-      @Override
-      public Spliterator<A> trySplit() {
-        return null;
-      }
-
-      @Override
-      public long estimateSize() {
-        return Long.MAX_VALUE;
-      }
-
-      @Override
-      public long getExactSizeIfKnown() {
-        return -1;
-      }
+    return StreamSupport.stream(new CachedDataSpliterator<>(time, query, ascending, exceptionHandler), false);
+  }
 
-      @Override
-      public int characteristics() {
-        return Spliterator.SORTED | Spliterator.IMMUTABLE | Spliterator.NONNULL;
-      }
+  /**
+   * Same as {@link #stream(long, QueryCaller, boolean, StreamExceptionHandler)} with control over meta data
+   * loading.  If withMetaData is true, then meta data is loaded for each batch returned by the query caller
+   * with a single query, rather than one query per element when meta data is first accessed.
+   *
+   * @param time the time at which objects in the stream should be live.
+   * @param query a QueryCaller which will generate batches of elements as needed
+   * @param ascending true if the stream should will be in ascending order, false otherwise.
+   * @param exceptionHandler an optional interface which will be called if a query error occurs during the stream.
+   * @param withMetaData if true, load meta data for each batch before it is returned by the stream.
+   * @param <A> subclass of CachedData which will be returned by the stream
+   * @return a stream of CachedData objects.
+   */
+  public static <A extends CachedData> Stream<A> stream(long time, QueryCaller<A> query, boolean ascending,
+                                                        StreamExceptionHandler exceptionHandler,
+                                                        boolean withMetaData) {
+    return StreamSupport.stream(new CachedDataSpliterator<>(time, query, ascending, exceptionHandler)
+                                    .withMetaData(withMetaData), false);
+  }
 
-      @Override
-      public boolean hasCharacteristics(int characteristics) {
-        return ((Spliterator.SORTED | Spliterator.IMMUTABLE | Spliterator.NONNULL) & characteristics) > 0;
-      }
+  /**
+   * Return a stream over a collection of CachedData ordered by CachedData ID, fetching pages ahead of the
+   * consumer.  While the consumer processes one page, a background thread fetches following pages, up to the
+   * number of pages set by the "prefetchdepth" property.  The page size starts at a fixed value and is then
+   * adjusted so that each fetch takes roughly the time set by the "prefetchlatency" property (in milliseconds),
+   * within the limits set by the "prefetchminpage" and "prefetchmaxpage" properties.  Closing the stream stops
+   * any outstanding fetch.
+   * <p>
+   * Query errors are handled as for {@link #stream(long, QueryCaller, boolean, StreamExceptionHandler)}.
+   *
+   * @param time             the time at which objects in the stream should be live.
+   * @param query            a PagedQueryCaller which will generate pages of the requested size as needed.
+   * @param ascending        true if the stream should will be in ascending order, false otherwise.
+   * @param exceptionHandler an optional interface which will be called if a query error occurs during the stream.
+   * @param stats            optional statistics which will be updated as the stream is consumed.
+   * @param <A>              subclass of CachedData which will be returned by the stream.
+   * @return a stream of CachedData objects.
+   */
+  public static <A extends CachedData> Stream<A> stream(long time, PagedQueryCaller<A> query, boolean ascending,
+                                                        StreamExceptionHandler exceptionHandler, StreamStats stats) {
+    PrefetchingSpliterator<A> source = new PrefetchingSpliterator<>(
+        time, query, ascending, exceptionHandler, stats,
+        (int) PersistentProperty.getLongPropertyWithFallback(
+            OrbitalProperties.getPropertyName(CachedData.class, "prefetchdepth"), DEFAULT_PREFETCH_DEPTH),
+        (int) PersistentProperty.getLongPropertyWithFallback(
+            OrbitalProperties.getPropertyName(CachedData.class, "prefetchminpage"), DEFAULT_PREFETCH_MIN_PAGE),
+        (int) PersistentProperty.getLongPropertyWithFallback(
+            OrbitalProperties.getPropertyName(CachedData.class, "prefetchmaxpage"), DEFAULT_PREFETCH_MAX_PAGE),
+        PersistentProperty.getLongPropertyWithFallback(
+            OrbitalProperties.getPropertyName(CachedData.class, "prefetchlatency"), DEFAULT_PREFETCH_LATENCY));
+    return StreamSupport.stream(source, false)
+                        .onClose(source::cancel);
+  }
 
-      @Override
-      public Comparator<? super A> getComparator() {
-        return ascending ? Comparator.comparingLong(CachedData::getCid) : Comparator.comparingLong(CachedData::getCid).reversed();
-      }
-    }, false);
+  /**
+   * Return a parallel stream over a collection of CachedData.  This is the same as
+   * {@link #stream(long, QueryCaller, boolean, StreamExceptionHandler)} except that the range of CachedData
+   * IDs live for the given owner and type is looked up first, so that the stream can be split into
+   * sub-ranges and each range paged through independently.  Elements are ordered by CachedData ID within each
+   * sub-range.  Use {@link Stream#forEachOrdered(Consumer)} or an ordered collector if global order matters.
+   * Ranges are not split below the number of elements set by the "streamsplit" property.
+   * <p>
+   * If a query error occurs then the affected sub-range is truncated, and the exception handler is called.
+   * The exception handler may be called concurrently from multiple threads.
+   *
+   * @param owner            the owner of the objects in the stream.  This must match the owner used by query.
+   * @param type             the type of the objects in the stream.
+   * @param time             the time at which objects in the stream should be live.
+   * @param query            a QueryCaller which will generate batches of elements as needed.
+   * @param ascending        true if each sub-range should be in ascending order, false otherwise.
+   * @param exceptionHandler an optional interface which will be called if a query error occurs during the stream.
+   * @param <A>              subclass of CachedData which will be returned by the stream.
+   * @return a parallel stream of CachedData objects.
+   */
+  public static <A extends CachedData> Stream<A> parallelStream(SynchronizedEveAccount owner, Class<A> type, long time,
+                                                                QueryCaller<A> query, boolean ascending,
+                                                                StreamExceptionHandler exceptionHandler) {
+    Object[] bounds;
+    try {
+      bounds = runReadOnly(() -> {
+        EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                    .getEntityManager();
+        StringBuilder qs = new StringBuilder();
+        qs.append("SELECT MIN(c.cid), MAX(c.cid), COUNT(c) FROM ")
+          .append(em.getMetamodel()
+                    .entity(type)
+                    .getName())
+          .append(" c WHERE c.owner = :owner");
+        AttributeSelector.addLifelineSelector(qs, "c", AttributeSelector.values(time));
+        return (Object[]) em.createQuery(qs.toString())
+                            .setParameter("owner", owner)
+                            .getSingleResult();
+      });
+    } catch (Exception e) {
+      log.log(Level.SEVERE, "query error", e);
+      if (exceptionHandler != null) exceptionHandler.handle(new IOException(e.getCause()));
+      return Stream.empty();
+    }
+    long count = ((Number) bounds[2]).longValue();
+    if (count == 0) return Stream.empty();
+    long minSplit = PersistentProperty.getLongPropertyWithFallback(
+        OrbitalProperties.getPropertyName(CachedData.class, "streamsplit"), DEFAULT_STREAM_SPLIT_SIZE);
+    return StreamSupport.stream(new CachedDataSpliterator<>(time, query, ascending, exceptionHandler,
+                                                            ((Number) bounds[0]).longValue(),
+                                                            ((Number) bounds[1]).longValue(), count, minSplit),
+                                true);
   }
 
 
@@ -645,4 +2240,153 @@ public abstract class CachedData {
     return collected;
   }
 
+  /**
+   * Same as {@link #retrieveAll(long, QueryCaller)} but pages are fetched ahead of the consumer with an
+   * adaptive page size.
+   *
+   * @param time  the "live" time for the retrieval.
+   * @param query an interface which performs the type appropriate query call with the requested page size.
+   * @param stats optional statistics which will be updated during the retrieval.
+   * @param <A>   class of the object which will be returned.
+   * @return the list of results.
+   * @throws IOException on any DB error.
+   */
+  public static <A extends CachedData> List<A> retrieveAll(long time, PagedQueryCaller<A> query, StreamStats stats)
+      throws IOException {
+    SimpleStreamExceptionHandler capture = new SimpleStreamExceptionHandler();
+    List<A> collected;
+    try (Stream<A> source = stream(time, query, true, capture, stats)) {
+      collected = source.collect(Collectors.toList());
+    }
+    if (capture.hit()) throw capture.getFirst();
+    return collected;
+  }
+
+  /**
+   * Retrieve a page of the change feed for an owner and type.  Entities whose lifeline started in the window
+   * (from, to] are returned as created, and entities whose lifeline ended in the window are returned as ended.
+   * Entries are ordered by {@link ModelChange.Position}.  Pass the position of the last entry of a page to
+   * retrieve the next page.  A page with fewer than maxresults entries is the last page of the window.
+   * <p>
+   * This lets a mirror which is current as of "from" catch up to "to" without reading every live entity: remove
+   * ended entities, then add created entities, in feed order.
+   *
+   * @param type       the model type.
+   * @param owner      the owner of the entities.
+   * @param from       exclusive start of the window.
+   * @param to         inclusive end of the window.
+   * @param after      only entries after this position are returned.  Use {@link ModelChange.Position#START}
+   *                   for the first page.
+   * @param maxresults maximum number of entries to return.
+   * @param <A>        the model type.
+   * @return the feed entries.
+   * @throws IOException on any DB error.
+   */
+  public static <A extends CachedData> List<ModelChange<A>> changes(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long from,
+      final long to,
+      final ModelChange.Position after,
+      final int maxresults) throws IOException {
+    try {
+      // Both sides of the feed are read in one transaction, so with repeatable read isolation they see the same
+      // committed writes
+      return runReadOnly(() -> {
+        List<A> created = changed(type, owner, "lifeStart", from, to, after.getTime(),
+                                  after.getKind() == ModelChange.Kind.CREATED ? after.getCid() : 0, maxresults);
+        // Ended entries sort before created entries at the same time.  Live entities have no end.
+        List<A> ended = changed(type, owner, "lifeEnd", from, Math.min(to, Long.MAX_VALUE - 1), after.getTime(),
+                                after.getKind() == ModelChange.Kind.ENDED ? after.getCid() : Long.MAX_VALUE,
+                                maxresults);
+        return merge(created, ended, maxresults);
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  // Merge created and ended entities, each in feed order, into at most maxresults feed entries
+  private static <A extends CachedData> List<ModelChange<A>> merge(
+      List<A> created,
+      List<A> ended,
+      int maxresults) {
+    List<ModelChange<A>> result = new ArrayList<>(Math.min(maxresults, created.size() + ended.size()));
+    int c = 0;
+    int e = 0;
+    while (result.size() < maxresults && (c < created.size() || e < ended.size())) {
+      ModelChange<A> nextCreated = c < created.size() ? new ModelChange<>(ModelChange.Kind.CREATED,
+                                                                          created.get(c)) : null;
+      ModelChange<A> nextEnded = e < ended.size() ? new ModelChange<>(ModelChange.Kind.ENDED, ended.get(e)) : null;
+      if (nextEnded == null || (nextCreated != null && nextCreated.getPosition()
+                                                                  .compareTo(nextEnded.getPosition()) < 0)) {
+        result.add(nextCreated);
+        c++;
+      } else {
+        result.add(nextEnded);
+        e++;
+      }
+    }
+    return result;
+  }
+
+  // Read entities whose given lifeline column is in (from, to] and after (afterTime, afterCid) in (column, cid)
+  // order, using the index on the column.  The caller must already be in a transaction.
+  private static <A extends CachedData> List<A> changed(
+      Class<A> type,
+      SynchronizedEveAccount owner,
+      String column,
+      long from,
+      long to,
+      long afterTime,
+      long afterCid,
+      int maxresults) {
+    EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                .getEntityManager();
+    String query = "SELECT c FROM " + em.getMetamodel()
+                                        .entity(type)
+                                        .getName() +
+        " c WHERE c.owner = :owner AND c." + column + " > :from AND c." + column + " <= :to" +
+        " AND (c." + column + " > :after OR (c." + column + " = :after AND c.cid > :cid))" +
+        " ORDER BY c." + column + " ASC, c.cid ASC";
+    return em.createQuery(query, type)
+             .setParameter("owner", owner)
+             .setParameter("from", from)
+             .setParameter("to", to)
+             .setParameter("after", afterTime)
+             .setParameter("cid", afterCid)
+             .setMaxResults(maxresults)
+             .getResultList();
+  }
+
+  /**
+   * Stream form of {@link #changes(Class, SynchronizedEveAccount, long, long, ModelChange.Position, int)}.  The
+   * whole window is returned in feed order, fetched in pages of "changepage" entries.  If a query error occurs,
+   * then the stream is truncated at the last entry returned and the exception handler is called.  The position of
+   * the last entry consumed can be used to resume.
+   *
+   * @param type             the model type.
+   * @param owner            the owner of the entities.
+   * @param from             exclusive start of the window.
+   * @param to               inclusive end of the window.
+   * @param after            only entries after this position are returned.
+   * @param exceptionHandler an optional interface which will be called if a query error occurs.
+   * @param <A>              the model type.
+   * @return a stream of feed entries.
+   */
+  public static <A extends CachedData> Stream<ModelChange<A>> changeStream(
+      final Class<A> type,
+      final SynchronizedEveAccount owner,
+      final long from,
+      final long to,
+      final ModelChange.Position after,
+      final StreamExceptionHandler exceptionHandler) {
+    int pageSize = (int) PersistentProperty.getLongPropertyWithFallback(
+        OrbitalProperties.getPropertyName(CachedData.class, "changepage"), DEFAULT_CHANGE_PAGE_SIZE);
+    return StreamSupport.stream(new ChangeSpliterator<>(type, owner, from, to, after, pageSize, exceptionHandler),
+                                false);
+  }
+
 }
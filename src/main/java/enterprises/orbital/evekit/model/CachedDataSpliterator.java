@@ -0,0 +1,185 @@
+package enterprises.orbital.evekit.model;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spliterator over CachedData in cid order, filled one page at a time from a {@link CachedData.QueryCaller}.
+ * A spliterator covers the inclusive cid range [lo, hi].  Pages are requested from the QueryCaller as usual
+ * (i.e. continuing from the last cid returned) and elements outside the range are discarded, which ends
+ * the traversal.  If the number of elements in the range is known, then the spliterator can be split into
+ * two halves by cid range, allowing streams to be processed in parallel.  Each split is still traversed in
+ * cid order.
+ *
+ * @param <A> subclass of CachedData returned by the spliterator.
+ */
+class CachedDataSpliterator<A extends CachedData> implements Spliterator<A> {
+  private static final Logger log = Logger.getLogger(CachedDataSpliterator.class.getName());
+
+  private final AttributeSelector ats;
+  private final CachedData.QueryCaller<A> query;
+  private final boolean ascending;
+  private final CachedData.StreamExceptionHandler exceptionHandler;
+  private final long minSplit;
+  private long lo;
+  private long hi;
+  private long estimate;
+  private boolean withMetaData = false;
+  private boolean started = false;
+  private boolean done = false;
+  private long contid;
+  private Deque<A> nextBatch = new ArrayDeque<>();
+
+  /**
+   * Create a spliterator over all cids.  This spliterator will never split.
+   *
+   * @param time             the time at which returned objects should be live.
+   * @param query            a QueryCaller which will generate batches of elements as needed.
+   * @param ascending        true if elements should be returned in ascending cid order, false otherwise.
+   * @param exceptionHandler an optional interface which will be called if a query error occurs.
+   */
+  CachedDataSpliterator(long time, CachedData.QueryCaller<A> query, boolean ascending,
+                        CachedData.StreamExceptionHandler exceptionHandler) {
+    this(time, query, ascending, exceptionHandler, Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+  }
+
+  /**
+   * Create a spliterator over a cid range.
+   *
+   * @param time             the time at which returned objects should be live.
+   * @param query            a QueryCaller which will generate batches of elements as needed.
+   * @param ascending        true if elements should be returned in ascending cid order, false otherwise.
+   * @param exceptionHandler an optional interface which will be called if a query error occurs.
+   * @param lo               lowest cid (inclusive) returned by this spliterator.
+   * @param hi               highest cid (inclusive) returned by this spliterator.
+   * @param estimate         estimated number of elements in the range, or Long.MAX_VALUE if unknown.
+   * @param minSplit         the spliterator will not split if the estimated size is below this value.
+   */
+  CachedDataSpliterator(long time, CachedData.QueryCaller<A> query, boolean ascending,
+                        CachedData.StreamExceptionHandler exceptionHandler, long lo, long hi, long estimate,
+                        long minSplit) {
+    this(AttributeSelector.values(time), query, ascending, exceptionHandler, lo, hi, estimate, minSplit);
+  }
+
+  private CachedDataSpliterator(AttributeSelector ats, CachedData.QueryCaller<A> query, boolean ascending,
+                                CachedData.StreamExceptionHandler exceptionHandler, long lo, long hi,
+                                long estimate, long minSplit) {
+    this.ats = ats;
+    this.query = query;
+    this.ascending = ascending;
+    this.exceptionHandler = exceptionHandler;
+    this.lo = lo;
+    this.hi = hi;
+    this.estimate = estimate;
+    this.minSplit = Math.max(2, minSplit);
+  }
+
+  /**
+   * Load meta data for each batch before it is returned.  Must be called before traversal starts.
+   *
+   * @param withMetaData if true, load meta data for each batch with a single query.
+   * @return this spliterator.
+   */
+  CachedDataSpliterator<A> withMetaData(boolean withMetaData) {
+    this.withMetaData = withMetaData;
+    return this;
+  }
+
+  private boolean inRange(long cid) {
+    return cid >= lo && cid <= hi;
+  }
+
+  private void attemptFill() {
+    if (done || !nextBatch.isEmpty()) return;
+    if (!started) {
+      // Query callers return elements strictly after contid
+      contid = ascending ? (lo == Long.MIN_VALUE ? -1 : lo - 1) : (hi == Long.MAX_VALUE ? hi : hi + 1);
+      started = true;
+    }
+    try {
+      List<A> page = query.query(contid, ats);
+      if (page.isEmpty()) {
+        done = true;
+        return;
+      }
+      contid = page.get(page.size() - 1)
+                   .getCid();
+      for (A next : page) {
+        if (inRange(next.getCid())) nextBatch.add(next);
+        else done = true;
+      }
+      // Elements outside the range are left for the neighbouring split.  If none were in range we're done
+      // and hasNext will report that immediately.
+      if (nextBatch.isEmpty()) done = true;
+      else if (withMetaData) CachedData.fetchMetaData(nextBatch);
+    } catch (IOException e) {
+      log.log(Level.FINE, "Query error, truncating stream at last element", e);
+      nextBatch.clear();
+      done = true;
+      if (exceptionHandler != null) exceptionHandler.handle(e);
+    }
+  }
+
+  private boolean hasNext() {
+    attemptFill();
+    return !nextBatch.isEmpty();
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super A> action) {
+    if (hasNext()) {
+      action.accept(nextBatch.remove());
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super A> action) {
+    while (hasNext())
+      action.accept(nextBatch.remove());
+  }
+
+  @Override
+  public Spliterator<A> trySplit() {
+    // Only split ranges of known size which have not started traversal
+    if (started || estimate == Long.MAX_VALUE || estimate < minSplit || hi - lo < 1) return null;
+    long mid = lo + (hi - lo) / 2;
+    long half = estimate / 2;
+    CachedDataSpliterator<A> prefix;
+    if (ascending) {
+      prefix = new CachedDataSpliterator<>(ats, query, true, exceptionHandler, lo, mid, estimate - half, minSplit);
+      lo = mid + 1;
+    } else {
+      prefix = new CachedDataSpliterator<>(ats, query, false, exceptionHandler, mid + 1, hi, estimate - half,
+                                           minSplit);
+      hi = mid;
+    }
+    estimate = half;
+    return prefix.withMetaData(withMetaData);
+  }
+
+  @Override
+  public long estimateSize() {
+    return done && nextBatch.isEmpty() ? 0 : estimate;
+  }
+
+  @Override
+  public int characteristics() {
+    return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+  }
+
+  @Override
+  public Comparator<? super A> getComparator() {
+    return ascending ? Comparator.comparingLong(CachedData::getCid) : Comparator.comparingLong(CachedData::getCid)
+                                                                                .reversed();
+  }
+
+}
@@ -0,0 +1,67 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spliterator over a change feed window, fetching one page at a time with keyset continuation.  Each page is read
+ * in its own transaction so no connection is held between pages.  If a query error occurs then the stream is
+ * truncated at the last entry returned and the exception handler is called.
+ *
+ * @param <A> the model type.
+ */
+class ChangeSpliterator<A extends CachedData> extends Spliterators.AbstractSpliterator<ModelChange<A>> {
+  private static final Logger log = Logger.getLogger(ChangeSpliterator.class.getName());
+
+  private final Class<A> type;
+  private final SynchronizedEveAccount owner;
+  private final long from;
+  private final long to;
+  private final int pageSize;
+  private final CachedData.StreamExceptionHandler exceptionHandler;
+  private ModelChange.Position position;
+  private Iterator<ModelChange<A>> page = null;
+  private boolean done = false;
+
+  ChangeSpliterator(Class<A> type, SynchronizedEveAccount owner, long from, long to, ModelChange.Position after,
+                    int pageSize, CachedData.StreamExceptionHandler exceptionHandler) {
+    super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    this.type = type;
+    this.owner = owner;
+    this.from = from;
+    this.to = to;
+    this.position = after;
+    this.pageSize = Math.max(1, pageSize);
+    this.exceptionHandler = exceptionHandler;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super ModelChange<A>> action) {
+    while (!done && (page == null || !page.hasNext())) {
+      try {
+        List<ModelChange<A>> next = CachedData.changes(type, owner, from, to, position, pageSize);
+        done = next.size() < pageSize;
+        page = next.iterator();
+      } catch (IOException e) {
+        log.log(Level.FINE, "Query error, truncating change feed at last element", e);
+        done = true;
+        page = null;
+        if (exceptionHandler != null) exceptionHandler.handle(e);
+      }
+    }
+    if (page == null || !page.hasNext()) return false;
+    ModelChange<A> next = page.next();
+    position = next.getPosition();
+    action.accept(next);
+    return true;
+  }
+
+}
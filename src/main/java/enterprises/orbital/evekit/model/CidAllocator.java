@@ -0,0 +1,21 @@
+package enterprises.orbital.evekit.model;
+
+import java.io.IOException;
+
+/**
+ * Source of unique IDs for new CachedData entities.  Implementations must be thread safe, and must never
+ * return the same ID twice, including across multiple processes writing to the same database.
+ *
+ * @see CachedData#setCidAllocator(CidAllocator)
+ */
+public interface CidAllocator {
+
+  /**
+   * Allocate a new unique ID.
+   *
+   * @return a new unique ID.
+   * @throws IOException if an ID could not be allocated.
+   */
+  long allocate() throws IOException;
+
+}
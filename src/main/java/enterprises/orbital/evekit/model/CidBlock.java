@@ -0,0 +1,38 @@
+package enterprises.orbital.evekit.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Persistent state of a block based ID allocator.  Each row records the next unreserved ID for a named
+ * allocator.  Blocks are reserved by advancing nextValue.
+ *
+ * @see BlockCidAllocator
+ */
+@Entity
+@Table(
+    name = "evekit_cid_block")
+public class CidBlock {
+  @Id
+  private String name;
+  private long   nextValue;
+
+  // No args constructor required for Hibernate
+  @SuppressWarnings("unused")
+  protected CidBlock() {}
+
+  public CidBlock(String name, long nextValue) {
+    this.name = name;
+    this.nextValue = nextValue;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getNextValue() {
+    return nextValue;
+  }
+
+}
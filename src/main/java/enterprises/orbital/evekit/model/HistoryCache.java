@@ -0,0 +1,316 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Bounded LRU cache of end-of-life model entities.  By the lifeline rules of {@link CachedData}, an entity whose
+ * lifeEnd is not Long.MAX_VALUE is never changed again except for its meta data, so it can be served from memory
+ * once it has been read.  Live entities are never cached.  Entities are indexed by cid and, when read through a
+ * natural key getter, by model type, owner and natural key so that a getter at any time within the lifeline of a
+ * cached entity is answered without a query.
+ * <p>
+ * Meta data changes, and removal of account data, may be made by another process sharing the database.  Each
+ * entity is therefore cached with the history epoch of its model type and owner (see {@link ModelEpoch}), read
+ * before the entity, and is only served while that epoch is current.  Every later write of the entity reaches back
+ * to the start of its lifeline, so only entities which started at or before the epoch frontier are cached, and
+ * entities of an owner and type which has no epoch row yet are not cached.  Hits still read the epoch row, which is
+ * much cheaper than the natural key query it replaces.  {@link CachedData#update(CachedData)} also removes the
+ * written entity from the cache of the writing process straight away.
+ * <p>
+ * The cache keeps its own copy of each entity and every hit returns a new copy (see
+ * {@link CachedData#copy(CachedData)}), so callers may modify returned entities without affecting each other.
+ * Meta data is copied as well, so detached entities must have their meta data loaded before they are cached.
+ */
+public class HistoryCache {
+
+  // Natural key of an entity as passed to a model getter
+  private static final class NaturalKey {
+    private final Class<?> type;
+    private final long owner;
+    private final Object[] key;
+
+    private NaturalKey(Class<?> type, long owner, Object[] key) {
+      this.type = type;
+      this.owner = owner;
+      this.key = key.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      NaturalKey that = (NaturalKey) o;
+      return owner == that.owner && type.equals(that.type) && Arrays.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, owner, Arrays.hashCode(key));
+    }
+  }
+
+  // Cached entity with the history epoch it was read at, and its natural key if it was read through a getter
+  private static final class Entry {
+    private final CachedData data;
+    private final long historyEpoch;
+    private NaturalKey naturalKey;
+
+    private Entry(CachedData data, ModelEpoch read) {
+      this.data = data;
+      this.historyEpoch = read.getHistoryEpoch();
+    }
+  }
+
+  private final IntSupplier capacitySource;
+  private final Map<Long, Entry> rows = new LinkedHashMap<>(16, 0.75F, true);
+  private final Map<NaturalKey, List<Entry>> versions = new HashMap<>();
+  private final AtomicLong hits = new AtomicLong(0);
+  private final AtomicLong misses = new AtomicLong(0);
+  private final AtomicLong invalidations = new AtomicLong(0);
+  private final AtomicLong evictions = new AtomicLong(0);
+  private volatile int capacity = -1;
+
+  /**
+   * @param capacity supplies the maximum number of cached entities.  Consulted on first use and when the cache is
+   *                 cleared.  A capacity of zero disables the cache.
+   */
+  HistoryCache(IntSupplier capacity) {
+    this.capacitySource = capacity;
+  }
+
+  private int capacity() {
+    int current = capacity;
+    if (current < 0) {
+      current = Math.max(0, capacitySource.getAsInt());
+      capacity = current;
+    }
+    return current;
+  }
+
+  // Later writes of an entity which started after the frontier might not advance the history epoch
+  private static boolean cacheable(CachedData data, ModelEpoch read) {
+    return data != null && read != null && data.getCid() > 0 && data.getLifeEnd() != Long.MAX_VALUE &&
+        data.getOwner() != null && data.getLifeStart() <= read.getFrontier();
+  }
+
+  /**
+   * @return number of lookups answered from the cache.
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of lookups not answered from the cache, including those which found an invalid entity.
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return number of cached entities discarded because of a later write.
+   */
+  public long getInvalidations() {
+    return invalidations.get();
+  }
+
+  /**
+   * @return fraction of lookups answered from the cache, or 0 if there have been no lookups.
+   */
+  public double getHitRate() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+
+  /**
+   * @return number of entities removed to make room for others.
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * @return number of entities currently cached.
+   */
+  public synchronized int getSize() {
+    return rows.size();
+  }
+
+  /**
+   * Remove all entities and reset statistics.  The capacity is read again on next use.
+   */
+  public synchronized void clear() {
+    rows.clear();
+    versions.clear();
+    hits.set(0);
+    misses.set(0);
+    invalidations.set(0);
+    evictions.set(0);
+    capacity = -1;
+  }
+
+  // Cached entities are never modified or handed out, so hits are copied outside the lock.  The type and owner of
+  // an entity looked up by ID are only known once it is found, so current supplies the epoch to check it against.
+  CachedData get(long cid, Function<CachedData, ModelEpoch> current) {
+    Entry entry = find(cid);
+    return entry == null ? null : CachedData.copy(check(entry, current.apply(entry.data)));
+  }
+
+  <A extends CachedData> A get(Class<A> type, SynchronizedEveAccount owner, long time, Object[] key,
+                               ModelEpoch current) {
+    return type.cast(CachedData.copy(find(type, owner, time, key, current)));
+  }
+
+  private synchronized Entry find(long cid) {
+    if (capacity() == 0) return null;
+    Entry entry = rows.get(cid);
+    if (entry == null) misses.incrementAndGet();
+    return entry;
+  }
+
+  private synchronized CachedData find(Class<?> type, SynchronizedEveAccount owner, long time, Object[] key,
+                                       ModelEpoch current) {
+    if (capacity() == 0) return null;
+    List<Entry> candidates = versions.get(new NaturalKey(type, owner.getAid(), key));
+    if (candidates != null) {
+      for (Entry next : candidates) {
+        if (next.data.getLifeStart() <= time && time < next.data.getLifeEnd()) {
+          // Refresh LRU position
+          rows.get(next.data.getCid());
+          return check(next, current);
+        }
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  // Return the entity of an entry if it is still valid, otherwise discard the entry
+  private synchronized CachedData check(Entry entry, ModelEpoch current) {
+    if (current != null && current.getHistoryEpoch() == entry.historyEpoch) {
+      hits.incrementAndGet();
+      return entry.data;
+    }
+    if (rows.get(entry.data.getCid()) == entry) {
+      rows.remove(entry.data.getCid());
+      remove(entry);
+      invalidations.incrementAndGet();
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Cache an entity read by ID.
+   *
+   * @param data the entity.  Only cached if it has ended.
+   * @param read the epoch of the entity's type and owner, read before the entity.
+   */
+  void put(CachedData data, ModelEpoch read) {
+    if (capacity() == 0 || !cacheable(data, read)) return;
+    store(CachedData.copy(data), read);
+  }
+
+  private synchronized void store(CachedData data, ModelEpoch read) {
+    rows.computeIfAbsent(data.getCid(), k -> new Entry(data, read));
+    trim();
+  }
+
+  /**
+   * Cache an entity read through a natural key getter.
+   *
+   * @param type  the model type returned by the getter.
+   * @param owner the owner passed to the getter.
+   * @param key   the natural key values passed to the getter.
+   * @param data  the entity.  Only cached if it has ended.
+   * @param read  the epoch of the type and owner, read before the entity.
+   */
+  void put(Class<? extends CachedData> type, SynchronizedEveAccount owner, Object[] key, CachedData data,
+           ModelEpoch read) {
+    if (capacity() == 0 || !cacheable(data, read) || !type.isInstance(data)) return;
+    index(type, owner, key, CachedData.copy(data), read);
+  }
+
+  private synchronized void index(Class<? extends CachedData> type, SynchronizedEveAccount owner, Object[] key,
+                                  CachedData data, ModelEpoch read) {
+    Entry entry = rows.computeIfAbsent(data.getCid(), k -> new Entry(data, read));
+    if (entry.naturalKey == null) {
+      entry.naturalKey = new NaturalKey(type, owner.getAid(), key);
+      versions.computeIfAbsent(entry.naturalKey, k -> new ArrayList<>())
+              .add(entry);
+    }
+    trim();
+  }
+
+  /**
+   * Remove an entity from the cache.  Called whenever an entity is written.
+   *
+   * @param cid the ID of the entity.
+   */
+  synchronized void invalidate(long cid) {
+    remove(rows.remove(cid));
+  }
+
+  /**
+   * Remove all entities of an account.  Called when account data is removed.
+   *
+   * @param owner the account.
+   */
+  synchronized void invalidate(SynchronizedEveAccount owner) {
+    for (Iterator<Entry> i = rows.values()
+                                 .iterator(); i.hasNext(); ) {
+      Entry next = i.next();
+      if (next.data.getOwner()
+                   .getAid() == owner.getAid()) {
+        i.remove();
+        remove(next);
+      }
+    }
+  }
+
+  // Remove the natural key index of an entry already removed from the cache
+  private void remove(Entry entry) {
+    if (entry == null || entry.naturalKey == null) return;
+    List<Entry> candidates = versions.get(entry.naturalKey);
+    if (candidates == null) return;
+    candidates.removeIf(x -> x == entry);
+    if (candidates.isEmpty()) versions.remove(entry.naturalKey);
+  }
+
+  private void trim() {
+    int limit = capacity();
+    Iterator<Entry> eldest = rows.values()
+                                 .iterator();
+    while (rows.size() > limit && eldest.hasNext()) {
+      Entry next = eldest.next();
+      eldest.remove();
+      remove(next);
+      evictions.incrementAndGet();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "HistoryCache{" +
+        "size=" + getSize() +
+        ", hits=" + getHits() +
+        ", misses=" + getMisses() +
+        ", hitRate=" + getHitRate() +
+        ", invalidations=" + getInvalidations() +
+        ", evictions=" + getEvictions() +
+        '}';
+  }
+}
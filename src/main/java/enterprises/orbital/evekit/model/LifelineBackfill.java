@@ -0,0 +1,38 @@
+package enterprises.orbital.evekit.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Record of a completed {@link LifelineIndexedData#backfill(Class)} for one model table.  Rows stored before a type
+ * switched to the lifeline copy mapping have zero copies until the backfill has run, so named queries only filter on
+ * the copies once a row exists here for the table of the type.
+ */
+@Entity
+@Table(
+    name = "evekit_lifeline_backfill")
+public class LifelineBackfill {
+
+  @Id
+  private String tableName;
+  private long   completed;
+
+  // No args constructor required for Hibernate
+  @SuppressWarnings("unused")
+  protected LifelineBackfill() {}
+
+  public LifelineBackfill(String tableName, long completed) {
+    this.tableName = tableName;
+    this.completed = completed;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public long getCompleted() {
+    return completed;
+  }
+
+}
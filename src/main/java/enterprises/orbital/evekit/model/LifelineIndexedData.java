@@ -0,0 +1,229 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.base.OrbitalProperties;
+import enterprises.orbital.base.PersistentProperty;
+import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.TypedQuery;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mapping mode for high volume model types which stores a copy of the owner ID and lifeline of each entity on the
+ * subclass table, next to the natural key.  CachedData uses JOINED inheritance, so the owner and lifeline otherwise
+ * only exist in evekit_cached_data and no single index can cover the usual "owner, natural key, live at time"
+ * predicate.  With the copies, subclass tables can declare composite indexes such as (aid, itemID, lifeEnd, lifeStart)
+ * and named queries filter entirely on the subclass table, joining evekit_cached_data by primary key for matching
+ * rows only.
+ * <p>
+ * The copies are kept in step whenever the owner or lifeline changes in memory (setup, evolve and the lifeline
+ * setters), when an entity is stored, and by the bulk lifeline updates in {@link CachedData}.  Queries against
+ * the copies use the attributes indexedAid, indexedStart and indexedEnd.  Rows stored before a type switched to
+ * this mode have zero copies, so each getter query "X" of such a type filters on the owner and lifeline in
+ * evekit_cached_data, and a variant "XIndexed" filters on the copies instead.  Only queries used by getters have
+ * an indexed variant, and subclass tables should only index the copies for those queries.
+ * {@link #createOwnerQuery(EntityManager, String, Class, SynchronizedEveAccount)} only picks the indexed variant
+ * once {@link #backfill(Class)} has completed for the type, which every installation must run once per type (on
+ * an empty table this just records completion).
+ */
+@MappedSuperclass
+public abstract class LifelineIndexedData extends CachedData {
+  private static final Logger log = Logger.getLogger(LifelineIndexedData.class.getName());
+  // Interval (milliseconds) between checks for a backfill completed by another process
+  public static final long DEFAULT_BACKFILL_CHECK_INTERVAL = 60000L;
+  // Tables known to be backfilled.  A backfill is never undone, so these are never checked again.
+  private static final Set<String> backfilled = ConcurrentHashMap.newKeySet();
+  // Time at which each table not yet known to be backfilled should be checked again
+  private static final Map<String, Long> nextCheck = new ConcurrentHashMap<>();
+
+  // Copy of owner account ID
+  @Column(
+      name = "aid")
+  private long indexedAid;
+  // Copy of lifeStart
+  @Column(
+      name = "lifeStart")
+  private long indexedStart;
+  // Copy of lifeEnd
+  @Column(
+      name = "lifeEnd")
+  private long indexedEnd;
+
+  @Override
+  @PrePersist
+  @PreUpdate
+  protected void lifelineChanged() {
+    indexedAid = owner == null ? 0 : owner.getAid();
+    indexedStart = lifeStart;
+    indexedEnd = lifeEnd;
+  }
+
+  /**
+   * Check whether {@link #backfill(Class)} has completed for a type, so that the lifeline copies of every stored
+   * entity are filled.  The result is cached.  A backfill run in this process takes effect at once, while one run in
+   * another process is noticed within the interval set by the "backfillcheck" property.  The caller must already be
+   * in a transaction.
+   *
+   * @param type the model type.
+   * @return true if queries may filter on the lifeline copies of the type.
+   */
+  public static boolean backfilled(
+      Class<? extends LifelineIndexedData> type) {
+    String table = tableOf(type);
+    if (backfilled.contains(table)) return true;
+    long now = OrbitalProperties.getCurrentTime();
+    Long next = nextCheck.get(table);
+    if (next != null && now < next) return false;
+    if (EveKitUserAccountProvider.getFactory()
+                                 .getEntityManager()
+                                 .find(LifelineBackfill.class, table) == null) {
+      nextCheck.put(table, now + PersistentProperty.getLongPropertyWithFallback(
+          OrbitalProperties.getPropertyName(LifelineIndexedData.class, "backfillcheck"),
+          DEFAULT_BACKFILL_CHECK_INTERVAL));
+      return false;
+    }
+    backfilled.add(table);
+    return true;
+  }
+
+  // Forget cached backfill state, e.g. after the backfill records have been removed
+  static void clearBackfilled() {
+    backfilled.clear();
+    nextCheck.clear();
+  }
+
+  /**
+   * Create a named query of a lifeline indexed type with the owner bound.  If the type has been backfilled then
+   * the "Indexed" variant of the query is created with the owner ID bound to parameter "aid".  Otherwise the
+   * named query itself is created with the owner bound to parameter "owner".  The caller must already be in a
+   * transaction.
+   *
+   * @param em    the current entity manager.
+   * @param name  the name of the query which filters on evekit_cached_data.
+   * @param type  the model type.
+   * @param owner the owner of the entities.
+   * @param <A>   the model type.
+   * @return the query, with the owner bound.
+   */
+  public static <A extends LifelineIndexedData> TypedQuery<A> createOwnerQuery(
+      EntityManager em,
+      String name,
+      Class<A> type,
+      SynchronizedEveAccount owner) {
+    if (backfilled(type)) return em.createNamedQuery(name + "Indexed", type)
+                                   .setParameter("aid", owner.getAid());
+    return em.createNamedQuery(name, type)
+             .setParameter("owner", owner);
+  }
+
+  // Table which holds the lifeline copies of the given type
+  static String tableOf(Class<?> type) {
+    while (type.getAnnotation(Entity.class) == null) type = type.getSuperclass();
+    Table table = type.getAnnotation(Table.class);
+    return table != null && !table.name()
+                                  .isEmpty() ? table.name() : type.getSimpleName();
+  }
+
+  // End the lifeline copies of the given entities, which must all be stored in the given table.  The caller must
+  // already be in a transaction and must also end the lifelines in evekit_cached_data.
+  static int endOfLife(
+      EntityManager em,
+      String table,
+      List<Long> cids,
+      long time) {
+    if (cids.isEmpty()) return 0;
+    return em.createNativeQuery("UPDATE " + table + " SET lifeEnd = :end WHERE lifeEnd = :live AND cid IN (:cids)")
+             .setParameter("end", time)
+             .setParameter("live", Long.MAX_VALUE)
+             .setParameter("cids", cids)
+             .executeUpdate();
+  }
+
+  /**
+   * Copy the owner and lifeline of every stored entity of the given type from evekit_cached_data to the subclass
+   * table, then record that the table is backfilled so that named queries switch to the copies.  Must be run once
+   * per type, after every writer has been upgraded to this mapping mode.  Rows are copied in chunks of the
+   * CachedData update batch size with one transaction per chunk, so this may be restarted after failure.
+   *
+   * @param type the model type to fill.
+   * @return the number of rows updated.
+   * @throws IOException on any DB error.
+   */
+  public static long backfill(
+      Class<? extends LifelineIndexedData> type) throws IOException {
+    final String table = tableOf(type);
+    final int chunkSize = CachedData.updateBatchSize();
+    long count = 0;
+    long last = Long.MIN_VALUE;
+    try {
+      while (true) {
+        final long from = last;
+        List<Number> cids = EveKitUserAccountProvider.getFactory()
+                                                     .runTransaction(() -> nextChunk(table, from, chunkSize));
+        if (cids.isEmpty()) break;
+        final long to = cids.get(cids.size() - 1)
+                            .longValue();
+        count += EveKitUserAccountProvider.getFactory()
+                                          .runTransaction(() -> copyChunk(table, from, to));
+        last = to;
+      }
+      EveKitUserAccountProvider.getFactory()
+                               .runTransaction(() -> {
+                                 EveKitUserAccountProvider.getFactory()
+                                                          .getEntityManager()
+                                                          .merge(new LifelineBackfill(table,
+                                                                                     System.currentTimeMillis()));
+                               });
+      backfilled.add(table);
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+    return count;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Number> nextChunk(
+      String table,
+      long from,
+      int chunkSize) {
+    return EveKitUserAccountProvider.getFactory()
+                                    .getEntityManager()
+                                    .createNativeQuery("SELECT cid FROM " + table + " WHERE cid > :from ORDER BY cid ASC")
+                                    .setParameter("from", from)
+                                    .setMaxResults(chunkSize)
+                                    .getResultList();
+  }
+
+  private static int copyChunk(
+      String table,
+      long from,
+      long to) {
+    String source = "(SELECT c.%s FROM evekit_cached_data c WHERE c.cid = " + table + ".cid)";
+    return EveKitUserAccountProvider.getFactory()
+                                    .getEntityManager()
+                                    .createNativeQuery("UPDATE " + table + " SET " +
+                                                           "aid = " + String.format(source, "aid") + ", " +
+                                                           "lifeStart = " + String.format(source, "lifeStart") + ", " +
+                                                           "lifeEnd = " + String.format(source, "lifeEnd") + " " +
+                                                           "WHERE cid > :from AND cid <= :to")
+                                    .setParameter("from", from)
+                                    .setParameter("to", to)
+                                    .executeUpdate();
+  }
+
+}
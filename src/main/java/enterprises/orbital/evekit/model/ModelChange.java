@@ -0,0 +1,150 @@
+package enterprises.orbital.evekit.model;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A single entry of the change feed returned by
+ * {@link CachedData#changes(Class, enterprises.orbital.evekit.account.SynchronizedEveAccount, long, long, Position, int)}.
+ * Lifelines already record every change to the model: an entity is created when its lifeline starts and ended when
+ * its lifeline ends.  Evolving an entity at time T therefore appears as the end of the old version followed by the
+ * creation of the new version, both at T.  Meta data changes are not part of the feed.
+ * <p>
+ * Feed entries are ordered by time, then kind (ended before created), then CachedData ID.  The position of an entry
+ * in this order is used as the continuation for the next page.
+ *
+ * @param <A> the model type.
+ */
+public final class ModelChange<A extends CachedData> {
+
+  public enum Kind {
+    // Lifeline ended at the change time
+    ENDED,
+    // Lifeline started at the change time
+    CREATED
+  }
+
+  /**
+   * Keyset position in the change feed.  Only entries strictly after a position are returned when it is used as a
+   * continuation.  Positions can be passed to remote callers as text with {@link #toString()} and
+   * {@link #parse(String)}.
+   */
+  public static final class Position implements Comparable<Position> {
+    // Before every entry of every feed
+    public static final Position START = new Position(Long.MIN_VALUE, Kind.ENDED, 0);
+
+    private static final Comparator<Position> ORDER = Comparator.comparingLong((Position x) -> x.time)
+                                                                .thenComparing(x -> x.kind)
+                                                                .thenComparingLong(x -> x.cid);
+
+    private final long time;
+    private final Kind kind;
+    private final long cid;
+
+    private Position(long time, Kind kind, long cid) {
+      this.time = time;
+      this.kind = kind;
+      this.cid = cid;
+    }
+
+    public static Position of(long time, Kind kind, long cid) {
+      return new Position(time, Objects.requireNonNull(kind), cid);
+    }
+
+    /**
+     * @param text a position previously produced by {@link #toString()}.
+     * @return the position.
+     * @throws IllegalArgumentException if the text is not a valid position.
+     */
+    public static Position parse(String text) {
+      String[] parts = text.split(":");
+      if (parts.length != 3) throw new IllegalArgumentException("invalid change position: " + text);
+      try {
+        return of(Long.parseLong(parts[0]), Kind.valueOf(parts[1]), Long.parseLong(parts[2]));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("invalid change position: " + text, e);
+      }
+    }
+
+    public long getTime() {
+      return time;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    public long getCid() {
+      return cid;
+    }
+
+    @Override
+    public int compareTo(Position o) {
+      return ORDER.compare(this, o);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Position that = (Position) o;
+      return time == that.time && cid == that.cid && kind == that.kind;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(time, kind, cid);
+    }
+
+    @Override
+    public String toString() {
+      return time + ":" + kind + ":" + cid;
+    }
+  }
+
+  private final Position position;
+  private final A data;
+
+  ModelChange(Kind kind, A data) {
+    this.position = Position.of(kind == Kind.CREATED ? data.getLifeStart() : data.getLifeEnd(), kind,
+                                data.getCid());
+    this.data = data;
+  }
+
+  /**
+   * @return whether the entity was created or ended.
+   */
+  public Kind getKind() {
+    return position.kind;
+  }
+
+  /**
+   * @return the time of the change, which is the start or end of the lifeline of the entity.
+   */
+  public long getTime() {
+    return position.time;
+  }
+
+  /**
+   * @return the entity as currently stored.  A created entity may since have ended.
+   */
+  public A getData() {
+    return data;
+  }
+
+  /**
+   * @return the position of this entry, for use as a continuation.
+   */
+  public Position getPosition() {
+    return position;
+  }
+
+  @Override
+  public String toString() {
+    return "ModelChange{" +
+        "kind=" + position.kind +
+        ", time=" + position.time +
+        ", data=" + data +
+        '}';
+  }
+}
@@ -0,0 +1,104 @@
+package enterprises.orbital.evekit.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Persistent modification epoch of one model type for one account.  Every write of entities of the type for the
+ * account advances the epoch in the same transaction, so all processes sharing the database agree on whether a
+ * cached result is still current.  The earliest model time affected by each write is compared with the latest
+ * time affected by any earlier write (the frontier).  Writes which reach back to or before the frontier also
+ * advance the history epoch.
+ *
+ * @see ResultCache
+ */
+@Entity
+@Table(
+    name = "evekit_model_epoch")
+@IdClass(ModelEpoch.Key.class)
+public class ModelEpoch {
+
+  // Composite primary key, ordered by account then type
+  public static class Key implements Serializable, Comparable<Key> {
+    private long   aid;
+    private String typeName;
+
+    // No args constructor required for Hibernate
+    @SuppressWarnings("unused")
+    public Key() {}
+
+    public Key(long aid, String typeName) {
+      this.aid = aid;
+      this.typeName = typeName;
+    }
+
+    public long getAid() {
+      return aid;
+    }
+
+    public String getTypeName() {
+      return typeName;
+    }
+
+    @Override
+    public int compareTo(Key o) {
+      int result = Long.compare(aid, o.aid);
+      return result != 0 ? result : typeName.compareTo(o.typeName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key that = (Key) o;
+      return aid == that.aid && Objects.equals(typeName, that.typeName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(aid, typeName);
+    }
+  }
+
+  @Id
+  private long   aid;
+  @Id
+  private String typeName;
+  private long   epoch        = 0;
+  private long   historyEpoch = 0;
+  private long   frontier     = Long.MIN_VALUE;
+
+  // No args constructor required for Hibernate
+  @SuppressWarnings("unused")
+  protected ModelEpoch() {}
+
+  public ModelEpoch(long aid, String typeName) {
+    this.aid = aid;
+    this.typeName = typeName;
+  }
+
+  public long getAid() {
+    return aid;
+  }
+
+  public String getTypeName() {
+    return typeName;
+  }
+
+  public long getEpoch() {
+    return epoch;
+  }
+
+  public long getHistoryEpoch() {
+    return historyEpoch;
+  }
+
+  public long getFrontier() {
+    return frontier;
+  }
+
+}
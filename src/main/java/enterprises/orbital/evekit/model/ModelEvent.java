@@ -0,0 +1,130 @@
+package enterprises.orbital.evekit.model;
+
+/**
+ * A committed change to stored model data, as delivered to {@link ModelEventBus} listeners.
+ */
+public final class ModelEvent {
+
+  public enum Kind {
+    // A new entity was stored.  Time is the start of its lifeline.
+    CREATED,
+    // A live entity was ended and replaced by a successor.  Time is the end of the old lifeline.
+    EVOLVED,
+    // A live entity was ended without a successor.  Time is the end of its lifeline.
+    ENDED,
+    // The meta data of a stored entity was changed.  Time is the commit time.
+    META_DATA_CHANGED,
+    // Stored entities were removed by account cleanup.  Time is the commit time.  If the type is null then
+    // all entities of the account were removed, otherwise the event applies to a single entity.
+    REMOVED
+  }
+
+  private final Kind kind;
+  private final Class<? extends CachedData> type;
+  private final long owner;
+  private final long cid;
+  private final long previousCid;
+  private final long time;
+  private final CachedData data;
+  // Publish time (System.nanoTime) for lag reporting
+  long queued;
+
+  private ModelEvent(Kind kind, Class<? extends CachedData> type, long owner, long cid, long previousCid, long time,
+                     CachedData data) {
+    this.kind = kind;
+    this.type = type;
+    this.owner = owner;
+    this.cid = cid;
+    this.previousCid = previousCid;
+    this.time = time;
+    this.data = data;
+  }
+
+  private static long ownerOf(CachedData data) {
+    return data.getOwner() == null ? 0 : data.getOwner()
+                                             .getAid();
+  }
+
+  static ModelEvent created(CachedData data) {
+    return new ModelEvent(Kind.CREATED, data.getClass(), ownerOf(data), data.getCid(), 0, data.getLifeStart(), data);
+  }
+
+  static ModelEvent evolved(CachedData existing, CachedData successor, long time) {
+    return new ModelEvent(Kind.EVOLVED, successor.getClass(), ownerOf(successor), successor.getCid(),
+                          existing.getCid(), time, successor);
+  }
+
+  static ModelEvent ended(CachedData data, long time) {
+    return new ModelEvent(Kind.ENDED, data.getClass(), ownerOf(data), data.getCid(), 0, time, data);
+  }
+
+  static ModelEvent metaDataChanged(CachedData data) {
+    return new ModelEvent(Kind.META_DATA_CHANGED, data.getClass(), ownerOf(data), data.getCid(), 0,
+                          System.currentTimeMillis(), data);
+  }
+
+  static ModelEvent removed(CachedData data) {
+    return new ModelEvent(Kind.REMOVED, data.getClass(), ownerOf(data), data.getCid(), 0,
+                          System.currentTimeMillis(), null);
+  }
+
+  static ModelEvent removedAll(long owner) {
+    return new ModelEvent(Kind.REMOVED, null, owner, 0, 0, System.currentTimeMillis(), null);
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * @return the model type of the changed entity, or null for account level REMOVED events.
+   */
+  public Class<? extends CachedData> getType() {
+    return type;
+  }
+
+  /**
+   * @return the account ID of the owner of the changed entity.
+   */
+  public long getOwner() {
+    return owner;
+  }
+
+  /**
+   * @return the CachedData ID of the changed entity.  For EVOLVED events this is the ID of the successor.
+   */
+  public long getCid() {
+    return cid;
+  }
+
+  /**
+   * @return for EVOLVED events the CachedData ID of the ended entity, otherwise 0.
+   */
+  public long getPreviousCid() {
+    return previousCid;
+  }
+
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * @return the changed entity as written, or null for REMOVED events.  For EVOLVED events this is the
+   * successor.  The entity is shared by all listeners and must not be modified.
+   */
+  public CachedData getData() {
+    return data;
+  }
+
+  @Override
+  public String toString() {
+    return "ModelEvent{" +
+        "kind=" + kind +
+        ", type=" + (type == null ? null : type.getSimpleName()) +
+        ", owner=" + owner +
+        ", cid=" + cid +
+        ", previousCid=" + previousCid +
+        ", time=" + time +
+        '}';
+  }
+}
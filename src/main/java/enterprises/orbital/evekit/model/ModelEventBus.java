@@ -0,0 +1,185 @@
+package enterprises.orbital.evekit.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-process bus for committed model changes.  Model write paths publish {@link ModelEvent}s when their
+ * outermost transaction commits, and never for writes which are rolled back.  Events are placed on a bounded ring
+ * buffer and delivered in batches, in publish order, to every listener by a single daemon thread, so listeners
+ * never run on (or slow down) the writing thread.  If the buffer is full then new events are dropped and counted
+ * rather than blocking the writer.  Listeners which must not miss changes should compare {@link #getDropped()}
+ * across batches and fall back to the lifeline change feed
+ * ({@link CachedData#changes(Class, enterprises.orbital.evekit.account.SynchronizedEveAccount, long, long, ModelChange.Position, int)})
+ * when events were lost.
+ * <p>
+ * Nothing is buffered while there are no listeners, and write paths skip the extra work needed to classify
+ * changes.
+ */
+public class ModelEventBus {
+  private static final Logger log = Logger.getLogger(ModelEventBus.class.getName());
+
+  // Receives batches of events on the delivery thread
+  public interface Listener {
+    void onEvents(List<ModelEvent> events);
+  }
+
+  private final IntSupplier capacitySource;
+  private final IntSupplier batchSource;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final AtomicLong published = new AtomicLong(0);
+  private final AtomicLong delivered = new AtomicLong(0);
+  private final AtomicLong dropped = new AtomicLong(0);
+  private final AtomicLong failures = new AtomicLong(0);
+  private volatile BlockingQueue<ModelEvent> buffer = null;
+  private volatile Thread dispatcher = null;
+
+  /**
+   * @param capacity supplies the maximum number of undelivered events.  Consulted when the first listener subscribes.
+   * @param batch    supplies the maximum number of events delivered in one batch.
+   */
+  ModelEventBus(IntSupplier capacity, IntSupplier batch) {
+    this.capacitySource = capacity;
+    this.batchSource = batch;
+  }
+
+  /**
+   * Add a listener.  The listener receives events published after this call.
+   *
+   * @param listener the listener.
+   */
+  public synchronized void subscribe(Listener listener) {
+    if (buffer == null) buffer = new ArrayBlockingQueue<>(Math.max(1, capacitySource.getAsInt()));
+    if (dispatcher == null) {
+      dispatcher = new Thread(this::dispatch, "model-events");
+      dispatcher.setDaemon(true);
+      dispatcher.start();
+    }
+    listeners.add(listener);
+  }
+
+  /**
+   * Remove a listener.  Events already buffered are still delivered to any remaining listeners.
+   *
+   * @param listener the listener.
+   */
+  public void unsubscribe(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @return true if any listener is subscribed.  Write paths only collect events in this case.
+   */
+  public boolean hasListeners() {
+    return !listeners.isEmpty();
+  }
+
+  /**
+   * Queue committed events for delivery.  Never blocks.
+   *
+   * @param events the events, may be null or empty.
+   */
+  void publish(List<ModelEvent> events) {
+    BlockingQueue<ModelEvent> target = buffer;
+    if (events == null || events.isEmpty() || target == null || !hasListeners()) return;
+    long now = System.nanoTime();
+    for (ModelEvent next : events) {
+      next.queued = now;
+      if (target.offer(next)) published.incrementAndGet();
+      else dropped.incrementAndGet();
+    }
+  }
+
+  private void dispatch() {
+    List<ModelEvent> batch = new ArrayList<>();
+    while (true) {
+      try {
+        BlockingQueue<ModelEvent> source = buffer;
+        ModelEvent first = source.poll(1, TimeUnit.SECONDS);
+        if (first == null) continue;
+        batch.add(first);
+        source.drainTo(batch, Math.max(1, batchSource.getAsInt()) - 1);
+        List<ModelEvent> view = Collections.unmodifiableList(new ArrayList<>(batch));
+        for (Listener next : listeners) {
+          try {
+            next.onEvents(view);
+          } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            log.log(Level.WARNING, "model event listener failed", e);
+          }
+        }
+        delivered.addAndGet(batch.size());
+        batch.clear();
+      } catch (InterruptedException e) {
+        log.log(Level.WARNING, "model event dispatcher interrupted, stopping delivery", e);
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return number of events accepted into the buffer.
+   */
+  public long getPublished() {
+    return published.get();
+  }
+
+  /**
+   * @return number of events passed to listeners.
+   */
+  public long getDelivered() {
+    return delivered.get();
+  }
+
+  /**
+   * @return number of events discarded because the buffer was full.
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * @return number of times a listener threw an exception.
+   */
+  public long getListenerFailures() {
+    return failures.get();
+  }
+
+  /**
+   * @return number of events waiting for delivery.
+   */
+  public int getLag() {
+    BlockingQueue<ModelEvent> current = buffer;
+    return current == null ? 0 : current.size();
+  }
+
+  /**
+   * @return age in milliseconds of the oldest event waiting for delivery, or 0 if there are none.
+   */
+  public long getLagMillis() {
+    BlockingQueue<ModelEvent> current = buffer;
+    ModelEvent oldest = current == null ? null : current.peek();
+    return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.queued);
+  }
+
+  @Override
+  public String toString() {
+    return "ModelEventBus{" +
+        "listeners=" + listeners.size() +
+        ", published=" + getPublished() +
+        ", delivered=" + getDelivered() +
+        ", dropped=" + getDropped() +
+        ", lag=" + getLag() +
+        ", lagMillis=" + getLagMillis() +
+        '}';
+  }
+}
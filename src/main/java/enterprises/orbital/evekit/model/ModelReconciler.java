@@ -0,0 +1,189 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Reconcile a fresh set of model objects (e.g. the result of a synchronization call) against the set of
+ * objects which are currently live in storage.  The live set is loaded once and indexed by natural key,
+ * after which each incoming object is classified as unchanged, changed, new or deleted.  The classification
+ * can then be applied with batched writes.  This replaces the usual per-object sequence of a natural key
+ * lookup followed by an equivalence check and an evolve or insert.
+ * <p>
+ * Incoming objects do not need to be initialized with {@link CachedData#setup(SynchronizedEveAccount, long)}.
+ * New objects are initialized when the result is applied.  Changed objects are initialized as successors
+ * of the live objects they replace.
+ *
+ * @param <A> subclass of CachedData being reconciled.
+ * @param <K> type of the natural key for the model class.
+ */
+public class ModelReconciler<A extends CachedData, K> {
+  private static final Logger log = Logger.getLogger(ModelReconciler.class.getName());
+
+  private final CachedData.QueryCaller<A> liveQuery;
+  private final Function<? super A, ? extends K> key;
+  private final boolean endMissing;
+
+  /**
+   * Create a reconciler.
+   *
+   * @param liveQuery  a QueryCaller which returns objects for the owner being reconciled.  This is usually
+   *                   a forwarding call to the accessQuery method of the model class.
+   * @param key        extracts the natural key from a model object.  Keys must implement equals and hashCode.
+   * @param endMissing if true, live objects with no matching incoming object are ended when the result is
+   *                   applied.  Set this to false for model types which are synchronized incrementally.
+   */
+  public ModelReconciler(CachedData.QueryCaller<A> liveQuery, Function<? super A, ? extends K> key,
+                         boolean endMissing) {
+    this.liveQuery = liveQuery;
+    this.key = key;
+    this.endMissing = endMissing;
+  }
+
+  /**
+   * Result of classifying a set of incoming objects.
+   *
+   * @param <A> subclass of CachedData being reconciled.
+   */
+  public static class Result<A extends CachedData> {
+    private final List<A> unchanged = new ArrayList<>();
+    private final List<A> changedExisting = new ArrayList<>();
+    private final List<A> changedSuccessors = new ArrayList<>();
+    private final List<A> created = new ArrayList<>();
+    private final List<A> deleted = new ArrayList<>();
+
+    /**
+     * @return live objects which are equivalent to an incoming object.
+     */
+    public List<A> getUnchanged() {
+      return unchanged;
+    }
+
+    /**
+     * @return live objects which have a non-equivalent incoming object.  The i'th element of this list is
+     * replaced by the i'th element of {@link #getChangedSuccessors()}.
+     */
+    public List<A> getChangedExisting() {
+      return changedExisting;
+    }
+
+    /**
+     * @return incoming objects which replace a live object.
+     */
+    public List<A> getChangedSuccessors() {
+      return changedSuccessors;
+    }
+
+    /**
+     * @return incoming objects with no matching live object.
+     */
+    public List<A> getCreated() {
+      return created;
+    }
+
+    /**
+     * @return live objects with no matching incoming object.
+     */
+    public List<A> getDeleted() {
+      return deleted;
+    }
+
+    @Override
+    public String toString() {
+      return "Result{" +
+          "unchanged=" + unchanged.size() +
+          ", changed=" + changedExisting.size() +
+          ", created=" + created.size() +
+          ", deleted=" + deleted.size() +
+          '}';
+    }
+  }
+
+  /**
+   * Load the set of objects live at the given time, indexed by natural key.
+   *
+   * @param time the time at which objects must be live.
+   * @return map from natural key to live object.
+   * @throws IOException on any DB error.
+   */
+  public Map<K, A> loadLive(long time) throws IOException {
+    Map<K, A> live = new HashMap<>();
+    CachedData.SimpleStreamExceptionHandler capture = new CachedData.SimpleStreamExceptionHandler();
+    CachedData.stream(time, liveQuery, true, capture)
+              .forEach(next -> {
+                if (live.put(key.apply(next), next) != null)
+                  log.warning("Duplicate live key " + key.apply(next) + ", keeping latest: " + next);
+              });
+    if (capture.hit()) throw capture.getFirst();
+    return live;
+  }
+
+  /**
+   * Classify incoming objects against the set of objects live at the given time.  No changes are
+   * made to storage.  If the incoming collection contains more than one object with the same key, then
+   * the last such object is used.
+   *
+   * @param time     the time at which objects must be live.
+   * @param incoming the fresh set of objects.
+   * @return the classification.
+   * @throws IOException on any DB error.
+   */
+  public Result<A> classify(long time, Collection<A> incoming) throws IOException {
+    Map<K, A> live = loadLive(time);
+    Map<K, A> fresh = new LinkedHashMap<>();
+    for (A next : incoming)
+      fresh.put(key.apply(next), next);
+    Result<A> result = new Result<>();
+    for (Map.Entry<K, A> next : fresh.entrySet()) {
+      A existing = live.remove(next.getKey());
+      if (existing == null) {
+        result.created.add(next.getValue());
+      } else if (existing.equivalent(next.getValue())) {
+        result.unchanged.add(existing);
+      } else {
+        result.changedExisting.add(existing);
+        result.changedSuccessors.add(next.getValue());
+      }
+    }
+    result.deleted.addAll(live.values());
+    return result;
+  }
+
+  /**
+   * Apply a classification to storage.  Changed objects are evolved, new objects are inserted and, if this
+   * reconciler was created with endMissing set, deleted objects are ended.  All changes take effect at the
+   * given time.
+   *
+   * @param owner  the owner of new objects.
+   * @param time   the time at which changes take effect.
+   * @param result the classification to apply.
+   * @throws IOException on any DB error, or if a changed object was concurrently evolved by another writer.
+   */
+  public void apply(SynchronizedEveAccount owner, long time, Result<A> result) throws IOException {
+    CachedData.evolveAll(result.changedExisting, result.changedSuccessors, time);
+    for (A next : result.created)
+      next.setup(owner, time);
+    CachedData.insertAll(result.created);
+    if (endMissing) CachedData.endOfLife(result.deleted, time);
+  }
+
+  /**
+   * Classify and apply a fresh set of objects in one call.
+   *
+   * @param owner    the owner of the objects being reconciled.
+   * @param time     the time at which objects must be live, and at which changes take effect.
+   * @param incoming the fresh set of objects.
+   * @return the applied classification.
+   * @throws IOException on any DB error, or if a changed object was concurrently evolved by another writer.
+   */
+  public Result<A> reconcile(SynchronizedEveAccount owner, long time, Collection<A> incoming) throws IOException {
+    Result<A> result = classify(time, incoming);
+    apply(owner, time, result);
+    return result;
+  }
+
+}
@@ -0,0 +1,119 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * All entities of a set of model types owned by one account and live at one time, as returned by
+ * {@link CachedData#snapshot(SynchronizedEveAccount, long, java.util.Collection, boolean)}.  Entities of each type
+ * are in ascending CachedData ID order.  Entities are detached and are not shared with other snapshots.
+ */
+public final class ModelSnapshot {
+  private final SynchronizedEveAccount owner;
+  private final long time;
+  private final boolean consistent;
+  private final Map<Class<? extends CachedData>, List<? extends CachedData>> data;
+
+  ModelSnapshot(SynchronizedEveAccount owner, long time, boolean consistent,
+                Map<Class<? extends CachedData>, List<? extends CachedData>> data) {
+    this.owner = owner;
+    this.time = time;
+    this.consistent = consistent;
+    this.data = Collections.unmodifiableMap(new LinkedHashMap<>(data));
+  }
+
+  /**
+   * @return the account which owns all entities in this snapshot.
+   */
+  public SynchronizedEveAccount getOwner() {
+    return owner;
+  }
+
+  /**
+   * @return the time at which all entities in this snapshot are live.
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * @return true if all types were read in a single transaction.
+   */
+  public boolean isConsistent() {
+    return consistent;
+  }
+
+  /**
+   * @return the model types in this snapshot, in request order.
+   */
+  public Set<Class<? extends CachedData>> getTypes() {
+    return data.keySet();
+  }
+
+  /**
+   * @param type a model type.
+   * @return true if the given type was part of the snapshot request.
+   */
+  public boolean contains(Class<? extends CachedData> type) {
+    return data.containsKey(type);
+  }
+
+  /**
+   * @param type a model type which was part of the snapshot request.
+   * @param <A>  the model type.
+   * @return all entities of the given type, possibly empty.
+   * @throws IllegalArgumentException if the type was not part of the snapshot request.
+   */
+  @SuppressWarnings("unchecked")
+  public <A extends CachedData> List<A> get(Class<A> type) {
+    List<? extends CachedData> result = data.get(type);
+    if (result == null) throw new IllegalArgumentException("type not in snapshot: " + type.getSimpleName());
+    return (List<A>) result;
+  }
+
+  /**
+   * Convenience for types with at most one live entity per account, e.g. CharacterSheet.
+   *
+   * @param type a model type which was part of the snapshot request.
+   * @param <A>  the model type.
+   * @return the first entity of the given type, or null if there are none.
+   * @throws IllegalArgumentException if the type was not part of the snapshot request.
+   */
+  public <A extends CachedData> A getFirst(Class<A> type) {
+    List<A> result = get(type);
+    return result.isEmpty() ? null : result.get(0);
+  }
+
+  /**
+   * @return total number of entities in this snapshot.
+   */
+  public int size() {
+    int total = 0;
+    for (List<? extends CachedData> next : data.values())
+      total += next.size();
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("ModelSnapshot{owner=").append(owner)
+                                                                   .append(", time=")
+                                                                   .append(time)
+                                                                   .append(", consistent=")
+                                                                   .append(consistent);
+    for (Map.Entry<Class<? extends CachedData>, List<? extends CachedData>> next : data.entrySet())
+      result.append(", ")
+            .append(next.getKey()
+                        .getSimpleName())
+            .append("=")
+            .append(next.getValue()
+                        .size());
+    return result.append('}')
+                 .toString();
+  }
+}
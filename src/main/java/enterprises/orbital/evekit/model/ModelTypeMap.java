@@ -1,5 +1,10 @@
 package enterprises.orbital.evekit.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,6 +18,13 @@ import enterprises.orbital.db.ConnectionFactory.RunInTransaction;
 import enterprises.orbital.db.ConnectionFactory.RunInVoidTransaction;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 
+/**
+ * Legacy map from CachedData ID to concrete model type.  The concrete type is now stored in the "typeName"
+ * discriminator column of the CachedData base table.  This class remains as a read-only compatibility view
+ * over the discriminator column, falling back to the legacy table for entities stored before the
+ * discriminator column was introduced.  Use {@link #migrate(int)} to backfill the discriminator column
+ * from the legacy table.
+ */
 @Entity
 @Table(
     name = "evekit_model_type_map")
@@ -40,6 +52,14 @@ public class ModelTypeMap {
     return typeName;
   }
 
+  /**
+   * Store a legacy type map entry.  CachedData no longer writes type map entries.
+   *
+   * @param data the entry to store
+   * @return the stored entry, or null on error
+   * @deprecated the concrete type is stored in the CachedData discriminator column
+   */
+  @Deprecated
   public static ModelTypeMap update(
                                     final ModelTypeMap data) {
     try {
@@ -55,20 +75,20 @@ public class ModelTypeMap {
     return null;
   }
 
+  /**
+   * Retrieve the type map entry for the given CachedData ID.  The returned entry is a view and is not managed.
+   *
+   * @param cid the CachedData ID
+   * @return the type map entry, or null if no such entity exists
+   */
   public static ModelTypeMap retrieve(
                                       final long cid) {
     try {
       return EveKitUserAccountProvider.getFactory().runTransaction(new RunInTransaction<ModelTypeMap>() {
         @Override
         public ModelTypeMap run() throws Exception {
-          TypedQuery<ModelTypeMap> getter = EveKitUserAccountProvider.getFactory().getEntityManager()
-              .createQuery("SELECT c FROM ModelTypeMap c WHERE c.cid = :cid", ModelTypeMap.class);
-          getter.setParameter("cid", cid);
-          try {
-            return getter.getSingleResult();
-          } catch (NoResultException e) {
-            return null;
-          }
+          String typeName = CachedData.retrieveType(cid);
+          return typeName == null ? null : new ModelTypeMap(cid, typeName);
         }
       });
     } catch (Exception e) {
@@ -83,14 +103,34 @@ public class ModelTypeMap {
     return result != null ? result.getTypeName() : null;
   }
 
+  /**
+   * Remove the legacy type map entry for the given CachedData ID, if one exists.
+   *
+   * @param cid the CachedData ID
+   * @deprecated use {@link #cleanup(Collection)}
+   */
+  @Deprecated
   public static void cleanup(
                              final long cid) {
+    List<Long> cids = new ArrayList<>();
+    cids.add(cid);
+    cleanup(cids);
+  }
+
+  /**
+   * Remove legacy type map entries for the given CachedData IDs, if any exist.
+   *
+   * @param cids the CachedData IDs
+   */
+  public static void cleanup(
+                             final Collection<Long> cids) {
+    if (cids.isEmpty()) return;
     try {
       EveKitUserAccountProvider.getFactory().runTransaction(new RunInVoidTransaction() {
         @Override
         public void run() throws Exception {
-          ModelTypeMap toRemove = retrieve(cid);
-          if (toRemove != null) EveKitUserAccountProvider.getFactory().getEntityManager().remove(toRemove);
+          EveKitUserAccountProvider.getFactory().getEntityManager().createQuery("DELETE FROM ModelTypeMap c WHERE c.cid IN :cids")
+              .setParameter("cids", cids).executeUpdate();
         }
       });
     } catch (Exception e) {
@@ -98,4 +138,60 @@ public class ModelTypeMap {
     }
   }
 
+  /**
+   * Backfill the CachedData discriminator column from the legacy type map table.  Legacy entries are processed
+   * in order of increasing ID, one transaction per chunk, so this may safely be run against a live system and
+   * restarted after failure.  Entities which already have a discriminator value are left unchanged.
+   * Legacy entries are not removed.
+   *
+   * @param chunkSize the number of legacy entries to process per transaction
+   * @return the number of entities updated
+   */
+  public static long migrate(
+                             final int chunkSize) {
+    long updated = 0;
+    long processed = 0;
+    long lastCid = -1;
+    try {
+      while (true) {
+        final long from = lastCid;
+        List<ModelTypeMap> chunk = EveKitUserAccountProvider.getFactory().runTransaction(new RunInTransaction<List<ModelTypeMap>>() {
+          @Override
+          public List<ModelTypeMap> run() throws Exception {
+            TypedQuery<ModelTypeMap> getter = EveKitUserAccountProvider.getFactory().getEntityManager()
+                .createQuery("SELECT c FROM ModelTypeMap c WHERE c.cid > :cid ORDER BY c.cid ASC", ModelTypeMap.class);
+            getter.setParameter("cid", from);
+            getter.setMaxResults(chunkSize);
+            return getter.getResultList();
+          }
+        });
+        if (chunk.isEmpty()) break;
+        updated += EveKitUserAccountProvider.getFactory().runTransaction(new RunInTransaction<Integer>() {
+          @Override
+          public Integer run() throws Exception {
+            // Group by type so we issue one update per type in this chunk
+            Map<String, List<Long>> byType = new HashMap<>();
+            for (ModelTypeMap next : chunk) {
+              if (!byType.containsKey(next.getTypeName())) byType.put(next.getTypeName(), new ArrayList<Long>());
+              byType.get(next.getTypeName()).add(next.getCid());
+            }
+            int count = 0;
+            for (Map.Entry<String, List<Long>> next : byType.entrySet()) {
+              count += EveKitUserAccountProvider.getFactory().getEntityManager()
+                  .createNativeQuery("UPDATE evekit_cached_data SET typeName = :type WHERE typeName IS NULL AND cid IN (:cids)")
+                  .setParameter("type", next.getKey()).setParameter("cids", next.getValue()).executeUpdate();
+            }
+            return count;
+          }
+        });
+        processed += chunk.size();
+        lastCid = chunk.get(chunk.size() - 1).getCid();
+        log.info("Type map migration processed " + processed + " entries, updated " + updated + " entities, last ID " + lastCid);
+      }
+    } catch (Exception e) {
+      log.log(Level.SEVERE, "query error", e);
+    }
+    return updated;
+  }
+
 }
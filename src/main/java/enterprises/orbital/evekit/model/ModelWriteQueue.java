@@ -0,0 +1,385 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.base.OrbitalProperties;
+import enterprises.orbital.base.PersistentProperty;
+import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous write-behind queue for model updates.  Producers enqueue new, evolved or metadata-changed
+ * entities and receive a future which completes with the stored entity (including its assigned ID) once the
+ * write has been committed.  Writes are divided into lanes by owner.  Each lane is drained by a single writer
+ * thread which groups queued writes into one transaction, bounded by a maximum commit size and a maximum
+ * latency.  Writes for the same owner are always committed in the order they were enqueued.
+ * <p>
+ * Each lane has a bounded queue.  Producers block when the lane for their owner is full.  If a group commit
+ * fails, each write in the group is retried in its own transaction so that one bad write only fails its own
+ * future.
+ */
+public class ModelWriteQueue implements AutoCloseable {
+  private static final Logger log = Logger.getLogger(ModelWriteQueue.class.getName());
+
+  // Number of writer threads
+  public static final int  DEFAULT_LANES          = 2;
+  // Maximum number of writes waiting in each lane
+  public static final int  DEFAULT_LANE_CAPACITY  = 10000;
+  // Maximum number of writes committed in one transaction
+  public static final int  DEFAULT_MAX_COMMIT     = 500;
+  // Maximum time (in milliseconds) a write waits for other writes to join its commit
+  public static final long DEFAULT_MAX_LATENCY    = 50;
+
+  // A single queued write, executed in the writer's transaction
+  private interface Write<A extends CachedData> {
+    A run(EntityManager em, List<ModelEvent> events) throws IOException;
+  }
+
+  private static class Pending<A extends CachedData> {
+    private final CachedData target;
+    private final CachedData previous;
+    private final long time;
+    private final boolean fresh;
+    private final Write<A> write;
+    private final CompletableFuture<A> result = new CompletableFuture<>();
+    private boolean started;
+    private long previousEnd;
+    private A stored;
+    private List<ModelEvent> events;
+
+    // previous is the entity ended at the given time by this write, or null if the write ends nothing
+    private Pending(CachedData target, CachedData previous, long time, Write<A> write) {
+      this.target = target;
+      this.previous = previous;
+      this.time = time;
+      this.fresh = target.getCid() == 0;
+      this.write = write;
+    }
+
+    private void run(EntityManager em) throws IOException {
+      started = true;
+      if (previous != null) previousEnd = previous.getLifeEnd();
+      events = CachedData.newEvents();
+      stored = write.run(em, events);
+    }
+
+    // Undo in-memory changes from a rolled back attempt
+    private void reset() {
+      stored = null;
+      events = null;
+      if (fresh) CachedData.clearCid(target);
+      // An evolve ends the previous entity in memory, restore it so a retry starts from the stored state
+      if (started && previous != null) previous.setLifeEnd(previousEnd);
+      started = false;
+    }
+
+    // Record the entities changed by this write, with the earliest time each change affects
+    private void changed(Map<CachedData, Long> affected) {
+      if (previous == null) {
+        affected.put(stored, stored.getLifeStart());
+      } else {
+        affected.put(previous, time);
+        affected.put(stored, time);
+      }
+    }
+
+    private void complete() {
+      CachedData.getEventBus()
+                .publish(events);
+      result.complete(stored);
+    }
+  }
+
+  private final class Lane implements Runnable {
+    private final BlockingQueue<Pending<?>> queue;
+    private final Thread writer;
+
+    private Lane(int index) {
+      queue = new ArrayBlockingQueue<>(capacity);
+      writer = new Thread(this, "model-write-" + index);
+      writer.setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      List<Pending<?>> batch = new ArrayList<>(maxCommit);
+      try {
+        while (!closed || !queue.isEmpty()) {
+          Pending<?> first = queue.poll(maxLatency, TimeUnit.MILLISECONDS);
+          if (first == null) continue;
+          batch.add(first);
+          // Gather writes until the commit is full or the first write has waited long enough
+          long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLatency);
+          while (batch.size() < maxCommit) {
+            queue.drainTo(batch, maxCommit - batch.size());
+            long wait = deadline - System.nanoTime();
+            if (batch.size() >= maxCommit || wait <= 0 || closed) break;
+            Pending<?> next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null) break;
+            batch.add(next);
+          }
+          commit(batch);
+          batch.clear();
+        }
+      } catch (InterruptedException e) {
+        log.log(Level.WARNING, "writer interrupted, failing queued writes", e);
+        batch.addAll(queue);
+        queue.clear();
+        for (Pending<?> next : batch)
+          next.result.completeExceptionally(new IOException("write queue stopped"));
+      }
+    }
+  }
+
+  private final int capacity;
+  private final int maxCommit;
+  private final long maxLatency;
+  private final Lane[] lanes;
+  private volatile boolean closed = false;
+
+  // Metrics
+  private final AtomicLong commits = new AtomicLong(0);
+  private final AtomicLong committed = new AtomicLong(0);
+  private final AtomicLong failed = new AtomicLong(0);
+  private final AtomicLong commitNanos = new AtomicLong(0);
+  private final AtomicLong maxCommitNanos = new AtomicLong(0);
+  private final AtomicLong maxCommitSize = new AtomicLong(0);
+
+  /**
+   * Create a write queue configured from the "lanes", "lanecapacity", "maxcommit" and "maxlatency" properties.
+   */
+  public ModelWriteQueue() {
+    this((int) PersistentProperty.getLongPropertyWithFallback(
+        OrbitalProperties.getPropertyName(ModelWriteQueue.class, "lanes"), DEFAULT_LANES),
+         (int) PersistentProperty.getLongPropertyWithFallback(
+             OrbitalProperties.getPropertyName(ModelWriteQueue.class, "lanecapacity"), DEFAULT_LANE_CAPACITY),
+         (int) PersistentProperty.getLongPropertyWithFallback(
+             OrbitalProperties.getPropertyName(ModelWriteQueue.class, "maxcommit"), DEFAULT_MAX_COMMIT),
+         PersistentProperty.getLongPropertyWithFallback(
+             OrbitalProperties.getPropertyName(ModelWriteQueue.class, "maxlatency"), DEFAULT_MAX_LATENCY));
+  }
+
+  /**
+   * Create a write queue.
+   *
+   * @param laneCount  number of lanes, each drained by a single writer thread.
+   * @param capacity   maximum number of writes waiting in each lane.
+   * @param maxCommit  maximum number of writes committed in a single transaction.
+   * @param maxLatency maximum time in milliseconds a write waits for other writes to join its commit.
+   */
+  public ModelWriteQueue(int laneCount, int capacity, int maxCommit, long maxLatency) {
+    this.capacity = Math.max(1, capacity);
+    this.maxCommit = Math.max(1, maxCommit);
+    this.maxLatency = Math.max(1, maxLatency);
+    lanes = new Lane[Math.max(1, laneCount)];
+    for (int i = 0; i < lanes.length; i++) {
+      lanes[i] = new Lane(i);
+      lanes[i].writer.start();
+    }
+  }
+
+  /**
+   * Queue a new or changed entity for storage.  This is the asynchronous equivalent of
+   * {@link CachedData#update(CachedData)} and is also used to store metadata changes.  Blocks if the lane
+   * for the entity's owner is full.
+   *
+   * @param data the entity to store.
+   * @param <A>  subclass of CachedData being stored.
+   * @return a future which completes with the stored entity.
+   * @throws IOException if interrupted while waiting for space in the queue.
+   */
+  public <A extends CachedData> CompletableFuture<A> update(final A data) throws IOException {
+    return enqueue(data.getOwner(), new Pending<>(data, null, 0, (em, events) -> CachedData.write(em, data, events)));
+  }
+
+  /**
+   * Queue the evolution of an existing entity to a successor.  This is the asynchronous equivalent of
+   * {@link CachedData#evolve(CachedData, CachedData, long)}.  The future completes exceptionally if the
+   * existing entity is no longer live when the write is committed.  Blocks if the lane for the entity's
+   * owner is full.
+   *
+   * @param existing  the stored entity to end.
+   * @param successor the new version of the entity.
+   * @param time      the time at which the existing entity is ended and the successor starts.
+   * @param <A>       subclass of CachedData being evolved.
+   * @return a future which completes with the stored successor.
+   * @throws IOException if interrupted while waiting for space in the queue.
+   */
+  public <A extends CachedData> CompletableFuture<A> evolve(final CachedData existing, final A successor,
+                                                            final long time) throws IOException {
+    return enqueue(existing.getOwner(), new Pending<>(successor, existing, time, (em, events) -> {
+      if (CachedData.endOfLife(em, Collections.singletonList(existing), time) != 1)
+        throw new IOException("entity is no longer live, evolve aborted: " + existing);
+      existing.evolve(successor, time);
+      A stored = CachedData.write(em, successor);
+      if (events != null) events.add(ModelEvent.evolved(existing, stored, time));
+      return stored;
+    }));
+  }
+
+  private <A extends CachedData> CompletableFuture<A> enqueue(SynchronizedEveAccount owner, Pending<A> next)
+      throws IOException {
+    if (closed) throw new IllegalStateException("write queue is closed");
+    Lane lane = lanes[owner == null ? 0 : Math.floorMod(owner.hashCode(), lanes.length)];
+    try {
+      lane.queue.put(next);
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+            .interrupt();
+      throw new IOException(e);
+    }
+    // If the queue was closed while we were adding, then the writer may already have exited.  Remove the write
+    // and fail it unless the writer has already taken it.
+    if (closed && lane.queue.remove(next))
+      next.result.completeExceptionally(new IllegalStateException("write queue is closed"));
+    return next.result;
+  }
+
+  private boolean attempt(List<Pending<?>> batch) {
+    try {
+      EveKitUserAccountProvider.getFactory()
+                               .runTransaction(() -> {
+                                 // Evolves copy meta data of the entities they end, load it for the whole batch
+                                 List<CachedData> previous = new ArrayList<>();
+                                 for (Pending<?> next : batch)
+                                   if (next.previous != null) previous.add(next.previous);
+                                 CachedData.fetchMetaData(previous);
+                                 EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                                             .getEntityManager();
+                                 Map<CachedData, Long> affected = new IdentityHashMap<>();
+                                 for (Pending<?> next : batch) {
+                                   next.run(em);
+                                   next.changed(affected);
+                                 }
+                                 ResultCache.modified(em, affected.keySet(), affected::get);
+                               });
+      return true;
+    } catch (Exception e) {
+      for (Pending<?> next : batch)
+        next.reset();
+      if (batch.size() == 1) {
+        log.log(Level.SEVERE, "query error", e);
+        batch.get(0).result.completeExceptionally(
+            e.getCause() instanceof IOException ? e.getCause() : new IOException(e.getCause()));
+      }
+      return false;
+    }
+  }
+
+  private void commit(List<Pending<?>> batch) {
+    long start = System.nanoTime();
+    if (attempt(batch)) {
+      for (Pending<?> next : batch)
+        next.complete();
+    } else if (batch.size() > 1) {
+      // Retry individually, in order, so only the failing writes are reported
+      for (Pending<?> next : batch)
+        if (attempt(Collections.singletonList(next))) next.complete();
+        else failed.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+    }
+    long elapsed = System.nanoTime() - start;
+    commits.incrementAndGet();
+    committed.addAndGet(batch.size());
+    commitNanos.addAndGet(elapsed);
+    maxCommitNanos.accumulateAndGet(elapsed, Math::max);
+    maxCommitSize.accumulateAndGet(batch.size(), Math::max);
+  }
+
+  /**
+   * @return number of writes waiting in all lanes.
+   */
+  public int getQueueDepth() {
+    int depth = 0;
+    for (Lane next : lanes)
+      depth += next.queue.size();
+    return depth;
+  }
+
+  /**
+   * @return number of group commits attempted.
+   */
+  public long getCommitCount() {
+    return commits.get();
+  }
+
+  /**
+   * @return number of writes processed by group commits, including failed writes.
+   */
+  public long getWriteCount() {
+    return committed.get();
+  }
+
+  /**
+   * @return number of writes which failed.
+   */
+  public long getFailedCount() {
+    return failed.get();
+  }
+
+  /**
+   * @return average number of writes per group commit.
+   */
+  public double getMeanCommitSize() {
+    long count = commits.get();
+    return count == 0 ? 0 : (double) committed.get() / count;
+  }
+
+  /**
+   * @return largest number of writes in a single group commit.
+   */
+  public long getMaxCommitSize() {
+    return maxCommitSize.get();
+  }
+
+  /**
+   * @return average group commit latency in milliseconds, including any individual retries.
+   */
+  public double getMeanCommitLatency() {
+    long count = commits.get();
+    return count == 0 ? 0 : commitNanos.get() / (count * 1000000.0);
+  }
+
+  /**
+   * @return largest group commit latency in milliseconds.
+   */
+  public double getMaxCommitLatency() {
+    return maxCommitNanos.get() / 1000000.0;
+  }
+
+  /**
+   * Stop accepting writes, wait for all queued writes to be committed, then stop the writer threads.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    for (Lane next : lanes) {
+      try {
+        next.writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread()
+              .interrupt();
+        return;
+      }
+      // Fail writes which raced with close after the writer exited
+      for (Pending<?> late : next.queue)
+        late.result.completeExceptionally(new IllegalStateException("write queue is closed"));
+      next.queue.clear();
+    }
+  }
+
+}
@@ -0,0 +1,220 @@
+package enterprises.orbital.evekit.model;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spliterator over CachedData in cid order which fetches pages ahead of the consumer.  A background task
+ * fetches pages from a {@link CachedData.PagedQueryCaller} into a bounded queue while the consumer works
+ * through earlier pages.  The page size is adjusted after each full page so that a fetch takes roughly the
+ * target latency, within fixed limits.  The background task stops when it reaches the end of the data, when
+ * the stream is closed, or when the consumer stops taking pages for an extended period.
+ *
+ * @param <A> subclass of CachedData returned by the spliterator.
+ */
+class PrefetchingSpliterator<A extends CachedData> implements Spliterator<A> {
+  private static final Logger log = Logger.getLogger(PrefetchingSpliterator.class.getName());
+
+  // A fetcher gives up if the consumer takes no pages for this long
+  private static final long ABANDON_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  // Initial page size, before any latency has been observed
+  private static final int INITIAL_PAGE_SIZE = 1000;
+
+  // Shared by all prefetching streams.  Threads are daemons so abandoned streams don't block shutdown.
+  private static final ExecutorService fetchers = Executors.newCachedThreadPool(r -> {
+    Thread t = new Thread(r, "model-prefetch");
+    t.setDaemon(true);
+    return t;
+  });
+
+  private static final class Page<A> {
+    private final List<A> rows;
+    private final IOException error;
+
+    private Page(List<A> rows, IOException error) {
+      this.rows = rows;
+      this.error = error;
+    }
+  }
+
+  private final AttributeSelector ats;
+  private final CachedData.PagedQueryCaller<A> query;
+  private final boolean ascending;
+  private final CachedData.StreamExceptionHandler exceptionHandler;
+  private final StreamStats stats;
+  private final BlockingQueue<Page<A>> pages;
+  private final int minPage;
+  private final int maxPage;
+  private final long targetNanos;
+  private volatile boolean cancelled = false;
+  private boolean started = false;
+  private boolean done = false;
+  private Deque<A> current = new ArrayDeque<>();
+
+  /**
+   * Create a prefetching spliterator.
+   *
+   * @param time             the time at which returned objects should be live.
+   * @param query            a PagedQueryCaller which will generate pages of elements as needed.
+   * @param ascending        true if elements should be returned in ascending cid order, false otherwise.
+   * @param exceptionHandler an optional interface which will be called if a query error occurs.
+   * @param stats            statistics to update, or null.
+   * @param depth            maximum number of pages fetched ahead of the consumer.
+   * @param minPage          smallest page size requested.
+   * @param maxPage          largest page size requested.
+   * @param targetLatency    target time in milliseconds for a single page fetch.
+   */
+  PrefetchingSpliterator(long time, CachedData.PagedQueryCaller<A> query, boolean ascending,
+                         CachedData.StreamExceptionHandler exceptionHandler, StreamStats stats, int depth,
+                         int minPage, int maxPage, long targetLatency) {
+    this.ats = AttributeSelector.values(time);
+    this.query = query;
+    this.ascending = ascending;
+    this.exceptionHandler = exceptionHandler;
+    this.stats = stats == null ? new StreamStats() : stats;
+    this.pages = new ArrayBlockingQueue<>(Math.max(1, depth));
+    this.minPage = Math.max(1, minPage);
+    this.maxPage = Math.max(this.minPage, maxPage);
+    this.targetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, targetLatency));
+  }
+
+  /**
+   * Stop fetching pages.  Called when the stream is closed.
+   */
+  void cancel() {
+    cancelled = true;
+    pages.clear();
+    stats.end();
+  }
+
+  // Scale the page size so the next fetch takes roughly the target latency, changing by at most a factor of two
+  private int adapt(int pageSize, int rows, long elapsedNanos) {
+    if (rows < pageSize || elapsedNanos <= 0) return pageSize;
+    long target = (long) (targetNanos / ((double) elapsedNanos / rows));
+    target = Math.max(pageSize / 2, Math.min((long) pageSize * 2, target));
+    return (int) Math.max(minPage, Math.min(maxPage, target));
+  }
+
+  // Hand a page to the consumer, waiting while the queue is full.  Returns false if the fetch should stop.
+  private boolean deliver(Page<A> page) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + ABANDON_MILLIS;
+    while (!cancelled) {
+      if (pages.offer(page, 1, TimeUnit.SECONDS)) return true;
+      if (System.currentTimeMillis() > deadline) {
+        log.warning("Prefetching stream abandoned by consumer, stopping fetch");
+        cancelled = true;
+      }
+    }
+    return false;
+  }
+
+  private void fetch() {
+    long contid = ascending ? -1 : Long.MAX_VALUE;
+    int pageSize = Math.max(minPage, Math.min(maxPage, INITIAL_PAGE_SIZE));
+    try {
+      while (!cancelled) {
+        List<A> rows;
+        long start = System.nanoTime();
+        try {
+          rows = query.query(contid, pageSize, ats);
+        } catch (IOException e) {
+          deliver(new Page<>(Collections.emptyList(), e));
+          return;
+        } catch (RuntimeException e) {
+          deliver(new Page<>(Collections.emptyList(), new IOException(e)));
+          return;
+        }
+        long elapsed = System.nanoTime() - start;
+        stats.recordFetch(rows.size(), elapsed, pageSize);
+        if (!deliver(new Page<>(rows, null)) || rows.isEmpty()) return;
+        contid = rows.get(rows.size() - 1)
+                     .getCid();
+        pageSize = adapt(pageSize, rows.size(), elapsed);
+      }
+    } catch (InterruptedException e) {
+      log.log(Level.FINE, "Prefetch interrupted", e);
+    }
+  }
+
+  private boolean hasNext() {
+    if (!current.isEmpty()) return true;
+    if (done) return false;
+    if (!started) {
+      started = true;
+      stats.start();
+      fetchers.submit(this::fetch);
+    }
+    Page<A> next;
+    long start = System.nanoTime();
+    try {
+      next = pages.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread()
+            .interrupt();
+      next = new Page<>(Collections.emptyList(), new IOException(e));
+    }
+    stats.recordWait(System.nanoTime() - start);
+    if (next.error != null) {
+      log.log(Level.FINE, "Query error, truncating stream at last element", next.error);
+      if (exceptionHandler != null) exceptionHandler.handle(next.error);
+    }
+    if (next.rows.isEmpty()) {
+      done = true;
+      cancel();
+      return false;
+    }
+    current.addAll(next.rows);
+    stats.recordConsumed(next.rows.size());
+    return true;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super A> action) {
+    if (hasNext()) {
+      action.accept(current.remove());
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super A> action) {
+    while (hasNext())
+      action.accept(current.remove());
+  }
+
+  @Override
+  public Spliterator<A> trySplit() {
+    return null;
+  }
+
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+  }
+
+  @Override
+  public Comparator<? super A> getComparator() {
+    return ascending ? Comparator.comparingLong(CachedData::getCid) : Comparator.comparingLong(CachedData::getCid)
+                                                                                .reversed();
+  }
+
+}
@@ -0,0 +1,102 @@
+package enterprises.orbital.evekit.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact read-only row holding a subset of the fields of a model entity, as returned by
+ * {@link CachedData#accessProjection(Class, enterprises.orbital.evekit.account.SynchronizedEveAccount, long, int, boolean, AttributeSelector, AccessPredicate, String...)}.
+ * Rows are built from scalar query results so no entity is loaded or tracked.  Rows from the same query share a
+ * single field index.
+ */
+public final class Projection {
+
+  // Field name to value index, shared by all rows from the same query
+  static final class Fields {
+    private final String[] names;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    Fields(String[] names) {
+      this.names = names.clone();
+      for (int i = 0; i < names.length; i++)
+        index.put(names[i], i);
+    }
+  }
+
+  private final Fields fields;
+  private final long cid;
+  private final Object[] values;
+
+  Projection(Fields fields, long cid, Object[] values) {
+    this.fields = fields;
+    this.cid = cid;
+    this.values = values;
+  }
+
+  /**
+   * @return the CachedData ID of the entity this row was read from.
+   */
+  public long getCid() {
+    return cid;
+  }
+
+  /**
+   * @return the names of the fields in this row, in query order.
+   */
+  public List<String> getFieldNames() {
+    return Arrays.asList(fields.names.clone());
+  }
+
+  /**
+   * @param field a field name.
+   * @return true if this row contains the given field.
+   */
+  public boolean has(String field) {
+    return fields.index.containsKey(field);
+  }
+
+  /**
+   * @param position a position in the field list.
+   * @return the value of the field at the given position.
+   */
+  public Object get(int position) {
+    return values[position];
+  }
+
+  /**
+   * @param field a field name.
+   * @return the value of the named field.
+   * @throws IllegalArgumentException if the field is not part of this projection.
+   */
+  public Object get(String field) {
+    Integer position = fields.index.get(field);
+    if (position == null) throw new IllegalArgumentException("field not in projection: " + field);
+    return values[position];
+  }
+
+  /**
+   * @param field a field name.
+   * @param type  the expected type of the field value.
+   * @param <T>   the expected type of the field value.
+   * @return the value of the named field.
+   * @throws IllegalArgumentException if the field is not part of this projection.
+   * @throws ClassCastException if the value is not of the expected type.
+   */
+  public <T> T get(String field, Class<T> type) {
+    return type.cast(get(field));
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder("Projection{cid=").append(cid);
+    for (int i = 0; i < values.length; i++)
+      result.append(", ")
+            .append(fields.names[i])
+            .append("=")
+            .append(values[i]);
+    return result.append('}')
+                 .toString();
+  }
+}
@@ -0,0 +1,430 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded LRU cache of point-in-time list query results, e.g. all market orders live at a given time.  Results
+ * are keyed by model type, owner, query shape (normally the named query), query parameters and time.
+ * <p>
+ * Each owner and model type has a {@link ModelEpoch} row which every write of entities of that type for that
+ * owner advances in the same transaction.  Sync and readers usually run in different processes, so the row is
+ * read from the database on every lookup.  A cached result is valid while the epoch it was read at is current.
+ * A result for a historical time also survives later modifications, provided every entity in the result had
+ * already ended when it was read, the time was at or before the epoch frontier, and no later write has reached
+ * back to the frontier (i.e. the history epoch is unchanged).  Entities which have ended never change except for
+ * meta data, and meta data changes are recorded as modifications at the start of the changed entity's lifeline.
+ * Results for an owner and type which has no epoch row yet (i.e. which has not been written since epochs were
+ * introduced) are not cached.
+ * <p>
+ * The cache keeps its own copies of result entities and every hit returns a new list of new copies (see
+ * {@link CachedData#copy(CachedData)}), so callers may modify returned entities without affecting each other.
+ * Meta data is copied as well, so detached entities must have their meta data loaded before they are cached.
+ */
+public class ResultCache {
+  private static final Logger log = Logger.getLogger(ResultCache.class.getName());
+
+  // Number of times we'll retry creating an epoch row which conflicts with another process
+  private static final int MAX_CREATE_ATTEMPTS = 100;
+
+  // Epoch rows known to exist, so they are only created once per process
+  private static final Set<ModelEpoch.Key> known = ConcurrentHashMap.newKeySet();
+
+  // Owner and model type whose modifications are tracked together
+  private static final class Scope {
+    private final Class<?> type;
+    private final long owner;
+
+    private Scope(Class<?> type, long owner) {
+      this.type = type;
+      this.owner = owner;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Scope that = (Scope) o;
+      return owner == that.owner && type.equals(that.type);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, owner);
+    }
+  }
+
+  private static final class Key {
+    private final Scope scope;
+    private final String shape;
+    private final Object[] params;
+    private final long time;
+
+    private Key(Scope scope, String shape, Object[] params, long time) {
+      this.scope = scope;
+      this.shape = shape;
+      this.params = params.clone();
+      this.time = time;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key that = (Key) o;
+      return time == that.time && scope.equals(that.scope) && shape.equals(that.shape) &&
+          Arrays.equals(params, that.params);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(scope, shape, Arrays.hashCode(params), time);
+    }
+  }
+
+  private static final class Entry {
+    private final List<? extends CachedData> result;
+    private final long epoch;
+    private final long historyEpoch;
+    private final long frontier;
+    private final boolean historical;
+
+    private Entry(List<? extends CachedData> result, ModelEpoch read) {
+      this.result = Collections.unmodifiableList(copy(result));
+      this.epoch = read.getEpoch();
+      this.historyEpoch = read.getHistoryEpoch();
+      this.frontier = read.getFrontier();
+      boolean ended = true;
+      for (CachedData next : result)
+        ended = ended && next.getLifeEnd() != Long.MAX_VALUE;
+      this.historical = ended;
+    }
+  }
+
+  private final IntSupplier capacitySource;
+  private final Map<Key, Entry> results = new LinkedHashMap<>(16, 0.75F, true);
+  private final AtomicLong hits = new AtomicLong(0);
+  private final AtomicLong misses = new AtomicLong(0);
+  private final AtomicLong invalidations = new AtomicLong(0);
+  private final AtomicLong evictions = new AtomicLong(0);
+  private volatile int capacity = -1;
+
+  /**
+   * @param capacity supplies the maximum number of cached results.  Consulted on first use and when the cache is
+   *                 cleared.  A capacity of zero disables the cache.
+   */
+  ResultCache(IntSupplier capacity) {
+    this.capacitySource = capacity;
+  }
+
+  private int capacity() {
+    int current = capacity;
+    if (current < 0) {
+      current = Math.max(0, capacitySource.getAsInt());
+      capacity = current;
+    }
+    return current;
+  }
+
+  /**
+   * @return number of lookups answered from the cache.
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return number of lookups not answered from the cache, including those which found an invalid result.
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return fraction of lookups answered from the cache, or 0 if there have been no lookups.
+   */
+  public double getHitRate() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+
+  /**
+   * @return number of cached results discarded because of a later modification.
+   */
+  public long getInvalidations() {
+    return invalidations.get();
+  }
+
+  /**
+   * @return number of results removed to make room for others.
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * @return number of results currently cached.
+   */
+  public synchronized int getSize() {
+    return results.size();
+  }
+
+  /**
+   * Remove all results and reset statistics.  The capacity is read again on next use.
+   */
+  public synchronized void clear() {
+    results.clear();
+    hits.set(0);
+    misses.set(0);
+    invalidations.set(0);
+    evictions.set(0);
+    capacity = -1;
+  }
+
+  /**
+   * Current modification epoch for an owner and type.  Read before running a query, and passed to
+   * {@link #put(Class, SynchronizedEveAccount, long, String, Object[], ModelEpoch, List)} with the result, so
+   * that a result read concurrently with a modification is never treated as current.
+   *
+   * @param em    entity manager of the current transaction.
+   * @param type  the model type.
+   * @param owner the owner.
+   * @return the current epoch, or null if no entities of this type have been written for this owner yet.
+   */
+  static ModelEpoch epoch(EntityManager em, Class<?> type, SynchronizedEveAccount owner) {
+    return epoch(em, type.getSimpleName(), owner.getAid());
+  }
+
+  // Same as above, for callers which only know the entity name of the type and the owner's account ID
+  static ModelEpoch epoch(EntityManager em, String typeName, long aid) {
+    return em.find(ModelEpoch.class, new ModelEpoch.Key(aid, typeName));
+  }
+
+  private static <A extends CachedData> List<A> copy(List<A> result) {
+    List<A> copy = new ArrayList<>(result.size());
+    for (A next : result)
+      copy.add(CachedData.copy(next));
+    return copy;
+  }
+
+  // Cached entities are never modified or handed out, so hits are copied outside the lock
+  @SuppressWarnings("unchecked")
+  <A extends CachedData> List<A> get(Class<A> type, SynchronizedEveAccount owner, long time, String shape,
+                                     Object[] params, ModelEpoch current) {
+    List<A> result = (List<A>) find(type, owner, time, shape, params, current);
+    return result == null ? null : copy(result);
+  }
+
+  private synchronized List<? extends CachedData> find(Class<?> type, SynchronizedEveAccount owner, long time,
+                                                       String shape, Object[] params, ModelEpoch current) {
+    if (capacity() == 0) return null;
+    Key key = new Key(new Scope(type, owner.getAid()), shape, params, time);
+    Entry entry = results.get(key);
+    if (entry != null && !valid(key, entry, current)) {
+      results.remove(key);
+      invalidations.incrementAndGet();
+      entry = null;
+    }
+    (entry == null ? misses : hits).incrementAndGet();
+    return entry == null ? null : entry.result;
+  }
+
+  void put(Class<?> type, SynchronizedEveAccount owner, long time, String shape, Object[] params, ModelEpoch read,
+           List<? extends CachedData> result) {
+    if (capacity() == 0 || read == null || result == null) return;
+    store(new Key(new Scope(type, owner.getAid()), shape, params, time), new Entry(result, read));
+  }
+
+  private synchronized void store(Key key, Entry entry) {
+    results.put(key, entry);
+    Iterator<Entry> eldest = results.values()
+                                    .iterator();
+    while (results.size() > capacity() && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  private static boolean valid(Key key, Entry entry, ModelEpoch current) {
+    if (current == null) return false;
+    return entry.epoch == current.getEpoch() ||
+        (entry.historical && key.time <= entry.frontier && entry.historyEpoch == current.getHistoryEpoch());
+  }
+
+  /**
+   * Record changes to stored entities in the current transaction.  Each changed entity is assumed to affect
+   * results at or after the start of its lifeline.
+   *
+   * @param em   entity manager of the transaction which changed the entities.
+   * @param data the changed entities.
+   * @throws IOException if an epoch row could not be created.
+   */
+  static void modified(EntityManager em, Collection<? extends CachedData> data) throws IOException {
+    modified(em, data, CachedData::getLifeStart);
+  }
+
+  /**
+   * Record changes to stored entities in the current transaction which only affect results at or after the given
+   * time, e.g. ending the lifelines of live entities.
+   *
+   * @param em   entity manager of the transaction which changed the entities.
+   * @param data the changed entities.
+   * @param time the earliest time affected by the changes.
+   * @throws IOException if an epoch row could not be created.
+   */
+  static void modified(EntityManager em, Collection<? extends CachedData> data, long time) throws IOException {
+    modified(em, data, x -> time);
+  }
+
+  /**
+   * Record changes to stored entities in the current transaction, with the earliest time affected by each change.
+   * Each affected owner and type is advanced once, with the earliest affected time.  Epochs are advanced in key
+   * order so that concurrent writers lock rows in the same order.
+   *
+   * @param em       entity manager of the transaction which changed the entities.
+   * @param data     the changed entities.
+   * @param affected the earliest time affected by the change to each entity.
+   * @throws IOException if an epoch row could not be created.
+   */
+  static void modified(EntityManager em, Collection<? extends CachedData> data,
+                       ToLongFunction<CachedData> affected) throws IOException {
+    Map<ModelEpoch.Key, Long> earliest = new TreeMap<>();
+    for (CachedData next : data) {
+      if (next == null || next.getOwner() == null) continue;
+      earliest.merge(new ModelEpoch.Key(next.getOwner()
+                                            .getAid(), next.getClass()
+                                                           .getSimpleName()), affected.applyAsLong(next),
+                     Math::min);
+    }
+    // Create missing rows before this transaction touches any, so creation never waits on our own locks
+    for (ModelEpoch.Key next : earliest.keySet())
+      create(next);
+    for (Map.Entry<ModelEpoch.Key, Long> next : earliest.entrySet()) {
+      long aid = next.getKey()
+                     .getAid();
+      String typeName = next.getKey()
+                            .getTypeName();
+      em.createQuery("UPDATE ModelEpoch e SET e.historyEpoch = e.historyEpoch + 1 " +
+                         "WHERE e.aid = :aid AND e.typeName = :type AND e.frontier >= :time")
+        .setParameter("aid", aid)
+        .setParameter("type", typeName)
+        .setParameter("time", next.getValue())
+        .executeUpdate();
+      em.createQuery("UPDATE ModelEpoch e SET e.epoch = e.epoch + 1 WHERE e.aid = :aid AND e.typeName = :type")
+        .setParameter("aid", aid)
+        .setParameter("type", typeName)
+        .executeUpdate();
+      em.createQuery("UPDATE ModelEpoch e SET e.frontier = :time " +
+                         "WHERE e.aid = :aid AND e.typeName = :type AND e.frontier < :time")
+        .setParameter("aid", aid)
+        .setParameter("type", typeName)
+        .setParameter("time", next.getValue())
+        .executeUpdate();
+    }
+  }
+
+  // Create an epoch row if it doesn't exist yet.  Rows are created with a separate entity manager and transaction
+  // (as BlockCidAllocator does) so that they survive a rollback of the calling transaction.
+  private static void create(ModelEpoch.Key key) throws IOException {
+    if (known.contains(key)) return;
+    EntityManagerFactory emf = EveKitUserAccountProvider.getFactory()
+                                                        .getEntityManager()
+                                                        .getEntityManagerFactory();
+    for (int attempt = 0; attempt < MAX_CREATE_ATTEMPTS; attempt++) {
+      EntityManager em = emf.createEntityManager();
+      try {
+        em.getTransaction()
+          .begin();
+        // Two processes may race to create the row, in which case one will fail on commit and retry.
+        if (em.find(ModelEpoch.class, key) == null) em.persist(new ModelEpoch(key.getAid(), key.getTypeName()));
+        em.getTransaction()
+          .commit();
+        known.add(key);
+        return;
+      } catch (PersistenceException e) {
+        log.log(Level.FINE, "Epoch creation conflict, retrying", e);
+        if (em.getTransaction()
+              .isActive()) em.getTransaction()
+                             .rollback();
+      } finally {
+        em.close();
+      }
+    }
+    throw new IOException("Unable to create epoch for " + key.getTypeName() + " of account " + key.getAid() +
+                              " after " + MAX_CREATE_ATTEMPTS + " attempts");
+  }
+
+  /**
+   * Invalidate all results of an account in every process, by advancing all epochs of the account.  Called when
+   * account data is removed.
+   *
+   * @param owner the account.
+   * @throws IOException on any DB error.
+   */
+  void invalidate(SynchronizedEveAccount owner) throws IOException {
+    try {
+      EveKitUserAccountProvider.getFactory()
+                               .runTransaction(() -> {
+                                 EveKitUserAccountProvider.getFactory()
+                                                          .getEntityManager()
+                                                          .createQuery("UPDATE ModelEpoch e SET e.epoch = e.epoch + 1, " +
+                                                                           "e.historyEpoch = e.historyEpoch + 1 " +
+                                                                           "WHERE e.aid = :aid")
+                                                          .setParameter("aid", owner.getAid())
+                                                          .executeUpdate();
+                               });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    } finally {
+      forget(owner);
+    }
+  }
+
+  private synchronized void forget(SynchronizedEveAccount owner) {
+    for (Iterator<Key> i = results.keySet()
+                                  .iterator(); i.hasNext(); ) {
+      if (i.next().scope.owner == owner.getAid()) {
+        i.remove();
+        invalidations.incrementAndGet();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ResultCache{" +
+        "size=" + getSize() +
+        ", hits=" + getHits() +
+        ", misses=" + getMisses() +
+        ", hitRate=" + getHitRate() +
+        ", invalidations=" + getInvalidations() +
+        ", evictions=" + getEvictions() +
+        '}';
+  }
+}
@@ -0,0 +1,107 @@
+package enterprises.orbital.evekit.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics for a single prefetching stream created by
+ * {@link CachedData#stream(long, CachedData.PagedQueryCaller, boolean, CachedData.StreamExceptionHandler, StreamStats)}.
+ * Statistics are updated while the stream is consumed and may be read at any time.
+ */
+public class StreamStats {
+  private final AtomicLong pages = new AtomicLong(0);
+  private final AtomicLong fetched = new AtomicLong(0);
+  private final AtomicLong consumed = new AtomicLong(0);
+  private final AtomicLong fetchNanos = new AtomicLong(0);
+  private final AtomicLong waitNanos = new AtomicLong(0);
+  private volatile int pageSize = 0;
+  private volatile long startNanos = 0;
+  private volatile long endNanos = 0;
+
+  void start() {
+    startNanos = System.nanoTime();
+  }
+
+  void end() {
+    if (endNanos == 0) endNanos = System.nanoTime();
+  }
+
+  void recordFetch(int rows, long elapsedNanos, int requested) {
+    pages.incrementAndGet();
+    fetched.addAndGet(rows);
+    fetchNanos.addAndGet(elapsedNanos);
+    pageSize = requested;
+  }
+
+  void recordWait(long elapsedNanos) {
+    waitNanos.addAndGet(elapsedNanos);
+  }
+
+  void recordConsumed(int rows) {
+    consumed.addAndGet(rows);
+  }
+
+  /**
+   * @return number of pages fetched, including the final empty page.
+   */
+  public long getPages() {
+    return pages.get();
+  }
+
+  /**
+   * @return number of rows fetched from storage.
+   */
+  public long getRowsFetched() {
+    return fetched.get();
+  }
+
+  /**
+   * @return number of rows handed to the stream consumer.
+   */
+  public long getRowsConsumed() {
+    return consumed.get();
+  }
+
+  /**
+   * @return total time in milliseconds spent fetching pages.
+   */
+  public double getFetchTime() {
+    return fetchNanos.get() / 1000000.0;
+  }
+
+  /**
+   * @return total time in milliseconds the consumer spent waiting for a page.
+   */
+  public double getWaitTime() {
+    return waitNanos.get() / 1000000.0;
+  }
+
+  /**
+   * @return page size requested by the most recent fetch.
+   */
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * @return rows consumed per second since the stream started.
+   */
+  public double getRowsPerSecond() {
+    long start = startNanos;
+    if (start == 0) return 0;
+    long end = endNanos == 0 ? System.nanoTime() : endNanos;
+    return consumed.get() / Math.max((end - start) / 1.0e9, 1.0e-9);
+  }
+
+  @Override
+  public String toString() {
+    return "StreamStats{" +
+        "pages=" + getPages() +
+        ", fetched=" + getRowsFetched() +
+        ", consumed=" + getRowsConsumed() +
+        ", fetchTime=" + getFetchTime() +
+        ", waitTime=" + getWaitTime() +
+        ", pageSize=" + getPageSize() +
+        ", rowsPerSecond=" + getRowsPerSecond() +
+        '}';
+  }
+}
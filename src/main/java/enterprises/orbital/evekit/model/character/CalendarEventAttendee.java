@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -127,23 +127,22 @@ public class CalendarEventAttendee extends CachedData {
       final int eID,
       final int cID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CalendarEventAttendee> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                            .getEntityManager()
-                                                                                                            .createNamedQuery(
-                                                                                                                "CalendarEventAttendee.getByEventAndCharacterID",
-                                                                                                                CalendarEventAttendee.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("event", eID);
-                                        getter.setParameter("char", cID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CalendarEventAttendee.class, owner, time, new Object[] {eID, cID}, () -> {
+        TypedQuery<CalendarEventAttendee> getter = EveKitUserAccountProvider.getFactory()
+                                                                            .getEntityManager()
+                                                                            .createNamedQuery(
+                                                                                "CalendarEventAttendee.getByEventAndCharacterID",
+                                                                                CalendarEventAttendee.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("event", eID);
+        getter.setParameter("char", cID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -160,38 +159,39 @@ public class CalendarEventAttendee extends CachedData {
       final AttributeSelector eventID,
       final AttributeSelector characterID,
       final AttributeSelector response) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CalendarEventAttendee c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "eventID", eventID);
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addStringSelector(qs, "c", "response", response, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CalendarEventAttendee> query = EveKitUserAccountProvider.getFactory()
-                                                                                                           .getEntityManager()
-                                                                                                           .createQuery(
-                                                                                                               qs.toString(),
-                                                                                                               CalendarEventAttendee.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CalendarEventAttendee.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(eventID, characterID, response));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector eventID,
+      final AttributeSelector characterID,
+      final AttributeSelector response) throws IOException {
+    return accessCount(CalendarEventAttendee.class, owner, at,
+                       accessPredicate(eventID, characterID, response));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector eventID,
+      final AttributeSelector characterID,
+      final AttributeSelector response) throws IOException {
+    return accessExists(CalendarEventAttendee.class, owner, at,
+                        accessPredicate(eventID, characterID, response));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector eventID,
+      final AttributeSelector characterID,
+      final AttributeSelector response) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "eventID", eventID);
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addStringSelector(qs, "c", "response", response, p);
+    });
   }
 
 }
@@ -544,7 +544,7 @@ public class Capsuleer extends CachedData {
   public static Capsuleer getCapsuleer(
                                        final SynchronizedEveAccount parent) {
     try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(new RunInTransaction<Capsuleer>() {
+      return CachedData.runReadOnly(new RunInTransaction<Capsuleer>() {
         @Override
         public Capsuleer run() throws Exception {
           TypedQuery<Capsuleer> getter = EveKitUserAccountProvider.getFactory().getEntityManager().createNamedQuery("Capsuleer.get", Capsuleer.class);
@@ -574,7 +574,7 @@ public class Capsuleer extends CachedData {
             existing.setup(owner, OrbitalProperties.getCurrentTime());
             existing.setCharacterName(owner.getEveCharacterName());
             existing.setCharacterID(owner.getEveCharacterID());
-            existing = EveKitUserAccountProvider.getFactory().getEntityManager().merge(existing);
+            existing = CachedData.update(existing);
           }
           return existing;
         }
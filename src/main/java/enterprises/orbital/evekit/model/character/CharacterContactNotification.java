@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -159,22 +159,21 @@ public class CharacterContactNotification extends CachedData {
       final long time,
       final int notificationID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterContactNotification> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                                   .getEntityManager()
-                                                                                                                   .createNamedQuery(
-                                                                                                                       "CharacterContactNotification.getByNotificationID",
-                                                                                                                       CharacterContactNotification.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("nid", notificationID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterContactNotification.class, owner, time, new Object[] {notificationID}, () -> {
+        TypedQuery<CharacterContactNotification> getter = EveKitUserAccountProvider.getFactory()
+                                                                                   .getEntityManager()
+                                                                                   .createNamedQuery(
+                                                                                       "CharacterContactNotification.getByNotificationID",
+                                                                                       CharacterContactNotification.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("nid", notificationID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -193,40 +192,47 @@ public class CharacterContactNotification extends CachedData {
       final AttributeSelector sentDate,
       final AttributeSelector standingLevel,
       final AttributeSelector messageData) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterContactNotification c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "notificationID", notificationID);
-                                        AttributeSelector.addIntSelector(qs, "c", "senderID", senderID);
-                                        AttributeSelector.addLongSelector(qs, "c", "sentDate", sentDate);
-                                        AttributeSelector.addFloatSelector(qs, "c", "standingLevel", standingLevel);
-                                        AttributeSelector.addStringSelector(qs, "c", "messageData", messageData, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterContactNotification> query = EveKitUserAccountProvider.getFactory()
-                                                                                                                  .getEntityManager()
-                                                                                                                  .createQuery(
-                                                                                                                      qs.toString(),
-                                                                                                                      CharacterContactNotification.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterContactNotification.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(notificationID, senderID, sentDate, standingLevel, messageData));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector notificationID,
+      final AttributeSelector senderID,
+      final AttributeSelector sentDate,
+      final AttributeSelector standingLevel,
+      final AttributeSelector messageData) throws IOException {
+    return accessCount(CharacterContactNotification.class, owner, at,
+                       accessPredicate(notificationID, senderID, sentDate, standingLevel, messageData));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector notificationID,
+      final AttributeSelector senderID,
+      final AttributeSelector sentDate,
+      final AttributeSelector standingLevel,
+      final AttributeSelector messageData) throws IOException {
+    return accessExists(CharacterContactNotification.class, owner, at,
+                        accessPredicate(notificationID, senderID, sentDate, standingLevel, messageData));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector notificationID,
+      final AttributeSelector senderID,
+      final AttributeSelector sentDate,
+      final AttributeSelector standingLevel,
+      final AttributeSelector messageData) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "notificationID", notificationID);
+      AttributeSelector.addIntSelector(qs, "c", "senderID", senderID);
+      AttributeSelector.addLongSelector(qs, "c", "sentDate", sentDate);
+      AttributeSelector.addFloatSelector(qs, "c", "standingLevel", standingLevel);
+      AttributeSelector.addStringSelector(qs, "c", "messageData", messageData, p);
+    });
   }
 
 }
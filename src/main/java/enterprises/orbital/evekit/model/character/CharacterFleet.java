@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -124,22 +124,21 @@ public class CharacterFleet extends CachedData {
       final long time,
       final long fleetID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterFleet> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery(
-                                                                                                  "CharacterFleet.get",
-                                                                                                  CharacterFleet.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("fid", fleetID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterFleet.class, owner, time, new Object[] {fleetID}, () -> {
+        TypedQuery<CharacterFleet> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                  "CharacterFleet.get",
+                                                                  CharacterFleet.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("fid", fleetID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -157,38 +156,43 @@ public class CharacterFleet extends CachedData {
       final AttributeSelector role,
       final AttributeSelector squadID,
       final AttributeSelector wingID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterFleet c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "fleetID", fleetID);
-                                        AttributeSelector.addStringSelector(qs, "c", "role", role, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "squadID", squadID);
-                                        AttributeSelector.addLongSelector(qs, "c", "wingID", wingID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterFleet> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(qs.toString(),
-                                                                                                          CharacterFleet.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterFleet.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(fleetID, role, squadID, wingID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fleetID,
+      final AttributeSelector role,
+      final AttributeSelector squadID,
+      final AttributeSelector wingID) throws IOException {
+    return accessCount(CharacterFleet.class, owner, at,
+                       accessPredicate(fleetID, role, squadID, wingID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fleetID,
+      final AttributeSelector role,
+      final AttributeSelector squadID,
+      final AttributeSelector wingID) throws IOException {
+    return accessExists(CharacterFleet.class, owner, at,
+                        accessPredicate(fleetID, role, squadID, wingID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector fleetID,
+      final AttributeSelector role,
+      final AttributeSelector squadID,
+      final AttributeSelector wingID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "fleetID", fleetID);
+      AttributeSelector.addStringSelector(qs, "c", "role", role, p);
+      AttributeSelector.addLongSelector(qs, "c", "squadID", squadID);
+      AttributeSelector.addLongSelector(qs, "c", "wingID", wingID);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -107,21 +108,20 @@ public class CharacterLocation extends CachedData {
       final SynchronizedEveAccount owner,
       final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterLocation> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                        .getEntityManager()
-                                                                                                        .createNamedQuery(
-                                                                                                            "CharacterLocation.get",
-                                                                                                            CharacterLocation.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterLocation.class, owner, time, new Object[0], () -> {
+        TypedQuery<CharacterLocation> getter = EveKitUserAccountProvider.getFactory()
+                                                                        .getEntityManager()
+                                                                        .createNamedQuery(
+                                                                            "CharacterLocation.get",
+                                                                            CharacterLocation.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -138,36 +138,39 @@ public class CharacterLocation extends CachedData {
       final AttributeSelector solarSystemID,
       final AttributeSelector stationID,
       final AttributeSelector structureID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterLocation c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
-                                        AttributeSelector.addIntSelector(qs, "c", "stationID", stationID);
-                                        AttributeSelector.addLongSelector(qs, "c", "structureID", structureID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterLocation> query = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createQuery(
-                                                                                                           qs.toString(),
-                                                                                                           CharacterLocation.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterLocation.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(solarSystemID, stationID, structureID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector stationID,
+      final AttributeSelector structureID) throws IOException {
+    return accessCount(CharacterLocation.class, owner, at,
+                       accessPredicate(solarSystemID, stationID, structureID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector stationID,
+      final AttributeSelector structureID) throws IOException {
+    return accessExists(CharacterLocation.class, owner, at,
+                        accessPredicate(solarSystemID, stationID, structureID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector solarSystemID,
+      final AttributeSelector stationID,
+      final AttributeSelector structureID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
+      AttributeSelector.addIntSelector(qs, "c", "stationID", stationID);
+      AttributeSelector.addLongSelector(qs, "c", "structureID", structureID);
+    });
   }
 
 }
@@ -5,10 +5,13 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.io.IOException;
@@ -46,11 +49,15 @@ public class CharacterMailMessage extends CachedData {
   private boolean msgRead;
 
   @ElementCollection(fetch = FetchType.EAGER)
+  @Fetch(FetchMode.SELECT)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @CollectionTable(name = "mail_message_label", joinColumns = @JoinColumn(name = "mail_cid"))
   @Column(name = "labelID")
   private Set<Integer> labels = new HashSet<>();
 
   @ElementCollection(fetch = FetchType.EAGER)
+  @Fetch(FetchMode.SELECT)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @CollectionTable(name = "mail_message_recipient", joinColumns = @JoinColumn(name = "mail_cid"))
   private Set<MailMessageRecipient> recipients = new HashSet<>();
 
@@ -187,22 +194,21 @@ public class CharacterMailMessage extends CachedData {
       final long time,
       final long messageID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterMailMessage> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                           .getEntityManager()
-                                                                                                           .createNamedQuery(
-                                                                                                               "CharacterMailMessage.getByMessageID",
-                                                                                                               CharacterMailMessage.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("mid", messageID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterMailMessage.class, owner, time, new Object[] {messageID}, () -> {
+        TypedQuery<CharacterMailMessage> getter = EveKitUserAccountProvider.getFactory()
+                                                                           .getEntityManager()
+                                                                           .createNamedQuery(
+                                                                               "CharacterMailMessage.getByMessageID",
+                                                                               CharacterMailMessage.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("mid", messageID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -225,46 +231,66 @@ public class CharacterMailMessage extends CachedData {
       final AttributeSelector recipientType,
       final AttributeSelector recipientID,
       final AttributeSelector body) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT DISTINCT c FROM CharacterMailMessage c ");
-                                        qs.append("JOIN c.labels d ");
-                                        qs.append("JOIN c.recipients e WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "messageID", messageID);
-                                        AttributeSelector.addLongSelector(qs, "c", "senderID", senderID);
-                                        AttributeSelector.addLongSelector(qs, "c", "sentDate", sentDate);
-                                        AttributeSelector.addStringSelector(qs, "c", "title", title, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "msgRead", msgRead);
-                                        AttributeSelector.addIntSelector(qs, null, "d", labelID);
-                                        AttributeSelector.addStringSelector(qs, "e", "recipientType", recipientType, p);
-                                        AttributeSelector.addIntSelector(qs, "e", "recipientID", recipientID);
-                                        AttributeSelector.addStringSelector(qs, "c", "body", body, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterMailMessage> query = EveKitUserAccountProvider.getFactory()
-                                                                                                          .getEntityManager()
-                                                                                                          .createQuery(
-                                                                                                              qs.toString(),
-                                                                                                              CharacterMailMessage.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        p.fillParams(query);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterMailMessage.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(messageID, senderID, sentDate, title, msgRead, labelID, recipientType,
+                                       recipientID, body));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector messageID,
+      final AttributeSelector senderID,
+      final AttributeSelector sentDate,
+      final AttributeSelector title,
+      final AttributeSelector msgRead,
+      final AttributeSelector labelID,
+      final AttributeSelector recipientType,
+      final AttributeSelector recipientID,
+      final AttributeSelector body) throws IOException {
+    return accessCount(CharacterMailMessage.class, owner, at,
+                       accessPredicate(messageID, senderID, sentDate, title, msgRead, labelID, recipientType,
+                                       recipientID, body));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector messageID,
+      final AttributeSelector senderID,
+      final AttributeSelector sentDate,
+      final AttributeSelector title,
+      final AttributeSelector msgRead,
+      final AttributeSelector labelID,
+      final AttributeSelector recipientType,
+      final AttributeSelector recipientID,
+      final AttributeSelector body) throws IOException {
+    return accessExists(CharacterMailMessage.class, owner, at,
+                        accessPredicate(messageID, senderID, sentDate, title, msgRead, labelID, recipientType,
+                                        recipientID, body));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector messageID,
+      final AttributeSelector senderID,
+      final AttributeSelector sentDate,
+      final AttributeSelector title,
+      final AttributeSelector msgRead,
+      final AttributeSelector labelID,
+      final AttributeSelector recipientType,
+      final AttributeSelector recipientID,
+      final AttributeSelector body) {
+    return AccessPredicate.joined("JOIN c.labels d JOIN c.recipients e", (qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "messageID", messageID);
+      AttributeSelector.addLongSelector(qs, "c", "senderID", senderID);
+      AttributeSelector.addLongSelector(qs, "c", "sentDate", sentDate);
+      AttributeSelector.addStringSelector(qs, "c", "title", title, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "msgRead", msgRead);
+      AttributeSelector.addIntSelector(qs, null, "d", labelID);
+      AttributeSelector.addStringSelector(qs, "e", "recipientType", recipientType, p);
+      AttributeSelector.addIntSelector(qs, "e", "recipientID", recipientID);
+      AttributeSelector.addStringSelector(qs, "c", "body", body, p);
+    });
   }
 
 }
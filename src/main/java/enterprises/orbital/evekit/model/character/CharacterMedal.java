@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -180,23 +180,22 @@ public class CharacterMedal extends CachedData {
       final int medalID,
       final long issued) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterMedal> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery(
-                                                                                                         "CharacterMedal.getbyMedalIDAndIssued",
-                                                                                                         CharacterMedal.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("mid", medalID);
-                                        getter.setParameter("issued", issued);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterMedal.class, owner, time, new Object[] {medalID, issued}, () -> {
+        TypedQuery<CharacterMedal> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                         "CharacterMedal.getbyMedalIDAndIssued",
+                                                                         CharacterMedal.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("mid", medalID);
+        getter.setParameter("issued", issued);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -218,43 +217,59 @@ public class CharacterMedal extends CachedData {
       final AttributeSelector issuerID,
       final AttributeSelector reason,
       final AttributeSelector status) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterMedal c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addStringSelector(qs, "c", "description", description, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "medalID", medalID);
-                                        AttributeSelector.addStringSelector(qs, "c", "title", title, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "corporationID", corporationID);
-                                        AttributeSelector.addLongSelector(qs, "c", "issued", issued);
-                                        AttributeSelector.addIntSelector(qs, "c", "issuerID", issuerID);
-                                        AttributeSelector.addStringSelector(qs, "c", "reason", reason, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "status", status, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterMedal> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(
-                                                                                                        qs.toString(),
-                                                                                                        CharacterMedal.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterMedal.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(description, medalID, title, corporationID, issued, issuerID, reason, status));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector description,
+      final AttributeSelector medalID,
+      final AttributeSelector title,
+      final AttributeSelector corporationID,
+      final AttributeSelector issued,
+      final AttributeSelector issuerID,
+      final AttributeSelector reason,
+      final AttributeSelector status) throws IOException {
+    return accessCount(CharacterMedal.class, owner, at,
+                       accessPredicate(description, medalID, title, corporationID, issued, issuerID, reason, status));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector description,
+      final AttributeSelector medalID,
+      final AttributeSelector title,
+      final AttributeSelector corporationID,
+      final AttributeSelector issued,
+      final AttributeSelector issuerID,
+      final AttributeSelector reason,
+      final AttributeSelector status) throws IOException {
+    return accessExists(CharacterMedal.class, owner, at,
+                        accessPredicate(description, medalID, title, corporationID, issued, issuerID, reason, status));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector description,
+      final AttributeSelector medalID,
+      final AttributeSelector title,
+      final AttributeSelector corporationID,
+      final AttributeSelector issued,
+      final AttributeSelector issuerID,
+      final AttributeSelector reason,
+      final AttributeSelector status) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addStringSelector(qs, "c", "description", description, p);
+      AttributeSelector.addIntSelector(qs, "c", "medalID", medalID);
+      AttributeSelector.addStringSelector(qs, "c", "title", title, p);
+      AttributeSelector.addIntSelector(qs, "c", "corporationID", corporationID);
+      AttributeSelector.addLongSelector(qs, "c", "issued", issued);
+      AttributeSelector.addIntSelector(qs, "c", "issuerID", issuerID);
+      AttributeSelector.addStringSelector(qs, "c", "reason", reason, p);
+      AttributeSelector.addStringSelector(qs, "c", "status", status, p);
+    });
   }
 
 }
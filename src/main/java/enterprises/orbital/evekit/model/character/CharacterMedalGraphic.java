@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -163,25 +163,25 @@ public class CharacterMedalGraphic extends CachedData {
       final int part,
       final int layer) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterMedalGraphic> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                            .getEntityManager()
-                                                                                                            .createNamedQuery(
-                                                                                                                "CharacterMedalGraphic.getbyID",
-                                                                                                                CharacterMedalGraphic.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("mid", medalID);
-                                        getter.setParameter("issued", issued);
-                                        getter.setParameter("part", part);
-                                        getter.setParameter("layer", layer);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterMedalGraphic.class, owner, time,
+                                      new Object[] {medalID, issued, part, layer}, () -> {
+        TypedQuery<CharacterMedalGraphic> getter = EveKitUserAccountProvider.getFactory()
+                                                                            .getEntityManager()
+                                                                            .createNamedQuery(
+                                                                                "CharacterMedalGraphic.getbyID",
+                                                                                CharacterMedalGraphic.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("mid", medalID);
+        getter.setParameter("issued", issued);
+        getter.setParameter("part", part);
+        getter.setParameter("layer", layer);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -201,41 +201,51 @@ public class CharacterMedalGraphic extends CachedData {
       final AttributeSelector layer,
       final AttributeSelector graphic,
       final AttributeSelector color) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterMedalGraphic c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "medalID", medalID);
-                                        AttributeSelector.addLongSelector(qs, "c", "issued", issued);
-                                        AttributeSelector.addIntSelector(qs, "c", "part", part);
-                                        AttributeSelector.addIntSelector(qs, "c", "layer", layer);
-                                        AttributeSelector.addStringSelector(qs, "c", "graphic", graphic, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "color", color);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterMedalGraphic> query = EveKitUserAccountProvider.getFactory()
-                                                                                                           .getEntityManager()
-                                                                                                           .createQuery(
-                                                                                                               qs.toString(),
-                                                                                                               CharacterMedalGraphic.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterMedalGraphic.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(medalID, issued, part, layer, graphic, color));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector medalID,
+      final AttributeSelector issued,
+      final AttributeSelector part,
+      final AttributeSelector layer,
+      final AttributeSelector graphic,
+      final AttributeSelector color) throws IOException {
+    return accessCount(CharacterMedalGraphic.class, owner, at,
+                       accessPredicate(medalID, issued, part, layer, graphic, color));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector medalID,
+      final AttributeSelector issued,
+      final AttributeSelector part,
+      final AttributeSelector layer,
+      final AttributeSelector graphic,
+      final AttributeSelector color) throws IOException {
+    return accessExists(CharacterMedalGraphic.class, owner, at,
+                        accessPredicate(medalID, issued, part, layer, graphic, color));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector medalID,
+      final AttributeSelector issued,
+      final AttributeSelector part,
+      final AttributeSelector layer,
+      final AttributeSelector graphic,
+      final AttributeSelector color) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "medalID", medalID);
+      AttributeSelector.addLongSelector(qs, "c", "issued", issued);
+      AttributeSelector.addIntSelector(qs, "c", "part", part);
+      AttributeSelector.addIntSelector(qs, "c", "layer", layer);
+      AttributeSelector.addStringSelector(qs, "c", "graphic", graphic, p);
+      AttributeSelector.addIntSelector(qs, "c", "color", color);
+    });
   }
 
 }
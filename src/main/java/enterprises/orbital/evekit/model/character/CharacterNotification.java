@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -173,22 +173,21 @@ public class CharacterNotification extends CachedData {
       final long time,
       final long notificationID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterNotification> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                            .getEntityManager()
-                                                                                                            .createNamedQuery(
-                                                                                                                "CharacterNotification.getByNotificationID",
-                                                                                                                CharacterNotification.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("nid", notificationID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterNotification.class, owner, time, new Object[] {notificationID}, () -> {
+        TypedQuery<CharacterNotification> getter = EveKitUserAccountProvider.getFactory()
+                                                                            .getEntityManager()
+                                                                            .createNamedQuery(
+                                                                                "CharacterNotification.getByNotificationID",
+                                                                                CharacterNotification.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("nid", notificationID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -209,42 +208,55 @@ public class CharacterNotification extends CachedData {
       final AttributeSelector sentDate,
       final AttributeSelector msgRead,
       final AttributeSelector text) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterNotification c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "notificationID", notificationID);
-                                        AttributeSelector.addStringSelector(qs, "c", "type", type, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "senderID", senderID);
-                                        AttributeSelector.addStringSelector(qs, "c", "senderType", senderType, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "sentDate", sentDate);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "msgRead", msgRead);
-                                        AttributeSelector.addStringSelector(qs, "c", "text", text, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterNotification> query = EveKitUserAccountProvider.getFactory()
-                                                                                                           .getEntityManager()
-                                                                                                           .createQuery(
-                                                                                                               qs.toString(),
-                                                                                                               CharacterNotification.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterNotification.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(notificationID, type, senderID, senderType, sentDate, msgRead, text));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector notificationID,
+      final AttributeSelector type,
+      final AttributeSelector senderID,
+      final AttributeSelector senderType,
+      final AttributeSelector sentDate,
+      final AttributeSelector msgRead,
+      final AttributeSelector text) throws IOException {
+    return accessCount(CharacterNotification.class, owner, at,
+                       accessPredicate(notificationID, type, senderID, senderType, sentDate, msgRead, text));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector notificationID,
+      final AttributeSelector type,
+      final AttributeSelector senderID,
+      final AttributeSelector senderType,
+      final AttributeSelector sentDate,
+      final AttributeSelector msgRead,
+      final AttributeSelector text) throws IOException {
+    return accessExists(CharacterNotification.class, owner, at,
+                        accessPredicate(notificationID, type, senderID, senderType, sentDate, msgRead, text));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector notificationID,
+      final AttributeSelector type,
+      final AttributeSelector senderID,
+      final AttributeSelector senderType,
+      final AttributeSelector sentDate,
+      final AttributeSelector msgRead,
+      final AttributeSelector text) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "notificationID", notificationID);
+      AttributeSelector.addStringSelector(qs, "c", "type", type, p);
+      AttributeSelector.addIntSelector(qs, "c", "senderID", senderID);
+      AttributeSelector.addStringSelector(qs, "c", "senderType", senderType, p);
+      AttributeSelector.addLongSelector(qs, "c", "sentDate", sentDate);
+      AttributeSelector.addBooleanSelector(qs, "c", "msgRead", msgRead);
+      AttributeSelector.addStringSelector(qs, "c", "text", text, p);
+    });
   }
 
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -141,21 +142,20 @@ public class CharacterOnline extends CachedData {
       final SynchronizedEveAccount owner,
       final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterOnline> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                      .getEntityManager()
-                                                                                                      .createNamedQuery(
-                                                                                                          "CharacterOnline.get",
-                                                                                                          CharacterOnline.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterOnline.class, owner, time, new Object[0], () -> {
+        TypedQuery<CharacterOnline> getter = EveKitUserAccountProvider.getFactory()
+                                                                      .getEntityManager()
+                                                                      .createNamedQuery(
+                                                                          "CharacterOnline.get",
+                                                                          CharacterOnline.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -173,37 +173,43 @@ public class CharacterOnline extends CachedData {
       final AttributeSelector lastLogin,
       final AttributeSelector lastLogout,
       final AttributeSelector logins) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterOnline c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addBooleanSelector(qs, "c", "online", online);
-                                        AttributeSelector.addLongSelector(qs, "c", "lastLogin", lastLogin);
-                                        AttributeSelector.addLongSelector(qs, "c", "lastLogout", lastLogout);
-                                        AttributeSelector.addIntSelector(qs, "c", "logins", logins);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterOnline> query = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createQuery(
-                                                                                                         qs.toString(),
-                                                                                                         CharacterOnline.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterOnline.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(online, lastLogin, lastLogout, logins));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector online,
+      final AttributeSelector lastLogin,
+      final AttributeSelector lastLogout,
+      final AttributeSelector logins) throws IOException {
+    return accessCount(CharacterOnline.class, owner, at,
+                       accessPredicate(online, lastLogin, lastLogout, logins));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector online,
+      final AttributeSelector lastLogin,
+      final AttributeSelector lastLogout,
+      final AttributeSelector logins) throws IOException {
+    return accessExists(CharacterOnline.class, owner, at,
+                        accessPredicate(online, lastLogin, lastLogout, logins));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector online,
+      final AttributeSelector lastLogin,
+      final AttributeSelector lastLogout,
+      final AttributeSelector logins) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addBooleanSelector(qs, "c", "online", online);
+      AttributeSelector.addLongSelector(qs, "c", "lastLogin", lastLogin);
+      AttributeSelector.addLongSelector(qs, "c", "lastLogout", lastLogout);
+      AttributeSelector.addIntSelector(qs, "c", "logins", logins);
+    });
   }
 
 }
@@ -4,7 +4,7 @@ import enterprises.orbital.db.ConnectionFactory.RunInTransaction;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -117,23 +117,22 @@ public class CharacterRole extends CachedData {
       final String roleCategory,
       final String roleName) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterRole> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createNamedQuery(
-                                                                                                        "CharacterRole.getByCategoryAndName",
-                                                                                                        CharacterRole.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("cat", roleCategory);
-                                        getter.setParameter("name", roleName);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterRole.class, owner, time, new Object[] {roleCategory, roleName}, () -> {
+        TypedQuery<CharacterRole> getter = EveKitUserAccountProvider.getFactory()
+                                                                    .getEntityManager()
+                                                                    .createNamedQuery(
+                                                                        "CharacterRole.getByCategoryAndName",
+                                                                        CharacterRole.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("cat", roleCategory);
+        getter.setParameter("name", roleName);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -149,40 +148,35 @@ public class CharacterRole extends CachedData {
       final AttributeSelector at,
       final AttributeSelector roleCategory,
       final AttributeSelector roleName) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(new RunInTransaction<List<CharacterRole>>() {
-                                        @Override
-                                        public List<CharacterRole> run() throws Exception {
-                                          StringBuilder qs = new StringBuilder();
-                                          qs.append("SELECT c FROM CharacterRole c WHERE ");
-                                          // Constrain to specified owner
-                                          qs.append("c.owner = :owner");
-                                          // Constrain lifeline
-                                          AttributeSelector.addLifelineSelector(qs, "c", at);
-                                          // Constrain attributes
-                                          AttributeParameters p = new AttributeParameters("att");
-                                          AttributeSelector.addStringSelector(qs, "c", "roleCategory", roleCategory, p);
-                                          AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
-                                          // Set CID constraint and ordering
-                                          setCIDOrdering(qs, contid, reverse);
-                                          // Return result
-                                          TypedQuery<CharacterRole> query = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createQuery(
-                                                                                                         qs.toString(),
-                                                                                                         CharacterRole.class);
-                                          query.setParameter("owner", owner);
-                                          p.fillParams(query);
-                                          query.setMaxResults(maxresults);
-                                          return query.getResultList();
-                                        }
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterRole.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(roleCategory, roleName));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector roleCategory,
+      final AttributeSelector roleName) throws IOException {
+    return accessCount(CharacterRole.class, owner, at,
+                       accessPredicate(roleCategory, roleName));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector roleCategory,
+      final AttributeSelector roleName) throws IOException {
+    return accessExists(CharacterRole.class, owner, at,
+                        accessPredicate(roleCategory, roleName));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector roleCategory,
+      final AttributeSelector roleName) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addStringSelector(qs, "c", "roleCategory", roleCategory, p);
+      AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
+    });
   }
 
 }
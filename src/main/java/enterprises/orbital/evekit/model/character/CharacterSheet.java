@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -212,21 +212,20 @@ public class CharacterSheet extends CachedData {
       final SynchronizedEveAccount owner,
       final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterSheet> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery(
-                                                                                                         "CharacterSheet.get",
-                                                                                                         CharacterSheet.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterSheet.class, owner, time, new Object[0], () -> {
+        TypedQuery<CharacterSheet> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                         "CharacterSheet.get",
+                                                                         CharacterSheet.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -252,47 +251,78 @@ public class CharacterSheet extends CachedData {
       final AttributeSelector factionID,
       final AttributeSelector description,
       final AttributeSelector securityStatus) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterSheet c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addStringSelector(qs, "c", "name", name, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "corporationID", corporationID);
-                                        AttributeSelector.addIntSelector(qs, "c", "raceID", raceID);
-                                        AttributeSelector.addLongSelector(qs, "c", "doB", doB);
-                                        AttributeSelector.addIntSelector(qs, "c", "bloodlineID", bloodlineID);
-                                        AttributeSelector.addIntSelector(qs, "c", "ancestryID", ancestryID);
-                                        AttributeSelector.addStringSelector(qs, "c", "gender", gender, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "allianceID", allianceID);
-                                        AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
-                                        AttributeSelector.addStringSelector(qs, "c", "description", description, p);
-                                        AttributeSelector.addFloatSelector(qs, "c", "securityStatus", securityStatus);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterSheet> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(
-                                                                                                        qs.toString(),
-                                                                                                        CharacterSheet.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterSheet.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(characterID, name, corporationID, raceID, doB, bloodlineID, ancestryID, gender,
+                                       allianceID, factionID, description, securityStatus));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector name,
+      final AttributeSelector corporationID,
+      final AttributeSelector raceID,
+      final AttributeSelector doB,
+      final AttributeSelector bloodlineID,
+      final AttributeSelector ancestryID,
+      final AttributeSelector gender,
+      final AttributeSelector allianceID,
+      final AttributeSelector factionID,
+      final AttributeSelector description,
+      final AttributeSelector securityStatus) throws IOException {
+    return accessCount(CharacterSheet.class, owner, at,
+                       accessPredicate(characterID, name, corporationID, raceID, doB, bloodlineID, ancestryID, gender,
+                                       allianceID, factionID, description, securityStatus));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector name,
+      final AttributeSelector corporationID,
+      final AttributeSelector raceID,
+      final AttributeSelector doB,
+      final AttributeSelector bloodlineID,
+      final AttributeSelector ancestryID,
+      final AttributeSelector gender,
+      final AttributeSelector allianceID,
+      final AttributeSelector factionID,
+      final AttributeSelector description,
+      final AttributeSelector securityStatus) throws IOException {
+    return accessExists(CharacterSheet.class, owner, at,
+                        accessPredicate(characterID, name, corporationID, raceID, doB, bloodlineID, ancestryID, gender,
+                                        allianceID, factionID, description, securityStatus));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector characterID,
+      final AttributeSelector name,
+      final AttributeSelector corporationID,
+      final AttributeSelector raceID,
+      final AttributeSelector doB,
+      final AttributeSelector bloodlineID,
+      final AttributeSelector ancestryID,
+      final AttributeSelector gender,
+      final AttributeSelector allianceID,
+      final AttributeSelector factionID,
+      final AttributeSelector description,
+      final AttributeSelector securityStatus) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addStringSelector(qs, "c", "name", name, p);
+      AttributeSelector.addIntSelector(qs, "c", "corporationID", corporationID);
+      AttributeSelector.addIntSelector(qs, "c", "raceID", raceID);
+      AttributeSelector.addLongSelector(qs, "c", "doB", doB);
+      AttributeSelector.addIntSelector(qs, "c", "bloodlineID", bloodlineID);
+      AttributeSelector.addIntSelector(qs, "c", "ancestryID", ancestryID);
+      AttributeSelector.addStringSelector(qs, "c", "gender", gender, p);
+      AttributeSelector.addIntSelector(qs, "c", "allianceID", allianceID);
+      AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
+      AttributeSelector.addStringSelector(qs, "c", "description", description, p);
+      AttributeSelector.addFloatSelector(qs, "c", "securityStatus", securityStatus);
+    });
   }
 
 }
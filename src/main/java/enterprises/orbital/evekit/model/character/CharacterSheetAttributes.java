@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -182,21 +183,20 @@ public class CharacterSheetAttributes extends CachedData {
       final SynchronizedEveAccount owner,
       final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterSheetAttributes> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                               .getEntityManager()
-                                                                                                               .createNamedQuery(
-                                                                                                                   "CharacterSheetAttributes.get",
-                                                                                                                   CharacterSheetAttributes.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterSheetAttributes.class, owner, time, new Object[0], () -> {
+        TypedQuery<CharacterSheetAttributes> getter = EveKitUserAccountProvider.getFactory()
+                                                                               .getEntityManager()
+                                                                               .createNamedQuery(
+                                                                                   "CharacterSheetAttributes.get",
+                                                                                   CharacterSheetAttributes.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -218,42 +218,63 @@ public class CharacterSheetAttributes extends CachedData {
       final AttributeSelector bonusRemaps,
       final AttributeSelector lastRemapDate,
       final AttributeSelector accruedRemapCooldownDate) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterSheetAttributes c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "intelligence", intelligence);
-                                        AttributeSelector.addIntSelector(qs, "c", "memory", memory);
-                                        AttributeSelector.addIntSelector(qs, "c", "charisma", charisma);
-                                        AttributeSelector.addIntSelector(qs, "c", "perception", perception);
-                                        AttributeSelector.addIntSelector(qs, "c", "willpower", willpower);
-                                        AttributeSelector.addIntSelector(qs, "c", "bonusRemaps", bonusRemaps);
-                                        AttributeSelector.addLongSelector(qs, "c", "lastRemapDate", lastRemapDate);
-                                        AttributeSelector.addLongSelector(qs, "c", "accruedRemapCooldownDate",
-                                                                          accruedRemapCooldownDate);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterSheetAttributes> query = EveKitUserAccountProvider.getFactory()
-                                                                                                              .getEntityManager()
-                                                                                                              .createQuery(
-                                                                                                                  qs.toString(),
-                                                                                                                  CharacterSheetAttributes.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterSheetAttributes.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(intelligence, memory, charisma, perception, willpower, bonusRemaps,
+                                       lastRemapDate, accruedRemapCooldownDate));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector intelligence,
+      final AttributeSelector memory,
+      final AttributeSelector charisma,
+      final AttributeSelector perception,
+      final AttributeSelector willpower,
+      final AttributeSelector bonusRemaps,
+      final AttributeSelector lastRemapDate,
+      final AttributeSelector accruedRemapCooldownDate) throws IOException {
+    return accessCount(CharacterSheetAttributes.class, owner, at,
+                       accessPredicate(intelligence, memory, charisma, perception, willpower, bonusRemaps,
+                                       lastRemapDate, accruedRemapCooldownDate));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector intelligence,
+      final AttributeSelector memory,
+      final AttributeSelector charisma,
+      final AttributeSelector perception,
+      final AttributeSelector willpower,
+      final AttributeSelector bonusRemaps,
+      final AttributeSelector lastRemapDate,
+      final AttributeSelector accruedRemapCooldownDate) throws IOException {
+    return accessExists(CharacterSheetAttributes.class, owner, at,
+                        accessPredicate(intelligence, memory, charisma, perception, willpower, bonusRemaps,
+                                        lastRemapDate, accruedRemapCooldownDate));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector intelligence,
+      final AttributeSelector memory,
+      final AttributeSelector charisma,
+      final AttributeSelector perception,
+      final AttributeSelector willpower,
+      final AttributeSelector bonusRemaps,
+      final AttributeSelector lastRemapDate,
+      final AttributeSelector accruedRemapCooldownDate) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "intelligence", intelligence);
+      AttributeSelector.addIntSelector(qs, "c", "memory", memory);
+      AttributeSelector.addIntSelector(qs, "c", "charisma", charisma);
+      AttributeSelector.addIntSelector(qs, "c", "perception", perception);
+      AttributeSelector.addIntSelector(qs, "c", "willpower", willpower);
+      AttributeSelector.addIntSelector(qs, "c", "bonusRemaps", bonusRemaps);
+      AttributeSelector.addLongSelector(qs, "c", "lastRemapDate", lastRemapDate);
+      AttributeSelector.addLongSelector(qs, "c", "accruedRemapCooldownDate",
+                                        accruedRemapCooldownDate);
+    });
   }
 
 }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -145,21 +145,20 @@ public class CharacterSheetClone extends CachedData {
       final SynchronizedEveAccount owner,
       final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterSheetClone> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                          .getEntityManager()
-                                                                                                          .createNamedQuery(
-                                                                                                              "CharacterSheetClone.get",
-                                                                                                              CharacterSheetClone.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterSheetClone.class, owner, time, new Object[0], () -> {
+        TypedQuery<CharacterSheetClone> getter = EveKitUserAccountProvider.getFactory()
+                                                                          .getEntityManager()
+                                                                          .createNamedQuery(
+                                                                              "CharacterSheetClone.get",
+                                                                              CharacterSheetClone.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -177,41 +176,45 @@ public class CharacterSheetClone extends CachedData {
       final AttributeSelector homeStationID,
       final AttributeSelector homeStationType,
       final AttributeSelector lastStationChangeDate) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterSheetClone c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "cloneJumpDate", cloneJumpDate);
-                                        AttributeSelector.addLongSelector(qs, "c", "homeStationID", homeStationID);
-                                        AttributeSelector.addStringSelector(qs, "c", "homeStationType", homeStationType,
-                                                                            p);
-                                        AttributeSelector.addLongSelector(qs, "c", "lastStationChangeDate",
-                                                                          lastStationChangeDate);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterSheetClone> query = EveKitUserAccountProvider.getFactory()
-                                                                                                         .getEntityManager()
-                                                                                                         .createQuery(
-                                                                                                             qs.toString(),
-                                                                                                             CharacterSheetClone.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterSheetClone.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(cloneJumpDate, homeStationID, homeStationType, lastStationChangeDate));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector cloneJumpDate,
+      final AttributeSelector homeStationID,
+      final AttributeSelector homeStationType,
+      final AttributeSelector lastStationChangeDate) throws IOException {
+    return accessCount(CharacterSheetClone.class, owner, at,
+                       accessPredicate(cloneJumpDate, homeStationID, homeStationType, lastStationChangeDate));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector cloneJumpDate,
+      final AttributeSelector homeStationID,
+      final AttributeSelector homeStationType,
+      final AttributeSelector lastStationChangeDate) throws IOException {
+    return accessExists(CharacterSheetClone.class, owner, at,
+                        accessPredicate(cloneJumpDate, homeStationID, homeStationType, lastStationChangeDate));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector cloneJumpDate,
+      final AttributeSelector homeStationID,
+      final AttributeSelector homeStationType,
+      final AttributeSelector lastStationChangeDate) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "cloneJumpDate", cloneJumpDate);
+      AttributeSelector.addLongSelector(qs, "c", "homeStationID", homeStationID);
+      AttributeSelector.addStringSelector(qs, "c", "homeStationType", homeStationType,
+                                          p);
+      AttributeSelector.addLongSelector(qs, "c", "lastStationChangeDate",
+                                        lastStationChangeDate);
+    });
   }
 
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -148,7 +149,7 @@ public class CharacterSheetJump extends CachedData {
                                        final SynchronizedEveAccount owner,
                                        final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
+      return CachedData.runHistorical(CharacterSheetJump.class, owner, time, new Object[0], () -> {
         TypedQuery<CharacterSheetJump> getter = EveKitUserAccountProvider.getFactory().getEntityManager().createNamedQuery("CharacterSheetJump.get",
                                                                                                                            CharacterSheetJump.class);
         getter.setParameter("owner", owner);
@@ -175,31 +176,39 @@ public class CharacterSheetJump extends CachedData {
                                                      final AttributeSelector jumpActivation,
                                                      final AttributeSelector jumpFatigue,
                                                      final AttributeSelector jumpLastUpdate) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
-        StringBuilder qs = new StringBuilder();
-        qs.append("SELECT c FROM CharacterSheetJump c WHERE ");
-        // Constrain to specified owner
-        qs.append("c.owner = :owner");
-        // Constrain lifeline
-        AttributeSelector.addLifelineSelector(qs, "c", at);
-        // Constrain attributes
-        AttributeSelector.addLongSelector(qs, "c", "jumpActivation", jumpActivation);
-        AttributeSelector.addLongSelector(qs, "c", "jumpFatigue", jumpFatigue);
-        AttributeSelector.addLongSelector(qs, "c", "jumpLastUpdate", jumpLastUpdate);
-        // Set CID constraint and ordering
-        setCIDOrdering(qs, contid, reverse);
-        // Return result
-        TypedQuery<CharacterSheetJump> query = EveKitUserAccountProvider.getFactory().getEntityManager().createQuery(qs.toString(), CharacterSheetJump.class);
-        query.setParameter("owner", owner);
-        query.setMaxResults(maxresults);
-        return query.getResultList();
-      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterSheetJump.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(jumpActivation, jumpFatigue, jumpLastUpdate));
+  }
+
+  public static long accessCount(
+                                 final SynchronizedEveAccount owner,
+                                 final AttributeSelector at,
+                                 final AttributeSelector jumpActivation,
+                                 final AttributeSelector jumpFatigue,
+                                 final AttributeSelector jumpLastUpdate) throws IOException {
+    return accessCount(CharacterSheetJump.class, owner, at,
+                       accessPredicate(jumpActivation, jumpFatigue, jumpLastUpdate));
+  }
+
+  public static boolean accessExists(
+                                     final SynchronizedEveAccount owner,
+                                     final AttributeSelector at,
+                                     final AttributeSelector jumpActivation,
+                                     final AttributeSelector jumpFatigue,
+                                     final AttributeSelector jumpLastUpdate) throws IOException {
+    return accessExists(CharacterSheetJump.class, owner, at,
+                        accessPredicate(jumpActivation, jumpFatigue, jumpLastUpdate));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector jumpActivation,
+      final AttributeSelector jumpFatigue,
+      final AttributeSelector jumpLastUpdate) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "jumpActivation", jumpActivation);
+      AttributeSelector.addLongSelector(qs, "c", "jumpFatigue", jumpFatigue);
+      AttributeSelector.addLongSelector(qs, "c", "jumpLastUpdate", jumpLastUpdate);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -98,7 +99,7 @@ public class CharacterSheetSkillPoints extends CachedData {
                                        final SynchronizedEveAccount owner,
                                        final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
+      return CachedData.runHistorical(CharacterSheetSkillPoints.class, owner, time, new Object[0], () -> {
         TypedQuery<CharacterSheetSkillPoints> getter = EveKitUserAccountProvider.getFactory().getEntityManager().createNamedQuery("CharacterSheetSkillPoints.get",
                                                                                                                                   CharacterSheetSkillPoints.class);
         getter.setParameter("owner", owner);
@@ -124,30 +125,35 @@ public class CharacterSheetSkillPoints extends CachedData {
                                                      final AttributeSelector at,
                                                      final AttributeSelector totalSkillPoints,
                                                      final AttributeSelector unallocatedSkillPoints) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
-        StringBuilder qs = new StringBuilder();
-        qs.append("SELECT c FROM CharacterSheetSkillPoints c WHERE ");
-        // Constrain to specified owner
-        qs.append("c.owner = :owner");
-        // Constrain lifeline
-        AttributeSelector.addLifelineSelector(qs, "c", at);
-        // Constrain attributes
-        AttributeSelector.addLongSelector(qs, "c", "totalSkillPoints", totalSkillPoints);
-        AttributeSelector.addIntSelector(qs, "c", "unallocatedSkillPoints", unallocatedSkillPoints);
-        // Set CID constraint and ordering
-        setCIDOrdering(qs, contid, reverse);
-        // Return result
-        TypedQuery<CharacterSheetSkillPoints> query = EveKitUserAccountProvider.getFactory().getEntityManager().createQuery(qs.toString(), CharacterSheetSkillPoints.class);
-        query.setParameter("owner", owner);
-        query.setMaxResults(maxresults);
-        return query.getResultList();
-      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterSheetSkillPoints.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(totalSkillPoints, unallocatedSkillPoints));
+  }
+
+  public static long accessCount(
+                                 final SynchronizedEveAccount owner,
+                                 final AttributeSelector at,
+                                 final AttributeSelector totalSkillPoints,
+                                 final AttributeSelector unallocatedSkillPoints) throws IOException {
+    return accessCount(CharacterSheetSkillPoints.class, owner, at,
+                       accessPredicate(totalSkillPoints, unallocatedSkillPoints));
+  }
+
+  public static boolean accessExists(
+                                     final SynchronizedEveAccount owner,
+                                     final AttributeSelector at,
+                                     final AttributeSelector totalSkillPoints,
+                                     final AttributeSelector unallocatedSkillPoints) throws IOException {
+    return accessExists(CharacterSheetSkillPoints.class, owner, at,
+                        accessPredicate(totalSkillPoints, unallocatedSkillPoints));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector totalSkillPoints,
+      final AttributeSelector unallocatedSkillPoints) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "totalSkillPoints", totalSkillPoints);
+      AttributeSelector.addIntSelector(qs, "c", "unallocatedSkillPoints", unallocatedSkillPoints);
+    });
   }
 
 }
@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -108,21 +108,20 @@ public class CharacterShip extends CachedData {
       final SynchronizedEveAccount owner,
       final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterShip> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createNamedQuery(
-                                                                                                        "CharacterShip.get",
-                                                                                                        CharacterShip.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterShip.class, owner, time, new Object[0], () -> {
+        TypedQuery<CharacterShip> getter = EveKitUserAccountProvider.getFactory()
+                                                                    .getEntityManager()
+                                                                    .createNamedQuery(
+                                                                        "CharacterShip.get",
+                                                                        CharacterShip.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -139,38 +138,39 @@ public class CharacterShip extends CachedData {
       final AttributeSelector shipTypeID,
       final AttributeSelector shipItemID,
       final AttributeSelector shipName) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterShip c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
-                                        AttributeSelector.addLongSelector(qs, "c", "shipItemID", shipItemID);
-                                        AttributeSelector.addStringSelector(qs, "c", "shipName", shipName, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterShip> query = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createQuery(
-                                                                                                       qs.toString(),
-                                                                                                       CharacterShip.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterShip.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(shipTypeID, shipItemID, shipName));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector shipItemID,
+      final AttributeSelector shipName) throws IOException {
+    return accessCount(CharacterShip.class, owner, at,
+                       accessPredicate(shipTypeID, shipItemID, shipName));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector shipItemID,
+      final AttributeSelector shipName) throws IOException {
+    return accessExists(CharacterShip.class, owner, at,
+                        accessPredicate(shipTypeID, shipItemID, shipName));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector shipTypeID,
+      final AttributeSelector shipItemID,
+      final AttributeSelector shipName) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
+      AttributeSelector.addLongSelector(qs, "c", "shipItemID", shipItemID);
+      AttributeSelector.addStringSelector(qs, "c", "shipName", shipName, p);
+    });
   }
 
 }
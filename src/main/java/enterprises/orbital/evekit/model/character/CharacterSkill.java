@@ -1,8 +1,11 @@
 package enterprises.orbital.evekit.model.character;
 
+import enterprises.orbital.base.OrbitalProperties;
+import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -32,6 +35,7 @@ import java.util.logging.Logger;
 public class CharacterSkill extends CachedData {
   private static final Logger log = Logger.getLogger(CharacterSkill.class.getName());
   private static final byte[] MASK = AccountAccessMask.createMask(AccountAccessMask.ACCESS_CHARACTER_SHEET);
+  private static final int DEFAULT_MAX_RESULTS = 1000;
 
   private int typeID;
   private int trainedSkillLevel;
@@ -126,22 +130,61 @@ public class CharacterSkill extends CachedData {
       final long time,
       final int typeID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterSkill> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery(
-                                                                                                         "CharacterSkill.getByTypeID",
-                                                                                                         CharacterSkill.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("type", typeID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterSkill.class, owner, time, new Object[] {typeID}, () -> {
+        TypedQuery<CharacterSkill> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                         "CharacterSkill.getByTypeID",
+                                                                         CharacterSkill.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("type", typeID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Retrieve list of skills live at the given time with typeID greater than "contid"
+   *
+   * @param owner      skills owner
+   * @param time       time at which skills must be live
+   * @param maxresults maximum number of skills to return
+   * @param contid     typeID (exclusive) after which results will be returned
+   * @return list of skills live at the given time with typeID greater than "contid"
+   */
+  public static List<CharacterSkill> getAllSkills(
+      final SynchronizedEveAccount owner,
+      final long time,
+      int maxresults,
+      final int contid) throws IOException {
+    final int maxr = OrbitalProperties.getNonzeroLimited(maxresults,
+                                                         (int) PersistentProperty.getLongPropertyWithFallback(
+                                                             OrbitalProperties.getPropertyName(CharacterSkill.class,
+                                                                                               "maxresults"),
+                                                             DEFAULT_MAX_RESULTS));
+    try {
+      return CachedData.runCached(CharacterSkill.class, owner, time, "CharacterSkill.getAll",
+                                  new Object[] {contid, maxr}, () -> {
+        TypedQuery<CharacterSkill> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                         "CharacterSkill.getAll",
+                                                                         CharacterSkill.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contid", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -159,38 +202,44 @@ public class CharacterSkill extends CachedData {
       final AttributeSelector trainedSkillLevel,
       final AttributeSelector skillpoints,
       final AttributeSelector activeSkillLevel) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterSkill c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "trainedSkillLevel",
-                                                                         trainedSkillLevel);
-                                        AttributeSelector.addLongSelector(qs, "c", "skillpoints", skillpoints);
-                                        AttributeSelector.addIntSelector(qs, "c", "activeSkillLevel", activeSkillLevel);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterSkill> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(
-                                                                                                        qs.toString(),
-                                                                                                        CharacterSkill.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterSkill.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(typeID, trainedSkillLevel, skillpoints, activeSkillLevel));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector typeID,
+      final AttributeSelector trainedSkillLevel,
+      final AttributeSelector skillpoints,
+      final AttributeSelector activeSkillLevel) throws IOException {
+    return accessCount(CharacterSkill.class, owner, at,
+                       accessPredicate(typeID, trainedSkillLevel, skillpoints, activeSkillLevel));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector typeID,
+      final AttributeSelector trainedSkillLevel,
+      final AttributeSelector skillpoints,
+      final AttributeSelector activeSkillLevel) throws IOException {
+    return accessExists(CharacterSkill.class, owner, at,
+                        accessPredicate(typeID, trainedSkillLevel, skillpoints, activeSkillLevel));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector typeID,
+      final AttributeSelector trainedSkillLevel,
+      final AttributeSelector skillpoints,
+      final AttributeSelector activeSkillLevel) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "trainedSkillLevel",
+                                       trainedSkillLevel);
+      AttributeSelector.addLongSelector(qs, "c", "skillpoints", skillpoints);
+      AttributeSelector.addIntSelector(qs, "c", "activeSkillLevel", activeSkillLevel);
+    });
   }
 
 }
@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -106,22 +106,21 @@ public class CharacterTitle extends CachedData {
       final long time,
       final int titleID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CharacterTitle> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery(
-                                                                                                         "CharacterTitle.getByTitleID",
-                                                                                                         CharacterTitle.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("title", titleID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CharacterTitle.class, owner, time, new Object[] {titleID}, () -> {
+        TypedQuery<CharacterTitle> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                         "CharacterTitle.getByTitleID",
+                                                                         CharacterTitle.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("title", titleID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -137,37 +136,35 @@ public class CharacterTitle extends CachedData {
       final AttributeSelector at,
       final AttributeSelector titleID,
       final AttributeSelector titleName) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CharacterTitle c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "titleID", titleID);
-                                        AttributeSelector.addStringSelector(qs, "c", "titleName", titleName, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CharacterTitle> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(
-                                                                                                        qs.toString(),
-                                                                                                        CharacterTitle.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CharacterTitle.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(titleID, titleName));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector titleID,
+      final AttributeSelector titleName) throws IOException {
+    return accessCount(CharacterTitle.class, owner, at,
+                       accessPredicate(titleID, titleName));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector titleID,
+      final AttributeSelector titleName) throws IOException {
+    return accessExists(CharacterTitle.class, owner, at,
+                        accessPredicate(titleID, titleName));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector titleID,
+      final AttributeSelector titleName) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "titleID", titleID);
+      AttributeSelector.addStringSelector(qs, "c", "titleName", titleName, p);
+    });
   }
 
 }
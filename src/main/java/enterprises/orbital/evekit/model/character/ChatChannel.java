@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -145,22 +145,21 @@ public class ChatChannel extends CachedData {
       final long time,
       final int channelID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<ChatChannel> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "ChatChannel.getByChannelID",
-                                                                                                      ChatChannel.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("channel", channelID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(ChatChannel.class, owner, time, new Object[] {channelID}, () -> {
+        TypedQuery<ChatChannel> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "ChatChannel.getByChannelID",
+                                                                      ChatChannel.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("channel", channelID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -180,41 +179,51 @@ public class ChatChannel extends CachedData {
       final AttributeSelector comparisonKey,
       final AttributeSelector hasPassword,
       final AttributeSelector motd) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM ChatChannel c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "channelID", channelID);
-                                        AttributeSelector.addIntSelector(qs, "c", "ownerID", ownerID);
-                                        AttributeSelector.addStringSelector(qs, "c", "displayName", displayName, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "comparisonKey", comparisonKey, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "hasPassword", hasPassword);
-                                        AttributeSelector.addStringSelector(qs, "c", "motd", motd, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<ChatChannel> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     ChatChannel.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(ChatChannel.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(channelID, ownerID, displayName, comparisonKey, hasPassword, motd));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector channelID,
+      final AttributeSelector ownerID,
+      final AttributeSelector displayName,
+      final AttributeSelector comparisonKey,
+      final AttributeSelector hasPassword,
+      final AttributeSelector motd) throws IOException {
+    return accessCount(ChatChannel.class, owner, at,
+                       accessPredicate(channelID, ownerID, displayName, comparisonKey, hasPassword, motd));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector channelID,
+      final AttributeSelector ownerID,
+      final AttributeSelector displayName,
+      final AttributeSelector comparisonKey,
+      final AttributeSelector hasPassword,
+      final AttributeSelector motd) throws IOException {
+    return accessExists(ChatChannel.class, owner, at,
+                        accessPredicate(channelID, ownerID, displayName, comparisonKey, hasPassword, motd));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector channelID,
+      final AttributeSelector ownerID,
+      final AttributeSelector displayName,
+      final AttributeSelector comparisonKey,
+      final AttributeSelector hasPassword,
+      final AttributeSelector motd) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "channelID", channelID);
+      AttributeSelector.addIntSelector(qs, "c", "ownerID", ownerID);
+      AttributeSelector.addStringSelector(qs, "c", "displayName", displayName, p);
+      AttributeSelector.addStringSelector(qs, "c", "comparisonKey", comparisonKey, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "hasPassword", hasPassword);
+      AttributeSelector.addStringSelector(qs, "c", "motd", motd, p);
+    });
   }
 
 }
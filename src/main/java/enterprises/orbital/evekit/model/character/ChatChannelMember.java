@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -174,24 +174,24 @@ public class ChatChannelMember extends CachedData {
       final String category,
       final int accessorID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<ChatChannelMember> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                        .getEntityManager()
-                                                                                                        .createNamedQuery(
-                                                                                                            "ChatChannelMember.getByID",
-                                                                                                            ChatChannelMember.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("channel", channelID);
-                                        getter.setParameter("category", category);
-                                        getter.setParameter("accessor", accessorID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(ChatChannelMember.class, owner, time,
+                                      new Object[] {channelID, category, accessorID}, () -> {
+        TypedQuery<ChatChannelMember> getter = EveKitUserAccountProvider.getFactory()
+                                                                        .getEntityManager()
+                                                                        .createNamedQuery(
+                                                                            "ChatChannelMember.getByID",
+                                                                            ChatChannelMember.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("channel", channelID);
+        getter.setParameter("category", category);
+        getter.setParameter("accessor", accessorID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -211,41 +211,51 @@ public class ChatChannelMember extends CachedData {
       final AttributeSelector accessorType,
       final AttributeSelector untilWhen,
       final AttributeSelector reason) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM ChatChannelMember c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "channelID", channelID);
-                                        AttributeSelector.addStringSelector(qs, "c", "category", category, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "accessorID", accessorID);
-                                        AttributeSelector.addStringSelector(qs, "c", "accessorType", accessorType, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "untilWhen", untilWhen);
-                                        AttributeSelector.addStringSelector(qs, "c", "reason", reason, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<ChatChannelMember> query = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createQuery(
-                                                                                                           qs.toString(),
-                                                                                                           ChatChannelMember.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(ChatChannelMember.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(channelID, category, accessorID, accessorType, untilWhen, reason));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector channelID,
+      final AttributeSelector category,
+      final AttributeSelector accessorID,
+      final AttributeSelector accessorType,
+      final AttributeSelector untilWhen,
+      final AttributeSelector reason) throws IOException {
+    return accessCount(ChatChannelMember.class, owner, at,
+                       accessPredicate(channelID, category, accessorID, accessorType, untilWhen, reason));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector channelID,
+      final AttributeSelector category,
+      final AttributeSelector accessorID,
+      final AttributeSelector accessorType,
+      final AttributeSelector untilWhen,
+      final AttributeSelector reason) throws IOException {
+    return accessExists(ChatChannelMember.class, owner, at,
+                        accessPredicate(channelID, category, accessorID, accessorType, untilWhen, reason));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector channelID,
+      final AttributeSelector category,
+      final AttributeSelector accessorID,
+      final AttributeSelector accessorType,
+      final AttributeSelector untilWhen,
+      final AttributeSelector reason) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "channelID", channelID);
+      AttributeSelector.addStringSelector(qs, "c", "category", category, p);
+      AttributeSelector.addIntSelector(qs, "c", "accessorID", accessorID);
+      AttributeSelector.addStringSelector(qs, "c", "accessorType", accessorType, p);
+      AttributeSelector.addLongSelector(qs, "c", "untilWhen", untilWhen);
+      AttributeSelector.addStringSelector(qs, "c", "reason", reason, p);
+    });
   }
 
 }
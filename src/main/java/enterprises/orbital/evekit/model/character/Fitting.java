@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -128,22 +128,21 @@ public class Fitting extends CachedData {
       final long time,
       final int fittingID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Fitting> getter = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createNamedQuery(
-                                                                                                  "Fitting.get",
-                                                                                                  Fitting.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("fid", fittingID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Fitting.class, owner, time, new Object[] {fittingID}, () -> {
+        TypedQuery<Fitting> getter = EveKitUserAccountProvider.getFactory()
+                                                              .getEntityManager()
+                                                              .createNamedQuery(
+                                                                  "Fitting.get",
+                                                                  Fitting.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("fid", fittingID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -161,39 +160,43 @@ public class Fitting extends CachedData {
       final AttributeSelector name,
       final AttributeSelector description,
       final AttributeSelector shipTypeID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Fitting c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "fittingID", fittingID);
-                                        AttributeSelector.addStringSelector(qs, "c", "name", name, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "description", description, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Fitting> query = EveKitUserAccountProvider.getFactory()
-                                                                                             .getEntityManager()
-                                                                                             .createQuery(
-                                                                                                 qs.toString(),
-                                                                                                 Fitting.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        p.fillParams(query);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Fitting.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(fittingID, name, description, shipTypeID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fittingID,
+      final AttributeSelector name,
+      final AttributeSelector description,
+      final AttributeSelector shipTypeID) throws IOException {
+    return accessCount(Fitting.class, owner, at,
+                       accessPredicate(fittingID, name, description, shipTypeID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fittingID,
+      final AttributeSelector name,
+      final AttributeSelector description,
+      final AttributeSelector shipTypeID) throws IOException {
+    return accessExists(Fitting.class, owner, at,
+                        accessPredicate(fittingID, name, description, shipTypeID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector fittingID,
+      final AttributeSelector name,
+      final AttributeSelector description,
+      final AttributeSelector shipTypeID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "fittingID", fittingID);
+      AttributeSelector.addStringSelector(qs, "c", "name", name, p);
+      AttributeSelector.addStringSelector(qs, "c", "description", description, p);
+      AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -126,24 +127,23 @@ public class FittingItem extends CachedData {
       final int typeID,
       final int flag) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<FittingItem> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "FittingItem.get",
-                                                                                                      FittingItem.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("fid", fittingID);
-                                        getter.setParameter("tid", typeID);
-                                        getter.setParameter("flag", flag);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(FittingItem.class, owner, time, new Object[] {fittingID, typeID, flag}, () -> {
+        TypedQuery<FittingItem> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "FittingItem.get",
+                                                                      FittingItem.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("fid", fittingID);
+        getter.setParameter("tid", typeID);
+        getter.setParameter("flag", flag);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -161,37 +161,43 @@ public class FittingItem extends CachedData {
       final AttributeSelector typeID,
       final AttributeSelector flag,
       final AttributeSelector quantity) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM FittingItem c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "fittingID", fittingID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "flag", flag);
-                                        AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<FittingItem> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     FittingItem.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(FittingItem.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(fittingID, typeID, flag, quantity));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fittingID,
+      final AttributeSelector typeID,
+      final AttributeSelector flag,
+      final AttributeSelector quantity) throws IOException {
+    return accessCount(FittingItem.class, owner, at,
+                       accessPredicate(fittingID, typeID, flag, quantity));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fittingID,
+      final AttributeSelector typeID,
+      final AttributeSelector flag,
+      final AttributeSelector quantity) throws IOException {
+    return accessExists(FittingItem.class, owner, at,
+                        accessPredicate(fittingID, typeID, flag, quantity));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector fittingID,
+      final AttributeSelector typeID,
+      final AttributeSelector flag,
+      final AttributeSelector quantity) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "fittingID", fittingID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "flag", flag);
+      AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
+    });
   }
 
 }
@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -136,22 +136,21 @@ public class FleetInfo extends CachedData {
       final long time,
       final long fleetID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<FleetInfo> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                .getEntityManager()
-                                                                                                .createNamedQuery(
-                                                                                                  "FleetInfo.get",
-                                                                                                  FleetInfo.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("fid", fleetID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(FleetInfo.class, owner, time, new Object[] {fleetID}, () -> {
+        TypedQuery<FleetInfo> getter = EveKitUserAccountProvider.getFactory()
+                                                                .getEntityManager()
+                                                                .createNamedQuery(
+                                                                  "FleetInfo.get",
+                                                                  FleetInfo.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("fid", fleetID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -170,39 +169,47 @@ public class FleetInfo extends CachedData {
       final AttributeSelector isRegistered,
       final AttributeSelector isVoiceEnabled,
       final AttributeSelector motd) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM FleetInfo c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "fleetID", fleetID);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "isFreeMove", isFreeMove);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "isRegistered", isRegistered);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "isVoiceEnabled", isVoiceEnabled);
-                                        AttributeSelector.addStringSelector(qs, "c", "motd", motd, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<FleetInfo> query = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createQuery(qs.toString(),
-                                                                                                          FleetInfo.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(FleetInfo.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(fleetID, isFreeMove, isRegistered, isVoiceEnabled, motd));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fleetID,
+      final AttributeSelector isFreeMove,
+      final AttributeSelector isRegistered,
+      final AttributeSelector isVoiceEnabled,
+      final AttributeSelector motd) throws IOException {
+    return accessCount(FleetInfo.class, owner, at,
+                       accessPredicate(fleetID, isFreeMove, isRegistered, isVoiceEnabled, motd));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fleetID,
+      final AttributeSelector isFreeMove,
+      final AttributeSelector isRegistered,
+      final AttributeSelector isVoiceEnabled,
+      final AttributeSelector motd) throws IOException {
+    return accessExists(FleetInfo.class, owner, at,
+                        accessPredicate(fleetID, isFreeMove, isRegistered, isVoiceEnabled, motd));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector fleetID,
+      final AttributeSelector isFreeMove,
+      final AttributeSelector isRegistered,
+      final AttributeSelector isVoiceEnabled,
+      final AttributeSelector motd) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "fleetID", fleetID);
+      AttributeSelector.addBooleanSelector(qs, "c", "isFreeMove", isFreeMove);
+      AttributeSelector.addBooleanSelector(qs, "c", "isRegistered", isRegistered);
+      AttributeSelector.addBooleanSelector(qs, "c", "isVoiceEnabled", isVoiceEnabled);
+      AttributeSelector.addStringSelector(qs, "c", "motd", motd, p);
+    });
   }
 
 }
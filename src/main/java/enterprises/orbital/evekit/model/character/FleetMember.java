@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -205,23 +205,22 @@ public class FleetMember extends CachedData {
       final long fleetID,
       final int characterID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<FleetMember> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                  "FleetMember.get",
-                                                                                                  FleetMember.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("fid", fleetID);
-                                        getter.setParameter("cid", characterID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(FleetMember.class, owner, time, new Object[] {fleetID, characterID}, () -> {
+        TypedQuery<FleetMember> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                  "FleetMember.get",
+                                                                  FleetMember.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("fid", fleetID);
+        getter.setParameter("cid", characterID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -246,45 +245,74 @@ public class FleetMember extends CachedData {
       final AttributeSelector stationID,
       final AttributeSelector takesFleetWarp,
       final AttributeSelector wingID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM FleetMember c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "fleetID", fleetID);
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addLongSelector(qs, "c", "joinTime", joinTime);
-                                        AttributeSelector.addStringSelector(qs, "c", "role", role, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
-                                        AttributeSelector.addLongSelector(qs, "c", "squadID", squadID);
-                                        AttributeSelector.addLongSelector(qs, "c", "stationID", stationID);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "takesFleetWarp", takesFleetWarp);
-                                        AttributeSelector.addLongSelector(qs, "c", "wingID", wingID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<FleetMember> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(qs.toString(),
-                                                                                                          FleetMember.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(FleetMember.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(fleetID, characterID, joinTime, role, roleName, shipTypeID, solarSystemID,
+                                       squadID, stationID, takesFleetWarp, wingID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fleetID,
+      final AttributeSelector characterID,
+      final AttributeSelector joinTime,
+      final AttributeSelector role,
+      final AttributeSelector roleName,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector squadID,
+      final AttributeSelector stationID,
+      final AttributeSelector takesFleetWarp,
+      final AttributeSelector wingID) throws IOException {
+    return accessCount(FleetMember.class, owner, at,
+                       accessPredicate(fleetID, characterID, joinTime, role, roleName, shipTypeID, solarSystemID,
+                                       squadID, stationID, takesFleetWarp, wingID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fleetID,
+      final AttributeSelector characterID,
+      final AttributeSelector joinTime,
+      final AttributeSelector role,
+      final AttributeSelector roleName,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector squadID,
+      final AttributeSelector stationID,
+      final AttributeSelector takesFleetWarp,
+      final AttributeSelector wingID) throws IOException {
+    return accessExists(FleetMember.class, owner, at,
+                        accessPredicate(fleetID, characterID, joinTime, role, roleName, shipTypeID, solarSystemID,
+                                        squadID, stationID, takesFleetWarp, wingID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector fleetID,
+      final AttributeSelector characterID,
+      final AttributeSelector joinTime,
+      final AttributeSelector role,
+      final AttributeSelector roleName,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector squadID,
+      final AttributeSelector stationID,
+      final AttributeSelector takesFleetWarp,
+      final AttributeSelector wingID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "fleetID", fleetID);
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addLongSelector(qs, "c", "joinTime", joinTime);
+      AttributeSelector.addStringSelector(qs, "c", "role", role, p);
+      AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
+      AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
+      AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
+      AttributeSelector.addLongSelector(qs, "c", "squadID", squadID);
+      AttributeSelector.addLongSelector(qs, "c", "stationID", stationID);
+      AttributeSelector.addBooleanSelector(qs, "c", "takesFleetWarp", takesFleetWarp);
+      AttributeSelector.addLongSelector(qs, "c", "wingID", wingID);
+    });
   }
 
 }
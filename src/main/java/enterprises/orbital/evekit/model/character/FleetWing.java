@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -116,23 +116,22 @@ public class FleetWing extends CachedData {
       final long fleetID,
       final long wingID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<FleetWing> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                .getEntityManager()
-                                                                                                .createNamedQuery(
-                                                                                                  "FleetWing.get",
-                                                                                                  FleetWing.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("fid", fleetID);
-                                        getter.setParameter("wid", wingID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(FleetWing.class, owner, time, new Object[] {fleetID, wingID}, () -> {
+        TypedQuery<FleetWing> getter = EveKitUserAccountProvider.getFactory()
+                                                                .getEntityManager()
+                                                                .createNamedQuery(
+                                                                  "FleetWing.get",
+                                                                  FleetWing.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("fid", fleetID);
+        getter.setParameter("wid", wingID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -149,37 +148,39 @@ public class FleetWing extends CachedData {
       final AttributeSelector fleetID,
       final AttributeSelector wingID,
       final AttributeSelector name) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM FleetWing c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "fleetID", fleetID);
-                                        AttributeSelector.addLongSelector(qs, "c", "wingID", wingID);
-                                        AttributeSelector.addStringSelector(qs, "c", "name", name, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<FleetWing> query = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createQuery(qs.toString(),
-                                                                                                          FleetWing.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(FleetWing.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(fleetID, wingID, name));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fleetID,
+      final AttributeSelector wingID,
+      final AttributeSelector name) throws IOException {
+    return accessCount(FleetWing.class, owner, at,
+                       accessPredicate(fleetID, wingID, name));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector fleetID,
+      final AttributeSelector wingID,
+      final AttributeSelector name) throws IOException {
+    return accessExists(FleetWing.class, owner, at,
+                        accessPredicate(fleetID, wingID, name));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector fleetID,
+      final AttributeSelector wingID,
+      final AttributeSelector name) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "fleetID", fleetID);
+      AttributeSelector.addLongSelector(qs, "c", "wingID", wingID);
+      AttributeSelector.addStringSelector(qs, "c", "name", name, p);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -99,22 +100,21 @@ public class Implant extends CachedData {
       final long time,
       final int typeID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Implant> getter = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createNamedQuery(
-                                                                                                  "Implant.getByTypeID",
-                                                                                                  Implant.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("type", typeID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Implant.class, owner, time, new Object[] {typeID}, () -> {
+        TypedQuery<Implant> getter = EveKitUserAccountProvider.getFactory()
+                                                              .getEntityManager()
+                                                              .createNamedQuery(
+                                                                  "Implant.getByTypeID",
+                                                                  Implant.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("type", typeID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -129,33 +129,31 @@ public class Implant extends CachedData {
       final boolean reverse,
       final AttributeSelector at,
       final AttributeSelector typeID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Implant c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Implant> query = EveKitUserAccountProvider.getFactory()
-                                                                                             .getEntityManager()
-                                                                                             .createQuery(qs.toString(),
-                                                                                                          Implant.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Implant.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(typeID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector typeID) throws IOException {
+    return accessCount(Implant.class, owner, at,
+                       accessPredicate(typeID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector typeID) throws IOException {
+    return accessExists(Implant.class, owner, at,
+                        accessPredicate(typeID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector typeID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+    });
   }
 
 }
@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -127,7 +127,7 @@ public class JumpClone extends CachedData {
                               final long time,
                               final int jumpCloneID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
+      return CachedData.runHistorical(JumpClone.class, owner, time, new Object[] {jumpCloneID}, () -> {
         TypedQuery<JumpClone> getter = EveKitUserAccountProvider.getFactory().getEntityManager().createNamedQuery("JumpClone.getByCloneID", JumpClone.class);
         getter.setParameter("owner", owner);
         getter.setParameter("clone", jumpCloneID);
@@ -155,34 +155,43 @@ public class JumpClone extends CachedData {
                                             final AttributeSelector locationID,
                                             final AttributeSelector cloneName,
                                             final AttributeSelector locationType) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
-        StringBuilder qs = new StringBuilder();
-        qs.append("SELECT c FROM JumpClone c WHERE ");
-        // Constrain to specified owner
-        qs.append("c.owner = :owner");
-        // Constrain lifeline
-        AttributeSelector.addLifelineSelector(qs, "c", at);
-        // Constrain attributes
-        AttributeParameters p = new AttributeParameters("att");
-        AttributeSelector.addIntSelector(qs, "c", "jumpCloneID", jumpCloneID);
-        AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
-        AttributeSelector.addStringSelector(qs, "c", "cloneName", cloneName, p);
-        AttributeSelector.addStringSelector(qs, "c", "locationType", locationType, p);
-        // Set CID constraint and ordering
-        setCIDOrdering(qs, contid, reverse);
-        // Return result
-        TypedQuery<JumpClone> query = EveKitUserAccountProvider.getFactory().getEntityManager().createQuery(qs.toString(), JumpClone.class);
-        query.setParameter("owner", owner);
-        p.fillParams(query);
-        query.setMaxResults(maxresults);
-        return query.getResultList();
-      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(JumpClone.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(jumpCloneID, locationID, cloneName, locationType));
+  }
+
+  public static long accessCount(
+                                 final SynchronizedEveAccount owner,
+                                 final AttributeSelector at,
+                                 final AttributeSelector jumpCloneID,
+                                 final AttributeSelector locationID,
+                                 final AttributeSelector cloneName,
+                                 final AttributeSelector locationType) throws IOException {
+    return accessCount(JumpClone.class, owner, at,
+                       accessPredicate(jumpCloneID, locationID, cloneName, locationType));
+  }
+
+  public static boolean accessExists(
+                                     final SynchronizedEveAccount owner,
+                                     final AttributeSelector at,
+                                     final AttributeSelector jumpCloneID,
+                                     final AttributeSelector locationID,
+                                     final AttributeSelector cloneName,
+                                     final AttributeSelector locationType) throws IOException {
+    return accessExists(JumpClone.class, owner, at,
+                        accessPredicate(jumpCloneID, locationID, cloneName, locationType));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector jumpCloneID,
+      final AttributeSelector locationID,
+      final AttributeSelector cloneName,
+      final AttributeSelector locationType) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "jumpCloneID", jumpCloneID);
+      AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
+      AttributeSelector.addStringSelector(qs, "c", "cloneName", cloneName, p);
+      AttributeSelector.addStringSelector(qs, "c", "locationType", locationType, p);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -112,7 +113,7 @@ public class JumpCloneImplant extends CachedData {
                                      final int jumpCloneID,
                                      final int typeID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
+      return CachedData.runHistorical(JumpCloneImplant.class, owner, time, new Object[] {jumpCloneID, typeID}, () -> {
         TypedQuery<JumpCloneImplant> getter = EveKitUserAccountProvider.getFactory().getEntityManager()
             .createNamedQuery("JumpCloneImplant.getByCloneAndTypeID", JumpCloneImplant.class);
         getter.setParameter("owner", owner);
@@ -140,30 +141,35 @@ public class JumpCloneImplant extends CachedData {
                                                    final AttributeSelector at,
                                                    final AttributeSelector jumpCloneID,
                                                    final AttributeSelector typeID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
-        StringBuilder qs = new StringBuilder();
-        qs.append("SELECT c FROM JumpCloneImplant c WHERE ");
-        // Constrain to specified owner
-        qs.append("c.owner = :owner");
-        // Constrain lifeline
-        AttributeSelector.addLifelineSelector(qs, "c", at);
-        // Constrain attributes
-        AttributeSelector.addIntSelector(qs, "c", "jumpCloneID", jumpCloneID);
-        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-        // Set CID constraint and ordering
-        setCIDOrdering(qs, contid, reverse);
-        // Return result
-        TypedQuery<JumpCloneImplant> query = EveKitUserAccountProvider.getFactory().getEntityManager().createQuery(qs.toString(), JumpCloneImplant.class);
-        query.setParameter("owner", owner);
-        query.setMaxResults(maxresults);
-        return query.getResultList();
-      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(JumpCloneImplant.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(jumpCloneID, typeID));
+  }
+
+  public static long accessCount(
+                                 final SynchronizedEveAccount owner,
+                                 final AttributeSelector at,
+                                 final AttributeSelector jumpCloneID,
+                                 final AttributeSelector typeID) throws IOException {
+    return accessCount(JumpCloneImplant.class, owner, at,
+                       accessPredicate(jumpCloneID, typeID));
+  }
+
+  public static boolean accessExists(
+                                     final SynchronizedEveAccount owner,
+                                     final AttributeSelector at,
+                                     final AttributeSelector jumpCloneID,
+                                     final AttributeSelector typeID) throws IOException {
+    return accessExists(JumpCloneImplant.class, owner, at,
+                        accessPredicate(jumpCloneID, typeID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector jumpCloneID,
+      final AttributeSelector typeID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "jumpCloneID", jumpCloneID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+    });
   }
 
 }
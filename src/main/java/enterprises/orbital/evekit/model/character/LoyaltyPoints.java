@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -106,22 +107,21 @@ public class LoyaltyPoints extends CachedData {
       final long time,
       final int corporationID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<LoyaltyPoints> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createNamedQuery(
-                                                                                                        "LoyaltyPoints.get",
-                                                                                                        LoyaltyPoints.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("cid", corporationID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(LoyaltyPoints.class, owner, time, new Object[] {corporationID}, () -> {
+        TypedQuery<LoyaltyPoints> getter = EveKitUserAccountProvider.getFactory()
+                                                                    .getEntityManager()
+                                                                    .createNamedQuery(
+                                                                        "LoyaltyPoints.get",
+                                                                        LoyaltyPoints.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("cid", corporationID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -137,35 +137,35 @@ public class LoyaltyPoints extends CachedData {
       final AttributeSelector at,
       final AttributeSelector corporationID,
       final AttributeSelector loyaltyPoints) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM LoyaltyPoints c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "corporationID", corporationID);
-                                        AttributeSelector.addIntSelector(qs, "c", "loyaltyPoints", loyaltyPoints);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<LoyaltyPoints> query = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createQuery(
-                                                                                                       qs.toString(),
-                                                                                                       LoyaltyPoints.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(LoyaltyPoints.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(corporationID, loyaltyPoints));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector corporationID,
+      final AttributeSelector loyaltyPoints) throws IOException {
+    return accessCount(LoyaltyPoints.class, owner, at,
+                       accessPredicate(corporationID, loyaltyPoints));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector corporationID,
+      final AttributeSelector loyaltyPoints) throws IOException {
+    return accessExists(LoyaltyPoints.class, owner, at,
+                        accessPredicate(corporationID, loyaltyPoints));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector corporationID,
+      final AttributeSelector loyaltyPoints) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "corporationID", corporationID);
+      AttributeSelector.addIntSelector(qs, "c", "loyaltyPoints", loyaltyPoints);
+    });
   }
 
 }
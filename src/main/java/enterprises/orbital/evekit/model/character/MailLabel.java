@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -124,22 +124,21 @@ public class MailLabel extends CachedData {
       final long time,
       final int labelID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MailLabel> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                .getEntityManager()
-                                                                                                .createNamedQuery(
-                                                                                                    "MailLabel.get",
-                                                                                                    MailLabel.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("lid", labelID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MailLabel.class, owner, time, new Object[] {labelID}, () -> {
+        TypedQuery<MailLabel> getter = EveKitUserAccountProvider.getFactory()
+                                                                .getEntityManager()
+                                                                .createNamedQuery(
+                                                                    "MailLabel.get",
+                                                                    MailLabel.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("lid", labelID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -157,39 +156,43 @@ public class MailLabel extends CachedData {
       final AttributeSelector unreadCount,
       final AttributeSelector name,
       final AttributeSelector color) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MailLabel c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "labelID", labelID);
-                                        AttributeSelector.addIntSelector(qs, "c", "unreadCount", unreadCount);
-                                        AttributeSelector.addStringSelector(qs, "c", "name", name, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "color", color, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MailLabel> query = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createQuery(
-                                                                                                   qs.toString(),
-                                                                                                   MailLabel.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MailLabel.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(labelID, unreadCount, name, color));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector labelID,
+      final AttributeSelector unreadCount,
+      final AttributeSelector name,
+      final AttributeSelector color) throws IOException {
+    return accessCount(MailLabel.class, owner, at,
+                       accessPredicate(labelID, unreadCount, name, color));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector labelID,
+      final AttributeSelector unreadCount,
+      final AttributeSelector name,
+      final AttributeSelector color) throws IOException {
+    return accessExists(MailLabel.class, owner, at,
+                        accessPredicate(labelID, unreadCount, name, color));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector labelID,
+      final AttributeSelector unreadCount,
+      final AttributeSelector name,
+      final AttributeSelector color) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "labelID", labelID);
+      AttributeSelector.addIntSelector(qs, "c", "unreadCount", unreadCount);
+      AttributeSelector.addStringSelector(qs, "c", "name", name, p);
+      AttributeSelector.addStringSelector(qs, "c", "color", color, p);
+    });
   }
 
 }
@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -106,22 +106,21 @@ public class MailingList extends CachedData {
       final long time,
       final int listID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MailingList> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "MailingList.getByListID",
-                                                                                                      MailingList.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("list", listID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MailingList.class, owner, time, new Object[] {listID}, () -> {
+        TypedQuery<MailingList> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "MailingList.getByListID",
+                                                                      MailingList.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("list", listID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -137,37 +136,35 @@ public class MailingList extends CachedData {
       final AttributeSelector at,
       final AttributeSelector displayName,
       final AttributeSelector listID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MailingList c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addStringSelector(qs, "c", "displayName", displayName, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "listID", listID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MailingList> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     MailingList.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MailingList.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(displayName, listID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector displayName,
+      final AttributeSelector listID) throws IOException {
+    return accessCount(MailingList.class, owner, at,
+                       accessPredicate(displayName, listID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector displayName,
+      final AttributeSelector listID) throws IOException {
+    return accessExists(MailingList.class, owner, at,
+                        accessPredicate(displayName, listID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector displayName,
+      final AttributeSelector listID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addStringSelector(qs, "c", "displayName", displayName, p);
+      AttributeSelector.addIntSelector(qs, "c", "listID", listID);
+    });
   }
 
 }
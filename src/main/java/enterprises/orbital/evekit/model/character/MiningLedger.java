@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -141,24 +142,23 @@ public class MiningLedger extends CachedData {
       final int solarSystemID,
       final int typeID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MiningLedger> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createNamedQuery(
-                                                                                                       "MiningLedger.get",
-                                                                                                       MiningLedger.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("dt", date);
-                                        getter.setParameter("sid", solarSystemID);
-                                        getter.setParameter("tid", typeID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MiningLedger.class, owner, time, new Object[] {date, solarSystemID, typeID}, () -> {
+        TypedQuery<MiningLedger> getter = EveKitUserAccountProvider.getFactory()
+                                                                   .getEntityManager()
+                                                                   .createNamedQuery(
+                                                                       "MiningLedger.get",
+                                                                       MiningLedger.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("dt", date);
+        getter.setParameter("sid", solarSystemID);
+        getter.setParameter("tid", typeID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -176,37 +176,43 @@ public class MiningLedger extends CachedData {
       final AttributeSelector solarSystemID,
       final AttributeSelector typeID,
       final AttributeSelector quantity) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MiningLedger c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addLongSelector(qs, "c", "date", date);
-                                        AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addLongSelector(qs, "c", "quantity", quantity);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MiningLedger> query = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createQuery(
-                                                                                                      qs.toString(),
-                                                                                                      MiningLedger.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MiningLedger.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(date, solarSystemID, typeID, quantity));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector date,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity) throws IOException {
+    return accessCount(MiningLedger.class, owner, at,
+                       accessPredicate(date, solarSystemID, typeID, quantity));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector date,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity) throws IOException {
+    return accessExists(MiningLedger.class, owner, at,
+                        accessPredicate(date, solarSystemID, typeID, quantity));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector date,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "date", date);
+      AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addLongSelector(qs, "c", "quantity", quantity);
+    });
   }
 
 }
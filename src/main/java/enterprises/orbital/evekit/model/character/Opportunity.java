@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -119,22 +120,21 @@ public class Opportunity extends CachedData {
       final long time,
       final int taskID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Opportunity> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                  "Opportunity.get",
-                                                                                                  Opportunity.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("tid", taskID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Opportunity.class, owner, time, new Object[] {taskID}, () -> {
+        TypedQuery<Opportunity> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                  "Opportunity.get",
+                                                                  Opportunity.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("tid", taskID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -150,34 +150,35 @@ public class Opportunity extends CachedData {
       final AttributeSelector at,
       final AttributeSelector taskID,
       final AttributeSelector completedAt) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Opportunity c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "taskID", taskID);
-                                        AttributeSelector.addIntSelector(qs, "c", "completedAt", completedAt);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Opportunity> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(qs.toString(),
-                                                                                                          Opportunity.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Opportunity.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(taskID, completedAt));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector taskID,
+      final AttributeSelector completedAt) throws IOException {
+    return accessCount(Opportunity.class, owner, at,
+                       accessPredicate(taskID, completedAt));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector taskID,
+      final AttributeSelector completedAt) throws IOException {
+    return accessExists(Opportunity.class, owner, at,
+                        accessPredicate(taskID, completedAt));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector taskID,
+      final AttributeSelector completedAt) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "taskID", taskID);
+      AttributeSelector.addIntSelector(qs, "c", "completedAt", completedAt);
+    });
   }
 
 }
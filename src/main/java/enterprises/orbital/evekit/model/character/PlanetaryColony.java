@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -172,22 +172,21 @@ public class PlanetaryColony extends CachedData {
       final long time,
       final int planetID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<PlanetaryColony> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                      .getEntityManager()
-                                                                                                      .createNamedQuery(
-                                                                                                          "PlanetaryColony.getByPlanetID",
-                                                                                                          PlanetaryColony.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("pid", planetID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(PlanetaryColony.class, owner, time, new Object[] {planetID}, () -> {
+        TypedQuery<PlanetaryColony> getter = EveKitUserAccountProvider.getFactory()
+                                                                      .getEntityManager()
+                                                                      .createNamedQuery(
+                                                                          "PlanetaryColony.getByPlanetID",
+                                                                          PlanetaryColony.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("pid", planetID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -208,42 +207,58 @@ public class PlanetaryColony extends CachedData {
       final AttributeSelector lastUpdate,
       final AttributeSelector upgradeLevel,
       final AttributeSelector numberOfPins) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM PlanetaryColony c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "planetID", planetID);
-                                        AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
-                                        AttributeSelector.addStringSelector(qs, "c", "planetType", planetType, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "ownerID", ownerID);
-                                        AttributeSelector.addLongSelector(qs, "c", "lastUpdate", lastUpdate);
-                                        AttributeSelector.addIntSelector(qs, "c", "upgradeLevel", upgradeLevel);
-                                        AttributeSelector.addIntSelector(qs, "c", "numberOfPins", numberOfPins);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<PlanetaryColony> query = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createQuery(
-                                                                                                         qs.toString(),
-                                                                                                         PlanetaryColony.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(PlanetaryColony.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(planetID, solarSystemID, planetType, ownerID, lastUpdate, upgradeLevel,
+                                       numberOfPins));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector planetID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector planetType,
+      final AttributeSelector ownerID,
+      final AttributeSelector lastUpdate,
+      final AttributeSelector upgradeLevel,
+      final AttributeSelector numberOfPins) throws IOException {
+    return accessCount(PlanetaryColony.class, owner, at,
+                       accessPredicate(planetID, solarSystemID, planetType, ownerID, lastUpdate, upgradeLevel,
+                                       numberOfPins));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector planetID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector planetType,
+      final AttributeSelector ownerID,
+      final AttributeSelector lastUpdate,
+      final AttributeSelector upgradeLevel,
+      final AttributeSelector numberOfPins) throws IOException {
+    return accessExists(PlanetaryColony.class, owner, at,
+                        accessPredicate(planetID, solarSystemID, planetType, ownerID, lastUpdate, upgradeLevel,
+                                        numberOfPins));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector planetID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector planetType,
+      final AttributeSelector ownerID,
+      final AttributeSelector lastUpdate,
+      final AttributeSelector upgradeLevel,
+      final AttributeSelector numberOfPins) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "planetID", planetID);
+      AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
+      AttributeSelector.addStringSelector(qs, "c", "planetType", planetType, p);
+      AttributeSelector.addLongSelector(qs, "c", "ownerID", ownerID);
+      AttributeSelector.addLongSelector(qs, "c", "lastUpdate", lastUpdate);
+      AttributeSelector.addIntSelector(qs, "c", "upgradeLevel", upgradeLevel);
+      AttributeSelector.addIntSelector(qs, "c", "numberOfPins", numberOfPins);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -139,24 +140,23 @@ public class PlanetaryLink extends CachedData {
       final long sourcePin,
       final long destPin) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<PlanetaryLink> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createNamedQuery(
-                                                                                                        "PlanetaryLink.getByPlanetAndSourceAndDestID",
-                                                                                                        PlanetaryLink.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("planet", planetID);
-                                        getter.setParameter("source", sourcePin);
-                                        getter.setParameter("dest", destPin);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(PlanetaryLink.class, owner, time, new Object[] {planetID, sourcePin, destPin}, () -> {
+        TypedQuery<PlanetaryLink> getter = EveKitUserAccountProvider.getFactory()
+                                                                    .getEntityManager()
+                                                                    .createNamedQuery(
+                                                                        "PlanetaryLink.getByPlanetAndSourceAndDestID",
+                                                                        PlanetaryLink.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("planet", planetID);
+        getter.setParameter("source", sourcePin);
+        getter.setParameter("dest", destPin);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -174,38 +174,44 @@ public class PlanetaryLink extends CachedData {
       final AttributeSelector sourcePinID,
       final AttributeSelector destinationPinID,
       final AttributeSelector linkLevel) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM PlanetaryLink c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "planetID", planetID);
-                                        AttributeSelector.addLongSelector(qs, "c", "sourcePinID", sourcePinID);
-                                        AttributeSelector.addLongSelector(qs, "c", "destinationPinID",
-                                                                          destinationPinID);
-                                        AttributeSelector.addIntSelector(qs, "c", "linkLevel", linkLevel);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<PlanetaryLink> query = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createQuery(
-                                                                                                       qs.toString(),
-                                                                                                       PlanetaryLink.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(PlanetaryLink.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(planetID, sourcePinID, destinationPinID, linkLevel));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector planetID,
+      final AttributeSelector sourcePinID,
+      final AttributeSelector destinationPinID,
+      final AttributeSelector linkLevel) throws IOException {
+    return accessCount(PlanetaryLink.class, owner, at,
+                       accessPredicate(planetID, sourcePinID, destinationPinID, linkLevel));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector planetID,
+      final AttributeSelector sourcePinID,
+      final AttributeSelector destinationPinID,
+      final AttributeSelector linkLevel) throws IOException {
+    return accessExists(PlanetaryLink.class, owner, at,
+                        accessPredicate(planetID, sourcePinID, destinationPinID, linkLevel));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector planetID,
+      final AttributeSelector sourcePinID,
+      final AttributeSelector destinationPinID,
+      final AttributeSelector linkLevel) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "planetID", planetID);
+      AttributeSelector.addLongSelector(qs, "c", "sourcePinID", sourcePinID);
+      AttributeSelector.addLongSelector(qs, "c", "destinationPinID",
+                                        destinationPinID);
+      AttributeSelector.addIntSelector(qs, "c", "linkLevel", linkLevel);
+    });
   }
 
 }
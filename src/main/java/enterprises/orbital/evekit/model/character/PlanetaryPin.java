@@ -5,10 +5,13 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.io.IOException;
@@ -51,10 +54,14 @@ public class PlanetaryPin extends CachedData {
   private float headRadius;
 
   @ElementCollection(fetch = FetchType.EAGER)
+  @Fetch(FetchMode.SELECT)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @CollectionTable(name = "planet_pin_head", joinColumns = @JoinColumn(name = "planet_pin_cid"))
   private Set<PlanetaryPinHead> heads = new HashSet<>();
 
   @ElementCollection(fetch = FetchType.EAGER)
+  @Fetch(FetchMode.SELECT)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @CollectionTable(name = "planet_pin_content", joinColumns = @JoinColumn(name = "planet_pin_cid"))
   private Set<PlanetaryPinContent> contents = new HashSet<>();
 
@@ -267,23 +274,22 @@ public class PlanetaryPin extends CachedData {
       final int planetID,
       final long pinID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<PlanetaryPin> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createNamedQuery(
-                                                                                                       "PlanetaryPin.getByPlanetAndPinID",
-                                                                                                       PlanetaryPin.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("planet", planetID);
-                                        getter.setParameter("pin", pinID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(PlanetaryPin.class, owner, time, new Object[] {planetID, pinID}, () -> {
+        TypedQuery<PlanetaryPin> getter = EveKitUserAccountProvider.getFactory()
+                                                                   .getEntityManager()
+                                                                   .createNamedQuery(
+                                                                       "PlanetaryPin.getByPlanetAndPinID",
+                                                                       PlanetaryPin.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("planet", planetID);
+        getter.setParameter("pin", pinID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -315,56 +321,106 @@ public class PlanetaryPin extends CachedData {
       final AttributeSelector headLatitude,
       final AttributeSelector contentTypeID,
       final AttributeSelector contentAmount) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT DISTINCT c FROM PlanetaryPin c ");
-                                        qs.append("LEFT JOIN c.heads d ");
-                                        qs.append("LEFT JOIN c.contents e WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-
-                                        AttributeSelector.addIntSelector(qs, "c", "planetID", planetID);
-                                        AttributeSelector.addLongSelector(qs, "c", "pinID", pinID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "schematicID", schematicID);
-                                        AttributeSelector.addLongSelector(qs, "c", "lastCycleStart", lastCycleStart);
-                                        AttributeSelector.addIntSelector(qs, "c", "cycleTime", cycleTime);
-                                        AttributeSelector.addIntSelector(qs, "c", "quantityPerCycle", quantityPerCycle);
-                                        AttributeSelector.addLongSelector(qs, "c", "installTime", installTime);
-                                        AttributeSelector.addLongSelector(qs, "c", "expiryTime", expiryTime);
-                                        AttributeSelector.addIntSelector(qs, "c", "productTypeID", productTypeID);
-                                        AttributeSelector.addFloatSelector(qs, "c", "longitude", longitude);
-                                        AttributeSelector.addFloatSelector(qs, "c", "latitude", latitude);
-                                        AttributeSelector.addFloatSelector(qs, "c", "headRadius", headRadius);
-                                        AttributeSelector.addIntSelector(qs, "d", "headID", headID);
-                                        AttributeSelector.addFloatSelector(qs, "d", "longitude", headLongitude);
-                                        AttributeSelector.addFloatSelector(qs, "d", "latitude", headLatitude);
-                                        AttributeSelector.addIntSelector(qs, "e", "typeID", contentTypeID);
-                                        AttributeSelector.addLongSelector(qs, "e", "amount", contentAmount);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<PlanetaryPin> query = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createQuery(
-                                                                                                      qs.toString(),
-                                                                                                      PlanetaryPin.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(PlanetaryPin.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(planetID, pinID, typeID, schematicID, lastCycleStart, cycleTime,
+                                       quantityPerCycle, installTime, expiryTime, productTypeID, longitude, latitude,
+                                       headRadius, headID, headLongitude, headLatitude, contentTypeID, contentAmount));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector planetID,
+      final AttributeSelector pinID,
+      final AttributeSelector typeID,
+      final AttributeSelector schematicID,
+      final AttributeSelector lastCycleStart,
+      final AttributeSelector cycleTime,
+      final AttributeSelector quantityPerCycle,
+      final AttributeSelector installTime,
+      final AttributeSelector expiryTime,
+      final AttributeSelector productTypeID,
+      final AttributeSelector longitude,
+      final AttributeSelector latitude,
+      final AttributeSelector headRadius,
+      final AttributeSelector headID,
+      final AttributeSelector headLongitude,
+      final AttributeSelector headLatitude,
+      final AttributeSelector contentTypeID,
+      final AttributeSelector contentAmount) throws IOException {
+    return accessCount(PlanetaryPin.class, owner, at,
+                       accessPredicate(planetID, pinID, typeID, schematicID, lastCycleStart, cycleTime,
+                                       quantityPerCycle, installTime, expiryTime, productTypeID, longitude, latitude,
+                                       headRadius, headID, headLongitude, headLatitude, contentTypeID, contentAmount));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector planetID,
+      final AttributeSelector pinID,
+      final AttributeSelector typeID,
+      final AttributeSelector schematicID,
+      final AttributeSelector lastCycleStart,
+      final AttributeSelector cycleTime,
+      final AttributeSelector quantityPerCycle,
+      final AttributeSelector installTime,
+      final AttributeSelector expiryTime,
+      final AttributeSelector productTypeID,
+      final AttributeSelector longitude,
+      final AttributeSelector latitude,
+      final AttributeSelector headRadius,
+      final AttributeSelector headID,
+      final AttributeSelector headLongitude,
+      final AttributeSelector headLatitude,
+      final AttributeSelector contentTypeID,
+      final AttributeSelector contentAmount) throws IOException {
+    return accessExists(PlanetaryPin.class, owner, at,
+                        accessPredicate(planetID, pinID, typeID, schematicID, lastCycleStart, cycleTime,
+                                        quantityPerCycle, installTime, expiryTime, productTypeID, longitude, latitude,
+                                        headRadius, headID, headLongitude, headLatitude, contentTypeID, contentAmount));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector planetID,
+      final AttributeSelector pinID,
+      final AttributeSelector typeID,
+      final AttributeSelector schematicID,
+      final AttributeSelector lastCycleStart,
+      final AttributeSelector cycleTime,
+      final AttributeSelector quantityPerCycle,
+      final AttributeSelector installTime,
+      final AttributeSelector expiryTime,
+      final AttributeSelector productTypeID,
+      final AttributeSelector longitude,
+      final AttributeSelector latitude,
+      final AttributeSelector headRadius,
+      final AttributeSelector headID,
+      final AttributeSelector headLongitude,
+      final AttributeSelector headLatitude,
+      final AttributeSelector contentTypeID,
+      final AttributeSelector contentAmount) {
+    return AccessPredicate.joined("LEFT JOIN c.heads d LEFT JOIN c.contents e", (qs, p) -> {
+
+      AttributeSelector.addIntSelector(qs, "c", "planetID", planetID);
+      AttributeSelector.addLongSelector(qs, "c", "pinID", pinID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "schematicID", schematicID);
+      AttributeSelector.addLongSelector(qs, "c", "lastCycleStart", lastCycleStart);
+      AttributeSelector.addIntSelector(qs, "c", "cycleTime", cycleTime);
+      AttributeSelector.addIntSelector(qs, "c", "quantityPerCycle", quantityPerCycle);
+      AttributeSelector.addLongSelector(qs, "c", "installTime", installTime);
+      AttributeSelector.addLongSelector(qs, "c", "expiryTime", expiryTime);
+      AttributeSelector.addIntSelector(qs, "c", "productTypeID", productTypeID);
+      AttributeSelector.addFloatSelector(qs, "c", "longitude", longitude);
+      AttributeSelector.addFloatSelector(qs, "c", "latitude", latitude);
+      AttributeSelector.addFloatSelector(qs, "c", "headRadius", headRadius);
+      AttributeSelector.addIntSelector(qs, "d", "headID", headID);
+      AttributeSelector.addFloatSelector(qs, "d", "longitude", headLongitude);
+      AttributeSelector.addFloatSelector(qs, "d", "latitude", headLatitude);
+      AttributeSelector.addIntSelector(qs, "e", "typeID", contentTypeID);
+      AttributeSelector.addLongSelector(qs, "e", "amount", contentAmount);
+    });
   }
 
 }
@@ -3,9 +3,12 @@ package enterprises.orbital.evekit.model.character;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.io.IOException;
@@ -43,6 +46,8 @@ public class PlanetaryRoute extends CachedData {
   private float quantity;
 
   @ElementCollection(fetch = FetchType.EAGER)
+  @Fetch(FetchMode.SELECT)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @CollectionTable(name = "planet_route_waypoint", joinColumns = @JoinColumn(name = "planet_route_cid"))
   @Column(name = "waypointID")
   private List<Long> waypoints = new ArrayList<>();
@@ -159,23 +164,22 @@ public class PlanetaryRoute extends CachedData {
       final int planetID,
       final long routeID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<PlanetaryRoute> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery(
-                                                                                                         "PlanetaryRoute.getByPlanetAndRouteID",
-                                                                                                         PlanetaryRoute.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("pid", planetID);
-                                        getter.setParameter("rid", routeID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(PlanetaryRoute.class, owner, time, new Object[] {planetID, routeID}, () -> {
+        TypedQuery<PlanetaryRoute> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                         "PlanetaryRoute.getByPlanetAndRouteID",
+                                                                         PlanetaryRoute.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("pid", planetID);
+        getter.setParameter("rid", routeID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -196,44 +200,59 @@ public class PlanetaryRoute extends CachedData {
       final AttributeSelector contentTypeID,
       final AttributeSelector quantity,
       final AttributeSelector waypoint) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT DISTINCT c FROM PlanetaryRoute c ");
-                                        qs.append("JOIN c.waypoints d WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "planetID", planetID);
-                                        AttributeSelector.addLongSelector(qs, "c", "routeID", routeID);
-                                        AttributeSelector.addLongSelector(qs, "c", "sourcePinID", sourcePinID);
-                                        AttributeSelector.addLongSelector(qs, "c", "destinationPinID",
-                                                                          destinationPinID);
-                                        AttributeSelector.addIntSelector(qs, "c", "contentTypeID", contentTypeID);
-                                        AttributeSelector.addFloatSelector(qs, "c", "quantity", quantity);
-                                        AttributeSelector.addLongSelector(qs, null, "d", waypoint);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<PlanetaryRoute> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(
-                                                                                                        qs.toString(),
-                                                                                                        PlanetaryRoute.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(PlanetaryRoute.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(planetID, routeID, sourcePinID, destinationPinID, contentTypeID, quantity,
+                                       waypoint));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector planetID,
+      final AttributeSelector routeID,
+      final AttributeSelector sourcePinID,
+      final AttributeSelector destinationPinID,
+      final AttributeSelector contentTypeID,
+      final AttributeSelector quantity,
+      final AttributeSelector waypoint) throws IOException {
+    return accessCount(PlanetaryRoute.class, owner, at,
+                       accessPredicate(planetID, routeID, sourcePinID, destinationPinID, contentTypeID, quantity,
+                                       waypoint));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector planetID,
+      final AttributeSelector routeID,
+      final AttributeSelector sourcePinID,
+      final AttributeSelector destinationPinID,
+      final AttributeSelector contentTypeID,
+      final AttributeSelector quantity,
+      final AttributeSelector waypoint) throws IOException {
+    return accessExists(PlanetaryRoute.class, owner, at,
+                        accessPredicate(planetID, routeID, sourcePinID, destinationPinID, contentTypeID, quantity,
+                                        waypoint));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector planetID,
+      final AttributeSelector routeID,
+      final AttributeSelector sourcePinID,
+      final AttributeSelector destinationPinID,
+      final AttributeSelector contentTypeID,
+      final AttributeSelector quantity,
+      final AttributeSelector waypoint) {
+    return AccessPredicate.joined("JOIN c.waypoints d", (qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "planetID", planetID);
+      AttributeSelector.addLongSelector(qs, "c", "routeID", routeID);
+      AttributeSelector.addLongSelector(qs, "c", "sourcePinID", sourcePinID);
+      AttributeSelector.addLongSelector(qs, "c", "destinationPinID",
+                                        destinationPinID);
+      AttributeSelector.addIntSelector(qs, "c", "contentTypeID", contentTypeID);
+      AttributeSelector.addFloatSelector(qs, "c", "quantity", quantity);
+      AttributeSelector.addLongSelector(qs, null, "d", waypoint);
+    });
   }
 
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -149,22 +150,21 @@ public class ResearchAgent extends CachedData {
       final long time,
       final int agentID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<ResearchAgent> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createNamedQuery(
-                                                                                                        "ResearchAgent.getByAgentID",
-                                                                                                        ResearchAgent.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("aid", agentID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(ResearchAgent.class, owner, time, new Object[] {agentID}, () -> {
+        TypedQuery<ResearchAgent> getter = EveKitUserAccountProvider.getFactory()
+                                                                    .getEntityManager()
+                                                                    .createNamedQuery(
+                                                                        "ResearchAgent.getByAgentID",
+                                                                        ResearchAgent.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("aid", agentID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -183,39 +183,48 @@ public class ResearchAgent extends CachedData {
       final AttributeSelector remainderPoints,
       final AttributeSelector researchStartDate,
       final AttributeSelector skillTypeID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM ResearchAgent c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "agentID", agentID);
-                                        AttributeSelector.addFloatSelector(qs, "c", "pointsPerDay", pointsPerDay);
-                                        AttributeSelector.addFloatSelector(qs, "c", "remainderPoints", remainderPoints);
-                                        AttributeSelector.addLongSelector(qs, "c", "researchStartDate",
-                                                                          researchStartDate);
-                                        AttributeSelector.addIntSelector(qs, "c", "skillTypeID", skillTypeID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<ResearchAgent> query = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createQuery(
-                                                                                                       qs.toString(),
-                                                                                                       ResearchAgent.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(ResearchAgent.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(agentID, pointsPerDay, remainderPoints, researchStartDate, skillTypeID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector agentID,
+      final AttributeSelector pointsPerDay,
+      final AttributeSelector remainderPoints,
+      final AttributeSelector researchStartDate,
+      final AttributeSelector skillTypeID) throws IOException {
+    return accessCount(ResearchAgent.class, owner, at,
+                       accessPredicate(agentID, pointsPerDay, remainderPoints, researchStartDate, skillTypeID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector agentID,
+      final AttributeSelector pointsPerDay,
+      final AttributeSelector remainderPoints,
+      final AttributeSelector researchStartDate,
+      final AttributeSelector skillTypeID) throws IOException {
+    return accessExists(ResearchAgent.class, owner, at,
+                        accessPredicate(agentID, pointsPerDay, remainderPoints, researchStartDate, skillTypeID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector agentID,
+      final AttributeSelector pointsPerDay,
+      final AttributeSelector remainderPoints,
+      final AttributeSelector researchStartDate,
+      final AttributeSelector skillTypeID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "agentID", agentID);
+      AttributeSelector.addFloatSelector(qs, "c", "pointsPerDay", pointsPerDay);
+      AttributeSelector.addFloatSelector(qs, "c", "remainderPoints", remainderPoints);
+      AttributeSelector.addLongSelector(qs, "c", "researchStartDate",
+                                        researchStartDate);
+      AttributeSelector.addIntSelector(qs, "c", "skillTypeID", skillTypeID);
+    });
   }
 
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -183,7 +184,7 @@ public class SkillInQueue extends CachedData {
                                  final long time,
                                  final int queuePosition) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
+      return CachedData.runHistorical(SkillInQueue.class, owner, time, new Object[] {queuePosition}, () -> {
         TypedQuery<SkillInQueue> getter = EveKitUserAccountProvider.getFactory().getEntityManager().createNamedQuery("SkillInQueue.getByQueuePosition",
                                                                                                                      SkillInQueue.class);
         getter.setParameter("owner", owner);
@@ -216,36 +217,62 @@ public class SkillInQueue extends CachedData {
                                                final AttributeSelector startTime,
                                                final AttributeSelector typeID,
                                                final AttributeSelector trainingStartSP) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(() -> {
-        StringBuilder qs = new StringBuilder();
-        qs.append("SELECT c FROM SkillInQueue c WHERE ");
-        // Constrain to specified owner
-        qs.append("c.owner = :owner");
-        // Constrain lifeline
-        AttributeSelector.addLifelineSelector(qs, "c", at);
-        // Constrain attributes
-        AttributeSelector.addIntSelector(qs, "c", "endSP", endSP);
-        AttributeSelector.addLongSelector(qs, "c", "endTime", endTime);
-        AttributeSelector.addIntSelector(qs, "c", "level", level);
-        AttributeSelector.addIntSelector(qs, "c", "queuePosition", queuePosition);
-        AttributeSelector.addIntSelector(qs, "c", "startSP", startSP);
-        AttributeSelector.addLongSelector(qs, "c", "startTime", startTime);
-        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-        AttributeSelector.addIntSelector(qs, "c", "trainingStartSP", trainingStartSP);
-        // Set CID constraint and ordering
-        setCIDOrdering(qs, contid, reverse);
-        // Return result
-        TypedQuery<SkillInQueue> query = EveKitUserAccountProvider.getFactory().getEntityManager().createQuery(qs.toString(), SkillInQueue.class);
-        query.setParameter("owner", owner);
-        query.setMaxResults(maxresults);
-        return query.getResultList();
-      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(SkillInQueue.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(endSP, endTime, level, queuePosition, startSP, startTime, typeID,
+                                       trainingStartSP));
+  }
+
+  public static long accessCount(
+                                 final SynchronizedEveAccount owner,
+                                 final AttributeSelector at,
+                                 final AttributeSelector endSP,
+                                 final AttributeSelector endTime,
+                                 final AttributeSelector level,
+                                 final AttributeSelector queuePosition,
+                                 final AttributeSelector startSP,
+                                 final AttributeSelector startTime,
+                                 final AttributeSelector typeID,
+                                 final AttributeSelector trainingStartSP) throws IOException {
+    return accessCount(SkillInQueue.class, owner, at,
+                       accessPredicate(endSP, endTime, level, queuePosition, startSP, startTime, typeID,
+                                       trainingStartSP));
+  }
+
+  public static boolean accessExists(
+                                     final SynchronizedEveAccount owner,
+                                     final AttributeSelector at,
+                                     final AttributeSelector endSP,
+                                     final AttributeSelector endTime,
+                                     final AttributeSelector level,
+                                     final AttributeSelector queuePosition,
+                                     final AttributeSelector startSP,
+                                     final AttributeSelector startTime,
+                                     final AttributeSelector typeID,
+                                     final AttributeSelector trainingStartSP) throws IOException {
+    return accessExists(SkillInQueue.class, owner, at,
+                        accessPredicate(endSP, endTime, level, queuePosition, startSP, startTime, typeID,
+                                        trainingStartSP));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector endSP,
+      final AttributeSelector endTime,
+      final AttributeSelector level,
+      final AttributeSelector queuePosition,
+      final AttributeSelector startSP,
+      final AttributeSelector startTime,
+      final AttributeSelector typeID,
+      final AttributeSelector trainingStartSP) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "endSP", endSP);
+      AttributeSelector.addLongSelector(qs, "c", "endTime", endTime);
+      AttributeSelector.addIntSelector(qs, "c", "level", level);
+      AttributeSelector.addIntSelector(qs, "c", "queuePosition", queuePosition);
+      AttributeSelector.addIntSelector(qs, "c", "startSP", startSP);
+      AttributeSelector.addLongSelector(qs, "c", "startTime", startTime);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "trainingStartSP", trainingStartSP);
+    });
   }
 
 }
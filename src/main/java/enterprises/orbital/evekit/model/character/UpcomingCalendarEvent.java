@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -194,22 +194,21 @@ public class UpcomingCalendarEvent extends CachedData {
       final long time,
       final int eventID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<UpcomingCalendarEvent> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                            .getEntityManager()
-                                                                                                            .createNamedQuery(
-                                                                                                                "UpcomingCalendarEvent.getByEventID",
-                                                                                                                UpcomingCalendarEvent.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("eid", eventID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(UpcomingCalendarEvent.class, owner, time, new Object[] {eventID}, () -> {
+        TypedQuery<UpcomingCalendarEvent> getter = EveKitUserAccountProvider.getFactory()
+                                                                            .getEntityManager()
+                                                                            .createNamedQuery(
+                                                                                "UpcomingCalendarEvent.getByEventID",
+                                                                                UpcomingCalendarEvent.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("eid", eventID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -233,45 +232,70 @@ public class UpcomingCalendarEvent extends CachedData {
       final AttributeSelector response,
       final AttributeSelector importance,
       final AttributeSelector ownerType) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM UpcomingCalendarEvent c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "duration", duration);
-                                        AttributeSelector.addLongSelector(qs, "c", "eventDate", eventDate);
-                                        AttributeSelector.addIntSelector(qs, "c", "eventID", eventID);
-                                        AttributeSelector.addStringSelector(qs, "c", "eventText", eventText, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "eventTitle", eventTitle, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "ownerID", ownerID);
-                                        AttributeSelector.addStringSelector(qs, "c", "ownerName", ownerName, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "response", response, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "importance", importance);
-                                        AttributeSelector.addStringSelector(qs, "c", "ownerType", ownerType, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<UpcomingCalendarEvent> query = EveKitUserAccountProvider.getFactory()
-                                                                                                           .getEntityManager()
-                                                                                                           .createQuery(
-                                                                                                               qs.toString(),
-                                                                                                               UpcomingCalendarEvent.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(UpcomingCalendarEvent.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(duration, eventDate, eventID, eventText, eventTitle, ownerID, ownerName,
+                                       response, importance, ownerType));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector duration,
+      final AttributeSelector eventDate,
+      final AttributeSelector eventID,
+      final AttributeSelector eventText,
+      final AttributeSelector eventTitle,
+      final AttributeSelector ownerID,
+      final AttributeSelector ownerName,
+      final AttributeSelector response,
+      final AttributeSelector importance,
+      final AttributeSelector ownerType) throws IOException {
+    return accessCount(UpcomingCalendarEvent.class, owner, at,
+                       accessPredicate(duration, eventDate, eventID, eventText, eventTitle, ownerID, ownerName,
+                                       response, importance, ownerType));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector duration,
+      final AttributeSelector eventDate,
+      final AttributeSelector eventID,
+      final AttributeSelector eventText,
+      final AttributeSelector eventTitle,
+      final AttributeSelector ownerID,
+      final AttributeSelector ownerName,
+      final AttributeSelector response,
+      final AttributeSelector importance,
+      final AttributeSelector ownerType) throws IOException {
+    return accessExists(UpcomingCalendarEvent.class, owner, at,
+                        accessPredicate(duration, eventDate, eventID, eventText, eventTitle, ownerID, ownerName,
+                                        response, importance, ownerType));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector duration,
+      final AttributeSelector eventDate,
+      final AttributeSelector eventID,
+      final AttributeSelector eventText,
+      final AttributeSelector eventTitle,
+      final AttributeSelector ownerID,
+      final AttributeSelector ownerName,
+      final AttributeSelector response,
+      final AttributeSelector importance,
+      final AttributeSelector ownerType) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "duration", duration);
+      AttributeSelector.addLongSelector(qs, "c", "eventDate", eventDate);
+      AttributeSelector.addIntSelector(qs, "c", "eventID", eventID);
+      AttributeSelector.addStringSelector(qs, "c", "eventText", eventText, p);
+      AttributeSelector.addStringSelector(qs, "c", "eventTitle", eventTitle, p);
+      AttributeSelector.addIntSelector(qs, "c", "ownerID", ownerID);
+      AttributeSelector.addStringSelector(qs, "c", "ownerName", ownerName, p);
+      AttributeSelector.addStringSelector(qs, "c", "response", response, p);
+      AttributeSelector.addIntSelector(qs, "c", "importance", importance);
+      AttributeSelector.addStringSelector(qs, "c", "ownerType", ownerType, p);
+    });
   }
 
 }
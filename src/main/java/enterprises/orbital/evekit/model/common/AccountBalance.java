@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -135,21 +136,20 @@ public class AccountBalance extends CachedData {
       final long time,
       final int division) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<AccountBalance> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery("AccountBalance.getByDivision",
-                                                                                                                       AccountBalance.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("div", division);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(AccountBalance.class, owner, time, new Object[] {division}, () -> {
+        TypedQuery<AccountBalance> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery("AccountBalance.getByDivision",
+                                                                                       AccountBalance.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("div", division);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -165,33 +165,35 @@ public class AccountBalance extends CachedData {
       final AttributeSelector at,
       final AttributeSelector division,
       final AttributeSelector balance) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM AccountBalance c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "division", division);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "balance", balance);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<AccountBalance> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(qs.toString(), AccountBalance.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(AccountBalance.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(division, balance));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector division,
+      final AttributeSelector balance) throws IOException {
+    return accessCount(AccountBalance.class, owner, at,
+                       accessPredicate(division, balance));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector division,
+      final AttributeSelector balance) throws IOException {
+    return accessExists(AccountBalance.class, owner, at,
+                        accessPredicate(division, balance));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector division,
+      final AttributeSelector balance) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "division", division);
+      AttributeSelector.addDoubleSelector(qs, "c", "balance", balance);
+    });
   }
 
 }
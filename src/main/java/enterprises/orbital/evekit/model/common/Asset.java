@@ -5,9 +5,10 @@ import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
+import enterprises.orbital.evekit.model.LifelineIndexedData;
 
 import javax.persistence.*;
 import java.io.IOException;
@@ -25,20 +26,41 @@ import java.util.logging.Logger;
             columnList = "itemID"),
         @Index(
             name = "locationIndex",
-            columnList = "locationID")
+            columnList = "locationID"),
+        @Index(
+            name = "itemLifelineIndex",
+            columnList = "aid, itemID, lifeEnd, lifeStart"),
+        @Index(
+            name = "locationLifelineIndex",
+            columnList = "aid, locationID, itemID, lifeEnd, lifeStart")
     })
 @NamedQueries({
     @NamedQuery(
         name = "Asset.getByItemID",
         query = "SELECT c FROM Asset c where c.owner = :owner and c.itemID = :item and c.lifeStart <= :point and c.lifeEnd > :point"),
+    @NamedQuery(
+        name = "Asset.getByItemIDIndexed",
+        query = "SELECT c FROM Asset c where c.indexedAid = :aid and c.itemID = :item and c.indexedEnd > :point and c.indexedStart <= :point"),
+    @NamedQuery(
+        name = "Asset.getByItemIDLive",
+        query = "SELECT c FROM Asset c where c.owner = :owner and c.itemID = :item and c.lifeEnd = :live"),
+    @NamedQuery(
+        name = "Asset.getByItemIDLiveIndexed",
+        query = "SELECT c FROM Asset c where c.indexedAid = :aid and c.itemID = :item and c.indexedEnd = :live"),
     @NamedQuery(
         name = "Asset.listFromID",
         query = "SELECT c FROM Asset c where c.owner = :owner and c.itemID > :item and c.lifeStart <= :point and c.lifeEnd > :point order by c.itemID asc"),
+    @NamedQuery(
+        name = "Asset.listFromIDIndexed",
+        query = "SELECT c FROM Asset c where c.indexedAid = :aid and c.itemID > :item and c.indexedEnd > :point and c.indexedStart <= :point order by c.itemID asc"),
     @NamedQuery(
         name = "Asset.getContained",
         query = "SELECT c FROM Asset c where c.owner = :owner and c.locationID = :container and c.itemID > :item and c.lifeStart <= :point and c.lifeEnd > :point order by c.itemID asc"),
+    @NamedQuery(
+        name = "Asset.getContainedIndexed",
+        query = "SELECT c FROM Asset c where c.indexedAid = :aid and c.locationID = :container and c.itemID > :item and c.indexedEnd > :point and c.indexedStart <= :point order by c.itemID asc"),
 })
-public class Asset extends CachedData {
+public class Asset extends LifelineIndexedData {
   private static final Logger log = Logger.getLogger(Asset.class.getName());
   private static final byte[] MASK = AccountAccessMask.createMask(AccountAccessMask.ACCESS_ASSETS);
   private static final int DEFAULT_MAX_RESULTS = 1000;
@@ -188,22 +210,53 @@ public class Asset extends CachedData {
       final long time,
       final long itemID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Asset> getter = EveKitUserAccountProvider.getFactory()
-                                                                                            .getEntityManager()
-                                                                                            .createNamedQuery(
-                                                                                                "Asset.getByItemID",
-                                                                                                Asset.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("item", itemID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Asset.class, owner, time, new Object[] {itemID}, () -> {
+        EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                    .getEntityManager();
+        TypedQuery<Asset> getter = LifelineIndexedData.createOwnerQuery(em, "Asset.getByItemID",
+                                                                        Asset.class, owner);
+        getter.setParameter("item", itemID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Retrieve the currently live asset with the given item ID.  Same as {@link #get(SynchronizedEveAccount, long, long)}
+   * at the current time, but matches the live version with an equality on lifeEnd so the lookup is a single probe
+   * of the (aid, itemID, lifeEnd, lifeStart) index once assets are backfilled, see
+   * {@link LifelineIndexedData#backfill(Class)}.
+   *
+   * @param owner  asset owner
+   * @param itemID asset item ID
+   * @return the live asset, or null if no live asset has the given item ID
+   */
+  public static Asset getLive(
+      final SynchronizedEveAccount owner,
+      final long itemID) throws IOException {
+    try {
+      return CachedData.runReadOnly(() -> {
+        EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                    .getEntityManager();
+        TypedQuery<Asset> getter = LifelineIndexedData.createOwnerQuery(em, "Asset.getByItemIDLive",
+                                                                        Asset.class, owner);
+        getter.setParameter("item", itemID);
+        getter.setParameter("live", Long.MAX_VALUE);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -231,19 +284,16 @@ public class Asset extends CachedData {
                                                                                                               DEFAULT_MAX_RESULTS));
 
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Asset> getter = EveKitUserAccountProvider.getFactory()
-                                                                                            .getEntityManager()
-                                                                                            .createNamedQuery(
-                                                                                                "Asset.listFromID",
-                                                                                                Asset.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("item", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(Asset.class, owner, time, "Asset.listFromID", new Object[] {contid, maxr}, () -> {
+        EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                    .getEntityManager();
+        TypedQuery<Asset> getter = LifelineIndexedData.createOwnerQuery(em, "Asset.listFromID",
+                                                                        Asset.class, owner);
+        getter.setParameter("item", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -273,20 +323,18 @@ public class Asset extends CachedData {
                                                                                                               DEFAULT_MAX_RESULTS));
 
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Asset> getter = EveKitUserAccountProvider.getFactory()
-                                                                                            .getEntityManager()
-                                                                                            .createNamedQuery(
-                                                                                                "Asset.getContained",
-                                                                                                Asset.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("container", containerID);
-                                        getter.setParameter("item", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(Asset.class, owner, time, "Asset.getContained",
+                                  new Object[] {containerID, contid, maxr}, () -> {
+        EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                    .getEntityManager();
+        TypedQuery<Asset> getter = LifelineIndexedData.createOwnerQuery(em, "Asset.getContained",
+                                                                        Asset.class, owner);
+        getter.setParameter("container", containerID);
+        getter.setParameter("item", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -309,42 +357,66 @@ public class Asset extends CachedData {
       final AttributeSelector singleton,
       final AttributeSelector blueprintType,
       final AttributeSelector blueprintCopy) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Asset c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "itemID", itemID);
-                                        AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
-                                        AttributeSelector.addStringSelector(qs, "c", "locationType", locationType, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "locationFlag", locationFlag, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addLongSelector(qs, "c", "quantity", quantity);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "singleton", singleton);
-                                        AttributeSelector.addStringSelector(qs, "c", "blueprintType", blueprintType, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "blueprintCopy", blueprintCopy);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Asset> query = EveKitUserAccountProvider.getFactory()
-                                                                                           .getEntityManager()
-                                                                                           .createQuery(qs.toString(),
-                                                                                                        Asset.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Asset.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(itemID, locationID, locationType, locationFlag, typeID, quantity, singleton,
+                                       blueprintType, blueprintCopy));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector itemID,
+      final AttributeSelector locationID,
+      final AttributeSelector locationType,
+      final AttributeSelector locationFlag,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector singleton,
+      final AttributeSelector blueprintType,
+      final AttributeSelector blueprintCopy) throws IOException {
+    return accessCount(Asset.class, owner, at,
+                       accessPredicate(itemID, locationID, locationType, locationFlag, typeID, quantity, singleton,
+                                       blueprintType, blueprintCopy));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector itemID,
+      final AttributeSelector locationID,
+      final AttributeSelector locationType,
+      final AttributeSelector locationFlag,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector singleton,
+      final AttributeSelector blueprintType,
+      final AttributeSelector blueprintCopy) throws IOException {
+    return accessExists(Asset.class, owner, at,
+                        accessPredicate(itemID, locationID, locationType, locationFlag, typeID, quantity, singleton,
+                                        blueprintType, blueprintCopy));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector itemID,
+      final AttributeSelector locationID,
+      final AttributeSelector locationType,
+      final AttributeSelector locationFlag,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector singleton,
+      final AttributeSelector blueprintType,
+      final AttributeSelector blueprintCopy) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "itemID", itemID);
+      AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
+      AttributeSelector.addStringSelector(qs, "c", "locationType", locationType, p);
+      AttributeSelector.addStringSelector(qs, "c", "locationFlag", locationFlag, p);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addLongSelector(qs, "c", "quantity", quantity);
+      AttributeSelector.addBooleanSelector(qs, "c", "singleton", singleton);
+      AttributeSelector.addStringSelector(qs, "c", "blueprintType", blueprintType, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "blueprintCopy", blueprintCopy);
+    });
   }
 
 }
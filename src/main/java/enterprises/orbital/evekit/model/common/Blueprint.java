@@ -5,7 +5,7 @@ import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -172,22 +172,21 @@ public class Blueprint extends CachedData {
       final long time,
       final long itemID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Blueprint> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                .getEntityManager()
-                                                                                                .createNamedQuery(
-                                                                                                    "Blueprint.getByItemID",
-                                                                                                    Blueprint.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("item", itemID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Blueprint.class, owner, time, new Object[] {itemID}, () -> {
+        TypedQuery<Blueprint> getter = EveKitUserAccountProvider.getFactory()
+                                                                .getEntityManager()
+                                                                .createNamedQuery(
+                                                                    "Blueprint.getByItemID",
+                                                                    Blueprint.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("item", itemID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -216,19 +215,19 @@ public class Blueprint extends CachedData {
                                                              DEFAULT_MAX_RESULTS));
 
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Blueprint> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                .getEntityManager()
-                                                                                                .createNamedQuery(
-                                                                                                    "Blueprint.listByItemID",
-                                                                                                    Blueprint.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("item", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(Blueprint.class, owner, time, "Blueprint.listByItemID",
+                                  new Object[] {contid, maxr}, () -> {
+        TypedQuery<Blueprint> getter = EveKitUserAccountProvider.getFactory()
+                                                                .getEntityManager()
+                                                                .createNamedQuery(
+                                                                    "Blueprint.listByItemID",
+                                                                    Blueprint.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("item", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -250,44 +249,63 @@ public class Blueprint extends CachedData {
       final AttributeSelector timeEfficiency,
       final AttributeSelector materialEfficiency,
       final AttributeSelector runs) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Blueprint c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "itemID", itemID);
-                                        AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
-                                        AttributeSelector.addStringSelector(qs, "c", "locationFlag", locationFlag, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
-                                        AttributeSelector.addIntSelector(qs, "c", "timeEfficiency", timeEfficiency);
-                                        AttributeSelector.addIntSelector(qs, "c", "materialEfficiency",
-                                                                         materialEfficiency);
-                                        AttributeSelector.addIntSelector(qs, "c", "runs", runs);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Blueprint> query = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createQuery(
-                                                                                                   qs.toString(),
-                                                                                                   Blueprint.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Blueprint.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(itemID, locationID, locationFlag, typeID, quantity, timeEfficiency,
+                                       materialEfficiency, runs));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector itemID,
+      final AttributeSelector locationID,
+      final AttributeSelector locationFlag,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector timeEfficiency,
+      final AttributeSelector materialEfficiency,
+      final AttributeSelector runs) throws IOException {
+    return accessCount(Blueprint.class, owner, at,
+                       accessPredicate(itemID, locationID, locationFlag, typeID, quantity, timeEfficiency,
+                                       materialEfficiency, runs));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector itemID,
+      final AttributeSelector locationID,
+      final AttributeSelector locationFlag,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector timeEfficiency,
+      final AttributeSelector materialEfficiency,
+      final AttributeSelector runs) throws IOException {
+    return accessExists(Blueprint.class, owner, at,
+                        accessPredicate(itemID, locationID, locationFlag, typeID, quantity, timeEfficiency,
+                                        materialEfficiency, runs));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector itemID,
+      final AttributeSelector locationID,
+      final AttributeSelector locationFlag,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector timeEfficiency,
+      final AttributeSelector materialEfficiency,
+      final AttributeSelector runs) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "itemID", itemID);
+      AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
+      AttributeSelector.addStringSelector(qs, "c", "locationFlag", locationFlag, p);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
+      AttributeSelector.addIntSelector(qs, "c", "timeEfficiency", timeEfficiency);
+      AttributeSelector.addIntSelector(qs, "c", "materialEfficiency",
+                                       materialEfficiency);
+      AttributeSelector.addIntSelector(qs, "c", "runs", runs);
+    });
   }
 
 }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -243,23 +243,22 @@ public class Bookmark extends CachedData {
       final int folderID,
       final int bookmarkID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Bookmark> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Bookmark.getByFolderAndBookmarkID",
-                                                                                                   Bookmark.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("folder", folderID);
-                                        getter.setParameter("bookmark", bookmarkID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Bookmark.class, owner, time, new Object[] {folderID, bookmarkID}, () -> {
+        TypedQuery<Bookmark> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Bookmark.getByFolderAndBookmarkID",
+                                                                   Bookmark.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("folder", folderID);
+        getter.setParameter("bookmark", bookmarkID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -287,50 +286,87 @@ public class Bookmark extends CachedData {
       final AttributeSelector z,
       final AttributeSelector memo,
       final AttributeSelector note) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Bookmark c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "folderID", folderID);
-                                        AttributeSelector.addStringSelector(qs, "c", "folderName", folderName, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "folderCreatorID", folderCreatorID);
-                                        AttributeSelector.addIntSelector(qs, "c", "bookmarkID", bookmarkID);
-                                        AttributeSelector.addIntSelector(qs, "c", "bookmarkCreatorID",
-                                                                         bookmarkCreatorID);
-                                        AttributeSelector.addLongSelector(qs, "c", "created", created);
-                                        AttributeSelector.addLongSelector(qs, "c", "itemID", itemID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "locationID", locationID);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "x", x);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "y", y);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "z", z);
-                                        AttributeSelector.addStringSelector(qs, "c", "memo", memo, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "note", note, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Bookmark> query = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createQuery(
-                                                                                                  qs.toString(),
-                                                                                                  Bookmark.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Bookmark.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(folderID, folderName, folderCreatorID, bookmarkID, bookmarkCreatorID, created,
+                                       itemID, typeID, locationID, x, y, z, memo, note));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector folderID,
+      final AttributeSelector folderName,
+      final AttributeSelector folderCreatorID,
+      final AttributeSelector bookmarkID,
+      final AttributeSelector bookmarkCreatorID,
+      final AttributeSelector created,
+      final AttributeSelector itemID,
+      final AttributeSelector typeID,
+      final AttributeSelector locationID,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z,
+      final AttributeSelector memo,
+      final AttributeSelector note) throws IOException {
+    return accessCount(Bookmark.class, owner, at,
+                       accessPredicate(folderID, folderName, folderCreatorID, bookmarkID, bookmarkCreatorID, created,
+                                       itemID, typeID, locationID, x, y, z, memo, note));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector folderID,
+      final AttributeSelector folderName,
+      final AttributeSelector folderCreatorID,
+      final AttributeSelector bookmarkID,
+      final AttributeSelector bookmarkCreatorID,
+      final AttributeSelector created,
+      final AttributeSelector itemID,
+      final AttributeSelector typeID,
+      final AttributeSelector locationID,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z,
+      final AttributeSelector memo,
+      final AttributeSelector note) throws IOException {
+    return accessExists(Bookmark.class, owner, at,
+                        accessPredicate(folderID, folderName, folderCreatorID, bookmarkID, bookmarkCreatorID, created,
+                                        itemID, typeID, locationID, x, y, z, memo, note));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector folderID,
+      final AttributeSelector folderName,
+      final AttributeSelector folderCreatorID,
+      final AttributeSelector bookmarkID,
+      final AttributeSelector bookmarkCreatorID,
+      final AttributeSelector created,
+      final AttributeSelector itemID,
+      final AttributeSelector typeID,
+      final AttributeSelector locationID,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z,
+      final AttributeSelector memo,
+      final AttributeSelector note) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "folderID", folderID);
+      AttributeSelector.addStringSelector(qs, "c", "folderName", folderName, p);
+      AttributeSelector.addIntSelector(qs, "c", "folderCreatorID", folderCreatorID);
+      AttributeSelector.addIntSelector(qs, "c", "bookmarkID", bookmarkID);
+      AttributeSelector.addIntSelector(qs, "c", "bookmarkCreatorID",
+                                       bookmarkCreatorID);
+      AttributeSelector.addLongSelector(qs, "c", "created", created);
+      AttributeSelector.addLongSelector(qs, "c", "itemID", itemID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "locationID", locationID);
+      AttributeSelector.addDoubleSelector(qs, "c", "x", x);
+      AttributeSelector.addDoubleSelector(qs, "c", "y", y);
+      AttributeSelector.addDoubleSelector(qs, "c", "z", z);
+      AttributeSelector.addStringSelector(qs, "c", "memo", memo, p);
+      AttributeSelector.addStringSelector(qs, "c", "note", note, p);
+    });
   }
 
 }
@@ -3,9 +3,12 @@ package enterprises.orbital.evekit.model.common;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.io.IOException;
@@ -44,6 +47,8 @@ public class Contact extends CachedData {
   private boolean isBlocked;
 
   @ElementCollection(fetch = FetchType.EAGER)
+  @Fetch(FetchMode.SELECT)
+  @BatchSize(size = COLLECTION_BATCH_SIZE)
   @CollectionTable(name = "contact_label", joinColumns = @JoinColumn(name = "contact_cid"))
   @Column(name = "labelID")
   private Set<Long> labels = new HashSet<>();
@@ -172,23 +177,22 @@ public class Contact extends CachedData {
       final String list,
       final int contactID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Contact> getter = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createNamedQuery(
-                                                                                                  "Contact.getByContactID",
-                                                                                                  Contact.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("list", list);
-                                        getter.setParameter("contact", contactID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Contact.class, owner, time, new Object[] {list, contactID}, () -> {
+        TypedQuery<Contact> getter = EveKitUserAccountProvider.getFactory()
+                                                              .getEntityManager()
+                                                              .createNamedQuery(
+                                                                  "Contact.getByContactID",
+                                                                  Contact.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("list", list);
+        getter.setParameter("contact", contactID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -209,42 +213,55 @@ public class Contact extends CachedData {
       final AttributeSelector inWatchlist,
       final AttributeSelector isBlocked,
       final AttributeSelector labelID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT DISTINCT c FROM Contact c ");
-                                        qs.append("JOIN c.labels d WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addStringSelector(qs, "c", "list", list, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "contactID", contactID);
-                                        AttributeSelector.addFloatSelector(qs, "c", "standing", standing);
-                                        AttributeSelector.addStringSelector(qs, "c", "contactType", contactType, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "inWatchlist", inWatchlist);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "isBlocked", isBlocked);
-                                        AttributeSelector.addLongSelector(qs, null, "d", labelID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Contact> query = EveKitUserAccountProvider.getFactory()
-                                                                                             .getEntityManager()
-                                                                                             .createQuery(qs.toString(),
-                                                                                                          Contact.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Contact.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(list, contactID, standing, contactType, inWatchlist, isBlocked, labelID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector list,
+      final AttributeSelector contactID,
+      final AttributeSelector standing,
+      final AttributeSelector contactType,
+      final AttributeSelector inWatchlist,
+      final AttributeSelector isBlocked,
+      final AttributeSelector labelID) throws IOException {
+    return accessCount(Contact.class, owner, at,
+                       accessPredicate(list, contactID, standing, contactType, inWatchlist, isBlocked, labelID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector list,
+      final AttributeSelector contactID,
+      final AttributeSelector standing,
+      final AttributeSelector contactType,
+      final AttributeSelector inWatchlist,
+      final AttributeSelector isBlocked,
+      final AttributeSelector labelID) throws IOException {
+    return accessExists(Contact.class, owner, at,
+                        accessPredicate(list, contactID, standing, contactType, inWatchlist, isBlocked, labelID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector list,
+      final AttributeSelector contactID,
+      final AttributeSelector standing,
+      final AttributeSelector contactType,
+      final AttributeSelector inWatchlist,
+      final AttributeSelector isBlocked,
+      final AttributeSelector labelID) {
+    return AccessPredicate.joined("JOIN c.labels d", (qs, p) -> {
+      AttributeSelector.addStringSelector(qs, "c", "list", list, p);
+      AttributeSelector.addIntSelector(qs, "c", "contactID", contactID);
+      AttributeSelector.addFloatSelector(qs, "c", "standing", standing);
+      AttributeSelector.addStringSelector(qs, "c", "contactType", contactType, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "inWatchlist", inWatchlist);
+      AttributeSelector.addBooleanSelector(qs, "c", "isBlocked", isBlocked);
+      AttributeSelector.addLongSelector(qs, null, "d", labelID);
+    });
   }
 
 }
@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.common;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -119,23 +119,22 @@ public class ContactLabel extends CachedData {
       final String list,
       final long labelID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<ContactLabel> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createNamedQuery(
-                                                                                                       "ContactLabel.getByListAndLabelID",
-                                                                                                       ContactLabel.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("list", list);
-                                        getter.setParameter("label", labelID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(ContactLabel.class, owner, time, new Object[] {list, labelID}, () -> {
+        TypedQuery<ContactLabel> getter = EveKitUserAccountProvider.getFactory()
+                                                                   .getEntityManager()
+                                                                   .createNamedQuery(
+                                                                       "ContactLabel.getByListAndLabelID",
+                                                                       ContactLabel.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("list", list);
+        getter.setParameter("label", labelID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -152,38 +151,39 @@ public class ContactLabel extends CachedData {
       final AttributeSelector list,
       final AttributeSelector labelID,
       final AttributeSelector name) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM ContactLabel c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addStringSelector(qs, "c", "list", list, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "labelID", labelID);
-                                        AttributeSelector.addStringSelector(qs, "c", "name", name, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<ContactLabel> query = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createQuery(
-                                                                                                      qs.toString(),
-                                                                                                      ContactLabel.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(ContactLabel.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(list, labelID, name));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector list,
+      final AttributeSelector labelID,
+      final AttributeSelector name) throws IOException {
+    return accessCount(ContactLabel.class, owner, at,
+                       accessPredicate(list, labelID, name));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector list,
+      final AttributeSelector labelID,
+      final AttributeSelector name) throws IOException {
+    return accessExists(ContactLabel.class, owner, at,
+                        accessPredicate(list, labelID, name));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector list,
+      final AttributeSelector labelID,
+      final AttributeSelector name) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addStringSelector(qs, "c", "list", list, p);
+      AttributeSelector.addLongSelector(qs, "c", "labelID", labelID);
+      AttributeSelector.addStringSelector(qs, "c", "name", name, p);
+    });
   }
 
 }
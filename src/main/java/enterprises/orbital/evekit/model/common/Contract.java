@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -359,22 +359,21 @@ public class Contract extends CachedData {
       final long time,
       final int contractID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Contract> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Contract.getByContractID",
-                                                                                                   Contract.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contract", contractID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Contract.class, owner, time, new Object[] {contractID}, () -> {
+        TypedQuery<Contract> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Contract.getByContractID",
+                                                                   Contract.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contract", contractID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -410,57 +409,124 @@ public class Contract extends CachedData {
       final AttributeSelector collateral,
       final AttributeSelector buyout,
       final AttributeSelector volume) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Contract c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "contractID", contractID);
-                                        AttributeSelector.addIntSelector(qs, "c", "issuerID", issuerID);
-                                        AttributeSelector.addIntSelector(qs, "c", "issuerCorpID", issuerCorpID);
-                                        AttributeSelector.addIntSelector(qs, "c", "assigneeID", assigneeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "acceptorID", acceptorID);
-                                        AttributeSelector.addLongSelector(qs, "c", "startStationID", startStationID);
-                                        AttributeSelector.addLongSelector(qs, "c", "endStationID", endStationID);
-                                        AttributeSelector.addStringSelector(qs, "c", "type", type, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "status", status, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "title", title, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "forCorp", forCorp);
-                                        AttributeSelector.addStringSelector(qs, "c", "availability", availability, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "dateIssued", dateIssued);
-                                        AttributeSelector.addLongSelector(qs, "c", "dateExpired", dateExpired);
-                                        AttributeSelector.addLongSelector(qs, "c", "dateAccepted", dateAccepted);
-                                        AttributeSelector.addIntSelector(qs, "c", "numDays", numDays);
-                                        AttributeSelector.addLongSelector(qs, "c", "dateCompleted", dateCompleted);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "price", price);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "reward", reward);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "collateral", collateral);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "buyout", buyout);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "volume", volume);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Contract> query = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createQuery(
-                                                                                                  qs.toString(),
-                                                                                                  Contract.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Contract.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(contractID, issuerID, issuerCorpID, assigneeID, acceptorID, startStationID,
+                                       endStationID, type, status, title, forCorp, availability, dateIssued,
+                                       dateExpired, dateAccepted, numDays, dateCompleted, price, reward, collateral,
+                                       buyout, volume));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector contractID,
+      final AttributeSelector issuerID,
+      final AttributeSelector issuerCorpID,
+      final AttributeSelector assigneeID,
+      final AttributeSelector acceptorID,
+      final AttributeSelector startStationID,
+      final AttributeSelector endStationID,
+      final AttributeSelector type,
+      final AttributeSelector status,
+      final AttributeSelector title,
+      final AttributeSelector forCorp,
+      final AttributeSelector availability,
+      final AttributeSelector dateIssued,
+      final AttributeSelector dateExpired,
+      final AttributeSelector dateAccepted,
+      final AttributeSelector numDays,
+      final AttributeSelector dateCompleted,
+      final AttributeSelector price,
+      final AttributeSelector reward,
+      final AttributeSelector collateral,
+      final AttributeSelector buyout,
+      final AttributeSelector volume) throws IOException {
+    return accessCount(Contract.class, owner, at,
+                       accessPredicate(contractID, issuerID, issuerCorpID, assigneeID, acceptorID, startStationID,
+                                       endStationID, type, status, title, forCorp, availability, dateIssued,
+                                       dateExpired, dateAccepted, numDays, dateCompleted, price, reward, collateral,
+                                       buyout, volume));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector contractID,
+      final AttributeSelector issuerID,
+      final AttributeSelector issuerCorpID,
+      final AttributeSelector assigneeID,
+      final AttributeSelector acceptorID,
+      final AttributeSelector startStationID,
+      final AttributeSelector endStationID,
+      final AttributeSelector type,
+      final AttributeSelector status,
+      final AttributeSelector title,
+      final AttributeSelector forCorp,
+      final AttributeSelector availability,
+      final AttributeSelector dateIssued,
+      final AttributeSelector dateExpired,
+      final AttributeSelector dateAccepted,
+      final AttributeSelector numDays,
+      final AttributeSelector dateCompleted,
+      final AttributeSelector price,
+      final AttributeSelector reward,
+      final AttributeSelector collateral,
+      final AttributeSelector buyout,
+      final AttributeSelector volume) throws IOException {
+    return accessExists(Contract.class, owner, at,
+                        accessPredicate(contractID, issuerID, issuerCorpID, assigneeID, acceptorID, startStationID,
+                                        endStationID, type, status, title, forCorp, availability, dateIssued,
+                                        dateExpired, dateAccepted, numDays, dateCompleted, price, reward, collateral,
+                                        buyout, volume));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector contractID,
+      final AttributeSelector issuerID,
+      final AttributeSelector issuerCorpID,
+      final AttributeSelector assigneeID,
+      final AttributeSelector acceptorID,
+      final AttributeSelector startStationID,
+      final AttributeSelector endStationID,
+      final AttributeSelector type,
+      final AttributeSelector status,
+      final AttributeSelector title,
+      final AttributeSelector forCorp,
+      final AttributeSelector availability,
+      final AttributeSelector dateIssued,
+      final AttributeSelector dateExpired,
+      final AttributeSelector dateAccepted,
+      final AttributeSelector numDays,
+      final AttributeSelector dateCompleted,
+      final AttributeSelector price,
+      final AttributeSelector reward,
+      final AttributeSelector collateral,
+      final AttributeSelector buyout,
+      final AttributeSelector volume) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "contractID", contractID);
+      AttributeSelector.addIntSelector(qs, "c", "issuerID", issuerID);
+      AttributeSelector.addIntSelector(qs, "c", "issuerCorpID", issuerCorpID);
+      AttributeSelector.addIntSelector(qs, "c", "assigneeID", assigneeID);
+      AttributeSelector.addIntSelector(qs, "c", "acceptorID", acceptorID);
+      AttributeSelector.addLongSelector(qs, "c", "startStationID", startStationID);
+      AttributeSelector.addLongSelector(qs, "c", "endStationID", endStationID);
+      AttributeSelector.addStringSelector(qs, "c", "type", type, p);
+      AttributeSelector.addStringSelector(qs, "c", "status", status, p);
+      AttributeSelector.addStringSelector(qs, "c", "title", title, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "forCorp", forCorp);
+      AttributeSelector.addStringSelector(qs, "c", "availability", availability, p);
+      AttributeSelector.addLongSelector(qs, "c", "dateIssued", dateIssued);
+      AttributeSelector.addLongSelector(qs, "c", "dateExpired", dateExpired);
+      AttributeSelector.addLongSelector(qs, "c", "dateAccepted", dateAccepted);
+      AttributeSelector.addIntSelector(qs, "c", "numDays", numDays);
+      AttributeSelector.addLongSelector(qs, "c", "dateCompleted", dateCompleted);
+      AttributeSelector.addDoubleSelector(qs, "c", "price", price);
+      AttributeSelector.addDoubleSelector(qs, "c", "reward", reward);
+      AttributeSelector.addDoubleSelector(qs, "c", "collateral", collateral);
+      AttributeSelector.addDoubleSelector(qs, "c", "buyout", buyout);
+      AttributeSelector.addDoubleSelector(qs, "c", "volume", volume);
+    });
   }
 
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -166,23 +167,22 @@ public class ContractBid extends CachedData {
       final int contractID,
       final int bidID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<ContractBid> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "ContractBid.getByContractAndBidID",
-                                                                                                      ContractBid.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contract", contractID);
-                                        getter.setParameter("bid", bidID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(ContractBid.class, owner, time, new Object[] {contractID, bidID}, () -> {
+        TypedQuery<ContractBid> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "ContractBid.getByContractAndBidID",
+                                                                      ContractBid.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contract", contractID);
+        getter.setParameter("bid", bidID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -201,38 +201,47 @@ public class ContractBid extends CachedData {
       final AttributeSelector bidderID,
       final AttributeSelector dateBid,
       final AttributeSelector amount) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM ContractBid c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "bidID", bidID);
-                                        AttributeSelector.addIntSelector(qs, "c", "contractID", contractID);
-                                        AttributeSelector.addIntSelector(qs, "c", "bidderID", bidderID);
-                                        AttributeSelector.addLongSelector(qs, "c", "dateBid", dateBid);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "amount", amount);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<ContractBid> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     ContractBid.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(ContractBid.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(bidID, contractID, bidderID, dateBid, amount));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector bidID,
+      final AttributeSelector contractID,
+      final AttributeSelector bidderID,
+      final AttributeSelector dateBid,
+      final AttributeSelector amount) throws IOException {
+    return accessCount(ContractBid.class, owner, at,
+                       accessPredicate(bidID, contractID, bidderID, dateBid, amount));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector bidID,
+      final AttributeSelector contractID,
+      final AttributeSelector bidderID,
+      final AttributeSelector dateBid,
+      final AttributeSelector amount) throws IOException {
+    return accessExists(ContractBid.class, owner, at,
+                        accessPredicate(bidID, contractID, bidderID, dateBid, amount));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector bidID,
+      final AttributeSelector contractID,
+      final AttributeSelector bidderID,
+      final AttributeSelector dateBid,
+      final AttributeSelector amount) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "bidID", bidID);
+      AttributeSelector.addIntSelector(qs, "c", "contractID", contractID);
+      AttributeSelector.addIntSelector(qs, "c", "bidderID", bidderID);
+      AttributeSelector.addLongSelector(qs, "c", "dateBid", dateBid);
+      AttributeSelector.addDoubleSelector(qs, "c", "amount", amount);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.common;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -162,23 +163,22 @@ public class ContractItem extends CachedData {
       final int contractID,
       final long recordID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<ContractItem> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createNamedQuery(
-                                                                                                       "ContractItem.getByContractAndRecordID",
-                                                                                                       ContractItem.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contract", contractID);
-                                        getter.setParameter("record", recordID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(ContractItem.class, owner, time, new Object[] {contractID, recordID}, () -> {
+        TypedQuery<ContractItem> getter = EveKitUserAccountProvider.getFactory()
+                                                                   .getEntityManager()
+                                                                   .createNamedQuery(
+                                                                       "ContractItem.getByContractAndRecordID",
+                                                                       ContractItem.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contract", contractID);
+        getter.setParameter("record", recordID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -199,40 +199,55 @@ public class ContractItem extends CachedData {
       final AttributeSelector rawQuantity,
       final AttributeSelector singleton,
       final AttributeSelector included) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM ContractItem c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "contractID", contractID);
-                                        AttributeSelector.addLongSelector(qs, "c", "recordID", recordID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
-                                        AttributeSelector.addIntSelector(qs, "c", "rawQuantity", rawQuantity);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "singleton", singleton);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "included", included);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<ContractItem> query = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createQuery(
-                                                                                                      qs.toString(),
-                                                                                                      ContractItem.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(ContractItem.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(contractID, recordID, typeID, quantity, rawQuantity, singleton, included));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector contractID,
+      final AttributeSelector recordID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector rawQuantity,
+      final AttributeSelector singleton,
+      final AttributeSelector included) throws IOException {
+    return accessCount(ContractItem.class, owner, at,
+                       accessPredicate(contractID, recordID, typeID, quantity, rawQuantity, singleton, included));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector contractID,
+      final AttributeSelector recordID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector rawQuantity,
+      final AttributeSelector singleton,
+      final AttributeSelector included) throws IOException {
+    return accessExists(ContractItem.class, owner, at,
+                        accessPredicate(contractID, recordID, typeID, quantity, rawQuantity, singleton, included));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector contractID,
+      final AttributeSelector recordID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity,
+      final AttributeSelector rawQuantity,
+      final AttributeSelector singleton,
+      final AttributeSelector included) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "contractID", contractID);
+      AttributeSelector.addLongSelector(qs, "c", "recordID", recordID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
+      AttributeSelector.addIntSelector(qs, "c", "rawQuantity", rawQuantity);
+      AttributeSelector.addBooleanSelector(qs, "c", "singleton", singleton);
+      AttributeSelector.addBooleanSelector(qs, "c", "included", included);
+    });
   }
 
 }
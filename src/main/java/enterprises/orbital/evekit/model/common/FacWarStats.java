@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -201,21 +201,20 @@ public class FacWarStats extends CachedData {
       final SynchronizedEveAccount owner,
       final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<FacWarStats> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "FacWarStats.get",
-                                                                                                      FacWarStats.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(FacWarStats.class, owner, time, new Object[0], () -> {
+        TypedQuery<FacWarStats> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "FacWarStats.get",
+                                                                      FacWarStats.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -240,49 +239,80 @@ public class FacWarStats extends CachedData {
       final AttributeSelector victoryPointsLastWeek,
       final AttributeSelector victoryPointsTotal,
       final AttributeSelector victoryPointsYesterday) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM FacWarStats c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "currentRank", currentRank);
-                                        AttributeSelector.addLongSelector(qs, "c", "enlisted", enlisted);
-                                        AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
-                                        AttributeSelector.addIntSelector(qs, "c", "highestRank", highestRank);
-                                        AttributeSelector.addIntSelector(qs, "c", "killsLastWeek", killsLastWeek);
-                                        AttributeSelector.addIntSelector(qs, "c", "killsTotal", killsTotal);
-                                        AttributeSelector.addIntSelector(qs, "c", "killsYesterday", killsYesterday);
-                                        AttributeSelector.addIntSelector(qs, "c", "pilots", pilots);
-                                        AttributeSelector.addIntSelector(qs, "c", "victoryPointsLastWeek",
-                                                                         victoryPointsLastWeek);
-                                        AttributeSelector.addIntSelector(qs, "c", "victoryPointsTotal",
-                                                                         victoryPointsTotal);
-                                        AttributeSelector.addIntSelector(qs, "c", "victoryPointsYesterday",
-                                                                         victoryPointsYesterday);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<FacWarStats> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     FacWarStats.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(FacWarStats.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(currentRank, enlisted, factionID, highestRank, killsLastWeek, killsTotal,
+                                       killsYesterday, pilots, victoryPointsLastWeek, victoryPointsTotal,
+                                       victoryPointsYesterday));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector currentRank,
+      final AttributeSelector enlisted,
+      final AttributeSelector factionID,
+      final AttributeSelector highestRank,
+      final AttributeSelector killsLastWeek,
+      final AttributeSelector killsTotal,
+      final AttributeSelector killsYesterday,
+      final AttributeSelector pilots,
+      final AttributeSelector victoryPointsLastWeek,
+      final AttributeSelector victoryPointsTotal,
+      final AttributeSelector victoryPointsYesterday) throws IOException {
+    return accessCount(FacWarStats.class, owner, at,
+                       accessPredicate(currentRank, enlisted, factionID, highestRank, killsLastWeek, killsTotal,
+                                       killsYesterday, pilots, victoryPointsLastWeek, victoryPointsTotal,
+                                       victoryPointsYesterday));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector currentRank,
+      final AttributeSelector enlisted,
+      final AttributeSelector factionID,
+      final AttributeSelector highestRank,
+      final AttributeSelector killsLastWeek,
+      final AttributeSelector killsTotal,
+      final AttributeSelector killsYesterday,
+      final AttributeSelector pilots,
+      final AttributeSelector victoryPointsLastWeek,
+      final AttributeSelector victoryPointsTotal,
+      final AttributeSelector victoryPointsYesterday) throws IOException {
+    return accessExists(FacWarStats.class, owner, at,
+                        accessPredicate(currentRank, enlisted, factionID, highestRank, killsLastWeek, killsTotal,
+                                        killsYesterday, pilots, victoryPointsLastWeek, victoryPointsTotal,
+                                        victoryPointsYesterday));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector currentRank,
+      final AttributeSelector enlisted,
+      final AttributeSelector factionID,
+      final AttributeSelector highestRank,
+      final AttributeSelector killsLastWeek,
+      final AttributeSelector killsTotal,
+      final AttributeSelector killsYesterday,
+      final AttributeSelector pilots,
+      final AttributeSelector victoryPointsLastWeek,
+      final AttributeSelector victoryPointsTotal,
+      final AttributeSelector victoryPointsYesterday) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "currentRank", currentRank);
+      AttributeSelector.addLongSelector(qs, "c", "enlisted", enlisted);
+      AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
+      AttributeSelector.addIntSelector(qs, "c", "highestRank", highestRank);
+      AttributeSelector.addIntSelector(qs, "c", "killsLastWeek", killsLastWeek);
+      AttributeSelector.addIntSelector(qs, "c", "killsTotal", killsTotal);
+      AttributeSelector.addIntSelector(qs, "c", "killsYesterday", killsYesterday);
+      AttributeSelector.addIntSelector(qs, "c", "pilots", pilots);
+      AttributeSelector.addIntSelector(qs, "c", "victoryPointsLastWeek",
+                                       victoryPointsLastWeek);
+      AttributeSelector.addIntSelector(qs, "c", "victoryPointsTotal",
+                                       victoryPointsTotal);
+      AttributeSelector.addIntSelector(qs, "c", "victoryPointsYesterday",
+                                       victoryPointsYesterday);
+    });
   }
 
 }
@@ -7,7 +7,7 @@ import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -357,22 +357,21 @@ public class IndustryJob extends CachedData {
       final long time,
       final int jobID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<IndustryJob> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "IndustryJob.getByJobID",
-                                                                                                      IndustryJob.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("jobid", jobID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(IndustryJob.class, owner, time, new Object[] {jobID}, () -> {
+        TypedQuery<IndustryJob> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "IndustryJob.getByJobID",
+                                                                      IndustryJob.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("jobid", jobID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -408,60 +407,127 @@ public class IndustryJob extends CachedData {
       final AttributeSelector completedDate,
       final AttributeSelector completedCharacterID,
       final AttributeSelector successfulRuns) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM IndustryJob c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "jobID", jobID);
-                                        AttributeSelector.addIntSelector(qs, "c", "installerID", installerID);
-                                        AttributeSelector.addLongSelector(qs, "c", "facilityID", facilityID);
-                                        AttributeSelector.addLongSelector(qs, "c", "stationID", stationID);
-                                        AttributeSelector.addIntSelector(qs, "c", "activityID", activityID);
-                                        AttributeSelector.addLongSelector(qs, "c", "blueprintID", blueprintID);
-                                        AttributeSelector.addIntSelector(qs, "c", "blueprintTypeID", blueprintTypeID);
-                                        AttributeSelector.addLongSelector(qs, "c", "blueprintLocationID",
-                                                                          blueprintLocationID);
-                                        AttributeSelector.addLongSelector(qs, "c", "outputLocationID",
-                                                                          outputLocationID);
-                                        AttributeSelector.addIntSelector(qs, "c", "runs", runs);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "cost", cost);
-                                        AttributeSelector.addIntSelector(qs, "c", "licensedRuns", licensedRuns);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "probability", probability);
-                                        AttributeSelector.addIntSelector(qs, "c", "productTypeID", productTypeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "status", status);
-                                        AttributeSelector.addIntSelector(qs, "c", "timeInSeconds", timeInSeconds);
-                                        AttributeSelector.addLongSelector(qs, "c", "startDate", startDate);
-                                        AttributeSelector.addLongSelector(qs, "c", "endDate", endDate);
-                                        AttributeSelector.addLongSelector(qs, "c", "pauseDate", pauseDate);
-                                        AttributeSelector.addLongSelector(qs, "c", "completedDate", completedDate);
-                                        AttributeSelector.addIntSelector(qs, "c", "completedCharacterID",
-                                                                          completedCharacterID);
-                                        AttributeSelector.addIntSelector(qs, "c", "successfulRuns", successfulRuns);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<IndustryJob> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     IndustryJob.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(IndustryJob.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(jobID, installerID, facilityID, stationID, activityID, blueprintID,
+                                       blueprintTypeID, blueprintLocationID, outputLocationID, runs, cost, licensedRuns,
+                                       probability, productTypeID, status, timeInSeconds, startDate, endDate, pauseDate,
+                                       completedDate, completedCharacterID, successfulRuns));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector jobID,
+      final AttributeSelector installerID,
+      final AttributeSelector facilityID,
+      final AttributeSelector stationID,
+      final AttributeSelector activityID,
+      final AttributeSelector blueprintID,
+      final AttributeSelector blueprintTypeID,
+      final AttributeSelector blueprintLocationID,
+      final AttributeSelector outputLocationID,
+      final AttributeSelector runs,
+      final AttributeSelector cost,
+      final AttributeSelector licensedRuns,
+      final AttributeSelector probability,
+      final AttributeSelector productTypeID,
+      final AttributeSelector status,
+      final AttributeSelector timeInSeconds,
+      final AttributeSelector startDate,
+      final AttributeSelector endDate,
+      final AttributeSelector pauseDate,
+      final AttributeSelector completedDate,
+      final AttributeSelector completedCharacterID,
+      final AttributeSelector successfulRuns) throws IOException {
+    return accessCount(IndustryJob.class, owner, at,
+                       accessPredicate(jobID, installerID, facilityID, stationID, activityID, blueprintID,
+                                       blueprintTypeID, blueprintLocationID, outputLocationID, runs, cost, licensedRuns,
+                                       probability, productTypeID, status, timeInSeconds, startDate, endDate, pauseDate,
+                                       completedDate, completedCharacterID, successfulRuns));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector jobID,
+      final AttributeSelector installerID,
+      final AttributeSelector facilityID,
+      final AttributeSelector stationID,
+      final AttributeSelector activityID,
+      final AttributeSelector blueprintID,
+      final AttributeSelector blueprintTypeID,
+      final AttributeSelector blueprintLocationID,
+      final AttributeSelector outputLocationID,
+      final AttributeSelector runs,
+      final AttributeSelector cost,
+      final AttributeSelector licensedRuns,
+      final AttributeSelector probability,
+      final AttributeSelector productTypeID,
+      final AttributeSelector status,
+      final AttributeSelector timeInSeconds,
+      final AttributeSelector startDate,
+      final AttributeSelector endDate,
+      final AttributeSelector pauseDate,
+      final AttributeSelector completedDate,
+      final AttributeSelector completedCharacterID,
+      final AttributeSelector successfulRuns) throws IOException {
+    return accessExists(IndustryJob.class, owner, at,
+                        accessPredicate(jobID, installerID, facilityID, stationID, activityID, blueprintID,
+                                        blueprintTypeID, blueprintLocationID, outputLocationID, runs, cost,
+                                        licensedRuns, probability, productTypeID, status, timeInSeconds, startDate,
+                                        endDate, pauseDate, completedDate, completedCharacterID, successfulRuns));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector jobID,
+      final AttributeSelector installerID,
+      final AttributeSelector facilityID,
+      final AttributeSelector stationID,
+      final AttributeSelector activityID,
+      final AttributeSelector blueprintID,
+      final AttributeSelector blueprintTypeID,
+      final AttributeSelector blueprintLocationID,
+      final AttributeSelector outputLocationID,
+      final AttributeSelector runs,
+      final AttributeSelector cost,
+      final AttributeSelector licensedRuns,
+      final AttributeSelector probability,
+      final AttributeSelector productTypeID,
+      final AttributeSelector status,
+      final AttributeSelector timeInSeconds,
+      final AttributeSelector startDate,
+      final AttributeSelector endDate,
+      final AttributeSelector pauseDate,
+      final AttributeSelector completedDate,
+      final AttributeSelector completedCharacterID,
+      final AttributeSelector successfulRuns) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "jobID", jobID);
+      AttributeSelector.addIntSelector(qs, "c", "installerID", installerID);
+      AttributeSelector.addLongSelector(qs, "c", "facilityID", facilityID);
+      AttributeSelector.addLongSelector(qs, "c", "stationID", stationID);
+      AttributeSelector.addIntSelector(qs, "c", "activityID", activityID);
+      AttributeSelector.addLongSelector(qs, "c", "blueprintID", blueprintID);
+      AttributeSelector.addIntSelector(qs, "c", "blueprintTypeID", blueprintTypeID);
+      AttributeSelector.addLongSelector(qs, "c", "blueprintLocationID",
+                                        blueprintLocationID);
+      AttributeSelector.addLongSelector(qs, "c", "outputLocationID",
+                                        outputLocationID);
+      AttributeSelector.addIntSelector(qs, "c", "runs", runs);
+      AttributeSelector.addDoubleSelector(qs, "c", "cost", cost);
+      AttributeSelector.addIntSelector(qs, "c", "licensedRuns", licensedRuns);
+      AttributeSelector.addDoubleSelector(qs, "c", "probability", probability);
+      AttributeSelector.addIntSelector(qs, "c", "productTypeID", productTypeID);
+      AttributeSelector.addIntSelector(qs, "c", "status", status);
+      AttributeSelector.addIntSelector(qs, "c", "timeInSeconds", timeInSeconds);
+      AttributeSelector.addLongSelector(qs, "c", "startDate", startDate);
+      AttributeSelector.addLongSelector(qs, "c", "endDate", endDate);
+      AttributeSelector.addLongSelector(qs, "c", "pauseDate", pauseDate);
+      AttributeSelector.addLongSelector(qs, "c", "completedDate", completedDate);
+      AttributeSelector.addIntSelector(qs, "c", "completedCharacterID",
+                                        completedCharacterID);
+      AttributeSelector.addIntSelector(qs, "c", "successfulRuns", successfulRuns);
+    });
   }
 
 }
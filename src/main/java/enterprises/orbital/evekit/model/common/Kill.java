@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -160,22 +161,21 @@ public class Kill extends CachedData {
       final long time,
       final int killID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Kill> getter = EveKitUserAccountProvider.getFactory()
-                                                                                           .getEntityManager()
-                                                                                           .createNamedQuery(
-                                                                                               "Kill.getByKillID",
-                                                                                               Kill.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("killid", killID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Kill.class, owner, time, new Object[] {killID}, () -> {
+        TypedQuery<Kill> getter = EveKitUserAccountProvider.getFactory()
+                                                           .getEntityManager()
+                                                           .createNamedQuery(
+                                                               "Kill.getByKillID",
+                                                               Kill.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("killid", killID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -194,37 +194,47 @@ public class Kill extends CachedData {
       final AttributeSelector moonID,
       final AttributeSelector solarSystemID,
       final AttributeSelector warID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Kill c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "killID", killID);
-                                        AttributeSelector.addLongSelector(qs, "c", "killTime", killTime);
-                                        AttributeSelector.addIntSelector(qs, "c", "moonID", moonID);
-                                        AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
-                                        AttributeSelector.addIntSelector(qs, "c", "warID", warID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Kill> query = EveKitUserAccountProvider.getFactory()
-                                                                                          .getEntityManager()
-                                                                                          .createQuery(qs.toString(),
-                                                                                                       Kill.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Kill.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(killID, killTime, moonID, solarSystemID, warID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector killID,
+      final AttributeSelector killTime,
+      final AttributeSelector moonID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector warID) throws IOException {
+    return accessCount(Kill.class, owner, at,
+                       accessPredicate(killID, killTime, moonID, solarSystemID, warID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector killID,
+      final AttributeSelector killTime,
+      final AttributeSelector moonID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector warID) throws IOException {
+    return accessExists(Kill.class, owner, at,
+                        accessPredicate(killID, killTime, moonID, solarSystemID, warID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector killID,
+      final AttributeSelector killTime,
+      final AttributeSelector moonID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector warID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "killID", killID);
+      AttributeSelector.addLongSelector(qs, "c", "killTime", killTime);
+      AttributeSelector.addIntSelector(qs, "c", "moonID", moonID);
+      AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
+      AttributeSelector.addIntSelector(qs, "c", "warID", warID);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.common;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -190,23 +191,22 @@ public class KillAttacker extends CachedData {
       final int killID,
       final int attackerCharacterID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<KillAttacker> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createNamedQuery(
-                                                                                                       "KillAttacker.getByKillAndAttackerCharacterID",
-                                                                                                       KillAttacker.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("killid", killID);
-                                        getter.setParameter("acid", attackerCharacterID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(KillAttacker.class, owner, time, new Object[] {killID, attackerCharacterID}, () -> {
+        TypedQuery<KillAttacker> getter = EveKitUserAccountProvider.getFactory()
+                                                                   .getEntityManager()
+                                                                   .createNamedQuery(
+                                                                       "KillAttacker.getByKillAndAttackerCharacterID",
+                                                                       KillAttacker.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("killid", killID);
+        getter.setParameter("acid", attackerCharacterID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -230,45 +230,72 @@ public class KillAttacker extends CachedData {
       final AttributeSelector shipTypeID,
       final AttributeSelector weaponTypeID,
       final AttributeSelector finalBlow) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM KillAttacker c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "killID", killID);
-                                        AttributeSelector.addIntSelector(qs, "c", "attackerCharacterID",
-                                                                         attackerCharacterID);
-                                        AttributeSelector.addIntSelector(qs, "c", "allianceID", allianceID);
-                                        AttributeSelector.addIntSelector(qs, "c", "attackerCorporationID",
-                                                                         attackerCorporationID);
-                                        AttributeSelector.addIntSelector(qs, "c", "damageDone", damageDone);
-                                        AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
-                                        AttributeSelector.addFloatSelector(qs, "c", "securityStatus", securityStatus);
-                                        AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "weaponTypeID", weaponTypeID);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "finalBlow", finalBlow);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<KillAttacker> query = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createQuery(
-                                                                                                      qs.toString(),
-                                                                                                      KillAttacker.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(KillAttacker.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(killID, attackerCharacterID, allianceID, attackerCorporationID, damageDone,
+                                       factionID, securityStatus, shipTypeID, weaponTypeID, finalBlow));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector killID,
+      final AttributeSelector attackerCharacterID,
+      final AttributeSelector allianceID,
+      final AttributeSelector attackerCorporationID,
+      final AttributeSelector damageDone,
+      final AttributeSelector factionID,
+      final AttributeSelector securityStatus,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector weaponTypeID,
+      final AttributeSelector finalBlow) throws IOException {
+    return accessCount(KillAttacker.class, owner, at,
+                       accessPredicate(killID, attackerCharacterID, allianceID, attackerCorporationID, damageDone,
+                                       factionID, securityStatus, shipTypeID, weaponTypeID, finalBlow));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector killID,
+      final AttributeSelector attackerCharacterID,
+      final AttributeSelector allianceID,
+      final AttributeSelector attackerCorporationID,
+      final AttributeSelector damageDone,
+      final AttributeSelector factionID,
+      final AttributeSelector securityStatus,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector weaponTypeID,
+      final AttributeSelector finalBlow) throws IOException {
+    return accessExists(KillAttacker.class, owner, at,
+                        accessPredicate(killID, attackerCharacterID, allianceID, attackerCorporationID, damageDone,
+                                        factionID, securityStatus, shipTypeID, weaponTypeID, finalBlow));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector killID,
+      final AttributeSelector attackerCharacterID,
+      final AttributeSelector allianceID,
+      final AttributeSelector attackerCorporationID,
+      final AttributeSelector damageDone,
+      final AttributeSelector factionID,
+      final AttributeSelector securityStatus,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector weaponTypeID,
+      final AttributeSelector finalBlow) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "killID", killID);
+      AttributeSelector.addIntSelector(qs, "c", "attackerCharacterID",
+                                       attackerCharacterID);
+      AttributeSelector.addIntSelector(qs, "c", "allianceID", allianceID);
+      AttributeSelector.addIntSelector(qs, "c", "attackerCorporationID",
+                                       attackerCorporationID);
+      AttributeSelector.addIntSelector(qs, "c", "damageDone", damageDone);
+      AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
+      AttributeSelector.addFloatSelector(qs, "c", "securityStatus", securityStatus);
+      AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
+      AttributeSelector.addIntSelector(qs, "c", "weaponTypeID", weaponTypeID);
+      AttributeSelector.addBooleanSelector(qs, "c", "finalBlow", finalBlow);
+    });
   }
 
 }
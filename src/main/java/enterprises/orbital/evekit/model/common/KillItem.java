@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.common;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -181,23 +182,22 @@ public class KillItem extends CachedData {
       final int killID,
       final int sequence) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<KillItem> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "KillItem.getByKillIDAndSequence",
-                                                                                                   KillItem.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("killid", killID);
-                                        getter.setParameter("seq", sequence);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(KillItem.class, owner, time, new Object[] {killID, sequence}, () -> {
+        TypedQuery<KillItem> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "KillItem.getByKillIDAndSequence",
+                                                                   KillItem.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("killid", killID);
+        getter.setParameter("seq", sequence);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -219,42 +219,63 @@ public class KillItem extends CachedData {
       final AttributeSelector singleton,
       final AttributeSelector sequence,
       final AttributeSelector containerSequence) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM KillItem c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "killID", killID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "flag", flag);
-                                        AttributeSelector.addLongSelector(qs, "c", "qtyDestroyed", qtyDestroyed);
-                                        AttributeSelector.addLongSelector(qs, "c", "qtyDropped", qtyDropped);
-                                        AttributeSelector.addIntSelector(qs, "c", "singleton", singleton);
-                                        AttributeSelector.addIntSelector(qs, "c", "sequence", sequence);
-                                        AttributeSelector.addIntSelector(qs, "c", "containerSequence",
-                                                                         containerSequence);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<KillItem> query = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createQuery(
-                                                                                                  qs.toString(),
-                                                                                                  KillItem.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(KillItem.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(killID, typeID, flag, qtyDestroyed, qtyDropped, singleton, sequence,
+                                       containerSequence));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector killID,
+      final AttributeSelector typeID,
+      final AttributeSelector flag,
+      final AttributeSelector qtyDestroyed,
+      final AttributeSelector qtyDropped,
+      final AttributeSelector singleton,
+      final AttributeSelector sequence,
+      final AttributeSelector containerSequence) throws IOException {
+    return accessCount(KillItem.class, owner, at,
+                       accessPredicate(killID, typeID, flag, qtyDestroyed, qtyDropped, singleton, sequence,
+                                       containerSequence));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector killID,
+      final AttributeSelector typeID,
+      final AttributeSelector flag,
+      final AttributeSelector qtyDestroyed,
+      final AttributeSelector qtyDropped,
+      final AttributeSelector singleton,
+      final AttributeSelector sequence,
+      final AttributeSelector containerSequence) throws IOException {
+    return accessExists(KillItem.class, owner, at,
+                        accessPredicate(killID, typeID, flag, qtyDestroyed, qtyDropped, singleton, sequence,
+                                        containerSequence));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector killID,
+      final AttributeSelector typeID,
+      final AttributeSelector flag,
+      final AttributeSelector qtyDestroyed,
+      final AttributeSelector qtyDropped,
+      final AttributeSelector singleton,
+      final AttributeSelector sequence,
+      final AttributeSelector containerSequence) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "killID", killID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "flag", flag);
+      AttributeSelector.addLongSelector(qs, "c", "qtyDestroyed", qtyDestroyed);
+      AttributeSelector.addLongSelector(qs, "c", "qtyDropped", qtyDropped);
+      AttributeSelector.addIntSelector(qs, "c", "singleton", singleton);
+      AttributeSelector.addIntSelector(qs, "c", "sequence", sequence);
+      AttributeSelector.addIntSelector(qs, "c", "containerSequence",
+                                       containerSequence);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.common;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -184,22 +185,21 @@ public class KillVictim extends CachedData {
       final long time,
       final int killID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<KillVictim> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createNamedQuery(
-                                                                                                     "KillVictim.getByKillID",
-                                                                                                     KillVictim.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("killid", killID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(KillVictim.class, owner, time, new Object[] {killID}, () -> {
+        TypedQuery<KillVictim> getter = EveKitUserAccountProvider.getFactory()
+                                                                 .getEntityManager()
+                                                                 .createNamedQuery(
+                                                                     "KillVictim.getByKillID",
+                                                                     KillVictim.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("killid", killID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -223,44 +223,71 @@ public class KillVictim extends CachedData {
       final AttributeSelector x,
       final AttributeSelector y,
       final AttributeSelector z) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM KillVictim c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "killID", killID);
-                                        AttributeSelector.addIntSelector(qs, "c", "allianceID", allianceID);
-                                        AttributeSelector.addIntSelector(qs, "c", "killCharacterID", killCharacterID);
-                                        AttributeSelector.addIntSelector(qs, "c", "killCorporationID",
-                                                                         killCorporationID);
-                                        AttributeSelector.addIntSelector(qs, "c", "damageTaken", damageTaken);
-                                        AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
-                                        AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "x", x);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "y", y);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "z", z);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<KillVictim> query = EveKitUserAccountProvider.getFactory()
-                                                                                                .getEntityManager()
-                                                                                                .createQuery(
-                                                                                                    qs.toString(),
-                                                                                                    KillVictim.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(KillVictim.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(killID, allianceID, killCharacterID, killCorporationID, damageTaken, factionID,
+                                       shipTypeID, x, y, z));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector killID,
+      final AttributeSelector allianceID,
+      final AttributeSelector killCharacterID,
+      final AttributeSelector killCorporationID,
+      final AttributeSelector damageTaken,
+      final AttributeSelector factionID,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z) throws IOException {
+    return accessCount(KillVictim.class, owner, at,
+                       accessPredicate(killID, allianceID, killCharacterID, killCorporationID, damageTaken, factionID,
+                                       shipTypeID, x, y, z));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector killID,
+      final AttributeSelector allianceID,
+      final AttributeSelector killCharacterID,
+      final AttributeSelector killCorporationID,
+      final AttributeSelector damageTaken,
+      final AttributeSelector factionID,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z) throws IOException {
+    return accessExists(KillVictim.class, owner, at,
+                        accessPredicate(killID, allianceID, killCharacterID, killCorporationID, damageTaken, factionID,
+                                        shipTypeID, x, y, z));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector killID,
+      final AttributeSelector allianceID,
+      final AttributeSelector killCharacterID,
+      final AttributeSelector killCorporationID,
+      final AttributeSelector damageTaken,
+      final AttributeSelector factionID,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "killID", killID);
+      AttributeSelector.addIntSelector(qs, "c", "allianceID", allianceID);
+      AttributeSelector.addIntSelector(qs, "c", "killCharacterID", killCharacterID);
+      AttributeSelector.addIntSelector(qs, "c", "killCorporationID",
+                                       killCorporationID);
+      AttributeSelector.addIntSelector(qs, "c", "damageTaken", damageTaken);
+      AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
+      AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
+      AttributeSelector.addDoubleSelector(qs, "c", "x", x);
+      AttributeSelector.addDoubleSelector(qs, "c", "y", y);
+      AttributeSelector.addDoubleSelector(qs, "c", "z", z);
+    });
   }
 
 }
@@ -5,7 +5,7 @@ import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -161,22 +161,21 @@ public class Location extends CachedData {
       final long time,
       final long itemID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Location> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Location.getByItemID",
-                                                                                                   Location.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("item", itemID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Location.class, owner, time, new Object[] {itemID}, () -> {
+        TypedQuery<Location> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Location.getByItemID",
+                                                                   Location.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("item", itemID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -204,19 +203,19 @@ public class Location extends CachedData {
                                                                                                "maxresults"),
                                                              DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Location> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Location.listByItemID",
-                                                                                                   Location.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("item", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(Location.class, owner, time, "Location.listByItemID",
+                                  new Object[] {contid, maxr}, () -> {
+        TypedQuery<Location> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Location.listByItemID",
+                                                                   Location.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("item", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -235,40 +234,47 @@ public class Location extends CachedData {
       final AttributeSelector x,
       final AttributeSelector y,
       final AttributeSelector z) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Location c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "itemID", itemID);
-                                        AttributeSelector.addStringSelector(qs, "c", "itemName", itemName, p);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "x", x);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "y", y);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "z", z);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Location> query = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createQuery(
-                                                                                                  qs.toString(),
-                                                                                                  Location.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Location.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(itemID, itemName, x, y, z));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector itemID,
+      final AttributeSelector itemName,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z) throws IOException {
+    return accessCount(Location.class, owner, at,
+                       accessPredicate(itemID, itemName, x, y, z));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector itemID,
+      final AttributeSelector itemName,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z) throws IOException {
+    return accessExists(Location.class, owner, at,
+                        accessPredicate(itemID, itemName, x, y, z));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector itemID,
+      final AttributeSelector itemName,
+      final AttributeSelector x,
+      final AttributeSelector y,
+      final AttributeSelector z) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "itemID", itemID);
+      AttributeSelector.addStringSelector(qs, "c", "itemName", itemName, p);
+      AttributeSelector.addDoubleSelector(qs, "c", "x", x);
+      AttributeSelector.addDoubleSelector(qs, "c", "y", y);
+      AttributeSelector.addDoubleSelector(qs, "c", "z", z);
+    });
   }
 
 }
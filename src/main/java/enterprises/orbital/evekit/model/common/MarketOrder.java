@@ -7,7 +7,7 @@ import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -308,22 +308,21 @@ public class MarketOrder extends CachedData {
       final long time,
       final long orderID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MarketOrder> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "MarketOrder.getByOrderID",
-                                                                                                      MarketOrder.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("orderid", orderID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MarketOrder.class, owner, time, new Object[] {orderID}, () -> {
+        TypedQuery<MarketOrder> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "MarketOrder.getByOrderID",
+                                                                      MarketOrder.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("orderid", orderID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -349,19 +348,19 @@ public class MarketOrder extends CachedData {
         .getLongPropertyWithFallback(OrbitalProperties.getPropertyName(MarketOrder.class, "maxresults"),
                                      DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MarketOrder> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "MarketOrder.getByIssuedForward",
-                                                                                                      MarketOrder.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contid", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(MarketOrder.class, owner, time, "MarketOrder.getByIssuedForward",
+                                  new Object[] {contid, maxr}, () -> {
+        TypedQuery<MarketOrder> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "MarketOrder.getByIssuedForward",
+                                                                      MarketOrder.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contid", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -387,19 +386,19 @@ public class MarketOrder extends CachedData {
         .getLongPropertyWithFallback(OrbitalProperties.getPropertyName(MarketOrder.class, "maxresults"),
                                      DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MarketOrder> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "MarketOrder.getByIssuedBackward",
-                                                                                                      MarketOrder.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contid", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(MarketOrder.class, owner, time, "MarketOrder.getByIssuedBackward",
+                                  new Object[] {contid, maxr}, () -> {
+        TypedQuery<MarketOrder> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "MarketOrder.getByIssuedBackward",
+                                                                      MarketOrder.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contid", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -430,20 +429,20 @@ public class MarketOrder extends CachedData {
         .getLongPropertyWithFallback(OrbitalProperties.getPropertyName(MarketOrder.class, "maxresults"),
                                      DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MarketOrder> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "MarketOrder.getAllActive",
-                                                                                                      MarketOrder.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contid", contid);
-                                        getter.setParameter("bound", bound);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(MarketOrder.class, owner, time, "MarketOrder.getAllActive",
+                                  new Object[] {contid, bound, maxr}, () -> {
+        TypedQuery<MarketOrder> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "MarketOrder.getAllActive",
+                                                                      MarketOrder.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contid", contid);
+        getter.setParameter("bound", bound);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -475,53 +474,105 @@ public class MarketOrder extends CachedData {
       final AttributeSelector regionID,
       final AttributeSelector locationID,
       final AttributeSelector isCorp) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MarketOrder c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "orderID", orderID);
-                                        AttributeSelector.addIntSelector(qs, "c", "accountKey", walletDivision);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "bid", bid);
-                                        AttributeSelector.addLongSelector(qs, "c", "charID", charID);
-                                        AttributeSelector.addIntSelector(qs, "c", "duration", duration);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "escrow", escrow);
-                                        AttributeSelector.addLongSelector(qs, "c", "issued", issued);
-                                        AttributeSelector.addIntSelector(qs, "c", "issuedBy", issuedBy);
-                                        AttributeSelector.addIntSelector(qs, "c", "minVolume", minVolume);
-                                        AttributeSelector.addStringSelector(qs, "c", "orderState", orderState, p);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "price", price);
-                                        AttributeSelector.addStringSelector(qs, "c", "orderRange", orderRange, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "volEntered", volEntered);
-                                        AttributeSelector.addIntSelector(qs, "c", "volRemaining", volRemaining);
-                                        AttributeSelector.addIntSelector(qs, "c", "regionID", regionID);
-                                        AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "isCorp", isCorp);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MarketOrder> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     MarketOrder.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MarketOrder.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(orderID, walletDivision, bid, charID, duration, escrow, issued, issuedBy,
+                                       minVolume, orderState, price, orderRange, typeID, volEntered, volRemaining,
+                                       regionID, locationID, isCorp));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector orderID,
+      final AttributeSelector walletDivision,
+      final AttributeSelector bid,
+      final AttributeSelector charID,
+      final AttributeSelector duration,
+      final AttributeSelector escrow,
+      final AttributeSelector issued,
+      final AttributeSelector issuedBy,
+      final AttributeSelector minVolume,
+      final AttributeSelector orderState,
+      final AttributeSelector price,
+      final AttributeSelector orderRange,
+      final AttributeSelector typeID,
+      final AttributeSelector volEntered,
+      final AttributeSelector volRemaining,
+      final AttributeSelector regionID,
+      final AttributeSelector locationID,
+      final AttributeSelector isCorp) throws IOException {
+    return accessCount(MarketOrder.class, owner, at,
+                       accessPredicate(orderID, walletDivision, bid, charID, duration, escrow, issued, issuedBy,
+                                       minVolume, orderState, price, orderRange, typeID, volEntered, volRemaining,
+                                       regionID, locationID, isCorp));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector orderID,
+      final AttributeSelector walletDivision,
+      final AttributeSelector bid,
+      final AttributeSelector charID,
+      final AttributeSelector duration,
+      final AttributeSelector escrow,
+      final AttributeSelector issued,
+      final AttributeSelector issuedBy,
+      final AttributeSelector minVolume,
+      final AttributeSelector orderState,
+      final AttributeSelector price,
+      final AttributeSelector orderRange,
+      final AttributeSelector typeID,
+      final AttributeSelector volEntered,
+      final AttributeSelector volRemaining,
+      final AttributeSelector regionID,
+      final AttributeSelector locationID,
+      final AttributeSelector isCorp) throws IOException {
+    return accessExists(MarketOrder.class, owner, at,
+                        accessPredicate(orderID, walletDivision, bid, charID, duration, escrow, issued, issuedBy,
+                                        minVolume, orderState, price, orderRange, typeID, volEntered, volRemaining,
+                                        regionID, locationID, isCorp));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector orderID,
+      final AttributeSelector walletDivision,
+      final AttributeSelector bid,
+      final AttributeSelector charID,
+      final AttributeSelector duration,
+      final AttributeSelector escrow,
+      final AttributeSelector issued,
+      final AttributeSelector issuedBy,
+      final AttributeSelector minVolume,
+      final AttributeSelector orderState,
+      final AttributeSelector price,
+      final AttributeSelector orderRange,
+      final AttributeSelector typeID,
+      final AttributeSelector volEntered,
+      final AttributeSelector volRemaining,
+      final AttributeSelector regionID,
+      final AttributeSelector locationID,
+      final AttributeSelector isCorp) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "orderID", orderID);
+      AttributeSelector.addIntSelector(qs, "c", "accountKey", walletDivision);
+      AttributeSelector.addBooleanSelector(qs, "c", "bid", bid);
+      AttributeSelector.addLongSelector(qs, "c", "charID", charID);
+      AttributeSelector.addIntSelector(qs, "c", "duration", duration);
+      AttributeSelector.addDoubleSelector(qs, "c", "escrow", escrow);
+      AttributeSelector.addLongSelector(qs, "c", "issued", issued);
+      AttributeSelector.addIntSelector(qs, "c", "issuedBy", issuedBy);
+      AttributeSelector.addIntSelector(qs, "c", "minVolume", minVolume);
+      AttributeSelector.addStringSelector(qs, "c", "orderState", orderState, p);
+      AttributeSelector.addDoubleSelector(qs, "c", "price", price);
+      AttributeSelector.addStringSelector(qs, "c", "orderRange", orderRange, p);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "volEntered", volEntered);
+      AttributeSelector.addIntSelector(qs, "c", "volRemaining", volRemaining);
+      AttributeSelector.addIntSelector(qs, "c", "regionID", regionID);
+      AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
+      AttributeSelector.addBooleanSelector(qs, "c", "isCorp", isCorp);
+    });
   }
 
 }
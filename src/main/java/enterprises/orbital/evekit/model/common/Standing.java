@@ -5,7 +5,7 @@ import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -148,23 +148,22 @@ public class Standing extends CachedData {
       final String standingEntity,
       final int fromID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Standing> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Standing.getByStandingEntityAndFromID",
-                                                                                                   Standing.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("entity", standingEntity);
-                                        getter.setParameter("fromid", fromID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Standing.class, owner, time, new Object[] {standingEntity, fromID}, () -> {
+        TypedQuery<Standing> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Standing.getByStandingEntityAndFromID",
+                                                                   Standing.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("entity", standingEntity);
+        getter.setParameter("fromid", fromID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -192,19 +191,18 @@ public class Standing extends CachedData {
                                                                                                "maxresults"),
                                                              DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Standing> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Standing.getAll",
-                                                                                                   Standing.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contid", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(Standing.class, owner, time, "Standing.getAll", new Object[] {contid, maxr}, () -> {
+        TypedQuery<Standing> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Standing.getAll",
+                                                                   Standing.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contid", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -234,20 +232,20 @@ public class Standing extends CachedData {
                                                                                                "maxresults"),
                                                              DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Standing> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Standing.getAllByEntity",
-                                                                                                   Standing.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("entity", standingEntity);
-                                        getter.setParameter("contid", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(Standing.class, owner, time, "Standing.getAllByEntity",
+                                  new Object[] {standingEntity, contid, maxr}, () -> {
+        TypedQuery<Standing> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Standing.getAllByEntity",
+                                                                   Standing.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("entity", standingEntity);
+        getter.setParameter("contid", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -264,39 +262,40 @@ public class Standing extends CachedData {
       final AttributeSelector standingEntity,
       final AttributeSelector fromID,
       final AttributeSelector standing) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Standing c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addStringSelector(qs, "c", "standingEntity", standingEntity,
-                                                                            p);
-                                        AttributeSelector.addIntSelector(qs, "c", "fromID", fromID);
-                                        AttributeSelector.addFloatSelector(qs, "c", "standing", standing);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Standing> query = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createQuery(
-                                                                                                  qs.toString(),
-                                                                                                  Standing.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Standing.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(standingEntity, fromID, standing));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector standingEntity,
+      final AttributeSelector fromID,
+      final AttributeSelector standing) throws IOException {
+    return accessCount(Standing.class, owner, at,
+                       accessPredicate(standingEntity, fromID, standing));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector standingEntity,
+      final AttributeSelector fromID,
+      final AttributeSelector standing) throws IOException {
+    return accessExists(Standing.class, owner, at,
+                        accessPredicate(standingEntity, fromID, standing));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector standingEntity,
+      final AttributeSelector fromID,
+      final AttributeSelector standing) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addStringSelector(qs, "c", "standingEntity", standingEntity,
+                                          p);
+      AttributeSelector.addIntSelector(qs, "c", "fromID", fromID);
+      AttributeSelector.addFloatSelector(qs, "c", "standing", standing);
+    });
   }
 
 }
@@ -5,9 +5,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
+import enterprises.orbital.evekit.model.LifelineIndexedData;
 import io.swagger.annotations.ApiModelProperty;
 
 import javax.persistence.*;
@@ -31,12 +32,24 @@ import java.util.logging.Logger;
             columnList = "refID"),
         @Index(
             name = "dateIndex",
-            columnList = "date")
+            columnList = "date"),
+        @Index(
+            name = "refIDLifelineIndex",
+            columnList = "refID, division, aid, lifeEnd, lifeStart")
     })
 @NamedQueries({
     @NamedQuery(
         name = "WalletJournal.getByRefIDAndDivision",
         query = "SELECT c FROM WalletJournal c where c.owner = :owner and c.division = :division and c.refID = :refid and c.lifeStart <= :point and c.lifeEnd > :point"),
+    @NamedQuery(
+        name = "WalletJournal.getByRefIDAndDivisionIndexed",
+        query = "SELECT c FROM WalletJournal c where c.indexedAid = :aid and c.division = :division and c.refID = :refid and c.indexedEnd > :point and c.indexedStart <= :point"),
+    @NamedQuery(
+        name = "WalletJournal.getByRefIDAndDivisionLive",
+        query = "SELECT c FROM WalletJournal c where c.owner = :owner and c.division = :division and c.refID = :refid and c.lifeEnd = :live"),
+    @NamedQuery(
+        name = "WalletJournal.getByRefIDAndDivisionLiveIndexed",
+        query = "SELECT c FROM WalletJournal c where c.indexedAid = :aid and c.division = :division and c.refID = :refid and c.indexedEnd = :live"),
     @NamedQuery(
         name = "WalletJournal.getAllForward",
         query = "SELECT c FROM WalletJournal c where c.owner = :owner and c.date > :contid and c.lifeStart <= :point and c.lifeEnd > :point order by c.date asc"),
@@ -50,7 +63,7 @@ import java.util.logging.Logger;
         name = "WalletJournal.getRangeDesc",
         query = "SELECT c FROM WalletJournal c where c.owner = :owner and c.date >= :mindate and c.date <= :maxdate and c.lifeStart <= :point and c.lifeEnd > :point order by c.date desc"),
 })
-public class WalletJournal extends CachedData {
+public class WalletJournal extends LifelineIndexedData {
   private static final Logger log = Logger.getLogger(WalletJournal.class.getName());
   private static final byte[] MASK = AccountAccessMask.createMask(AccountAccessMask.ACCESS_WALLET_JOURNAL);
 
@@ -321,23 +334,57 @@ public class WalletJournal extends CachedData {
       final int division,
       final long refID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<WalletJournal> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createNamedQuery(
-                                                                                                        "WalletJournal.getByRefIDAndDivision",
-                                                                                                        WalletJournal.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("division", division);
-                                        getter.setParameter("refid", refID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(WalletJournal.class, owner, time, new Object[] {division, refID}, () -> {
+        EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                    .getEntityManager();
+        TypedQuery<WalletJournal> getter = LifelineIndexedData.createOwnerQuery(
+            em, "WalletJournal.getByRefIDAndDivision", WalletJournal.class, owner);
+        getter.setParameter("division", division);
+        getter.setParameter("refid", refID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
+    } catch (Exception e) {
+      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+      log.log(Level.SEVERE, "query error", e);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Retrieve the currently live wallet journal entry with the given key.  Same as
+   * {@link #get(SynchronizedEveAccount, long, int, long)} at the current time, but matches the live version with an
+   * equality on lifeEnd so the lookup is a single probe of the (refID, division, aid, lifeEnd, lifeStart) index once
+   * journal entries are backfilled, see {@link LifelineIndexedData#backfill(Class)}.
+   *
+   * @param owner    journal entry owner
+   * @param division division in which journal entry is recorded
+   * @param refID    journal entry refID
+   * @return the live journal entry, or null if no live entry has the given attributes
+   */
+  public static WalletJournal getLive(
+      final SynchronizedEveAccount owner,
+      final int division,
+      final long refID) throws IOException {
+    try {
+      return CachedData.runReadOnly(() -> {
+        EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                    .getEntityManager();
+        TypedQuery<WalletJournal> getter = LifelineIndexedData.createOwnerQuery(
+            em, "WalletJournal.getByRefIDAndDivisionLive", WalletJournal.class, owner);
+        getter.setParameter("division", division);
+        getter.setParameter("refid", refID);
+        getter.setParameter("live", Long.MAX_VALUE);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -367,51 +414,97 @@ public class WalletJournal extends CachedData {
       final AttributeSelector contextID,
       final AttributeSelector contextType,
       final AttributeSelector description) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM WalletJournal c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "division", division);
-                                        AttributeSelector.addLongSelector(qs, "c", "refID", refID);
-                                        AttributeSelector.addLongSelector(qs, "c", "date", date);
-                                        AttributeSelector.addStringSelector(qs, "c", "refType", refType, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "firstPartyID", firstPartyID);
-                                        AttributeSelector.addIntSelector(qs, "c", "secondPartyID", secondPartyID);
-                                        AttributeSelector.addStringSelector(qs, "c", "argName1", argName1, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "argID1", argID1);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "amount", amount);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "balance", balance);
-                                        AttributeSelector.addStringSelector(qs, "c", "reason", reason, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "taxReceiverID", taxReceiverID);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "taxAmount", taxAmount);
-                                        AttributeSelector.addLongSelector(qs, "c", "contextID", contextID);
-                                        AttributeSelector.addStringSelector(qs, "c", "contextType", contextType, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "description", description, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<WalletJournal> query = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createQuery(
-                                                                                                       qs.toString(),
-                                                                                                       WalletJournal.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(WalletJournal.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(division, refID, date, refType, firstPartyID, secondPartyID, argName1, argID1,
+                                       amount, balance, reason, taxReceiverID, taxAmount, contextID, contextType,
+                                       description));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector division,
+      final AttributeSelector refID,
+      final AttributeSelector date,
+      final AttributeSelector refType,
+      final AttributeSelector firstPartyID,
+      final AttributeSelector secondPartyID,
+      final AttributeSelector argName1,
+      final AttributeSelector argID1,
+      final AttributeSelector amount,
+      final AttributeSelector balance,
+      final AttributeSelector reason,
+      final AttributeSelector taxReceiverID,
+      final AttributeSelector taxAmount,
+      final AttributeSelector contextID,
+      final AttributeSelector contextType,
+      final AttributeSelector description) throws IOException {
+    return accessCount(WalletJournal.class, owner, at,
+                       accessPredicate(division, refID, date, refType, firstPartyID, secondPartyID, argName1, argID1,
+                                       amount, balance, reason, taxReceiverID, taxAmount, contextID, contextType,
+                                       description));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector division,
+      final AttributeSelector refID,
+      final AttributeSelector date,
+      final AttributeSelector refType,
+      final AttributeSelector firstPartyID,
+      final AttributeSelector secondPartyID,
+      final AttributeSelector argName1,
+      final AttributeSelector argID1,
+      final AttributeSelector amount,
+      final AttributeSelector balance,
+      final AttributeSelector reason,
+      final AttributeSelector taxReceiverID,
+      final AttributeSelector taxAmount,
+      final AttributeSelector contextID,
+      final AttributeSelector contextType,
+      final AttributeSelector description) throws IOException {
+    return accessExists(WalletJournal.class, owner, at,
+                        accessPredicate(division, refID, date, refType, firstPartyID, secondPartyID, argName1, argID1,
+                                        amount, balance, reason, taxReceiverID, taxAmount, contextID, contextType,
+                                        description));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector division,
+      final AttributeSelector refID,
+      final AttributeSelector date,
+      final AttributeSelector refType,
+      final AttributeSelector firstPartyID,
+      final AttributeSelector secondPartyID,
+      final AttributeSelector argName1,
+      final AttributeSelector argID1,
+      final AttributeSelector amount,
+      final AttributeSelector balance,
+      final AttributeSelector reason,
+      final AttributeSelector taxReceiverID,
+      final AttributeSelector taxAmount,
+      final AttributeSelector contextID,
+      final AttributeSelector contextType,
+      final AttributeSelector description) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "division", division);
+      AttributeSelector.addLongSelector(qs, "c", "refID", refID);
+      AttributeSelector.addLongSelector(qs, "c", "date", date);
+      AttributeSelector.addStringSelector(qs, "c", "refType", refType, p);
+      AttributeSelector.addIntSelector(qs, "c", "firstPartyID", firstPartyID);
+      AttributeSelector.addIntSelector(qs, "c", "secondPartyID", secondPartyID);
+      AttributeSelector.addStringSelector(qs, "c", "argName1", argName1, p);
+      AttributeSelector.addLongSelector(qs, "c", "argID1", argID1);
+      AttributeSelector.addDoubleSelector(qs, "c", "amount", amount);
+      AttributeSelector.addDoubleSelector(qs, "c", "balance", balance);
+      AttributeSelector.addStringSelector(qs, "c", "reason", reason, p);
+      AttributeSelector.addIntSelector(qs, "c", "taxReceiverID", taxReceiverID);
+      AttributeSelector.addDoubleSelector(qs, "c", "taxAmount", taxAmount);
+      AttributeSelector.addLongSelector(qs, "c", "contextID", contextID);
+      AttributeSelector.addStringSelector(qs, "c", "contextType", contextType, p);
+      AttributeSelector.addStringSelector(qs, "c", "description", description, p);
+    });
   }
 
 }
@@ -7,7 +7,7 @@ import enterprises.orbital.base.PersistentProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -262,23 +262,22 @@ public class WalletTransaction extends CachedData {
       final int division,
       final long transactionID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<WalletTransaction> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                        .getEntityManager()
-                                                                                                        .createNamedQuery(
-                                                                                                            "WalletTransaction.getByTransactionIDAndDivision",
-                                                                                                            WalletTransaction.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("transid", transactionID);
-                                        getter.setParameter("division", division);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(WalletTransaction.class, owner, time, new Object[] {division, transactionID}, () -> {
+        TypedQuery<WalletTransaction> getter = EveKitUserAccountProvider.getFactory()
+                                                                        .getEntityManager()
+                                                                        .createNamedQuery(
+                                                                            "WalletTransaction.getByTransactionIDAndDivision",
+                                                                            WalletTransaction.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("transid", transactionID);
+        getter.setParameter("division", division);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -304,19 +303,19 @@ public class WalletTransaction extends CachedData {
         .getLongPropertyWithFallback(OrbitalProperties.getPropertyName(WalletTransaction.class, "maxresults"),
                                      DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<WalletTransaction> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                        .getEntityManager()
-                                                                                                        .createNamedQuery(
-                                                                                                            "WalletTransaction.getAllForward",
-                                                                                                            WalletTransaction.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contid", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(WalletTransaction.class, owner, time, "WalletTransaction.getAllForward",
+                                  new Object[] {contid, maxr}, () -> {
+        TypedQuery<WalletTransaction> getter = EveKitUserAccountProvider.getFactory()
+                                                                        .getEntityManager()
+                                                                        .createNamedQuery(
+                                                                            "WalletTransaction.getAllForward",
+                                                                            WalletTransaction.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contid", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -342,19 +341,19 @@ public class WalletTransaction extends CachedData {
         .getLongPropertyWithFallback(OrbitalProperties.getPropertyName(WalletTransaction.class, "maxresults"),
                                      DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<WalletTransaction> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                        .getEntityManager()
-                                                                                                        .createNamedQuery(
-                                                                                                            "WalletTransaction.getAllBackward",
-                                                                                                            WalletTransaction.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("contid", contid);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(WalletTransaction.class, owner, time, "WalletTransaction.getAllBackward",
+                                  new Object[] {contid, maxr}, () -> {
+        TypedQuery<WalletTransaction> getter = EveKitUserAccountProvider.getFactory()
+                                                                        .getEntityManager()
+                                                                        .createNamedQuery(
+                                                                            "WalletTransaction.getAllBackward",
+                                                                            WalletTransaction.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("contid", contid);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -385,20 +384,21 @@ public class WalletTransaction extends CachedData {
         .getLongPropertyWithFallback(OrbitalProperties.getPropertyName(WalletTransaction.class, "maxresults"),
                                      DEFAULT_MAX_RESULTS));
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<WalletTransaction> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                        .getEntityManager()
-                                                                                                        .createNamedQuery(
-                                                                                                            ascending ? "WalletTransaction.getRangeAsc" : "WalletTransaction.getRangeDesc",
-                                                                                                            WalletTransaction.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("mindate", mindate);
-                                        getter.setParameter("maxdate", maxdate);
-                                        getter.setParameter("point", time);
-                                        getter.setMaxResults(maxr);
-                                        return getter.getResultList();
-                                      });
+      return CachedData.runCached(WalletTransaction.class, owner, time,
+                                  ascending ? "WalletTransaction.getRangeAsc" : "WalletTransaction.getRangeDesc",
+                                  new Object[] {mindate, maxdate, maxr}, () -> {
+        TypedQuery<WalletTransaction> getter = EveKitUserAccountProvider.getFactory()
+                                                                        .getEntityManager()
+                                                                        .createNamedQuery(
+                                                                            ascending ? "WalletTransaction.getRangeAsc" : "WalletTransaction.getRangeDesc",
+                                                                            WalletTransaction.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("mindate", mindate);
+        getter.setParameter("maxdate", maxdate);
+        getter.setParameter("point", time);
+        getter.setMaxResults(maxr);
+        return getter.getResultList();
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -423,47 +423,75 @@ public class WalletTransaction extends CachedData {
       final AttributeSelector isBuy,
       final AttributeSelector isPersonal,
       final AttributeSelector journalTransactionID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM WalletTransaction c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "division", division);
-                                        AttributeSelector.addLongSelector(qs, "c", "transactionID", transactionID);
-                                        AttributeSelector.addLongSelector(qs, "c", "date", date);
-                                        AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addDoubleSelector(qs, "c", "price", price);
-                                        AttributeSelector.addLongSelector(qs, "c", "clientID", clientID);
-                                        AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "isBuy", isBuy);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "isPersonal", isPersonal);
-                                        AttributeSelector.addLongSelector(qs, "c", "journalTransactionID",
-                                                                          journalTransactionID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<WalletTransaction> query = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createQuery(
-                                                                                                           qs.toString(),
-                                                                                                           WalletTransaction.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(WalletTransaction.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(division, transactionID, date, quantity, typeID, price, clientID, locationID,
+                                       isBuy, isPersonal, journalTransactionID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector division,
+      final AttributeSelector transactionID,
+      final AttributeSelector date,
+      final AttributeSelector quantity,
+      final AttributeSelector typeID,
+      final AttributeSelector price,
+      final AttributeSelector clientID,
+      final AttributeSelector locationID,
+      final AttributeSelector isBuy,
+      final AttributeSelector isPersonal,
+      final AttributeSelector journalTransactionID) throws IOException {
+    return accessCount(WalletTransaction.class, owner, at,
+                       accessPredicate(division, transactionID, date, quantity, typeID, price, clientID, locationID,
+                                       isBuy, isPersonal, journalTransactionID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector division,
+      final AttributeSelector transactionID,
+      final AttributeSelector date,
+      final AttributeSelector quantity,
+      final AttributeSelector typeID,
+      final AttributeSelector price,
+      final AttributeSelector clientID,
+      final AttributeSelector locationID,
+      final AttributeSelector isBuy,
+      final AttributeSelector isPersonal,
+      final AttributeSelector journalTransactionID) throws IOException {
+    return accessExists(WalletTransaction.class, owner, at,
+                        accessPredicate(division, transactionID, date, quantity, typeID, price, clientID, locationID,
+                                        isBuy, isPersonal, journalTransactionID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector division,
+      final AttributeSelector transactionID,
+      final AttributeSelector date,
+      final AttributeSelector quantity,
+      final AttributeSelector typeID,
+      final AttributeSelector price,
+      final AttributeSelector clientID,
+      final AttributeSelector locationID,
+      final AttributeSelector isBuy,
+      final AttributeSelector isPersonal,
+      final AttributeSelector journalTransactionID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "division", division);
+      AttributeSelector.addLongSelector(qs, "c", "transactionID", transactionID);
+      AttributeSelector.addLongSelector(qs, "c", "date", date);
+      AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addDoubleSelector(qs, "c", "price", price);
+      AttributeSelector.addLongSelector(qs, "c", "clientID", clientID);
+      AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
+      AttributeSelector.addBooleanSelector(qs, "c", "isBuy", isBuy);
+      AttributeSelector.addBooleanSelector(qs, "c", "isPersonal", isPersonal);
+      AttributeSelector.addLongSelector(qs, "c", "journalTransactionID",
+                                        journalTransactionID);
+    });
   }
 
 }
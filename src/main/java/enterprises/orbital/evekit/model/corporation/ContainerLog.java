@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -210,23 +210,22 @@ public class ContainerLog extends CachedData {
       final long containerID,
       final long logTime) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<ContainerLog> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                   .getEntityManager()
-                                                                                                   .createNamedQuery(
-                                                                                                       "ContainerLog.getByLogTime",
-                                                                                                       ContainerLog.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("cid", containerID);
-                                        getter.setParameter("time", logTime);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(ContainerLog.class, owner, time, new Object[] {containerID, logTime}, () -> {
+        TypedQuery<ContainerLog> getter = EveKitUserAccountProvider.getFactory()
+                                                                   .getEntityManager()
+                                                                   .createNamedQuery(
+                                                                       "ContainerLog.getByLogTime",
+                                                                       ContainerLog.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("cid", containerID);
+        getter.setParameter("time", logTime);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -252,47 +251,79 @@ public class ContainerLog extends CachedData {
       final AttributeSelector passwordType,
       final AttributeSelector quantity,
       final AttributeSelector typeID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM ContainerLog c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "logTime", logTime);
-                                        AttributeSelector.addStringSelector(qs, "c", "action", action, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addStringSelector(qs, "c", "locationFlag", locationFlag, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "containerID", containerID);
-                                        AttributeSelector.addIntSelector(qs, "c", "containerTypeID", containerTypeID);
-                                        AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
-                                        AttributeSelector.addIntSelector(qs, "c", "newConfiguration", newConfiguration);
-                                        AttributeSelector.addIntSelector(qs, "c", "oldConfiguration", oldConfiguration);
-                                        AttributeSelector.addStringSelector(qs, "c", "passwordType", passwordType, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<ContainerLog> query = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createQuery(
-                                                                                                      qs.toString(),
-                                                                                                      ContainerLog.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(ContainerLog.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(logTime, action, characterID, locationFlag, containerID, containerTypeID,
+                                       locationID, newConfiguration, oldConfiguration, passwordType, quantity, typeID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector logTime,
+      final AttributeSelector action,
+      final AttributeSelector characterID,
+      final AttributeSelector locationFlag,
+      final AttributeSelector containerID,
+      final AttributeSelector containerTypeID,
+      final AttributeSelector locationID,
+      final AttributeSelector newConfiguration,
+      final AttributeSelector oldConfiguration,
+      final AttributeSelector passwordType,
+      final AttributeSelector quantity,
+      final AttributeSelector typeID) throws IOException {
+    return accessCount(ContainerLog.class, owner, at,
+                       accessPredicate(logTime, action, characterID, locationFlag, containerID, containerTypeID,
+                                       locationID, newConfiguration, oldConfiguration, passwordType, quantity, typeID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector logTime,
+      final AttributeSelector action,
+      final AttributeSelector characterID,
+      final AttributeSelector locationFlag,
+      final AttributeSelector containerID,
+      final AttributeSelector containerTypeID,
+      final AttributeSelector locationID,
+      final AttributeSelector newConfiguration,
+      final AttributeSelector oldConfiguration,
+      final AttributeSelector passwordType,
+      final AttributeSelector quantity,
+      final AttributeSelector typeID) throws IOException {
+    return accessExists(ContainerLog.class, owner, at,
+                        accessPredicate(logTime, action, characterID, locationFlag, containerID, containerTypeID,
+                                        locationID, newConfiguration, oldConfiguration, passwordType, quantity,
+                                        typeID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector logTime,
+      final AttributeSelector action,
+      final AttributeSelector characterID,
+      final AttributeSelector locationFlag,
+      final AttributeSelector containerID,
+      final AttributeSelector containerTypeID,
+      final AttributeSelector locationID,
+      final AttributeSelector newConfiguration,
+      final AttributeSelector oldConfiguration,
+      final AttributeSelector passwordType,
+      final AttributeSelector quantity,
+      final AttributeSelector typeID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "logTime", logTime);
+      AttributeSelector.addStringSelector(qs, "c", "action", action, p);
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addStringSelector(qs, "c", "locationFlag", locationFlag, p);
+      AttributeSelector.addLongSelector(qs, "c", "containerID", containerID);
+      AttributeSelector.addIntSelector(qs, "c", "containerTypeID", containerTypeID);
+      AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
+      AttributeSelector.addIntSelector(qs, "c", "newConfiguration", newConfiguration);
+      AttributeSelector.addIntSelector(qs, "c", "oldConfiguration", oldConfiguration);
+      AttributeSelector.addStringSelector(qs, "c", "passwordType", passwordType, p);
+      AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+    });
   }
 
 }
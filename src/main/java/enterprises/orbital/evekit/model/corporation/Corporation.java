@@ -501,7 +501,7 @@ public class Corporation extends CachedData {
   public static Corporation getCorporation(
                                            final SynchronizedEveAccount parent) {
     try {
-      return EveKitUserAccountProvider.getFactory().runTransaction(new RunInTransaction<Corporation>() {
+      return CachedData.runReadOnly(new RunInTransaction<Corporation>() {
         @Override
         public Corporation run() throws Exception {
           TypedQuery<Corporation> getter = EveKitUserAccountProvider.getFactory().getEntityManager().createNamedQuery("Corporation.get", Corporation.class);
@@ -531,7 +531,7 @@ public class Corporation extends CachedData {
             existing.setup(owner, OrbitalProperties.getCurrentTime());
             existing.setCorporationName(owner.getEveCorporationName());
             existing.setCorporationID(owner.getEveCorporationID());
-            existing = EveKitUserAccountProvider.getFactory().getEntityManager().merge(existing);
+            existing = CachedData.update(existing);
           }
           return existing;
         }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -150,22 +150,21 @@ public class CorporationMedal extends CachedData {
       final long time,
       final int medalID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CorporationMedal> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createNamedQuery(
-                                                                                                           "CorporationMedal.getByMedalID",
-                                                                                                           CorporationMedal.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("medal", medalID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CorporationMedal.class, owner, time, new Object[] {medalID}, () -> {
+        TypedQuery<CorporationMedal> getter = EveKitUserAccountProvider.getFactory()
+                                                                       .getEntityManager()
+                                                                       .createNamedQuery(
+                                                                           "CorporationMedal.getByMedalID",
+                                                                           CorporationMedal.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("medal", medalID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -184,40 +183,47 @@ public class CorporationMedal extends CachedData {
       final AttributeSelector title,
       final AttributeSelector created,
       final AttributeSelector creatorID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CorporationMedal c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "medalID", medalID);
-                                        AttributeSelector.addStringSelector(qs, "c", "description", description, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "title", title, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "created", created);
-                                        AttributeSelector.addIntSelector(qs, "c", "creatorID", creatorID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CorporationMedal> query = EveKitUserAccountProvider.getFactory()
-                                                                                                      .getEntityManager()
-                                                                                                      .createQuery(
-                                                                                                          qs.toString(),
-                                                                                                          CorporationMedal.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CorporationMedal.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(medalID, description, title, created, creatorID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector medalID,
+      final AttributeSelector description,
+      final AttributeSelector title,
+      final AttributeSelector created,
+      final AttributeSelector creatorID) throws IOException {
+    return accessCount(CorporationMedal.class, owner, at,
+                       accessPredicate(medalID, description, title, created, creatorID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector medalID,
+      final AttributeSelector description,
+      final AttributeSelector title,
+      final AttributeSelector created,
+      final AttributeSelector creatorID) throws IOException {
+    return accessExists(CorporationMedal.class, owner, at,
+                        accessPredicate(medalID, description, title, created, creatorID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector medalID,
+      final AttributeSelector description,
+      final AttributeSelector title,
+      final AttributeSelector created,
+      final AttributeSelector creatorID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "medalID", medalID);
+      AttributeSelector.addStringSelector(qs, "c", "description", description, p);
+      AttributeSelector.addStringSelector(qs, "c", "title", title, p);
+      AttributeSelector.addLongSelector(qs, "c", "created", created);
+      AttributeSelector.addIntSelector(qs, "c", "creatorID", creatorID);
+    });
   }
 
 }
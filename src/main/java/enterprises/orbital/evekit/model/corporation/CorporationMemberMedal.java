@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -161,24 +161,24 @@ public class CorporationMemberMedal extends CachedData {
       final int characterID,
       final long issued) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CorporationMemberMedal> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                             .getEntityManager()
-                                                                                                             .createNamedQuery(
-                                                                                                                 "CorporationMemberMedal.getByMedalAndCharacterAndIssued",
-                                                                                                                 CorporationMemberMedal.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("medal", medalID);
-                                        getter.setParameter("char", characterID);
-                                        getter.setParameter("issued", issued);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CorporationMemberMedal.class, owner, time,
+                                      new Object[] {medalID, characterID, issued}, () -> {
+        TypedQuery<CorporationMemberMedal> getter = EveKitUserAccountProvider.getFactory()
+                                                                             .getEntityManager()
+                                                                             .createNamedQuery(
+                                                                                 "CorporationMemberMedal.getByMedalAndCharacterAndIssued",
+                                                                                 CorporationMemberMedal.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("medal", medalID);
+        getter.setParameter("char", characterID);
+        getter.setParameter("issued", issued);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -198,41 +198,51 @@ public class CorporationMemberMedal extends CachedData {
       final AttributeSelector issuerID,
       final AttributeSelector reason,
       final AttributeSelector status) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CorporationMemberMedal c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "medalID", medalID);
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addLongSelector(qs, "c", "issued", issued);
-                                        AttributeSelector.addIntSelector(qs, "c", "issuerID", issuerID);
-                                        AttributeSelector.addStringSelector(qs, "c", "reason", reason, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "status", status, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CorporationMemberMedal> query = EveKitUserAccountProvider.getFactory()
-                                                                                                            .getEntityManager()
-                                                                                                            .createQuery(
-                                                                                                                qs.toString(),
-                                                                                                                CorporationMemberMedal.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CorporationMemberMedal.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(medalID, characterID, issued, issuerID, reason, status));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector medalID,
+      final AttributeSelector characterID,
+      final AttributeSelector issued,
+      final AttributeSelector issuerID,
+      final AttributeSelector reason,
+      final AttributeSelector status) throws IOException {
+    return accessCount(CorporationMemberMedal.class, owner, at,
+                       accessPredicate(medalID, characterID, issued, issuerID, reason, status));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector medalID,
+      final AttributeSelector characterID,
+      final AttributeSelector issued,
+      final AttributeSelector issuerID,
+      final AttributeSelector reason,
+      final AttributeSelector status) throws IOException {
+    return accessExists(CorporationMemberMedal.class, owner, at,
+                        accessPredicate(medalID, characterID, issued, issuerID, reason, status));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector medalID,
+      final AttributeSelector characterID,
+      final AttributeSelector issued,
+      final AttributeSelector issuerID,
+      final AttributeSelector reason,
+      final AttributeSelector status) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "medalID", medalID);
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addLongSelector(qs, "c", "issued", issued);
+      AttributeSelector.addIntSelector(qs, "c", "issuerID", issuerID);
+      AttributeSelector.addStringSelector(qs, "c", "reason", reason, p);
+      AttributeSelector.addStringSelector(qs, "c", "status", status, p);
+    });
   }
 
 }
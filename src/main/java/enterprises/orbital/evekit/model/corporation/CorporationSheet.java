@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -256,21 +256,20 @@ public class CorporationSheet extends CachedData {
       final SynchronizedEveAccount owner,
       final long time) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CorporationSheet> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createNamedQuery(
-                                                                                                           "CorporationSheet.get",
-                                                                                                           CorporationSheet.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CorporationSheet.class, owner, time, new Object[0], () -> {
+        TypedQuery<CorporationSheet> getter = EveKitUserAccountProvider.getFactory()
+                                                                       .getEntityManager()
+                                                                       .createNamedQuery(
+                                                                           "CorporationSheet.get",
+                                                                           CorporationSheet.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -301,53 +300,102 @@ public class CorporationSheet extends CachedData {
       final AttributeSelector px64x64,
       final AttributeSelector px128x128,
       final AttributeSelector px256x256) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CorporationSheet c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "allianceID", allianceID);
-                                        AttributeSelector.addIntSelector(qs, "c", "ceoID", ceoID);
-                                        AttributeSelector.addLongSelector(qs, "c", "corporationID", corporationID);
-                                        AttributeSelector.addStringSelector(qs, "c", "corporationName", corporationName,
-                                                                            p);
-                                        AttributeSelector.addStringSelector(qs, "c", "description", description, p);
-                                        AttributeSelector.addIntSelector(qs, "c", "memberCount", memberCount);
-                                        AttributeSelector.addLongSelector(qs, "c", "shares", shares);
-                                        AttributeSelector.addIntSelector(qs, "c", "stationID", stationID);
-                                        AttributeSelector.addFloatSelector(qs, "c", "taxRate", taxRate);
-                                        AttributeSelector.addStringSelector(qs, "c", "ticker", ticker, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "url", url, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "dateFounded", dateFounded);
-                                        AttributeSelector.addIntSelector(qs, "c", "creatorID", creatorID);
-                                        AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
-                                        AttributeSelector.addStringSelector(qs, "c", "px64x64", px64x64, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "px128x128", px128x128, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "px256x256", px256x256, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CorporationSheet> query = EveKitUserAccountProvider.getFactory()
-                                                                                                      .getEntityManager()
-                                                                                                      .createQuery(
-                                                                                                          qs.toString(),
-                                                                                                          CorporationSheet.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CorporationSheet.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(allianceID, ceoID, corporationID, corporationName, description, memberCount,
+                                       shares, stationID, taxRate, ticker, url, dateFounded, creatorID, factionID,
+                                       px64x64, px128x128, px256x256));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector allianceID,
+      final AttributeSelector ceoID,
+      final AttributeSelector corporationID,
+      final AttributeSelector corporationName,
+      final AttributeSelector description,
+      final AttributeSelector memberCount,
+      final AttributeSelector shares,
+      final AttributeSelector stationID,
+      final AttributeSelector taxRate,
+      final AttributeSelector ticker,
+      final AttributeSelector url,
+      final AttributeSelector dateFounded,
+      final AttributeSelector creatorID,
+      final AttributeSelector factionID,
+      final AttributeSelector px64x64,
+      final AttributeSelector px128x128,
+      final AttributeSelector px256x256) throws IOException {
+    return accessCount(CorporationSheet.class, owner, at,
+                       accessPredicate(allianceID, ceoID, corporationID, corporationName, description, memberCount,
+                                       shares, stationID, taxRate, ticker, url, dateFounded, creatorID, factionID,
+                                       px64x64, px128x128, px256x256));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector allianceID,
+      final AttributeSelector ceoID,
+      final AttributeSelector corporationID,
+      final AttributeSelector corporationName,
+      final AttributeSelector description,
+      final AttributeSelector memberCount,
+      final AttributeSelector shares,
+      final AttributeSelector stationID,
+      final AttributeSelector taxRate,
+      final AttributeSelector ticker,
+      final AttributeSelector url,
+      final AttributeSelector dateFounded,
+      final AttributeSelector creatorID,
+      final AttributeSelector factionID,
+      final AttributeSelector px64x64,
+      final AttributeSelector px128x128,
+      final AttributeSelector px256x256) throws IOException {
+    return accessExists(CorporationSheet.class, owner, at,
+                        accessPredicate(allianceID, ceoID, corporationID, corporationName, description, memberCount,
+                                        shares, stationID, taxRate, ticker, url, dateFounded, creatorID, factionID,
+                                        px64x64, px128x128, px256x256));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector allianceID,
+      final AttributeSelector ceoID,
+      final AttributeSelector corporationID,
+      final AttributeSelector corporationName,
+      final AttributeSelector description,
+      final AttributeSelector memberCount,
+      final AttributeSelector shares,
+      final AttributeSelector stationID,
+      final AttributeSelector taxRate,
+      final AttributeSelector ticker,
+      final AttributeSelector url,
+      final AttributeSelector dateFounded,
+      final AttributeSelector creatorID,
+      final AttributeSelector factionID,
+      final AttributeSelector px64x64,
+      final AttributeSelector px128x128,
+      final AttributeSelector px256x256) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "allianceID", allianceID);
+      AttributeSelector.addIntSelector(qs, "c", "ceoID", ceoID);
+      AttributeSelector.addLongSelector(qs, "c", "corporationID", corporationID);
+      AttributeSelector.addStringSelector(qs, "c", "corporationName", corporationName,
+                                          p);
+      AttributeSelector.addStringSelector(qs, "c", "description", description, p);
+      AttributeSelector.addIntSelector(qs, "c", "memberCount", memberCount);
+      AttributeSelector.addLongSelector(qs, "c", "shares", shares);
+      AttributeSelector.addIntSelector(qs, "c", "stationID", stationID);
+      AttributeSelector.addFloatSelector(qs, "c", "taxRate", taxRate);
+      AttributeSelector.addStringSelector(qs, "c", "ticker", ticker, p);
+      AttributeSelector.addStringSelector(qs, "c", "url", url, p);
+      AttributeSelector.addLongSelector(qs, "c", "dateFounded", dateFounded);
+      AttributeSelector.addIntSelector(qs, "c", "creatorID", creatorID);
+      AttributeSelector.addIntSelector(qs, "c", "factionID", factionID);
+      AttributeSelector.addStringSelector(qs, "c", "px64x64", px64x64, p);
+      AttributeSelector.addStringSelector(qs, "c", "px128x128", px128x128, p);
+      AttributeSelector.addStringSelector(qs, "c", "px256x256", px256x256, p);
+    });
   }
 
 }
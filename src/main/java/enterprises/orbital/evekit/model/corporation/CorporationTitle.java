@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -105,22 +105,21 @@ public class CorporationTitle extends CachedData {
       final long time,
       final int titleID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CorporationTitle> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createNamedQuery(
-                                                                                                           "CorporationTitle.getByTitleID",
-                                                                                                           CorporationTitle.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("title", titleID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CorporationTitle.class, owner, time, new Object[] {titleID}, () -> {
+        TypedQuery<CorporationTitle> getter = EveKitUserAccountProvider.getFactory()
+                                                                       .getEntityManager()
+                                                                       .createNamedQuery(
+                                                                           "CorporationTitle.getByTitleID",
+                                                                           CorporationTitle.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("title", titleID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -136,37 +135,35 @@ public class CorporationTitle extends CachedData {
       final AttributeSelector at,
       final AttributeSelector titleID,
       final AttributeSelector titleName) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CorporationTitle c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "titleID", titleID);
-                                        AttributeSelector.addStringSelector(qs, "c", "titleName", titleName, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CorporationTitle> query = EveKitUserAccountProvider.getFactory()
-                                                                                                      .getEntityManager()
-                                                                                                      .createQuery(
-                                                                                                          qs.toString(),
-                                                                                                          CorporationTitle.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CorporationTitle.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(titleID, titleName));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector titleID,
+      final AttributeSelector titleName) throws IOException {
+    return accessCount(CorporationTitle.class, owner, at,
+                       accessPredicate(titleID, titleName));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector titleID,
+      final AttributeSelector titleName) throws IOException {
+    return accessExists(CorporationTitle.class, owner, at,
+                        accessPredicate(titleID, titleName));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector titleID,
+      final AttributeSelector titleName) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "titleID", titleID);
+      AttributeSelector.addStringSelector(qs, "c", "titleName", titleName, p);
+    });
   }
 
 }
@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -148,27 +148,27 @@ public class CorporationTitleRole extends CachedData {
       final boolean atBase,
       final boolean atOther) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CorporationTitleRole> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                           .getEntityManager()
-                                                                                                           .createNamedQuery(
-                                                                                                               "CorporationTitleRole.get",
-                                                                                                               CorporationTitleRole.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("title", titleID);
-                                        getter.setParameter("rolename", roleName);
-                                        getter.setParameter("grantable", grantable);
-                                        getter.setParameter("athq", atHQ);
-                                        getter.setParameter("atbase", atBase);
-                                        getter.setParameter("atother", atOther);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CorporationTitleRole.class, owner, time,
+                                      new Object[] {titleID, roleName, grantable, atHQ, atBase, atOther}, () -> {
+        TypedQuery<CorporationTitleRole> getter = EveKitUserAccountProvider.getFactory()
+                                                                           .getEntityManager()
+                                                                           .createNamedQuery(
+                                                                               "CorporationTitleRole.get",
+                                                                               CorporationTitleRole.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("title", titleID);
+        getter.setParameter("rolename", roleName);
+        getter.setParameter("grantable", grantable);
+        getter.setParameter("athq", atHQ);
+        getter.setParameter("atbase", atBase);
+        getter.setParameter("atother", atOther);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -188,41 +188,51 @@ public class CorporationTitleRole extends CachedData {
       final AttributeSelector atHQ,
       final AttributeSelector atBase,
       final AttributeSelector atOther) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM CorporationTitleRole c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "titleID", titleID);
-                                        AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "grantable", grantable);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "atHQ", atHQ);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "atBase", atBase);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "atOther", atOther);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<CorporationTitleRole> query = EveKitUserAccountProvider.getFactory()
-                                                                                                          .getEntityManager()
-                                                                                                          .createQuery(
-                                                                                                              qs.toString(),
-                                                                                                              CorporationTitleRole.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CorporationTitleRole.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(titleID, roleName, grantable, atHQ, atBase, atOther));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector titleID,
+      final AttributeSelector roleName,
+      final AttributeSelector grantable,
+      final AttributeSelector atHQ,
+      final AttributeSelector atBase,
+      final AttributeSelector atOther) throws IOException {
+    return accessCount(CorporationTitleRole.class, owner, at,
+                       accessPredicate(titleID, roleName, grantable, atHQ, atBase, atOther));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector titleID,
+      final AttributeSelector roleName,
+      final AttributeSelector grantable,
+      final AttributeSelector atHQ,
+      final AttributeSelector atBase,
+      final AttributeSelector atOther) throws IOException {
+    return accessExists(CorporationTitleRole.class, owner, at,
+                        accessPredicate(titleID, roleName, grantable, atHQ, atBase, atOther));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector titleID,
+      final AttributeSelector roleName,
+      final AttributeSelector grantable,
+      final AttributeSelector atHQ,
+      final AttributeSelector atBase,
+      final AttributeSelector atOther) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "titleID", titleID);
+      AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "grantable", grantable);
+      AttributeSelector.addBooleanSelector(qs, "c", "atHQ", atHQ);
+      AttributeSelector.addBooleanSelector(qs, "c", "atBase", atBase);
+      AttributeSelector.addBooleanSelector(qs, "c", "atOther", atOther);
+    });
   }
 
 }
@@ -4,7 +4,7 @@ import enterprises.orbital.db.ConnectionFactory.RunInTransaction;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -220,22 +220,21 @@ public class CustomsOffice extends CachedData {
       final long time,
       final long officeID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<CustomsOffice> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createNamedQuery(
-                                                                                                        "CustomsOffice.getByItemID",
-                                                                                                        CustomsOffice.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("item", officeID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(CustomsOffice.class, owner, time, new Object[] {officeID}, () -> {
+        TypedQuery<CustomsOffice> getter = EveKitUserAccountProvider.getFactory()
+                                                                    .getEntityManager()
+                                                                    .createNamedQuery(
+                                                                        "CustomsOffice.getByItemID",
+                                                                        CustomsOffice.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("item", officeID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -263,62 +262,102 @@ public class CustomsOffice extends CachedData {
       final AttributeSelector taxRateStandingNeutral,
       final AttributeSelector taxRateStandingBad,
       final AttributeSelector taxRateStandingTerrible) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(new RunInTransaction<List<CustomsOffice>>() {
-                                        @Override
-                                        public List<CustomsOffice> run() throws Exception {
-                                          StringBuilder qs = new StringBuilder();
-                                          qs.append("SELECT c FROM CustomsOffice c WHERE ");
-                                          // Constrain to specified owner
-                                          qs.append("c.owner = :owner");
-                                          // Constrain lifeline
-                                          AttributeSelector.addLifelineSelector(qs, "c", at);
-                                          // Constrain attributes
-                                          AttributeParameters p = new AttributeParameters("att");
-                                          AttributeSelector.addLongSelector(qs, "c", "officeID", officeID);
-                                          AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
-                                          AttributeSelector.addIntSelector(qs, "c", "reinforceExitStart",
-                                                                           reinforceExitStart);
-                                          AttributeSelector.addIntSelector(qs, "c", "reinforceExitEnd",
-                                                                           reinforceExitEnd);
-                                          AttributeSelector.addBooleanSelector(qs, "c", "allowAlliance", allowAlliance);
-                                          AttributeSelector.addBooleanSelector(qs, "c", "allowStandings",
-                                                                               allowStandings);
-                                          AttributeSelector.addStringSelector(qs, "c", "standingLevel", standingLevel,
-                                                                              p);
-                                          AttributeSelector.addFloatSelector(qs, "c", "taxRateAlliance",
-                                                                             taxRateAlliance);
-                                          AttributeSelector.addFloatSelector(qs, "c", "taxRateCorp", taxRateCorp);
-                                          AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingExcellent",
-                                                                             taxRateStandingExcellent);
-                                          AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingGood",
-                                                                             taxRateStandingGood);
-                                          AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingNeutral",
-                                                                             taxRateStandingNeutral);
-                                          AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingBad",
-                                                                             taxRateStandingBad);
-                                          AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingTerrible",
-                                                                             taxRateStandingTerrible);
-                                          // Set CID constraint and ordering
-                                          setCIDOrdering(qs, contid, reverse);
-                                          // Return result
-                                          TypedQuery<CustomsOffice> query = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createQuery(
-                                                                                                         qs.toString(),
-                                                                                                         CustomsOffice.class);
-                                          query.setParameter("owner", owner);
-                                          p.fillParams(query);
-                                          query.setMaxResults(maxresults);
-                                          return query.getResultList();
-                                        }
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(CustomsOffice.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(officeID, solarSystemID, reinforceExitStart, reinforceExitEnd, allowAlliance,
+                                       allowStandings, standingLevel, taxRateAlliance, taxRateCorp,
+                                       taxRateStandingExcellent, taxRateStandingGood, taxRateStandingNeutral,
+                                       taxRateStandingBad, taxRateStandingTerrible));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector officeID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector reinforceExitStart,
+      final AttributeSelector reinforceExitEnd,
+      final AttributeSelector allowAlliance,
+      final AttributeSelector allowStandings,
+      final AttributeSelector standingLevel,
+      final AttributeSelector taxRateAlliance,
+      final AttributeSelector taxRateCorp,
+      final AttributeSelector taxRateStandingExcellent,
+      final AttributeSelector taxRateStandingGood,
+      final AttributeSelector taxRateStandingNeutral,
+      final AttributeSelector taxRateStandingBad,
+      final AttributeSelector taxRateStandingTerrible) throws IOException {
+    return accessCount(CustomsOffice.class, owner, at,
+                       accessPredicate(officeID, solarSystemID, reinforceExitStart, reinforceExitEnd, allowAlliance,
+                                       allowStandings, standingLevel, taxRateAlliance, taxRateCorp,
+                                       taxRateStandingExcellent, taxRateStandingGood, taxRateStandingNeutral,
+                                       taxRateStandingBad, taxRateStandingTerrible));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector officeID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector reinforceExitStart,
+      final AttributeSelector reinforceExitEnd,
+      final AttributeSelector allowAlliance,
+      final AttributeSelector allowStandings,
+      final AttributeSelector standingLevel,
+      final AttributeSelector taxRateAlliance,
+      final AttributeSelector taxRateCorp,
+      final AttributeSelector taxRateStandingExcellent,
+      final AttributeSelector taxRateStandingGood,
+      final AttributeSelector taxRateStandingNeutral,
+      final AttributeSelector taxRateStandingBad,
+      final AttributeSelector taxRateStandingTerrible) throws IOException {
+    return accessExists(CustomsOffice.class, owner, at,
+                        accessPredicate(officeID, solarSystemID, reinforceExitStart, reinforceExitEnd, allowAlliance,
+                                        allowStandings, standingLevel, taxRateAlliance, taxRateCorp,
+                                        taxRateStandingExcellent, taxRateStandingGood, taxRateStandingNeutral,
+                                        taxRateStandingBad, taxRateStandingTerrible));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector officeID,
+      final AttributeSelector solarSystemID,
+      final AttributeSelector reinforceExitStart,
+      final AttributeSelector reinforceExitEnd,
+      final AttributeSelector allowAlliance,
+      final AttributeSelector allowStandings,
+      final AttributeSelector standingLevel,
+      final AttributeSelector taxRateAlliance,
+      final AttributeSelector taxRateCorp,
+      final AttributeSelector taxRateStandingExcellent,
+      final AttributeSelector taxRateStandingGood,
+      final AttributeSelector taxRateStandingNeutral,
+      final AttributeSelector taxRateStandingBad,
+      final AttributeSelector taxRateStandingTerrible) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "officeID", officeID);
+      AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
+      AttributeSelector.addIntSelector(qs, "c", "reinforceExitStart",
+                                       reinforceExitStart);
+      AttributeSelector.addIntSelector(qs, "c", "reinforceExitEnd",
+                                       reinforceExitEnd);
+      AttributeSelector.addBooleanSelector(qs, "c", "allowAlliance", allowAlliance);
+      AttributeSelector.addBooleanSelector(qs, "c", "allowStandings",
+                                           allowStandings);
+      AttributeSelector.addStringSelector(qs, "c", "standingLevel", standingLevel,
+                                          p);
+      AttributeSelector.addFloatSelector(qs, "c", "taxRateAlliance",
+                                         taxRateAlliance);
+      AttributeSelector.addFloatSelector(qs, "c", "taxRateCorp", taxRateCorp);
+      AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingExcellent",
+                                         taxRateStandingExcellent);
+      AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingGood",
+                                         taxRateStandingGood);
+      AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingNeutral",
+                                         taxRateStandingNeutral);
+      AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingBad",
+                                         taxRateStandingBad);
+      AttributeSelector.addFloatSelector(qs, "c", "taxRateStandingTerrible",
+                                         taxRateStandingTerrible);
+    });
   }
 
 }
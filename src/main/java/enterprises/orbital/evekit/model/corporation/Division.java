@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -117,23 +117,22 @@ public class Division extends CachedData {
       final boolean wallet,
       final int division) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Division> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Division.getByWalletAndAccountKey",
-                                                                                                   Division.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("wallet", wallet);
-                                        getter.setParameter("ack", division);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Division.class, owner, time, new Object[] {wallet, division}, () -> {
+        TypedQuery<Division> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Division.getByWalletAndAccountKey",
+                                                                   Division.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("wallet", wallet);
+        getter.setParameter("ack", division);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -150,38 +149,39 @@ public class Division extends CachedData {
       final AttributeSelector wallet,
       final AttributeSelector division,
       final AttributeSelector name) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Division c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addBooleanSelector(qs, "c", "wallet", wallet);
-                                        AttributeSelector.addIntSelector(qs, "c", "division", division);
-                                        AttributeSelector.addStringSelector(qs, "c", "name", name, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Division> query = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createQuery(
-                                                                                                  qs.toString(),
-                                                                                                  Division.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Division.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(wallet, division, name));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector wallet,
+      final AttributeSelector division,
+      final AttributeSelector name) throws IOException {
+    return accessCount(Division.class, owner, at,
+                       accessPredicate(wallet, division, name));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector wallet,
+      final AttributeSelector division,
+      final AttributeSelector name) throws IOException {
+    return accessExists(Division.class, owner, at,
+                        accessPredicate(wallet, division, name));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector wallet,
+      final AttributeSelector division,
+      final AttributeSelector name) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addBooleanSelector(qs, "c", "wallet", wallet);
+      AttributeSelector.addIntSelector(qs, "c", "division", division);
+      AttributeSelector.addStringSelector(qs, "c", "name", name, p);
+    });
   }
 
 }
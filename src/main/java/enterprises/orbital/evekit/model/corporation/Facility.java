@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -112,22 +113,21 @@ public class Facility extends CachedData {
       final long time,
       final long facilityID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Facility> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Facility.getByFacilityID",
-                                                                                                   Facility.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("facility", facilityID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Facility.class, owner, time, new Object[] {facilityID}, () -> {
+        TypedQuery<Facility> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Facility.getByFacilityID",
+                                                                   Facility.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("facility", facilityID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -144,36 +144,39 @@ public class Facility extends CachedData {
       final AttributeSelector facilityID,
       final AttributeSelector typeID,
       final AttributeSelector solarSystemID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Facility c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addLongSelector(qs, "c", "facilityID", facilityID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Facility> query = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createQuery(
-                                                                                                  qs.toString(),
-                                                                                                  Facility.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Facility.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(facilityID, typeID, solarSystemID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector facilityID,
+      final AttributeSelector typeID,
+      final AttributeSelector solarSystemID) throws IOException {
+    return accessCount(Facility.class, owner, at,
+                       accessPredicate(facilityID, typeID, solarSystemID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector facilityID,
+      final AttributeSelector typeID,
+      final AttributeSelector solarSystemID) throws IOException {
+    return accessExists(Facility.class, owner, at,
+                        accessPredicate(facilityID, typeID, solarSystemID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector facilityID,
+      final AttributeSelector typeID,
+      final AttributeSelector solarSystemID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "facilityID", facilityID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "solarSystemID", solarSystemID);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -117,23 +118,22 @@ public class Fuel extends CachedData {
       final long starbaseID,
       final int typeID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Fuel> getter = EveKitUserAccountProvider.getFactory()
-                                                                                           .getEntityManager()
-                                                                                           .createNamedQuery(
-                                                                                               "Fuel.getByItemAndTypeID",
-                                                                                               Fuel.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("sb", starbaseID);
-                                        getter.setParameter("tp", typeID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Fuel.class, owner, time, new Object[] {starbaseID, typeID}, () -> {
+        TypedQuery<Fuel> getter = EveKitUserAccountProvider.getFactory()
+                                                           .getEntityManager()
+                                                           .createNamedQuery(
+                                                               "Fuel.getByItemAndTypeID",
+                                                               Fuel.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("sb", starbaseID);
+        getter.setParameter("tp", typeID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -150,35 +150,39 @@ public class Fuel extends CachedData {
       final AttributeSelector starbaseID,
       final AttributeSelector typeID,
       final AttributeSelector quantity) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Fuel c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addLongSelector(qs, "c", "starbaseID", starbaseID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Fuel> query = EveKitUserAccountProvider.getFactory()
-                                                                                          .getEntityManager()
-                                                                                          .createQuery(qs.toString(),
-                                                                                                       Fuel.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Fuel.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(starbaseID, typeID, quantity));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector starbaseID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity) throws IOException {
+    return accessCount(Fuel.class, owner, at,
+                       accessPredicate(starbaseID, typeID, quantity));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector starbaseID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity) throws IOException {
+    return accessExists(Fuel.class, owner, at,
+                        accessPredicate(starbaseID, typeID, quantity));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector starbaseID,
+      final AttributeSelector typeID,
+      final AttributeSelector quantity) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "starbaseID", starbaseID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "quantity", quantity);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -96,22 +97,21 @@ public class Member extends CachedData {
       final long time,
       final int characterID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Member> getter = EveKitUserAccountProvider.getFactory()
-                                                                                             .getEntityManager()
-                                                                                             .createNamedQuery(
-                                                                                                 "Member.get",
-                                                                                                 Member.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("character", characterID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Member.class, owner, time, new Object[] {characterID}, () -> {
+        TypedQuery<Member> getter = EveKitUserAccountProvider.getFactory()
+                                                             .getEntityManager()
+                                                             .createNamedQuery(
+                                                                 "Member.get",
+                                                                 Member.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("character", characterID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -126,34 +126,31 @@ public class Member extends CachedData {
       final boolean reverse,
       final AttributeSelector at,
       final AttributeSelector characterID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Member c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Member> query = EveKitUserAccountProvider.getFactory()
-                                                                                            .getEntityManager()
-                                                                                            .createQuery(
-                                                                                                qs.toString(),
-                                                                                                Member.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Member.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(characterID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID) throws IOException {
+    return accessCount(Member.class, owner, at,
+                       accessPredicate(characterID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID) throws IOException {
+    return accessExists(Member.class, owner, at,
+                        accessPredicate(characterID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector characterID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+    });
   }
 
 }
@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -148,27 +148,27 @@ public class MemberRole extends CachedData {
       final boolean atBase,
       final boolean atOther) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MemberRole> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createNamedQuery(
-                                                                                                     "MemberRole.get",
-                                                                                                     MemberRole.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("character", characterID);
-                                        getter.setParameter("rolename", roleName);
-                                        getter.setParameter("grantable", grantable);
-                                        getter.setParameter("athq", atHQ);
-                                        getter.setParameter("atbase", atBase);
-                                        getter.setParameter("atother", atOther);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MemberRole.class, owner, time,
+                                      new Object[] {characterID, roleName, grantable, atHQ, atBase, atOther}, () -> {
+        TypedQuery<MemberRole> getter = EveKitUserAccountProvider.getFactory()
+                                                                 .getEntityManager()
+                                                                 .createNamedQuery(
+                                                                     "MemberRole.get",
+                                                                     MemberRole.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("character", characterID);
+        getter.setParameter("rolename", roleName);
+        getter.setParameter("grantable", grantable);
+        getter.setParameter("athq", atHQ);
+        getter.setParameter("atbase", atBase);
+        getter.setParameter("atother", atOther);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -188,41 +188,51 @@ public class MemberRole extends CachedData {
       final AttributeSelector atHQ,
       final AttributeSelector atBase,
       final AttributeSelector atOther) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MemberRole c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "grantable", grantable);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "atHQ", atHQ);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "atBase", atBase);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "atOther", atOther);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MemberRole> query = EveKitUserAccountProvider.getFactory()
-                                                                                                .getEntityManager()
-                                                                                                .createQuery(
-                                                                                                    qs.toString(),
-                                                                                                    MemberRole.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MemberRole.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(characterID, roleName, grantable, atHQ, atBase, atOther));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector roleName,
+      final AttributeSelector grantable,
+      final AttributeSelector atHQ,
+      final AttributeSelector atBase,
+      final AttributeSelector atOther) throws IOException {
+    return accessCount(MemberRole.class, owner, at,
+                       accessPredicate(characterID, roleName, grantable, atHQ, atBase, atOther));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector roleName,
+      final AttributeSelector grantable,
+      final AttributeSelector atHQ,
+      final AttributeSelector atBase,
+      final AttributeSelector atOther) throws IOException {
+    return accessExists(MemberRole.class, owner, at,
+                        accessPredicate(characterID, roleName, grantable, atHQ, atBase, atOther));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector characterID,
+      final AttributeSelector roleName,
+      final AttributeSelector grantable,
+      final AttributeSelector atHQ,
+      final AttributeSelector atBase,
+      final AttributeSelector atOther) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "grantable", grantable);
+      AttributeSelector.addBooleanSelector(qs, "c", "atHQ", atHQ);
+      AttributeSelector.addBooleanSelector(qs, "c", "atBase", atBase);
+      AttributeSelector.addBooleanSelector(qs, "c", "atOther", atOther);
+    });
   }
 
 }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -165,27 +165,27 @@ public class MemberRoleHistory extends CachedData {
       final String roleName,
       final boolean old) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MemberRoleHistory> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                        .getEntityManager()
-                                                                                                        .createNamedQuery(
-                                                                                                            "MemberRoleHistory.get",
-                                                                                                            MemberRoleHistory.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("character", characterID);
-                                        getter.setParameter("changedat", changedAt);
-                                        getter.setParameter("issuer", issuerID);
-                                        getter.setParameter("roletype", roleType);
-                                        getter.setParameter("rolename", roleName);
-                                        getter.setParameter("old", old);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MemberRoleHistory.class, owner, time,
+                                      new Object[] {characterID, changedAt, issuerID, roleType, roleName, old}, () -> {
+        TypedQuery<MemberRoleHistory> getter = EveKitUserAccountProvider.getFactory()
+                                                                        .getEntityManager()
+                                                                        .createNamedQuery(
+                                                                            "MemberRoleHistory.get",
+                                                                            MemberRoleHistory.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("character", characterID);
+        getter.setParameter("changedat", changedAt);
+        getter.setParameter("issuer", issuerID);
+        getter.setParameter("roletype", roleType);
+        getter.setParameter("rolename", roleName);
+        getter.setParameter("old", old);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -205,41 +205,51 @@ public class MemberRoleHistory extends CachedData {
       final AttributeSelector roleType,
       final AttributeSelector roleName,
       final AttributeSelector old) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MemberRoleHistory c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addLongSelector(qs, "c", "changedAt", changedAt);
-                                        AttributeSelector.addIntSelector(qs, "c", "issuerID", issuerID);
-                                        AttributeSelector.addStringSelector(qs, "c", "roleType", roleType, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "old", old);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MemberRoleHistory> query = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createQuery(
-                                                                                                           qs.toString(),
-                                                                                                           MemberRoleHistory.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MemberRoleHistory.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(characterID, changedAt, issuerID, roleType, roleName, old));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector changedAt,
+      final AttributeSelector issuerID,
+      final AttributeSelector roleType,
+      final AttributeSelector roleName,
+      final AttributeSelector old) throws IOException {
+    return accessCount(MemberRoleHistory.class, owner, at,
+                       accessPredicate(characterID, changedAt, issuerID, roleType, roleName, old));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector changedAt,
+      final AttributeSelector issuerID,
+      final AttributeSelector roleType,
+      final AttributeSelector roleName,
+      final AttributeSelector old) throws IOException {
+    return accessExists(MemberRoleHistory.class, owner, at,
+                        accessPredicate(characterID, changedAt, issuerID, roleType, roleName, old));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector characterID,
+      final AttributeSelector changedAt,
+      final AttributeSelector issuerID,
+      final AttributeSelector roleType,
+      final AttributeSelector roleName,
+      final AttributeSelector old) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addLongSelector(qs, "c", "changedAt", changedAt);
+      AttributeSelector.addIntSelector(qs, "c", "issuerID", issuerID);
+      AttributeSelector.addStringSelector(qs, "c", "roleType", roleType, p);
+      AttributeSelector.addStringSelector(qs, "c", "roleName", roleName, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "old", old);
+    });
   }
 
 }
@@ -3,6 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -105,23 +106,22 @@ public class MemberTitle extends CachedData {
       final int characterID,
       final int titleID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MemberTitle> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "MemberTitle.get",
-                                                                                                      MemberTitle.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("character", characterID);
-                                        getter.setParameter("title", titleID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MemberTitle.class, owner, time, new Object[] {characterID, titleID}, () -> {
+        TypedQuery<MemberTitle> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "MemberTitle.get",
+                                                                      MemberTitle.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("character", characterID);
+        getter.setParameter("title", titleID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -137,35 +137,35 @@ public class MemberTitle extends CachedData {
       final AttributeSelector at,
       final AttributeSelector characterID,
       final AttributeSelector titleID) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MemberTitle c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addIntSelector(qs, "c", "titleID", titleID);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MemberTitle> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     MemberTitle.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MemberTitle.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(characterID, titleID));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector titleID) throws IOException {
+    return accessCount(MemberTitle.class, owner, at,
+                       accessPredicate(characterID, titleID));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector titleID) throws IOException {
+    return accessExists(MemberTitle.class, owner, at,
+                        accessPredicate(characterID, titleID));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector characterID,
+      final AttributeSelector titleID) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addIntSelector(qs, "c", "titleID", titleID);
+    });
   }
 
 }
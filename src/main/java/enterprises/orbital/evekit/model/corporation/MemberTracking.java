@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -184,22 +185,21 @@ public class MemberTracking extends CachedData {
       final long time,
       final int characterID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MemberTracking> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery(
-                                                                                                         "MemberTracking.getByCharacterID",
-                                                                                                         MemberTracking.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("char", characterID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MemberTracking.class, owner, time, new Object[] {characterID}, () -> {
+        TypedQuery<MemberTracking> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                         "MemberTracking.getByCharacterID",
+                                                                         MemberTracking.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("char", characterID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -220,40 +220,58 @@ public class MemberTracking extends CachedData {
       final AttributeSelector logonDateTime,
       final AttributeSelector shipTypeID,
       final AttributeSelector startDateTime) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MemberTracking c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addIntSelector(qs, "c", "baseID", baseID);
-                                        AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
-                                        AttributeSelector.addLongSelector(qs, "c", "logoffDateTime", logoffDateTime);
-                                        AttributeSelector.addLongSelector(qs, "c", "logonDateTime", logonDateTime);
-                                        AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
-                                        AttributeSelector.addLongSelector(qs, "c", "startDateTime", startDateTime);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MemberTracking> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(
-                                                                                                        qs.toString(),
-                                                                                                        MemberTracking.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MemberTracking.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(characterID, baseID, locationID, logoffDateTime, logonDateTime, shipTypeID,
+                                       startDateTime));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector baseID,
+      final AttributeSelector locationID,
+      final AttributeSelector logoffDateTime,
+      final AttributeSelector logonDateTime,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector startDateTime) throws IOException {
+    return accessCount(MemberTracking.class, owner, at,
+                       accessPredicate(characterID, baseID, locationID, logoffDateTime, logonDateTime, shipTypeID,
+                                       startDateTime));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector characterID,
+      final AttributeSelector baseID,
+      final AttributeSelector locationID,
+      final AttributeSelector logoffDateTime,
+      final AttributeSelector logonDateTime,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector startDateTime) throws IOException {
+    return accessExists(MemberTracking.class, owner, at,
+                        accessPredicate(characterID, baseID, locationID, logoffDateTime, logonDateTime, shipTypeID,
+                                        startDateTime));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector characterID,
+      final AttributeSelector baseID,
+      final AttributeSelector locationID,
+      final AttributeSelector logoffDateTime,
+      final AttributeSelector logonDateTime,
+      final AttributeSelector shipTypeID,
+      final AttributeSelector startDateTime) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addIntSelector(qs, "c", "baseID", baseID);
+      AttributeSelector.addLongSelector(qs, "c", "locationID", locationID);
+      AttributeSelector.addLongSelector(qs, "c", "logoffDateTime", logoffDateTime);
+      AttributeSelector.addLongSelector(qs, "c", "logonDateTime", logonDateTime);
+      AttributeSelector.addIntSelector(qs, "c", "shipTypeID", shipTypeID);
+      AttributeSelector.addLongSelector(qs, "c", "startDateTime", startDateTime);
+    });
   }
 
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -173,24 +174,24 @@ public class MiningExtraction extends CachedData {
       final long structureID,
       final long extractionStartTime) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MiningExtraction> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createNamedQuery(
-                                                                                                           "MiningExtraction.get",
-                                                                                                           MiningExtraction.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("mid", moonID);
-                                        getter.setParameter("sid", structureID);
-                                        getter.setParameter("est", extractionStartTime);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MiningExtraction.class, owner, time,
+                                      new Object[] {moonID, structureID, extractionStartTime}, () -> {
+        TypedQuery<MiningExtraction> getter = EveKitUserAccountProvider.getFactory()
+                                                                       .getEntityManager()
+                                                                       .createNamedQuery(
+                                                                           "MiningExtraction.get",
+                                                                           MiningExtraction.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("mid", moonID);
+        getter.setParameter("sid", structureID);
+        getter.setParameter("est", extractionStartTime);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -209,41 +210,50 @@ public class MiningExtraction extends CachedData {
       final AttributeSelector extractionStartTime,
       final AttributeSelector chunkArrivalTime,
       final AttributeSelector naturalDecayTime) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MiningExtraction c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addIntSelector(qs, "c", "moonID", moonID);
-                                        AttributeSelector.addLongSelector(qs, "c", "structureID", structureID);
-                                        AttributeSelector.addLongSelector(qs, "c", "extractionStartTime",
-                                                                          extractionStartTime);
-                                        AttributeSelector.addLongSelector(qs, "c", "chunkArrivalTime",
-                                                                          chunkArrivalTime);
-                                        AttributeSelector.addLongSelector(qs, "c", "naturalDecayTime",
-                                                                          naturalDecayTime);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MiningExtraction> query = EveKitUserAccountProvider.getFactory()
-                                                                                                      .getEntityManager()
-                                                                                                      .createQuery(
-                                                                                                          qs.toString(),
-                                                                                                          MiningExtraction.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MiningExtraction.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(moonID, structureID, extractionStartTime, chunkArrivalTime, naturalDecayTime));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector moonID,
+      final AttributeSelector structureID,
+      final AttributeSelector extractionStartTime,
+      final AttributeSelector chunkArrivalTime,
+      final AttributeSelector naturalDecayTime) throws IOException {
+    return accessCount(MiningExtraction.class, owner, at,
+                       accessPredicate(moonID, structureID, extractionStartTime, chunkArrivalTime, naturalDecayTime));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector moonID,
+      final AttributeSelector structureID,
+      final AttributeSelector extractionStartTime,
+      final AttributeSelector chunkArrivalTime,
+      final AttributeSelector naturalDecayTime) throws IOException {
+    return accessExists(MiningExtraction.class, owner, at,
+                        accessPredicate(moonID, structureID, extractionStartTime, chunkArrivalTime, naturalDecayTime));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector moonID,
+      final AttributeSelector structureID,
+      final AttributeSelector extractionStartTime,
+      final AttributeSelector chunkArrivalTime,
+      final AttributeSelector naturalDecayTime) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "moonID", moonID);
+      AttributeSelector.addLongSelector(qs, "c", "structureID", structureID);
+      AttributeSelector.addLongSelector(qs, "c", "extractionStartTime",
+                                        extractionStartTime);
+      AttributeSelector.addLongSelector(qs, "c", "chunkArrivalTime",
+                                        chunkArrivalTime);
+      AttributeSelector.addLongSelector(qs, "c", "naturalDecayTime",
+                                        naturalDecayTime);
+    });
   }
 
 }
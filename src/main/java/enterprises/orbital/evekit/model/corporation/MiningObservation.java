@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -161,24 +162,24 @@ public class MiningObservation extends CachedData {
       final int characterID,
       final int typeID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MiningObservation> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                        .getEntityManager()
-                                                                                                        .createNamedQuery(
-                                                                                                            "MiningObservation.get",
-                                                                                                            MiningObservation.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("oid", observerID);
-                                        getter.setParameter("cid", characterID);
-                                        getter.setParameter("tid", typeID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MiningObservation.class, owner, time,
+                                      new Object[] {observerID, characterID, typeID}, () -> {
+        TypedQuery<MiningObservation> getter = EveKitUserAccountProvider.getFactory()
+                                                                        .getEntityManager()
+                                                                        .createNamedQuery(
+                                                                            "MiningObservation.get",
+                                                                            MiningObservation.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("oid", observerID);
+        getter.setParameter("cid", characterID);
+        getter.setParameter("tid", typeID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -198,43 +199,55 @@ public class MiningObservation extends CachedData {
       final AttributeSelector recordedCorporationID,
       final AttributeSelector quantity,
       final AttributeSelector lastUpdated) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MiningObservation c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeSelector.addLongSelector(qs, "c", "observerID", observerID);
-                                        AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID",
-                                                                         typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "recordedCorporationID",
-                                                                         recordedCorporationID);
-                                        AttributeSelector.addLongSelector(qs, "c", "quantity",
-                                                                          quantity);
-                                        AttributeSelector.addLongSelector(qs, "c", "lastUpdated",
-                                                                          lastUpdated);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MiningObservation> query = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createQuery(
-                                                                                                           qs.toString(),
-                                                                                                           MiningObservation.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MiningObservation.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(observerID, characterID, typeID, recordedCorporationID, quantity, lastUpdated));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector observerID,
+      final AttributeSelector characterID,
+      final AttributeSelector typeID,
+      final AttributeSelector recordedCorporationID,
+      final AttributeSelector quantity,
+      final AttributeSelector lastUpdated) throws IOException {
+    return accessCount(MiningObservation.class, owner, at,
+                       accessPredicate(observerID, characterID, typeID, recordedCorporationID, quantity, lastUpdated));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector observerID,
+      final AttributeSelector characterID,
+      final AttributeSelector typeID,
+      final AttributeSelector recordedCorporationID,
+      final AttributeSelector quantity,
+      final AttributeSelector lastUpdated) throws IOException {
+    return accessExists(MiningObservation.class, owner, at,
+                        accessPredicate(observerID, characterID, typeID, recordedCorporationID, quantity, lastUpdated));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector observerID,
+      final AttributeSelector characterID,
+      final AttributeSelector typeID,
+      final AttributeSelector recordedCorporationID,
+      final AttributeSelector quantity,
+      final AttributeSelector lastUpdated) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "observerID", observerID);
+      AttributeSelector.addIntSelector(qs, "c", "characterID", characterID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID",
+                                       typeID);
+      AttributeSelector.addIntSelector(qs, "c", "recordedCorporationID",
+                                       recordedCorporationID);
+      AttributeSelector.addLongSelector(qs, "c", "quantity",
+                                        quantity);
+      AttributeSelector.addLongSelector(qs, "c", "lastUpdated",
+                                        lastUpdated);
+    });
   }
 
 }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -131,22 +131,21 @@ public class MiningObserver extends CachedData {
       final long time,
       final long observerID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<MiningObserver> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                     .getEntityManager()
-                                                                                                     .createNamedQuery(
-                                                                                                         "MiningObserver.get",
-                                                                                                         MiningObserver.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("oid", observerID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(MiningObserver.class, owner, time, new Object[] {observerID}, () -> {
+        TypedQuery<MiningObserver> getter = EveKitUserAccountProvider.getFactory()
+                                                                     .getEntityManager()
+                                                                     .createNamedQuery(
+                                                                         "MiningObserver.get",
+                                                                         MiningObserver.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("oid", observerID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -163,39 +162,40 @@ public class MiningObserver extends CachedData {
       final AttributeSelector observerID,
       final AttributeSelector observerType,
       final AttributeSelector lastUpdated) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM MiningObserver c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "observerID", observerID);
-                                        AttributeSelector.addStringSelector(qs, "c", "observerType", observerType, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "lastUpdated",
-                                                                          lastUpdated);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<MiningObserver> query = EveKitUserAccountProvider.getFactory()
-                                                                                                    .getEntityManager()
-                                                                                                    .createQuery(
-                                                                                                        qs.toString(),
-                                                                                                        MiningObserver.class);
-                                        query.setParameter("owner", owner);
-                                        query.setMaxResults(maxresults);
-                                        p.fillParams(query);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(MiningObserver.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(observerID, observerType, lastUpdated));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector observerID,
+      final AttributeSelector observerType,
+      final AttributeSelector lastUpdated) throws IOException {
+    return accessCount(MiningObserver.class, owner, at,
+                       accessPredicate(observerID, observerType, lastUpdated));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector observerID,
+      final AttributeSelector observerType,
+      final AttributeSelector lastUpdated) throws IOException {
+    return accessExists(MiningObserver.class, owner, at,
+                        accessPredicate(observerID, observerType, lastUpdated));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector observerID,
+      final AttributeSelector observerType,
+      final AttributeSelector lastUpdated) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "observerID", observerID);
+      AttributeSelector.addStringSelector(qs, "c", "observerType", observerType, p);
+      AttributeSelector.addLongSelector(qs, "c", "lastUpdated",
+                                        lastUpdated);
+    });
   }
 
 }
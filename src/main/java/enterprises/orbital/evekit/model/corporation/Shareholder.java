@@ -3,7 +3,7 @@ package enterprises.orbital.evekit.model.corporation;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 
@@ -115,22 +115,21 @@ public class Shareholder extends CachedData {
       final long time,
       final int shareholderID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Shareholder> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                  .getEntityManager()
-                                                                                                  .createNamedQuery(
-                                                                                                      "Shareholder.getByShareholderID",
-                                                                                                      Shareholder.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("holder", shareholderID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Shareholder.class, owner, time, new Object[] {shareholderID}, () -> {
+        TypedQuery<Shareholder> getter = EveKitUserAccountProvider.getFactory()
+                                                                  .getEntityManager()
+                                                                  .createNamedQuery(
+                                                                      "Shareholder.getByShareholderID",
+                                                                      Shareholder.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("holder", shareholderID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -147,39 +146,40 @@ public class Shareholder extends CachedData {
       final AttributeSelector shareholderID,
       final AttributeSelector shareholderType,
       final AttributeSelector shares) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Shareholder c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addIntSelector(qs, "c", "shareholderID", shareholderID);
-                                        AttributeSelector.addStringSelector(qs, "c", "shareholderType", shareholderType,
-                                                                            p);
-                                        AttributeSelector.addLongSelector(qs, "c", "shares", shares);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Shareholder> query = EveKitUserAccountProvider.getFactory()
-                                                                                                 .getEntityManager()
-                                                                                                 .createQuery(
-                                                                                                     qs.toString(),
-                                                                                                     Shareholder.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Shareholder.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(shareholderID, shareholderType, shares));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector shareholderID,
+      final AttributeSelector shareholderType,
+      final AttributeSelector shares) throws IOException {
+    return accessCount(Shareholder.class, owner, at,
+                       accessPredicate(shareholderID, shareholderType, shares));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector shareholderID,
+      final AttributeSelector shareholderType,
+      final AttributeSelector shares) throws IOException {
+    return accessExists(Shareholder.class, owner, at,
+                        accessPredicate(shareholderID, shareholderType, shares));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector shareholderID,
+      final AttributeSelector shareholderType,
+      final AttributeSelector shares) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addIntSelector(qs, "c", "shareholderID", shareholderID);
+      AttributeSelector.addStringSelector(qs, "c", "shareholderType", shareholderType,
+                                          p);
+      AttributeSelector.addLongSelector(qs, "c", "shares", shares);
+    });
   }
 
 }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -322,22 +322,21 @@ public class Starbase extends CachedData {
       final long time,
       final long starbaseID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Starbase> getter = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createNamedQuery(
-                                                                                                   "Starbase.getByItemID",
-                                                                                                   Starbase.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("sb", starbaseID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Starbase.class, owner, time, new Object[] {starbaseID}, () -> {
+        TypedQuery<Starbase> getter = EveKitUserAccountProvider.getFactory()
+                                                               .getEntityManager()
+                                                               .createNamedQuery(
+                                                                   "Starbase.getByItemID",
+                                                                   Starbase.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("sb", starbaseID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -372,63 +371,130 @@ public class Starbase extends CachedData {
       final AttributeSelector attackSecurityStatusThreshold,
       final AttributeSelector attackIfOtherSecurityStatusDropping,
       final AttributeSelector attackIfAtWar) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Starbase c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "starbaseID", starbaseID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addIntSelector(qs, "c", "systemID", systemID);
-                                        AttributeSelector.addIntSelector(qs, "c", "moonID", moonID);
-                                        AttributeSelector.addStringSelector(qs, "c", "state", state, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "unanchorAt", unanchorAt);
-                                        AttributeSelector.addLongSelector(qs, "c", "reinforcedUntil", reinforcedUntil);
-                                        AttributeSelector.addLongSelector(qs, "c", "onlinedSince", onlinedSince);
-                                        AttributeSelector.addStringSelector(qs, "c", "fuelBayView", fuelBayView, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "fuelBayTake", fuelBayTake, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "anchor", anchor, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "unanchor", unanchor, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "online", online, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "offline", offline, p);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "allowCorporationMembers",
-                                                                             allowCorporationMembers);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "allowAllianceMembers",
-                                                                             allowAllianceMembers);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "useAllianceStandings",
-                                                                             useAllianceStandings);
-                                        AttributeSelector.addFloatSelector(qs, "c", "attackStandingThreshold",
-                                                                           attackStandingThreshold);
-                                        AttributeSelector.addFloatSelector(qs, "c", "attackSecurityStatusThreshold",
-                                                                           attackSecurityStatusThreshold);
-                                        AttributeSelector.addBooleanSelector(qs, "c",
-                                                                             "attackIfOtherSecurityStatusDropping",
-                                                                             attackIfOtherSecurityStatusDropping);
-                                        AttributeSelector.addBooleanSelector(qs, "c", "attackIfAtWar", attackIfAtWar);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Starbase> query = EveKitUserAccountProvider.getFactory()
-                                                                                              .getEntityManager()
-                                                                                              .createQuery(
-                                                                                                  qs.toString(),
-                                                                                                  Starbase.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Starbase.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(starbaseID, typeID, systemID, moonID, state, unanchorAt, reinforcedUntil,
+                                       onlinedSince, fuelBayView, fuelBayTake, anchor, unanchor, online, offline,
+                                       allowCorporationMembers, allowAllianceMembers, useAllianceStandings,
+                                       attackStandingThreshold, attackSecurityStatusThreshold,
+                                       attackIfOtherSecurityStatusDropping, attackIfAtWar));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector starbaseID,
+      final AttributeSelector typeID,
+      final AttributeSelector systemID,
+      final AttributeSelector moonID,
+      final AttributeSelector state,
+      final AttributeSelector unanchorAt,
+      final AttributeSelector reinforcedUntil,
+      final AttributeSelector onlinedSince,
+      final AttributeSelector fuelBayView,
+      final AttributeSelector fuelBayTake,
+      final AttributeSelector anchor,
+      final AttributeSelector unanchor,
+      final AttributeSelector online,
+      final AttributeSelector offline,
+      final AttributeSelector allowCorporationMembers,
+      final AttributeSelector allowAllianceMembers,
+      final AttributeSelector useAllianceStandings,
+      final AttributeSelector attackStandingThreshold,
+      final AttributeSelector attackSecurityStatusThreshold,
+      final AttributeSelector attackIfOtherSecurityStatusDropping,
+      final AttributeSelector attackIfAtWar) throws IOException {
+    return accessCount(Starbase.class, owner, at,
+                       accessPredicate(starbaseID, typeID, systemID, moonID, state, unanchorAt, reinforcedUntil,
+                                       onlinedSince, fuelBayView, fuelBayTake, anchor, unanchor, online, offline,
+                                       allowCorporationMembers, allowAllianceMembers, useAllianceStandings,
+                                       attackStandingThreshold, attackSecurityStatusThreshold,
+                                       attackIfOtherSecurityStatusDropping, attackIfAtWar));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector starbaseID,
+      final AttributeSelector typeID,
+      final AttributeSelector systemID,
+      final AttributeSelector moonID,
+      final AttributeSelector state,
+      final AttributeSelector unanchorAt,
+      final AttributeSelector reinforcedUntil,
+      final AttributeSelector onlinedSince,
+      final AttributeSelector fuelBayView,
+      final AttributeSelector fuelBayTake,
+      final AttributeSelector anchor,
+      final AttributeSelector unanchor,
+      final AttributeSelector online,
+      final AttributeSelector offline,
+      final AttributeSelector allowCorporationMembers,
+      final AttributeSelector allowAllianceMembers,
+      final AttributeSelector useAllianceStandings,
+      final AttributeSelector attackStandingThreshold,
+      final AttributeSelector attackSecurityStatusThreshold,
+      final AttributeSelector attackIfOtherSecurityStatusDropping,
+      final AttributeSelector attackIfAtWar) throws IOException {
+    return accessExists(Starbase.class, owner, at,
+                        accessPredicate(starbaseID, typeID, systemID, moonID, state, unanchorAt, reinforcedUntil,
+                                        onlinedSince, fuelBayView, fuelBayTake, anchor, unanchor, online, offline,
+                                        allowCorporationMembers, allowAllianceMembers, useAllianceStandings,
+                                        attackStandingThreshold, attackSecurityStatusThreshold,
+                                        attackIfOtherSecurityStatusDropping, attackIfAtWar));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector starbaseID,
+      final AttributeSelector typeID,
+      final AttributeSelector systemID,
+      final AttributeSelector moonID,
+      final AttributeSelector state,
+      final AttributeSelector unanchorAt,
+      final AttributeSelector reinforcedUntil,
+      final AttributeSelector onlinedSince,
+      final AttributeSelector fuelBayView,
+      final AttributeSelector fuelBayTake,
+      final AttributeSelector anchor,
+      final AttributeSelector unanchor,
+      final AttributeSelector online,
+      final AttributeSelector offline,
+      final AttributeSelector allowCorporationMembers,
+      final AttributeSelector allowAllianceMembers,
+      final AttributeSelector useAllianceStandings,
+      final AttributeSelector attackStandingThreshold,
+      final AttributeSelector attackSecurityStatusThreshold,
+      final AttributeSelector attackIfOtherSecurityStatusDropping,
+      final AttributeSelector attackIfAtWar) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "starbaseID", starbaseID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addIntSelector(qs, "c", "systemID", systemID);
+      AttributeSelector.addIntSelector(qs, "c", "moonID", moonID);
+      AttributeSelector.addStringSelector(qs, "c", "state", state, p);
+      AttributeSelector.addLongSelector(qs, "c", "unanchorAt", unanchorAt);
+      AttributeSelector.addLongSelector(qs, "c", "reinforcedUntil", reinforcedUntil);
+      AttributeSelector.addLongSelector(qs, "c", "onlinedSince", onlinedSince);
+      AttributeSelector.addStringSelector(qs, "c", "fuelBayView", fuelBayView, p);
+      AttributeSelector.addStringSelector(qs, "c", "fuelBayTake", fuelBayTake, p);
+      AttributeSelector.addStringSelector(qs, "c", "anchor", anchor, p);
+      AttributeSelector.addStringSelector(qs, "c", "unanchor", unanchor, p);
+      AttributeSelector.addStringSelector(qs, "c", "online", online, p);
+      AttributeSelector.addStringSelector(qs, "c", "offline", offline, p);
+      AttributeSelector.addBooleanSelector(qs, "c", "allowCorporationMembers",
+                                           allowCorporationMembers);
+      AttributeSelector.addBooleanSelector(qs, "c", "allowAllianceMembers",
+                                           allowAllianceMembers);
+      AttributeSelector.addBooleanSelector(qs, "c", "useAllianceStandings",
+                                           useAllianceStandings);
+      AttributeSelector.addFloatSelector(qs, "c", "attackStandingThreshold",
+                                         attackStandingThreshold);
+      AttributeSelector.addFloatSelector(qs, "c", "attackSecurityStatusThreshold",
+                                         attackSecurityStatusThreshold);
+      AttributeSelector.addBooleanSelector(qs, "c",
+                                           "attackIfOtherSecurityStatusDropping",
+                                           attackIfOtherSecurityStatusDropping);
+      AttributeSelector.addBooleanSelector(qs, "c", "attackIfAtWar", attackIfAtWar);
+    });
   }
 
 }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -288,22 +288,21 @@ public class Structure extends CachedData {
       final long time,
       final long structureID) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<Structure> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                .getEntityManager()
-                                                                                                .createNamedQuery(
-                                                                                                    "Structure.get",
-                                                                                                    Structure.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("sid", structureID);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(Structure.class, owner, time, new Object[] {structureID}, () -> {
+        TypedQuery<Structure> getter = EveKitUserAccountProvider.getFactory()
+                                                                .getEntityManager()
+                                                                .createNamedQuery(
+                                                                    "Structure.get",
+                                                                    Structure.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("sid", structureID);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -332,53 +331,96 @@ public class Structure extends CachedData {
       final AttributeSelector systemID,
       final AttributeSelector typeID,
       final AttributeSelector unanchorsAt) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM Structure c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "structureID", structureID);
-                                        AttributeSelector.addIntSelector(qs, "c", "corporationID", corporationID);
-                                        AttributeSelector.addLongSelector(qs, "c", "fuelExpires", fuelExpires);
-                                        AttributeSelector.addLongSelector(qs, "c", "nextReinforceApply",
-                                                                          nextReinforceApply);
-                                        AttributeSelector.addIntSelector(qs, "c", "nextReinforceHour",
-                                                                         nextReinforceHour);
-                                        AttributeSelector.addIntSelector(qs, "c", "nextReinforceWeekday",
-                                                                         nextReinforceWeekday);
-                                        AttributeSelector.addIntSelector(qs, "c", "profileID", profileID);
-                                        AttributeSelector.addIntSelector(qs, "c", "reinforceHour", reinforceHour);
-                                        AttributeSelector.addIntSelector(qs, "c", "reinforceWeekday", reinforceWeekday);
-                                        AttributeSelector.addStringSelector(qs, "c", "state", state, p);
-                                        AttributeSelector.addLongSelector(qs, "c", "stateTimerEnd", stateTimerEnd);
-                                        AttributeSelector.addLongSelector(qs, "c", "stateTimerStart", stateTimerStart);
-                                        AttributeSelector.addIntSelector(qs, "c", "systemID", systemID);
-                                        AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
-                                        AttributeSelector.addLongSelector(qs, "c", "unanchorsAt", unanchorsAt);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<Structure> query = EveKitUserAccountProvider.getFactory()
-                                                                                               .getEntityManager()
-                                                                                               .createQuery(
-                                                                                                   qs.toString(),
-                                                                                                   Structure.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(Structure.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(structureID, corporationID, fuelExpires, nextReinforceApply, nextReinforceHour,
+                                       nextReinforceWeekday, profileID, reinforceHour, reinforceWeekday, state,
+                                       stateTimerEnd, stateTimerStart, systemID, typeID, unanchorsAt));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector structureID,
+      final AttributeSelector corporationID,
+      final AttributeSelector fuelExpires,
+      final AttributeSelector nextReinforceApply,
+      final AttributeSelector nextReinforceHour,
+      final AttributeSelector nextReinforceWeekday,
+      final AttributeSelector profileID,
+      final AttributeSelector reinforceHour,
+      final AttributeSelector reinforceWeekday,
+      final AttributeSelector state,
+      final AttributeSelector stateTimerEnd,
+      final AttributeSelector stateTimerStart,
+      final AttributeSelector systemID,
+      final AttributeSelector typeID,
+      final AttributeSelector unanchorsAt) throws IOException {
+    return accessCount(Structure.class, owner, at,
+                       accessPredicate(structureID, corporationID, fuelExpires, nextReinforceApply, nextReinforceHour,
+                                       nextReinforceWeekday, profileID, reinforceHour, reinforceWeekday, state,
+                                       stateTimerEnd, stateTimerStart, systemID, typeID, unanchorsAt));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector structureID,
+      final AttributeSelector corporationID,
+      final AttributeSelector fuelExpires,
+      final AttributeSelector nextReinforceApply,
+      final AttributeSelector nextReinforceHour,
+      final AttributeSelector nextReinforceWeekday,
+      final AttributeSelector profileID,
+      final AttributeSelector reinforceHour,
+      final AttributeSelector reinforceWeekday,
+      final AttributeSelector state,
+      final AttributeSelector stateTimerEnd,
+      final AttributeSelector stateTimerStart,
+      final AttributeSelector systemID,
+      final AttributeSelector typeID,
+      final AttributeSelector unanchorsAt) throws IOException {
+    return accessExists(Structure.class, owner, at,
+                        accessPredicate(structureID, corporationID, fuelExpires, nextReinforceApply, nextReinforceHour,
+                                        nextReinforceWeekday, profileID, reinforceHour, reinforceWeekday, state,
+                                        stateTimerEnd, stateTimerStart, systemID, typeID, unanchorsAt));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector structureID,
+      final AttributeSelector corporationID,
+      final AttributeSelector fuelExpires,
+      final AttributeSelector nextReinforceApply,
+      final AttributeSelector nextReinforceHour,
+      final AttributeSelector nextReinforceWeekday,
+      final AttributeSelector profileID,
+      final AttributeSelector reinforceHour,
+      final AttributeSelector reinforceWeekday,
+      final AttributeSelector state,
+      final AttributeSelector stateTimerEnd,
+      final AttributeSelector stateTimerStart,
+      final AttributeSelector systemID,
+      final AttributeSelector typeID,
+      final AttributeSelector unanchorsAt) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "structureID", structureID);
+      AttributeSelector.addIntSelector(qs, "c", "corporationID", corporationID);
+      AttributeSelector.addLongSelector(qs, "c", "fuelExpires", fuelExpires);
+      AttributeSelector.addLongSelector(qs, "c", "nextReinforceApply",
+                                        nextReinforceApply);
+      AttributeSelector.addIntSelector(qs, "c", "nextReinforceHour",
+                                       nextReinforceHour);
+      AttributeSelector.addIntSelector(qs, "c", "nextReinforceWeekday",
+                                       nextReinforceWeekday);
+      AttributeSelector.addIntSelector(qs, "c", "profileID", profileID);
+      AttributeSelector.addIntSelector(qs, "c", "reinforceHour", reinforceHour);
+      AttributeSelector.addIntSelector(qs, "c", "reinforceWeekday", reinforceWeekday);
+      AttributeSelector.addStringSelector(qs, "c", "state", state, p);
+      AttributeSelector.addLongSelector(qs, "c", "stateTimerEnd", stateTimerEnd);
+      AttributeSelector.addLongSelector(qs, "c", "stateTimerStart", stateTimerStart);
+      AttributeSelector.addIntSelector(qs, "c", "systemID", systemID);
+      AttributeSelector.addIntSelector(qs, "c", "typeID", typeID);
+      AttributeSelector.addLongSelector(qs, "c", "unanchorsAt", unanchorsAt);
+    });
   }
 
 }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import enterprises.orbital.evekit.account.AccountAccessMask;
 import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
 import enterprises.orbital.evekit.account.SynchronizedEveAccount;
-import enterprises.orbital.evekit.model.AttributeParameters;
+import enterprises.orbital.evekit.model.AccessPredicate;
 import enterprises.orbital.evekit.model.AttributeSelector;
 import enterprises.orbital.evekit.model.CachedData;
 import io.swagger.annotations.ApiModelProperty;
@@ -120,23 +120,22 @@ public class StructureService extends CachedData {
       final long structureID,
       final String name) throws IOException {
     try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        TypedQuery<StructureService> getter = EveKitUserAccountProvider.getFactory()
-                                                                                                       .getEntityManager()
-                                                                                                       .createNamedQuery(
-                                                                                                    "StructureService.get",
-                                                                                                    StructureService.class);
-                                        getter.setParameter("owner", owner);
-                                        getter.setParameter("sid", structureID);
-                                        getter.setParameter("name", name);
-                                        getter.setParameter("point", time);
-                                        try {
-                                          return getter.getSingleResult();
-                                        } catch (NoResultException e) {
-                                          return null;
-                                        }
-                                      });
+      return CachedData.runHistorical(StructureService.class, owner, time, new Object[] {structureID, name}, () -> {
+        TypedQuery<StructureService> getter = EveKitUserAccountProvider.getFactory()
+                                                                       .getEntityManager()
+                                                                       .createNamedQuery(
+                                                                    "StructureService.get",
+                                                                    StructureService.class);
+        getter.setParameter("owner", owner);
+        getter.setParameter("sid", structureID);
+        getter.setParameter("name", name);
+        getter.setParameter("point", time);
+        try {
+          return getter.getSingleResult();
+        } catch (NoResultException e) {
+          return null;
+        }
+      });
     } catch (Exception e) {
       if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
       log.log(Level.SEVERE, "query error", e);
@@ -153,38 +152,39 @@ public class StructureService extends CachedData {
       final AttributeSelector structureID,
       final AttributeSelector name,
       final AttributeSelector state) throws IOException {
-    try {
-      return EveKitUserAccountProvider.getFactory()
-                                      .runTransaction(() -> {
-                                        StringBuilder qs = new StringBuilder();
-                                        qs.append("SELECT c FROM StructureService c WHERE ");
-                                        // Constrain to specified owner
-                                        qs.append("c.owner = :owner");
-                                        // Constrain lifeline
-                                        AttributeSelector.addLifelineSelector(qs, "c", at);
-                                        // Constrain attributes
-                                        AttributeParameters p = new AttributeParameters("att");
-                                        AttributeSelector.addLongSelector(qs, "c", "structureID", structureID);
-                                        AttributeSelector.addStringSelector(qs, "c", "name", name, p);
-                                        AttributeSelector.addStringSelector(qs, "c", "name", state, p);
-                                        // Set CID constraint and ordering
-                                        setCIDOrdering(qs, contid, reverse);
-                                        // Return result
-                                        TypedQuery<StructureService> query = EveKitUserAccountProvider.getFactory()
-                                                                                                      .getEntityManager()
-                                                                                                      .createQuery(
-                                                                                                   qs.toString(),
-                                                                                                   StructureService.class);
-                                        query.setParameter("owner", owner);
-                                        p.fillParams(query);
-                                        query.setMaxResults(maxresults);
-                                        return query.getResultList();
-                                      });
-    } catch (Exception e) {
-      if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
-      log.log(Level.SEVERE, "query error", e);
-      throw new IOException(e.getCause());
-    }
+    return accessQuery(StructureService.class, owner, contid, maxresults, reverse, at,
+                       accessPredicate(structureID, name, state));
+  }
+
+  public static long accessCount(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector structureID,
+      final AttributeSelector name,
+      final AttributeSelector state) throws IOException {
+    return accessCount(StructureService.class, owner, at,
+                       accessPredicate(structureID, name, state));
+  }
+
+  public static boolean accessExists(
+      final SynchronizedEveAccount owner,
+      final AttributeSelector at,
+      final AttributeSelector structureID,
+      final AttributeSelector name,
+      final AttributeSelector state) throws IOException {
+    return accessExists(StructureService.class, owner, at,
+                        accessPredicate(structureID, name, state));
+  }
+
+  public static AccessPredicate accessPredicate(
+      final AttributeSelector structureID,
+      final AttributeSelector name,
+      final AttributeSelector state) {
+    return AccessPredicate.of((qs, p) -> {
+      AttributeSelector.addLongSelector(qs, "c", "structureID", structureID);
+      AttributeSelector.addStringSelector(qs, "c", "name", name, p);
+      AttributeSelector.addStringSelector(qs, "c", "name", state, p);
+    });
   }
 
 }
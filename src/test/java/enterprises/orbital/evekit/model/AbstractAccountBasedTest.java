@@ -28,6 +28,8 @@ public abstract class AbstractAccountBasedTest {
     testAccount = SynchronizedEveAccount.createSynchronizedEveAccount(userAccount, "testaccount", true);
     otherAccount = SynchronizedEveAccount.createSynchronizedEveAccount(userAccount, "otheraccount", true);
     testAccount2 = SynchronizedEveAccount.createSynchronizedEveAccount(userAccount2, "testaccount2", true);
+    CachedData.getHistoryCache().clear();
+    CachedData.getResultCache().clear();
   }
 
   @After
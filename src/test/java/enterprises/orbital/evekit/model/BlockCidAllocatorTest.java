@@ -0,0 +1,60 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.TestBase;
+import enterprises.orbital.evekit.model.common.Asset;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+public class BlockCidAllocatorTest extends AbstractAccountBasedTest {
+
+  @Test
+  public void testSeedFromExistingData() throws Exception {
+    Asset existing = new Asset(TestBase.getUniqueRandomLong(), 1L, "locationType", "locationFlag", 1, 1, false,
+                               "blueprintType", false);
+    existing.setup(testAccount, 8675L);
+    existing = CachedData.update(existing);
+
+    // A new allocator must start above every existing ID
+    BlockCidAllocator cut = new BlockCidAllocator(TestBase.getRandomText(30), 10);
+    long first = cut.allocate();
+    Assert.assertTrue(first > existing.getCid());
+    Assert.assertTrue(first >= BlockCidAllocator.INITIAL_VALUE);
+    for (int i = 1; i < 25; i++)
+      Assert.assertEquals(first + i, cut.allocate());
+  }
+
+  @Test
+  public void testConcurrentAllocators() throws Exception {
+    // Several allocators sharing one name simulate multiple processes sharing a database.  IDs
+    // must be unique across all allocators and threads.
+    final String name = TestBase.getRandomText(30);
+    final int nodes = 4;
+    final int threads = 16;
+    final int perThread = 500;
+    final List<BlockCidAllocator> allocators = new ArrayList<>();
+    for (int i = 0; i < nodes; i++)
+      allocators.add(new BlockCidAllocator(name, TestBase.getRandomInt(20) + 1));
+    final Set<Long> allocated = ConcurrentHashMap.newKeySet();
+    ExecutorService exec = Executors.newFixedThreadPool(threads);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      final CidAllocator source = allocators.get(i % nodes);
+      results.add(exec.submit(() -> {
+        int duplicates = 0;
+        for (int j = 0; j < perThread; j++)
+          if (!allocated.add(source.allocate())) duplicates++;
+        return duplicates;
+      }));
+    }
+    for (Future<Integer> next : results)
+      Assert.assertEquals(0, (int) next.get());
+    exec.shutdown();
+    Assert.assertEquals(threads * perThread, allocated.size());
+  }
+
+}
@@ -0,0 +1,755 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.db.ConnectionFactory;
+import enterprises.orbital.evekit.TestBase;
+import enterprises.orbital.evekit.account.EveKitUserAccountProvider;
+import enterprises.orbital.evekit.account.SynchronizedEveAccount;
+import enterprises.orbital.evekit.model.character.CharacterMailMessage;
+import enterprises.orbital.evekit.model.character.CharacterSkill;
+import enterprises.orbital.evekit.model.character.MailMessageRecipient;
+import enterprises.orbital.evekit.model.character.PlanetaryPin;
+import enterprises.orbital.evekit.model.character.PlanetaryPinContent;
+import enterprises.orbital.evekit.model.character.PlanetaryPinHead;
+import enterprises.orbital.evekit.model.character.PlanetaryRoute;
+import enterprises.orbital.evekit.model.common.Asset;
+import enterprises.orbital.evekit.model.common.Contact;
+import enterprises.orbital.evekit.model.common.MarketOrder;
+import enterprises.orbital.evekit.model.common.WalletJournal;
+import enterprises.orbital.evekit.model.corporation.MemberTracking;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.EntityType;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Throughput benchmarks for model write and read paths against the test persistence unit.  These
+ * take a long time to run and are therefore skipped unless the system property
+ * "enterprises.orbital.evekit.model.unittest.benchmark" is set to true.  Batch sizes can be adjusted with
+ * the system property "enterprises.orbital.evekit.model.unittest.benchmark.sizes" (a comma separated list).
+ * Reconciliation benchmarks use the size set by "enterprises.orbital.evekit.model.unittest.benchmark.reconcile".
+ */
+public class CachedDataBenchmarkTest extends AbstractAccountBasedTest {
+
+  private static boolean skip() {
+    return !Boolean.valueOf(System.getProperty("enterprises.orbital.evekit.model.unittest.benchmark", "false"));
+  }
+
+  private static int[] sizes() {
+    String[] raw = System.getProperty("enterprises.orbital.evekit.model.unittest.benchmark.sizes",
+                                      "10000,100000,1000000")
+                         .split(",");
+    int[] result = new int[raw.length];
+    for (int i = 0; i < raw.length; i++) result[i] = Integer.parseInt(raw[i].trim());
+    return result;
+  }
+
+  private static void report(String name, long rows, long elapsedNanos) {
+    double seconds = elapsedNanos / 1.0e9;
+    System.out.println(String.format("%-40s %10d rows %10.2f s %12.1f rows/sec", name, rows, seconds,
+                                     rows / Math.max(seconds, 1.0e-9)));
+  }
+
+  private Asset makeAsset(long time) {
+    Asset next = new Asset(TestBase.getUniqueRandomLong(), TestBase.getRandomLong(), TestBase.getRandomText(50),
+                           TestBase.getRandomText(50), TestBase.getRandomInt(), TestBase.getRandomInt(),
+                           TestBase.getRandomBoolean(), TestBase.getRandomText(50), TestBase.getRandomBoolean());
+    next.setup(testAccount, time);
+    return next;
+  }
+
+  private WalletJournal makeJournal(long time) {
+    WalletJournal next = new WalletJournal(TestBase.getRandomInt(), TestBase.getUniqueRandomLong(),
+                                           TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                           TestBase.getRandomInt(), TestBase.getRandomInt(),
+                                           TestBase.getRandomText(50), TestBase.getRandomLong(),
+                                           TestBase.getRandomBigDecimal(100000000),
+                                           TestBase.getRandomBigDecimal(100000000), TestBase.getRandomText(50),
+                                           TestBase.getRandomInt(), TestBase.getRandomBigDecimal(100000000),
+                                           TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                           TestBase.getRandomText(50));
+    next.setup(testAccount, time);
+    return next;
+  }
+
+  private void benchmarkUpdate(String name, int size, Supplier<? extends CachedData> maker) throws IOException {
+    // Per-row update for comparison, limited to the smallest batch as it is very slow
+    if (size <= 10000) {
+      List<CachedData> rows = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) rows.add(maker.get());
+      long start = System.nanoTime();
+      for (CachedData next : rows) CachedData.update(next);
+      report(name + " update", size, System.nanoTime() - start);
+    }
+    // Batched streaming update
+    long start = System.nanoTime();
+    long written = CachedData.updateAll(Stream.generate(maker)
+                                              .limit(size), null);
+    report(name + " updateAll", written, System.nanoTime() - start);
+  }
+
+  @Test
+  public void benchmarkUpdateAll() throws IOException {
+    if (skip()) return;
+    for (int size : sizes()) {
+      benchmarkUpdate("Asset", size, () -> makeAsset(8675L));
+      benchmarkUpdate("WalletJournal", size, () -> makeJournal(8675L));
+    }
+  }
+
+  private PlanetaryPin makePin(long time) {
+    PlanetaryPin next = new PlanetaryPin(TestBase.getRandomInt(), TestBase.getUniqueRandomLong(),
+                                         TestBase.getRandomInt(), TestBase.getRandomInt(), TestBase.getRandomLong(),
+                                         TestBase.getRandomInt(), TestBase.getRandomInt(), TestBase.getRandomLong(),
+                                         TestBase.getRandomLong(), TestBase.getRandomInt(),
+                                         TestBase.getRandomFloat(50), TestBase.getRandomFloat(50),
+                                         TestBase.getRandomFloat(50), new HashSet<>(), new HashSet<>());
+    for (int i = 0; i < 5; i++) {
+      next.getHeads()
+          .add(new PlanetaryPinHead(i, TestBase.getRandomFloat(100), TestBase.getRandomFloat(100)));
+      next.getContents()
+          .add(new PlanetaryPinContent(i, TestBase.getRandomLong()));
+    }
+    next.setup(testAccount, time);
+    return next;
+  }
+
+  // Per-row cost of merge based updates against the persist only insert path
+  private void benchmarkInsert(String name, int size, Supplier<? extends CachedData> maker) throws IOException {
+    List<CachedData> rows = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) rows.add(maker.get());
+    long start = System.nanoTime();
+    CachedData.updateAll(rows);
+    report(name + " updateAll", size, System.nanoTime() - start);
+    rows.clear();
+    for (int i = 0; i < size; i++) rows.add(maker.get());
+    start = System.nanoTime();
+    CachedData.insertAll(rows);
+    report(name + " insertAll", size, System.nanoTime() - start);
+  }
+
+  @Test
+  public void benchmarkInsertAll() throws IOException {
+    if (skip()) return;
+    for (int size : sizes()) {
+      benchmarkInsert("Asset (no collections)", size, () -> makeAsset(8675L));
+      benchmarkInsert("Contact (1 collection)", size, () -> {
+        Contact next = new Contact("character", TestBase.getUniqueRandomInteger(), 1.0F, "contactType", false,
+                                   false, new HashSet<>(Collections.singleton(TestBase.getRandomLong())));
+        next.setup(testAccount, 8675L);
+        return next;
+      });
+      benchmarkInsert("PlanetaryPin (2 collections)", size, () -> makePin(8675L));
+    }
+  }
+
+  @Test
+  public void benchmarkParallelStream() throws IOException {
+    if (skip()) return;
+    final AttributeSelector any = AttributeSelector.any();
+    CachedData.QueryCaller<Asset> query = (contid, at) -> Asset.accessQuery(testAccount, contid, 1000, false, at,
+                                                                            any, any, any, any, any, any, any, any,
+                                                                            any);
+    long stored = 0;
+    for (int size : sizes()) {
+      stored += CachedData.insertAll(Stream.generate(() -> makeAsset(8675L))
+                                           .limit(Math.max(0, size - stored))
+                                           .collect(Collectors.toList()))
+                          .size();
+      long start = System.nanoTime();
+      long count = CachedData.stream(8675L, query, true, null)
+                             .count();
+      report("Asset sequential stream", count, System.nanoTime() - start);
+      start = System.nanoTime();
+      count = CachedData.parallelStream(testAccount, Asset.class, 8675L, query, true, null)
+                        .count();
+      report("Asset parallel stream", count, System.nanoTime() - start);
+      StreamStats stats = new StreamStats();
+      start = System.nanoTime();
+      count = CachedData.retrieveAll(8675L, (contid, max, at) -> Asset.accessQuery(testAccount, contid, max, false,
+                                                                                   at, any, any, any, any, any, any,
+                                                                                   any, any, any), stats)
+                        .size();
+      report("Asset prefetch retrieveAll", count, System.nanoTime() - start);
+      System.out.println(stats);
+    }
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  // Load every row of a type with full entities and with a projection, reporting throughput and retained
+  // heap per row for each.
+  private <A extends CachedData> void benchmarkProjection(String name, Class<A> type, AccessPredicate predicate,
+                                                          String... fields) throws IOException {
+    final AttributeSelector at = AttributeSelector.values(8675L);
+    long baseHeap = usedHeap();
+    long start = System.nanoTime();
+    List<A> entities = CachedData.retrieveAll(8675L, (contid, ats) -> CachedData.accessQuery(type, testAccount,
+                                                                                             contid, 1000, false, at,
+                                                                                             predicate));
+    report(name + " entities", entities.size(), System.nanoTime() - start);
+    System.out.println(String.format("%-40s %10.1f bytes/row", name + " entities",
+                                     (usedHeap() - baseHeap) / (double) Math.max(1, entities.size())));
+    entities = null;
+
+    baseHeap = usedHeap();
+    start = System.nanoTime();
+    List<Projection> rows = new ArrayList<>();
+    List<Projection> page;
+    long contid = -1;
+    do {
+      page = CachedData.accessProjection(type, testAccount, contid, 1000, false, at, predicate, fields);
+      rows.addAll(page);
+      if (!page.isEmpty()) contid = page.get(page.size() - 1)
+                                        .getCid();
+    } while (!page.isEmpty());
+    report(name + " projection", rows.size(), System.nanoTime() - start);
+    System.out.println(String.format("%-40s %10.1f bytes/row", name + " projection",
+                                     (usedHeap() - baseHeap) / (double) Math.max(1, rows.size())));
+  }
+
+  @Test
+  public void benchmarkProjection() throws IOException {
+    if (skip()) return;
+    final AttributeSelector any = AttributeSelector.any();
+    int size = sizes()[0];
+    CachedData.insertAll(Stream.generate(() -> makeAsset(8675L))
+                               .limit(size)
+                               .collect(Collectors.toList()));
+    CachedData.insertAll(Stream.generate(() -> {
+      CharacterMailMessage next = new CharacterMailMessage(TestBase.getUniqueRandomLong(), TestBase.getRandomInt(),
+                                                           TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                                           false, new HashSet<>(Collections.singleton(1)),
+                                                           new HashSet<>(Collections.singleton(
+                                                               new MailMessageRecipient("character", 1))),
+                                                           TestBase.getRandomText(4000));
+      next.setup(testAccount, 8675L);
+      return next;
+    })
+                               .limit(size)
+                               .collect(Collectors.toList()));
+    benchmarkProjection("Asset", Asset.class, Asset.accessPredicate(any, any, any, any, any, any, any, any, any),
+                        "itemID", "locationID", "typeID", "quantity");
+    benchmarkProjection("CharacterMailMessage", CharacterMailMessage.class,
+                        CharacterMailMessage.accessPredicate(any, any, any, any, any, any, any, any, any),
+                        "messageID", "senderID", "sentDate", "title", "msgRead");
+  }
+
+  // Read every row of a type in pages of 1000, reporting throughput and statements issued per page
+  private <A extends CachedData> void benchmarkCollections(String name, Class<A> type, AccessPredicate predicate,
+                                                           int size, IntFunction<A> maker) throws Exception {
+    CachedData.insertAll(IntStream.range(0, size)
+                                  .mapToObj(maker)
+                                  .collect(Collectors.toList()));
+    final AttributeSelector at = AttributeSelector.values(8675L);
+    Statistics stats = CachedDataTest.statistics();
+    boolean enabled = stats.isStatisticsEnabled();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    long pages = 0;
+    long rows = 0;
+    long start = System.nanoTime();
+    try {
+      List<A> page;
+      long contid = -1;
+      do {
+        page = CachedData.accessQuery(type, testAccount, contid, 1000, false, at, predicate);
+        pages++;
+        rows += page.size();
+        if (!page.isEmpty()) contid = page.get(page.size() - 1)
+                                          .getCid();
+      } while (!page.isEmpty());
+      report(name + " pages", rows, System.nanoTime() - start);
+      System.out.println(String.format("%-40s %10.1f statements/page", name + " pages",
+                                       stats.getPrepareStatementCount() / (double) pages));
+    } finally {
+      stats.setStatisticsEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void benchmarkCollectionLoading() throws Exception {
+    if (skip()) return;
+    final AttributeSelector any = AttributeSelector.any();
+    int size = sizes()[0];
+    benchmarkCollections("Contact", Contact.class, Contact.accessPredicate(any, any, any, any, any, any, any), size,
+                         i -> {
+                           Contact next = new Contact("character", TestBase.getUniqueRandomInteger(), 1.0F,
+                                                      "contactType", false, false,
+                                                      new HashSet<>(Arrays.asList(1L, 2L, 3L)));
+                           next.setup(testAccount, 8675L);
+                           return next;
+                         });
+    benchmarkCollections("CharacterMailMessage", CharacterMailMessage.class,
+                         CharacterMailMessage.accessPredicate(any, any, any, any, any, any, any, any, any), size,
+                         i -> {
+                           CharacterMailMessage next = new CharacterMailMessage(
+                               TestBase.getUniqueRandomLong(), TestBase.getRandomInt(), TestBase.getRandomLong(),
+                               TestBase.getRandomText(50), false, new HashSet<>(Arrays.asList(1, 2, 3)),
+                               new HashSet<>(Arrays.asList(new MailMessageRecipient("character", 1),
+                                                           new MailMessageRecipient("character", 2))),
+                               TestBase.getRandomText(50));
+                           next.setup(testAccount, 8675L);
+                           return next;
+                         });
+    benchmarkCollections("PlanetaryPin", PlanetaryPin.class,
+                         PlanetaryPin.accessPredicate(any, any, any, any, any, any, any, any, any, any, any, any,
+                                                      any, any, any, any, any, any), size, i -> makePin(8675L));
+    benchmarkCollections("PlanetaryRoute", PlanetaryRoute.class,
+                         PlanetaryRoute.accessPredicate(any, any, any, any, any, any, any), size,
+                         i -> {
+                           PlanetaryRoute next = new PlanetaryRoute(
+                               TestBase.getRandomInt(), TestBase.getUniqueRandomLong(), TestBase.getRandomLong(),
+                               TestBase.getRandomLong(), TestBase.getRandomInt(), TestBase.getRandomFloat(100),
+                               new ArrayList<>(Arrays.asList(1L, 2L, 3L)));
+                           next.setup(testAccount, 8675L);
+                           return next;
+                         });
+  }
+
+  @Test
+  public void benchmarkAccessPaging() throws IOException {
+    if (skip()) return;
+    final AttributeSelector any = AttributeSelector.any();
+    int size = sizes()[0];
+    CachedData.insertAll(Stream.generate(() -> makeJournal(8675L))
+                               .limit(size)
+                               .collect(Collectors.toList()));
+    // Repeated paging with small pages, so statement preparation is a large part of the cost of each page
+    for (int round = 0; round < 5; round++) {
+      long start = System.nanoTime();
+      long count = CachedData.retrieveAll(8675L, (contid, at) -> WalletJournal.accessQuery(
+          testAccount, contid, 100, false, at, any, any, any, any, any, any, any, any, any, any, any, any, any, any,
+          any, any))
+                             .size();
+      report("WalletJournal paging round " + round, count, System.nanoTime() - start);
+    }
+  }
+
+  // Load one large page in a read-write and a read-only transaction, reporting throughput and the heap held by the
+  // persistence context (entities plus dirty checking snapshots) at the end of the query
+  @Test
+  public void benchmarkReadOnlyQueries() throws Exception {
+    if (skip()) return;
+    int size = sizes()[0];
+    CachedData.insertAll(Stream.generate(() -> makeJournal(8675L))
+                               .limit(size)
+                               .collect(Collectors.toList()));
+    final String jpql = "SELECT c FROM WalletJournal c WHERE c.owner = :owner ORDER BY c.cid ASC";
+    for (int round = 0; round < 3; round++) {
+      for (boolean readOnly : new boolean[] {false, true}) {
+        final long[] heap = new long[2];
+        ConnectionFactory.RunInTransaction<List<WalletJournal>> query = () -> {
+          heap[0] = usedHeap();
+          List<WalletJournal> result = EveKitUserAccountProvider.getFactory()
+                                                                .getEntityManager()
+                                                                .createQuery(jpql, WalletJournal.class)
+                                                                .setParameter("owner", testAccount)
+                                                                .getResultList();
+          heap[1] = usedHeap();
+          return result;
+        };
+        long start = System.nanoTime();
+        List<WalletJournal> rows = readOnly ? CachedData.runReadOnly(query) : EveKitUserAccountProvider.getFactory()
+                                                                                                       .runTransaction(
+                                                                                                           query);
+        String name = "WalletJournal page " + (readOnly ? "read-only" : "read-write");
+        report(name, rows.size(), System.nanoTime() - start);
+        System.out.println(String.format("%-40s %10.1f bytes/row", name,
+                                         (heap[1] - heap[0]) / (double) Math.max(1, rows.size())));
+      }
+    }
+  }
+
+  // All model types in the given model sub-packages, e.g. "character"
+  private static List<Class<? extends CachedData>> typesIn(String... packages) {
+    List<Class<? extends CachedData>> result = new ArrayList<>();
+    for (EntityType<?> next : EveKitUserAccountProvider.getFactory()
+                                                       .getEntityManager()
+                                                       .getMetamodel()
+                                                       .getEntities()) {
+      Class<?> type = next.getJavaType();
+      if (!CachedData.class.isAssignableFrom(type)) continue;
+      for (String pkg : packages)
+        if (Objects.equals(type.getPackage()
+                               .getName(), CachedData.class.getPackage()
+                                                           .getName() + "." + pkg))
+          result.add(type.asSubclass(CachedData.class));
+    }
+    return result;
+  }
+
+  private static <A extends CachedData> List<A> owned(SynchronizedEveAccount owner, int size, Supplier<A> maker) {
+    return Stream.generate(() -> {
+      A next = maker.get();
+      next.setup(owner, 8675L);
+      return next;
+    })
+                 .limit(size)
+                 .collect(Collectors.toList());
+  }
+
+  // Compare reading each type in its own transaction, one after another, with a consistent snapshot and a
+  // concurrent snapshot
+  private void benchmarkSnapshot(String name, SynchronizedEveAccount owner,
+                                 List<Class<? extends CachedData>> types) throws IOException {
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      long rows = 0;
+      for (Class<? extends CachedData> next : types)
+        rows += CachedData.snapshot(owner, 8675L, Collections.singletonList(next))
+                          .size();
+      report(name + " per type " + types.size() + " types", rows, System.nanoTime() - start);
+      start = System.nanoTime();
+      rows = CachedData.snapshot(owner, 8675L, types, true)
+                       .size();
+      report(name + " consistent snapshot", rows, System.nanoTime() - start);
+      start = System.nanoTime();
+      rows = CachedData.snapshot(owner, 8675L, types)
+                       .size();
+      report(name + " concurrent snapshot", rows, System.nanoTime() - start);
+    }
+  }
+
+  @Test
+  public void benchmarkSnapshot() throws IOException {
+    if (skip()) return;
+    int size = sizes()[0];
+    // Character: many assets and journal entries, fewer orders and skills
+    CachedData.insertAll(owned(testAccount, size, () -> makeAsset(8675L)));
+    CachedData.insertAll(owned(testAccount, size, () -> makeJournal(8675L)));
+    CachedData.insertAll(owned(testAccount, size / 10, () -> new MarketOrder(
+        TestBase.getUniqueRandomLong(), 1, false, 1L, 1, BigDecimal.ONE, 1L, 1, 1, "open", BigDecimal.ONE,
+        "station", 1, 10, 10, 1, 1L, false)));
+    CachedData.insertAll(owned(testAccount, 500, () -> new CharacterSkill(TestBase.getUniqueRandomInteger(), 5,
+                                                                          256000L, 5)));
+    benchmarkSnapshot("Character", testAccount, typesIn("character", "common"));
+    // Corporation: many assets and members
+    CachedData.insertAll(owned(otherAccount, size, () -> makeAsset(8675L)));
+    CachedData.insertAll(owned(otherAccount, size / 10, () -> new MemberTracking(TestBase.getUniqueRandomInteger(),
+                                                                                 1, 1L, 1L, 1L, 1, 1L)));
+    benchmarkSnapshot("Corporation", otherAccount, typesIn("corporation", "common"));
+  }
+
+  private static int reconcileSize() {
+    return Integer.parseInt(System.getProperty("enterprises.orbital.evekit.model.unittest.benchmark.reconcile",
+                                               "100000"));
+  }
+
+  // Seed "size" live objects, then reconcile an incoming set in which 5% of the live objects are missing,
+  // 10% are changed and 5% are new.
+  private <A extends CachedData, K> void benchmarkReconcile(String name, int size, IntFunction<A> maker,
+                                                            IntFunction<A> changer, CachedData.QueryCaller<A> query,
+                                                            Function<? super A, ? extends K> key)
+      throws IOException {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long start = System.nanoTime();
+    long seeded = CachedData.updateAll(IntStream.range(0, size)
+                                                .mapToObj(i -> {
+                                                  A next = maker.apply(i);
+                                                  next.setup(testAccount, t1);
+                                                  return next;
+                                                }), null);
+    report(name + " seed", seeded, System.nanoTime() - start);
+
+    List<A> incoming = new ArrayList<>(size);
+    for (int i = 0; i < size + size / 20; i++) {
+      if (i < size && i % 20 == 0) continue;
+      incoming.add(i < size && i % 10 == 1 ? changer.apply(i) : maker.apply(i));
+    }
+    ModelReconciler<A, K> reconciler = new ModelReconciler<>(query, key, true);
+    start = System.nanoTime();
+    ModelReconciler.Result<A> result = reconciler.classify(t2, incoming);
+    report(name + " classify", incoming.size(), System.nanoTime() - start);
+    start = System.nanoTime();
+    reconciler.apply(testAccount, t2, result);
+    report(name + " apply " + result, incoming.size(), System.nanoTime() - start);
+  }
+
+  @Test
+  public void benchmarkReconcile() throws IOException {
+    if (skip()) return;
+    int size = reconcileSize();
+    final long base = TestBase.getUniqueRandomLong();
+    final AttributeSelector any = AttributeSelector.any();
+    benchmarkReconcile("Asset", size,
+                       i -> new Asset(base + i, 1L, "locationType", "locationFlag", 1, 1, false, "blueprintType",
+                                      false),
+                       i -> new Asset(base + i, 2L, "locationType", "locationFlag", 1, 1, false, "blueprintType",
+                                      false),
+                       (contid, at) -> Asset.accessQuery(testAccount, contid, 1000, false, at, any, any, any, any, any,
+                                                         any, any, any, any),
+                       Asset::getItemID);
+    benchmarkReconcile("MarketOrder", size,
+                       i -> new MarketOrder(base + i, 1, false, 1L, 1, BigDecimal.ONE, 1L, 1, 1, "open",
+                                            BigDecimal.ONE, "station", 1, 10, 10, 1, 1L, false),
+                       i -> new MarketOrder(base + i, 1, false, 1L, 1, BigDecimal.ONE, 1L, 1, 1, "open",
+                                            BigDecimal.ONE, "station", 1, 10, 5, 1, 1L, false),
+                       (contid, at) -> MarketOrder.accessQuery(testAccount, contid, 1000, false, at, any, any, any,
+                                                               any, any, any, any, any, any, any, any, any, any, any,
+                                                               any, any, any, any),
+                       MarketOrder::getOrderID);
+    benchmarkReconcile("MemberTracking", size,
+                       i -> new MemberTracking(i, 1, 1L, 1L, 1L, 1, 1L),
+                       i -> new MemberTracking(i, 1, 2L, 1L, 1L, 1, 1L),
+                       (contid, at) -> MemberTracking.accessQuery(testAccount, contid, 1000, false, at, any, any,
+                                                                  any, any, any, any, any),
+                       MemberTracking::getCharacterID);
+    benchmarkReconcile("Contact", size,
+                       i -> new Contact("character", i, 1.0F, "contactType", false, false,
+                                        new HashSet<>(Collections.singleton(1L))),
+                       i -> new Contact("character", i, 2.0F, "contactType", false, false,
+                                        new HashSet<>(Collections.singleton(1L))),
+                       (contid, at) -> Contact.accessQuery(testAccount, contid, 1000, false, at, any, any, any, any,
+                                                           any, any, any),
+                       Contact::getContactID);
+  }
+
+  // Run the given point-in-time query once per parameter, returning the total number of rows found
+  private static <A extends CachedData> long lookups(String jpql, Class<A> type, SynchronizedEveAccount owner,
+                                                     boolean indexed, long time, List<Object[]> params,
+                                                     String... names) throws Exception {
+    return CachedData.runReadOnly(() -> {
+      long found = 0;
+      for (Object[] next : params) {
+        TypedQuery<A> query = EveKitUserAccountProvider.getFactory()
+                                                       .getEntityManager()
+                                                       .createQuery(jpql, type);
+        if (indexed) query.setParameter("aid", owner.getAid());
+        else query.setParameter("owner", owner);
+        query.setParameter("point", time);
+        for (int i = 0; i < names.length; i++) query.setParameter(names[i], next[i]);
+        found += query.getResultList()
+                      .size();
+      }
+      return found;
+    });
+  }
+
+  // Compare the original lifeline predicate on evekit_cached_data with the same predicate on the lifeline copies
+  // of the subclass table.  Use "benchmark.sizes" to run against large tables, e.g. 10000000.
+  @Test
+  public void benchmarkLifelineIndex() throws Exception {
+    if (skip()) return;
+    final int lookupCount = 1000;
+    final String assetBefore = "SELECT c FROM Asset c where c.owner = :owner and c.itemID = :item and " +
+        "c.lifeStart <= :point and c.lifeEnd > :point";
+    final String assetAfter = "SELECT c FROM Asset c where c.indexedAid = :aid and c.itemID = :item and " +
+        "c.indexedEnd > :point and c.indexedStart <= :point";
+    for (int size : sizes()) {
+      // Part of the asset table is history, so live lookups have to skip ended rows
+      List<Object[]> items = new ArrayList<>();
+      CachedData.updateAll(Stream.generate(() -> makeAsset(8675L))
+                                 .limit(size / 2)
+                                 .peek(x -> {
+                                   if (items.size() < lookupCount) items.add(new Object[] {x.getItemID()});
+                                 }), null);
+      CachedData.endOfLife(CachedData.runReadOnly(
+          () -> EveKitUserAccountProvider.getFactory()
+                                         .getEntityManager()
+                                         .createQuery("SELECT c FROM Asset c WHERE c.owner = :owner", Asset.class)
+                                         .setParameter("owner", testAccount)
+                                         .setMaxResults(Math.min(size / 4, 100000))
+                                         .getResultList()), 9999L);
+      for (int round = 0; round < 3; round++) {
+        for (boolean indexed : new boolean[] {false, true}) {
+          String mode = indexed ? " after" : " before";
+          long start = System.nanoTime();
+          lookups(indexed ? assetAfter : assetBefore, Asset.class, testAccount, indexed, 10000L, items, "item");
+          report("Asset.getByItemID " + size + mode, items.size(), System.nanoTime() - start);
+        }
+      }
+    }
+  }
+
+  // Page through every asset of an owner live at the given time, returning the number of assets read
+  private static long pageAssets(SynchronizedEveAccount owner, long time, int pageSize) throws IOException {
+    long found = 0;
+    long contid = Long.MIN_VALUE;
+    List<Asset> page;
+    do {
+      page = Asset.getAllAssets(owner, time, pageSize, contid);
+      found += page.size();
+      if (!page.isEmpty()) contid = page.get(page.size() - 1)
+                                        .getItemID();
+    } while (page.size() == pageSize);
+    return found;
+  }
+
+  // Compare paging through the assets of one account among many with the owner and lifeline filtered on
+  // evekit_cached_data (before backfill) and on the lifeline copies (after backfill).  The natural key alone is
+  // not selective here, since every account owns a slice of the itemID range.  Use "benchmark.sizes" to set the
+  // total number of assets.
+  @Test
+  public void benchmarkLifelinePaging() throws Exception {
+    if (skip()) return;
+    final int accounts = 50;
+    final int pageSize = 100;
+    List<SynchronizedEveAccount> owners = new ArrayList<>();
+    owners.add(testAccount);
+    for (int i = 1; i < accounts; i++)
+      owners.add(SynchronizedEveAccount.createSynchronizedEveAccount(userAccount, "paging" + i, true));
+    for (int size : sizes()) {
+      // Every owner has the same share of assets, and half of the versions of each owner are history
+      for (SynchronizedEveAccount owner : owners) {
+        List<Asset> stored = CachedData.insertAll(Stream.generate(() -> {
+          Asset next = makeAsset(8675L);
+          next.setup(owner, 8675L);
+          return next;
+        })
+                                                        .limit(size / accounts / 2)
+                                                        .collect(Collectors.toList()));
+        CachedData.evolveAll(stored, stored.stream()
+                                           .map(x -> {
+                                             Asset next = makeAsset(9999L);
+                                             next.setup(owner, 9999L);
+                                             return next;
+                                           })
+                                           .collect(Collectors.toList()), 9999L);
+      }
+      for (int round = 0; round < 3; round++) {
+        for (boolean indexed : new boolean[] {false, true}) {
+          EveKitUserAccountProvider.getFactory()
+                                   .runTransaction(() -> {
+                                     EveKitUserAccountProvider.getFactory()
+                                                              .getEntityManager()
+                                                              .createQuery("DELETE FROM LifelineBackfill")
+                                                              .executeUpdate();
+                                   });
+          LifelineIndexedData.clearBackfilled();
+          if (indexed) LifelineIndexedData.backfill(Asset.class);
+          CachedData.getResultCache()
+                    .clear();
+          String mode = indexed ? " after" : " before";
+          long start = System.nanoTime();
+          long found = pageAssets(testAccount, 10000L, pageSize);
+          report("Asset.getAllAssets " + size + mode, found, System.nanoTime() - start);
+        }
+      }
+    }
+  }
+
+  // Print the HSQLDB plan for the given native query
+  private static void explain(String name, String sql) throws Exception {
+    List<?> plan = CachedData.runReadOnly(() -> EveKitUserAccountProvider.getFactory()
+                                                                         .getEntityManager()
+                                                                         .createNativeQuery("EXPLAIN PLAN FOR " + sql)
+                                                                         .getResultList());
+    System.out.println(name + " plan:");
+    for (Object next : plan) System.out.println("  " + next);
+  }
+
+  // Compare "live now" lookups with the lifeline range predicate against the same lookups with an equality match on
+  // lifeEnd.  Use "benchmark.sizes" to run against large tables.
+  @Test
+  public void benchmarkLiveQueries() throws Exception {
+    if (skip()) return;
+    final int lookupCount = 1000;
+    final long now = 20000L;
+    final AttributeSelector any = AttributeSelector.any();
+    final AccessPredicate all = Asset.accessPredicate(any, any, any, any, any, any, any, any, any);
+    for (int size : sizes()) {
+      // Each asset is evolved once, so half of the table is history
+      List<Asset> stored = new ArrayList<>();
+      CachedData.updateAll(Stream.generate(() -> makeAsset(8675L))
+                                 .limit(size / 2)
+                                 .peek(x -> {
+                                   if (stored.size() < lookupCount) stored.add(x);
+                                 }), null);
+      CachedData.evolveAll(stored, stored.stream()
+                                         .map(x -> makeAsset(8675L))
+                                         .collect(Collectors.toList()), 9999L);
+      List<Long> items = stored.stream()
+                               .map(Asset::getItemID)
+                               .collect(Collectors.toList());
+      for (int round = 0; round < 3; round++) {
+        CachedData.getHistoryCache()
+                  .clear();
+        long start = System.nanoTime();
+        for (long next : items) Asset.get(testAccount, now, next);
+        report("Asset.get range " + size, items.size(), System.nanoTime() - start);
+        start = System.nanoTime();
+        for (long next : items) Asset.getLive(testAccount, next);
+        report("Asset.get equality " + size, items.size(), System.nanoTime() - start);
+        start = System.nanoTime();
+        long count = CachedData.retrieveAll(now, (contid, at) -> CachedData.accessQuery(
+            Asset.class, testAccount, contid, 1000, false, AttributeSelector.values(now), all))
+                               .size();
+        report("Asset.accessQuery range " + size, count, System.nanoTime() - start);
+        start = System.nanoTime();
+        count = CachedData.retrieveAll(now, (contid, at) -> CachedData.accessQueryLive(
+            Asset.class, testAccount, contid, 1000, false, all))
+                          .size();
+        report("Asset.accessQuery equality " + size, count, System.nanoTime() - start);
+      }
+    }
+    long aid = testAccount.getAid();
+    explain("natural key range", "SELECT cid FROM evekit_data_asset WHERE aid = " + aid + " AND itemID = 1 AND " +
+        "lifeStart <= " + now + " AND lifeEnd > " + now);
+    explain("natural key equality", "SELECT cid FROM evekit_data_asset WHERE aid = " + aid + " AND itemID = 1 AND " +
+        "lifeEnd = " + Long.MAX_VALUE);
+    explain("owner range", "SELECT cid FROM evekit_cached_data WHERE aid = " + aid + " AND lifeStart <= " + now +
+        " AND lifeEnd > " + now + " AND cid > 0 ORDER BY cid");
+    explain("owner equality", "SELECT cid FROM evekit_cached_data WHERE aid = " + aid + " AND lifeEnd = " +
+        Long.MAX_VALUE + " AND cid > 0 ORDER BY cid");
+  }
+
+  @Test
+  public void benchmarkCidContention() throws Exception {
+    if (skip()) return;
+    // Concurrent writers storing batches of new entities, all drawing IDs from the shared allocator
+    final int perThread = 2000;
+    for (int threads = 1; threads <= 64; threads *= 2) {
+      ExecutorService exec = Executors.newFixedThreadPool(threads);
+      List<Future<Long>> results = new ArrayList<>();
+      long start = System.nanoTime();
+      for (int i = 0; i < threads; i++)
+        results.add(exec.submit(() -> CachedData.updateAll(Stream.generate(() -> makeAsset(8675L))
+                                                                 .limit(perThread), null)));
+      long written = 0;
+      for (Future<Long> next : results) written += next.get();
+      report("CID contention " + threads + " writers", written, System.nanoTime() - start);
+      exec.shutdown();
+    }
+    // Raw allocator throughput, no storage
+    for (int threads = 1; threads <= 64; threads *= 2) {
+      final CidAllocator allocator = CachedData.getCidAllocator();
+      ExecutorService exec = Executors.newFixedThreadPool(threads);
+      List<Future<Long>> results = new ArrayList<>();
+      long start = System.nanoTime();
+      for (int i = 0; i < threads; i++)
+        results.add(exec.submit(() -> {
+          long count = 0;
+          for (int j = 0; j < 100000; j++, count++) allocator.allocate();
+          return count;
+        }));
+      long allocated = 0;
+      for (Future<Long> next : results) allocated += next.get();
+      report("CID allocate " + threads + " threads", allocated, System.nanoTime() - start);
+      exec.shutdown();
+    }
+  }
+
+}
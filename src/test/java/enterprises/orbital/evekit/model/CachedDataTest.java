@@ -6,14 +6,20 @@ import enterprises.orbital.evekit.account.*;
 import enterprises.orbital.evekit.model.character.*;
 import enterprises.orbital.evekit.model.common.*;
 import enterprises.orbital.evekit.model.corporation.*;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class CachedDataTest extends AbstractAccountBasedTest {
 
@@ -78,6 +84,1557 @@ public class CachedDataTest extends AbstractAccountBasedTest {
     Assert.assertEquals(Long.MAX_VALUE, dup.getLifeEnd());
   }
 
+  @Test
+  public void testUpdateAll() throws IOException {
+    // Store a batch large enough to span several flush intervals and verify every element
+    // is assigned an ID, a type map entry and can be retrieved.
+    long testTime = 8675L;
+    int count = CachedData.DEFAULT_FLUSH_INTERVAL * 3 + TestBase.getRandomInt(CachedData.DEFAULT_FLUSH_INTERVAL);
+    List<Asset> batch = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      batch.add(makeAsset(testTime));
+    }
+
+    List<Asset> stored = CachedData.updateAll(batch);
+    Assert.assertEquals(count, stored.size());
+    Set<Long> cids = new HashSet<>();
+    for (int i = 0; i < count; i++) {
+      Asset next = stored.get(i);
+      Assert.assertTrue(next.getCid() > 0);
+      Assert.assertTrue(cids.add(next.getCid()));
+      Assert.assertTrue(batch.get(i)
+                             .equivalent(next));
+      Assert.assertEquals("Asset", ModelTypeMap.retrieveType(next.getCid()));
+      Asset check = Asset.get(testAccount, testTime, next.getItemID());
+      Assert.assertNotNull(check);
+      Assert.assertEquals(next.getCid(), check.getCid());
+    }
+
+    // Updating existing entities through the streaming form should not create new rows
+    stored.forEach(x -> x.evolve(null, testTime + 10));
+    List<Asset> updated = new ArrayList<>();
+    Assert.assertEquals(count, CachedData.updateAll(stored.stream(), updated::add));
+    for (int i = 0; i < count; i++) {
+      Assert.assertEquals(stored.get(i)
+                                .getCid(), updated.get(i)
+                                                  .getCid());
+      Assert.assertEquals(testTime + 10, updated.get(i)
+                                                .getLifeEnd());
+      Assert.assertNull(Asset.get(testAccount, testTime + 10, updated.get(i)
+                                                                     .getItemID()));
+    }
+  }
+
+  @Test
+  public void testInsertAll() throws Exception {
+    long testTime = 8675L;
+    List<CachedData> batch = new ArrayList<>();
+    for (int i = 0; i < CachedData.DEFAULT_FLUSH_INTERVAL + 5; i++) {
+      batch.add(makeAsset(testTime));
+      PlanetaryPin pin = new PlanetaryPin(
+          TestBase.getUniqueRandomInteger(), TestBase.getUniqueRandomLong(), TestBase.getRandomInt(),
+          TestBase.getRandomInt(), TestBase.getRandomLong(), TestBase.getRandomInt(), TestBase.getRandomInt(),
+          TestBase.getRandomLong(), TestBase.getRandomLong(), TestBase.getRandomInt(),
+          TestBase.getRandomFloat(50), TestBase.getRandomFloat(50), TestBase.getRandomFloat(50),
+          new HashSet<>(), new HashSet<>());
+      for (int j = 0; j < 3; j++) {
+        pin.getHeads()
+           .add(new PlanetaryPinHead(TestBase.getUniqueRandomInteger(), TestBase.getRandomFloat(100),
+                                     TestBase.getRandomFloat(100)));
+        pin.getContents()
+           .add(new PlanetaryPinContent(TestBase.getUniqueRandomInteger(), TestBase.getRandomLong()));
+      }
+      pin.setMetaData("tag", "value");
+      pin.setup(testAccount, testTime);
+      batch.add(pin);
+    }
+
+    // Inserted entities are returned as-is with assigned IDs
+    List<CachedData> stored = CachedData.insertAll(batch);
+    Assert.assertEquals(batch.size(), stored.size());
+    Set<Long> cids = new HashSet<>();
+    for (int i = 0; i < batch.size(); i++) {
+      Assert.assertSame(batch.get(i), stored.get(i));
+      Assert.assertTrue(stored.get(i)
+                              .getCid() > 0);
+      Assert.assertTrue(cids.add(stored.get(i)
+                                       .getCid()));
+      CachedData check = CachedData.get(stored.get(i)
+                                              .getCid());
+      Assert.assertNotNull(check);
+      Assert.assertTrue(stored.get(i)
+                              .equivalent(check));
+      if (check instanceof PlanetaryPin) {
+        Assert.assertEquals(3, ((PlanetaryPin) check).getHeads()
+                                                     .size());
+        Assert.assertEquals(3, ((PlanetaryPin) check).getContents()
+                                                     .size());
+        Assert.assertEquals("value", check.getMetaData("tag"));
+      }
+    }
+
+    // Single insert
+    Asset single = CachedData.insert(makeAsset(testTime));
+    Assert.assertTrue(single.getCid() > 0);
+    Assert.assertEquals(single.getCid(), Asset.get(testAccount, testTime, single.getItemID())
+                                              .getCid());
+
+    // Stored entities can't be inserted again, and the batch is rejected before anything is written
+    Asset fresh = makeAsset(testTime);
+    try {
+      CachedData.insertAll(Arrays.asList(fresh, single));
+      Assert.fail("expected insert of stored entity to fail");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    Assert.assertEquals(0, fresh.getCid());
+    Assert.assertNull(Asset.get(testAccount, testTime, fresh.getItemID()));
+  }
+
+  @Test
+  public void testParallelStream() throws Exception {
+    long testTime = 8675L;
+    List<Asset> batch = new ArrayList<>();
+    for (int i = 0; i < 237; i++)
+      batch.add(makeAsset(testTime));
+    List<Asset> stored = CachedData.insertAll(batch);
+    // Entities owned by another account or no longer live must not appear in the stream
+    Asset other = makeAsset(testTime);
+    other.setup(otherAccount, testTime);
+    CachedData.insert(other);
+    Asset ended = makeAsset(testTime - 10);
+    ended.setLifeEnd(testTime - 1);
+    CachedData.insert(ended);
+
+    final AttributeSelector any = AttributeSelector.any();
+    CachedData.QueryCaller<Asset> query = (contid, at) -> Asset.accessQuery(testAccount, contid, 7, false, at, any,
+                                                                            any, any, any, any, any, any, any, any);
+    List<Long> expected = new ArrayList<>();
+    for (Asset next : stored)
+      expected.add(next.getCid());
+    Collections.sort(expected);
+
+    CachedData.SimpleStreamExceptionHandler capture = new CachedData.SimpleStreamExceptionHandler();
+    List<Long> found = CachedData.parallelStream(testAccount, Asset.class, testTime, query, true, capture)
+                                 .map(CachedData::getCid)
+                                 .collect(Collectors.toList());
+    Assert.assertFalse(capture.hit());
+    Assert.assertEquals(expected, found);
+
+    // Split down to small ranges.  Each range must be sorted and the ranges together must cover every
+    // element exactly once.
+    long lo = expected.get(0);
+    long hi = expected.get(expected.size() - 1);
+    for (boolean ascending : new boolean[]{true, false}) {
+      CachedData.QueryCaller<Asset> ordering = ascending ? query :
+          (contid, at) -> Asset.accessQuery(testAccount, contid, 7, true, at, any, any, any, any, any, any, any,
+                                            any, any);
+      CachedDataSpliterator<Asset> root = new CachedDataSpliterator<>(testTime, ordering, ascending, capture, lo,
+                                                                      hi, expected.size(), 10);
+      Deque<Spliterator<Asset>> pending = new ArrayDeque<>();
+      List<Spliterator<Asset>> leaves = new ArrayList<>();
+      pending.add(root);
+      while (!pending.isEmpty()) {
+        Spliterator<Asset> next = pending.remove();
+        Spliterator<Asset> prefix = next.trySplit();
+        if (prefix == null) {
+          leaves.add(next);
+        } else {
+          pending.add(prefix);
+          pending.add(next);
+        }
+      }
+      Assert.assertTrue(leaves.size() > 1);
+      Set<Long> seen = new HashSet<>();
+      for (Spliterator<Asset> leaf : leaves) {
+        List<Long> range = new ArrayList<>();
+        leaf.forEachRemaining(x -> range.add(x.getCid()));
+        List<Long> sorted = new ArrayList<>(range);
+        sorted.sort(ascending ? Comparator.naturalOrder() : Comparator.reverseOrder());
+        Assert.assertEquals(sorted, range);
+        for (long cid : range)
+          Assert.assertTrue(seen.add(cid));
+      }
+      Assert.assertEquals(new HashSet<>(expected), seen);
+
+      // Ordered collection of a parallel stream preserves global order
+      List<Long> ordered = StreamSupport.stream(
+          new CachedDataSpliterator<>(testTime, ordering, ascending, capture, lo, hi, expected.size(), 10), true)
+                                        .map(CachedData::getCid)
+                                        .collect(Collectors.toList());
+      List<Long> globalOrder = new ArrayList<>(expected);
+      if (!ascending) Collections.reverse(globalOrder);
+      Assert.assertEquals(globalOrder, ordered);
+    }
+    Assert.assertFalse(capture.hit());
+  }
+
+  @Test
+  public void testPrefetchStream() throws Exception {
+    long testTime = 8675L;
+    List<Asset> batch = new ArrayList<>();
+    for (int i = 0; i < 537; i++)
+      batch.add(makeAsset(testTime));
+    List<Long> expected = new ArrayList<>();
+    for (Asset next : CachedData.insertAll(batch))
+      expected.add(next.getCid());
+    Collections.sort(expected);
+
+    final AttributeSelector any = AttributeSelector.any();
+    CachedData.PagedQueryCaller<Asset> query = (contid, max, at) -> Asset.accessQuery(testAccount, contid, max, false,
+                                                                                      at, any, any, any, any, any,
+                                                                                      any, any, any, any);
+
+    // Small pages so that several pages are prefetched and the page size adapts within its limits
+    StreamStats stats = new StreamStats();
+    CachedData.SimpleStreamExceptionHandler capture = new CachedData.SimpleStreamExceptionHandler();
+    List<Long> found = StreamSupport.stream(new PrefetchingSpliterator<>(testTime, query, true, capture, stats, 2,
+                                                                         10, 50, 1), false)
+                                    .map(CachedData::getCid)
+                                    .collect(Collectors.toList());
+    Assert.assertFalse(capture.hit());
+    Assert.assertEquals(expected, found);
+    Assert.assertEquals(expected.size(), stats.getRowsConsumed());
+    Assert.assertEquals(expected.size(), stats.getRowsFetched());
+    Assert.assertTrue(stats.getPages() > expected.size() / 50);
+    Assert.assertTrue(stats.getPageSize() >= 10 && stats.getPageSize() <= 50);
+    Assert.assertTrue(stats.getRowsPerSecond() > 0);
+
+    // Default configuration
+    stats = new StreamStats();
+    List<Asset> all = CachedData.retrieveAll(testTime, query, stats);
+    Assert.assertEquals(expected.size(), all.size());
+    Assert.assertEquals(expected.size(), stats.getRowsConsumed());
+
+    // Errors truncate the stream and are reported to the handler
+    final int[] calls = {0};
+    CachedData.PagedQueryCaller<Asset> failing = (contid, max, at) -> {
+      if (++calls[0] > 2) throw new IOException("test failure");
+      return query.query(contid, max, at);
+    };
+    capture = new CachedData.SimpleStreamExceptionHandler();
+    found = StreamSupport.stream(new PrefetchingSpliterator<>(testTime, failing, true, capture, null, 2, 10, 10, 1),
+                                 false)
+                         .map(CachedData::getCid)
+                         .collect(Collectors.toList());
+    Assert.assertTrue(capture.hit());
+    Assert.assertEquals(expected.subList(0, 20), found);
+
+    // Closing a partially consumed stream stops the fetcher
+    try (Stream<Asset> partial = CachedData.stream(testTime, query, true, null, null)) {
+      Assert.assertEquals(5, partial.limit(5)
+                                    .count());
+    }
+  }
+
+  @Test
+  public void testAccessStream() throws Exception {
+    long testTime = 8675L;
+    List<Asset> batch = new ArrayList<>();
+    for (int i = 0; i < 123; i++)
+      batch.add(makeAsset(testTime));
+    CachedData.insertAll(batch);
+    Asset other = makeAsset(testTime);
+    other.setup(otherAccount, testTime);
+    CachedData.insert(other);
+
+    final AttributeSelector any = AttributeSelector.any();
+    final AttributeSelector at = AttributeSelector.values(testTime);
+    AccessPredicate predicate = Asset.accessPredicate(any, any, any, any, any, any, any, any, any);
+    List<Long> expected = new ArrayList<>();
+    for (Asset next : CachedData.retrieveAll(testTime, (contid, ats) -> Asset.accessQuery(testAccount, contid, 10,
+                                                                                          false, ats, any, any, any,
+                                                                                          any, any, any, any, any,
+                                                                                          any)))
+      expected.add(next.getCid());
+    Assert.assertEquals(batch.size(), expected.size());
+
+    // Full scan in both directions
+    CachedData.SimpleStreamExceptionHandler capture = new CachedData.SimpleStreamExceptionHandler();
+    List<Long> found;
+    try (Stream<Asset> scan = CachedData.accessStream(Asset.class, testAccount, -1, false, at, predicate, capture)) {
+      found = scan.map(CachedData::getCid)
+                  .collect(Collectors.toList());
+    }
+    Assert.assertEquals(expected, found);
+    try (Stream<Asset> scan = CachedData.accessStream(Asset.class, testAccount, Long.MAX_VALUE, true, at, predicate,
+                                                      capture)) {
+      found = scan.map(CachedData::getCid)
+                  .collect(Collectors.toList());
+    }
+    List<Long> reversed = new ArrayList<>(expected);
+    Collections.reverse(reversed);
+    Assert.assertEquals(reversed, found);
+
+    // Continuation and early close
+    long contid = expected.get(49);
+    try (Stream<Asset> scan = CachedData.accessStream(Asset.class, testAccount, contid, false, at, predicate,
+                                                      capture)) {
+      found = scan.limit(10)
+                  .map(CachedData::getCid)
+                  .collect(Collectors.toList());
+    }
+    Assert.assertEquals(expected.subList(50, 60), found);
+    Assert.assertFalse(capture.hit());
+
+    // Joined predicates return distinct entities
+    for (int i = 0; i < 5; i++) {
+      Contact next = new Contact(TestBase.getRandomText(30), TestBase.getUniqueRandomInteger(), 1.0F,
+                                 TestBase.getRandomText(30), false, false, new HashSet<>());
+      next.getLabels()
+          .addAll(Arrays.asList(1L, 2L, 3L));
+      next.setup(testAccount, testTime);
+      CachedData.insert(next);
+    }
+    try (Stream<Contact> scan = CachedData.accessStream(Contact.class, testAccount, -1, false, at,
+                                                        Contact.accessPredicate(any, any, any, any, any, any, any),
+                                                        capture)) {
+      Assert.assertEquals(5, scan.count());
+    }
+    Assert.assertFalse(capture.hit());
+  }
+
+  @Test
+  public void testAccessProjection() throws Exception {
+    long testTime = 8675L;
+    List<Asset> batch = new ArrayList<>();
+    for (int i = 0; i < 25; i++)
+      batch.add(makeAsset(testTime));
+    Map<Long, Asset> stored = new HashMap<>();
+    for (Asset next : CachedData.insertAll(batch))
+      stored.put(next.getCid(), next);
+
+    final AttributeSelector any = AttributeSelector.any();
+    final AttributeSelector at = AttributeSelector.values(testTime);
+    AccessPredicate predicate = Asset.accessPredicate(any, any, any, any, any, any, any, any, any);
+
+    // Page through projected rows
+    List<Projection> rows = new ArrayList<>();
+    long contid = -1;
+    List<Projection> page;
+    do {
+      page = CachedData.accessProjection(Asset.class, testAccount, contid, 10, false, at, predicate, "itemID",
+                                         "locationID", "typeID", "quantity");
+      rows.addAll(page);
+      if (!page.isEmpty()) contid = page.get(page.size() - 1)
+                                        .getCid();
+    } while (!page.isEmpty());
+    Assert.assertEquals(stored.size(), rows.size());
+    for (Projection next : rows) {
+      Asset source = stored.get(next.getCid());
+      Assert.assertNotNull(source);
+      Assert.assertEquals(Arrays.asList("itemID", "locationID", "typeID", "quantity"), next.getFieldNames());
+      Assert.assertEquals(source.getItemID(), (long) next.get("itemID", Long.class));
+      Assert.assertEquals(source.getLocationID(), (long) next.get("locationID", Long.class));
+      Assert.assertEquals(source.getTypeID(), (int) next.get("typeID", Integer.class));
+      Assert.assertEquals(source.getQuantity(), next.get(3));
+      Assert.assertFalse(next.has("locationFlag"));
+    }
+
+    // Mail headers without bodies through a joined predicate
+    CharacterMailMessage mail = new CharacterMailMessage(TestBase.getRandomLong(), TestBase.getRandomInt(),
+                                                         TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                                         false, new HashSet<>(Arrays.asList(1, 2, 3)),
+                                                         new HashSet<>(), TestBase.getRandomText(1000));
+    mail.getRecipients()
+        .add(new MailMessageRecipient("character", 1));
+    mail.setup(testAccount, testTime);
+    CachedData.insert(mail);
+    rows = CachedData.accessProjection(CharacterMailMessage.class, testAccount, -1, 10, false, at,
+                                       CharacterMailMessage.accessPredicate(any, any, any, any, any, any, any, any,
+                                                                            any),
+                                       "messageID", "title");
+    Assert.assertEquals(1, rows.size());
+    Assert.assertEquals(mail.getCid(), rows.get(0)
+                                           .getCid());
+    Assert.assertEquals(mail.getTitle(), rows.get(0)
+                                             .get("title"));
+
+    // Field names are validated
+    try {
+      CachedData.accessProjection(Asset.class, testAccount, -1, 10, false, at, predicate, "itemID) FROM");
+      Assert.fail("expected invalid field name to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      CachedData.accessProjection(Asset.class, testAccount, -1, 10, false, at, predicate, "noSuchField");
+      Assert.fail("expected unknown field to fail");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testLazyMetaData() throws Exception {
+    long testTime = 8675L;
+    List<Asset> batch = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      Asset next = makeAsset(testTime);
+      if (i % 2 == 0) next.setMetaData("index", String.valueOf(i));
+      batch.add(next);
+    }
+    CachedData.insertAll(batch);
+
+    final AttributeSelector any = AttributeSelector.any();
+    final AttributeSelector at = AttributeSelector.values(testTime);
+    AccessPredicate predicate = Asset.accessPredicate(any, any, any, any, any, any, any, any, any);
+
+    // Meta data is readable from detached entities whether or not it was fetched up front
+    for (boolean withMetaData : new boolean[] {false, true}) {
+      List<Asset> found = CachedData.accessQuery(Asset.class, testAccount, -1, 100, false, at, predicate,
+                                                 withMetaData);
+      Assert.assertEquals(batch.size(), found.size());
+      for (int i = 0; i < found.size(); i++) {
+        Asset next = found.get(i);
+        Assert.assertEquals(batch.get(i)
+                                 .getCid(), next.getCid());
+        Assert.assertEquals(i % 2 == 0, next.hasMetaData());
+        Assert.assertEquals(i % 2 == 0 ? String.valueOf(i) : null, next.getMetaData("index"));
+      }
+    }
+
+    // Streams with meta data
+    List<String> values = CachedData.stream(testTime, (contid, ats) -> Asset.accessQuery(testAccount, contid, 7,
+                                                                                         false, ats, any, any, any,
+                                                                                         any, any, any, any, any,
+                                                                                         any), true, null, true)
+                                    .map(x -> x.getMetaData("index"))
+                                    .filter(Objects::nonNull)
+                                    .collect(Collectors.toList());
+    Assert.assertEquals(10, values.size());
+
+    // Successors carry meta data from lazily loaded predecessors
+    List<Asset> existing = CachedData.accessQuery(Asset.class, testAccount, -1, 100, false, at, predicate);
+    List<Asset> successors = new ArrayList<>();
+    for (Asset next : existing) {
+      Asset successor = new Asset(next.getItemID(), next.getLocationID(), next.getLocationType(),
+                                  next.getLocationFlag(), next.getTypeID(), next.getQuantity(), next.isSingleton(),
+                                  next.getBlueprintType(), next.isBlueprintCopy());
+      successors.add(successor);
+    }
+    long evolveTime = testTime + 10;
+    CachedData.evolveAll(existing, successors, evolveTime);
+    List<Asset> evolved = CachedData.accessQuery(Asset.class, testAccount, -1, 100, false,
+                                                 AttributeSelector.values(evolveTime), predicate);
+    Assert.assertEquals(batch.size(), evolved.size());
+    int withMeta = 0;
+    for (Asset next : evolved) {
+      if (next.hasMetaData()) withMeta++;
+    }
+    Assert.assertEquals(10, withMeta);
+
+    // In memory copies of detached entities load meta data which was not fetched up front
+    Asset detached = CachedData.accessQuery(Asset.class, testAccount, -1, 1, false,
+                                            AttributeSelector.values(evolveTime), predicate)
+                               .get(0);
+    Asset copy = new Asset(detached.getItemID(), detached.getLocationID(), detached.getLocationType(),
+                           detached.getLocationFlag(), detached.getTypeID(), detached.getQuantity(),
+                           detached.isSingleton(), detached.getBlueprintType(), detached.isBlueprintCopy());
+    detached.dup(copy);
+    Assert.assertEquals("0", copy.getMetaData("index"));
+
+    // Entities returned by getters evolve with their meta data
+    Asset found = Asset.get(testAccount, evolveTime, detached.getItemID());
+    Asset successor = new Asset(found.getItemID(), found.getLocationID() + 1, found.getLocationType(),
+                                found.getLocationFlag(), found.getTypeID(), found.getQuantity(),
+                                found.isSingleton(), found.getBlueprintType(), found.isBlueprintCopy());
+    long nextTime = evolveTime + 10;
+    found.evolve(successor, nextTime);
+    CachedData.update(found);
+    successor = CachedData.update(successor);
+    Assert.assertEquals(nextTime, CachedData.get(found.getCid())
+                                            .getLifeEnd());
+    Asset stored = Asset.get(testAccount, nextTime, detached.getItemID());
+    Assert.assertEquals(successor.getCid(), stored.getCid());
+    Assert.assertEquals(found.getLocationID() + 1, stored.getLocationID());
+    Assert.assertEquals("0", stored.getMetaData("index"));
+  }
+
+  static Statistics statistics() throws ExecutionException {
+    return EveKitUserAccountProvider.getFactory()
+                                    .runTransaction(() -> EveKitUserAccountProvider.getFactory()
+                                                                                   .getEntityManager()
+                                                                                   .unwrap(Session.class)
+                                                                                   .getSessionFactory()
+                                                                                   .getStatistics());
+  }
+
+  // Statements issued to read one page of the given type
+  private <A extends CachedData> long pageStatements(Statistics stats, Class<A> type, AccessPredicate predicate,
+                                                     int expected) throws IOException {
+    stats.clear();
+    List<A> page = CachedData.accessQuery(type, testAccount, -1, 1000, false, AttributeSelector.values(8675L),
+                                          predicate);
+    long count = stats.getPrepareStatementCount();
+    Assert.assertEquals(expected, page.size());
+    return count;
+  }
+
+  @Test
+  public void testCollectionBatchLoading() throws Exception {
+    long testTime = 8675L;
+    int size = 40;
+    List<CachedData> batch = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Contact contact = new Contact(TestBase.getRandomText(30), TestBase.getUniqueRandomInteger(), 1.0F,
+                                    TestBase.getRandomText(30), false, false,
+                                    new HashSet<>(Arrays.asList(1L, 2L, 3L)));
+      contact.setup(testAccount, testTime);
+      batch.add(contact);
+      CharacterMailMessage mail = new CharacterMailMessage(TestBase.getUniqueRandomLong(), TestBase.getRandomInt(),
+                                                           TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                                           false, new HashSet<>(Arrays.asList(1, 2, 3)),
+                                                           new HashSet<>(Arrays.asList(
+                                                               new MailMessageRecipient("character", 1),
+                                                               new MailMessageRecipient("character", 2))),
+                                                           TestBase.getRandomText(50));
+      mail.setup(testAccount, testTime);
+      batch.add(mail);
+      PlanetaryPin pin = new PlanetaryPin(
+          TestBase.getRandomInt(), TestBase.getUniqueRandomLong(), TestBase.getRandomInt(),
+          TestBase.getRandomInt(), TestBase.getRandomLong(), TestBase.getRandomInt(), TestBase.getRandomInt(),
+          TestBase.getRandomLong(), TestBase.getRandomLong(), TestBase.getRandomInt(),
+          TestBase.getRandomFloat(50), TestBase.getRandomFloat(50), TestBase.getRandomFloat(50),
+          new HashSet<>(), new HashSet<>());
+      for (int j = 0; j < 3; j++) {
+        pin.getHeads()
+           .add(new PlanetaryPinHead(j, TestBase.getRandomFloat(100), TestBase.getRandomFloat(100)));
+        pin.getContents()
+           .add(new PlanetaryPinContent(j, TestBase.getRandomLong()));
+      }
+      pin.setup(testAccount, testTime);
+      batch.add(pin);
+      PlanetaryRoute route = new PlanetaryRoute(TestBase.getRandomInt(), TestBase.getUniqueRandomLong(),
+                                                TestBase.getRandomLong(), TestBase.getRandomLong(),
+                                                TestBase.getRandomInt(), TestBase.getRandomFloat(100),
+                                                new ArrayList<>(Arrays.asList(1L, 2L, 3L)));
+      route.setup(testAccount, testTime);
+      batch.add(route);
+    }
+    CachedData.insertAll(batch);
+
+    // Each element collection is loaded with one query for the whole page, plus at most one query for the
+    // page itself and one for the owner.
+    final AttributeSelector any = AttributeSelector.any();
+    Statistics stats = statistics();
+    boolean enabled = stats.isStatisticsEnabled();
+    stats.setStatisticsEnabled(true);
+    try {
+      Assert.assertTrue(pageStatements(stats, Contact.class,
+                                       Contact.accessPredicate(any, any, any, any, any, any, any), size) <= 3);
+      Assert.assertTrue(pageStatements(stats, CharacterMailMessage.class,
+                                       CharacterMailMessage.accessPredicate(any, any, any, any, any, any, any, any,
+                                                                            any), size) <= 4);
+      Assert.assertTrue(pageStatements(stats, PlanetaryPin.class,
+                                       PlanetaryPin.accessPredicate(any, any, any, any, any, any, any, any, any, any,
+                                                                    any, any, any, any, any, any, any, any),
+                                       size) <= 4);
+      Assert.assertTrue(pageStatements(stats, PlanetaryRoute.class,
+                                       PlanetaryRoute.accessPredicate(any, any, any, any, any, any, any), size) <= 3);
+
+      // Streams load collections per page in the same way
+      stats.clear();
+      List<CharacterMailMessage> all = CachedData.stream(testTime, (contid, ats) -> CharacterMailMessage.accessQuery(
+          testAccount, contid, 10, false, ats, any, any, any, any, any, any, any, any, any), true, null)
+                                                 .collect(Collectors.toList());
+      Assert.assertEquals(size, all.size());
+      Assert.assertTrue(stats.getPrepareStatementCount() <= 4 * (size / 10 + 1));
+      for (CharacterMailMessage next : all) {
+        Assert.assertEquals(3, next.getLabels()
+                                   .size());
+        Assert.assertEquals(2, next.getRecipients()
+                                   .size());
+      }
+    } finally {
+      stats.setStatisticsEnabled(enabled);
+    }
+  }
+
+  @Test
+  public void testBoundContinuation() throws Exception {
+    long testTime = 8675L;
+    List<WalletJournal> batch = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      WalletJournal next = new WalletJournal(i % 2 + 1, TestBase.getUniqueRandomLong(), TestBase.getRandomLong(),
+                                             TestBase.getRandomText(50), TestBase.getRandomInt(),
+                                             TestBase.getRandomInt(), TestBase.getRandomText(50),
+                                             TestBase.getRandomLong(), TestBase.getRandomBigDecimal(100000000),
+                                             TestBase.getRandomBigDecimal(100000000), TestBase.getRandomText(50),
+                                             TestBase.getRandomInt(), TestBase.getRandomBigDecimal(100000000),
+                                             TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                             TestBase.getRandomText(50));
+      next.setup(testAccount, testTime);
+      batch.add(next);
+    }
+    CachedData.insertAll(batch);
+
+    // Every page of a query runs the same statement, whatever the continuation ID
+    final AttributeSelector any = AttributeSelector.any();
+    Statistics stats = statistics();
+    boolean enabled = stats.isStatisticsEnabled();
+    stats.setStatisticsEnabled(true);
+    try {
+      stats.clear();
+      List<WalletJournal> found = CachedData.retrieveAll(testTime, (contid, ats) -> WalletJournal.accessQuery(
+          testAccount, contid, 5, false, ats, any, any, any, any, any, any, any, any, any, any, any, any, any, any,
+          any, any));
+      Assert.assertEquals(batch.size(), found.size());
+      for (int i = 0; i < batch.size(); i++)
+        Assert.assertEquals(batch.get(i)
+                                 .getCid(), found.get(i)
+                                                 .getCid());
+      Assert.assertEquals(15, WalletJournal.accessQuery(testAccount, found.get(9)
+                                                                   .getCid(), 100, false,
+                                                        AttributeSelector.values(testTime), any, any, any, any,
+                                                        any, any, any, any, any, any, any, any, any, any, any, any)
+                                           .size());
+      String[] queries = journalQueries(stats);
+      Assert.assertEquals(1, queries.length);
+      Assert.assertEquals(7, stats.getQueryStatistics(queries[0])
+                                  .getExecutionCount());
+    } finally {
+      stats.setStatisticsEnabled(enabled);
+    }
+
+    // Different selectors still select the right entities
+    for (int division = 1; division <= 2; division++) {
+      List<WalletJournal> matched = WalletJournal.accessQuery(testAccount, -1, 100, false,
+                                                              AttributeSelector.values(testTime),
+                                                              AttributeSelector.values(division), any, any, any,
+                                                              any, any, any, any, any, any, any, any, any, any, any,
+                                                              any);
+      Assert.assertEquals(division == 1 ? 13 : 12, matched.size());
+      for (WalletJournal next : matched)
+        Assert.assertEquals(division, next.getDivision());
+    }
+  }
+
+  // Statements executed against WalletJournal since statistics were last cleared
+  private static String[] journalQueries(Statistics stats) {
+    return Arrays.stream(stats.getQueries())
+                 .filter(x -> x.contains("FROM WalletJournal"))
+                 .toArray(String[]::new);
+  }
+
+  @Test
+  public void testReadOnlyQueries() throws Exception {
+    long testTime = 8675L;
+    Asset stored = CachedData.insert(makeAsset(testTime));
+
+    // Changes to entities loaded by a read-only query are not written
+    CachedData.runReadOnly(() -> {
+      Asset loaded = EveKitUserAccountProvider.getFactory()
+                                              .getEntityManager()
+                                              .find(Asset.class, stored.getCid());
+      loaded.setLifeEnd(testTime + 10);
+      return null;
+    });
+    Assert.assertEquals(Long.MAX_VALUE, CachedData.get(stored.getCid())
+                                                  .getLifeEnd());
+
+    // Read-only queries restore the session's previous read-only default
+    Session session = EveKitUserAccountProvider.getFactory()
+                                               .getEntityManager()
+                                               .unwrap(Session.class);
+    session.setDefaultReadOnly(true);
+    try {
+      Assert.assertNotNull(CachedData.get(stored.getCid()));
+      Assert.assertTrue(session.isDefaultReadOnly());
+    } finally {
+      session.setDefaultReadOnly(false);
+    }
+
+    // Entities returned by getters are detached and can still be updated
+    Asset found = Asset.get(testAccount, testTime, stored.getItemID());
+    Assert.assertNotNull(found);
+    found.setLifeEnd(testTime + 10);
+    CachedData.update(found);
+    Assert.assertEquals(testTime + 10, CachedData.get(stored.getCid())
+                                                 .getLifeEnd());
+
+    // Getters nested in a transaction return entities tracked by that transaction
+    Asset other = CachedData.insert(makeAsset(testTime));
+    EveKitUserAccountProvider.getFactory()
+                             .runTransaction(() -> {
+                               Asset nested = Asset.get(testAccount, testTime, other.getItemID());
+                               Assert.assertTrue(EveKitUserAccountProvider.getFactory()
+                                                                          .getEntityManager()
+                                                                          .contains(nested));
+                               nested.setLifeEnd(testTime + 20);
+                             });
+    Assert.assertEquals(testTime + 20, CachedData.get(other.getCid())
+                                                 .getLifeEnd());
+  }
+
+  @Test
+  public void testHistoryCache() throws Exception {
+    long testTime = 8675L;
+    HistoryCache cache = CachedData.getHistoryCache();
+    Asset live = CachedData.insert(makeAsset(testTime));
+    Asset ended = makeAsset(testTime);
+    ended.setLifeEnd(testTime + 100);
+    ended = CachedData.insert(ended);
+
+    // Live entities are never cached
+    Assert.assertNotNull(Asset.get(testAccount, testTime, live.getItemID()));
+    Assert.assertNotNull(CachedData.get(live.getCid()));
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertEquals(0, cache.getHits());
+
+    // Ended entities are served from the cache by natural key at any time in their lifeline, and by cid
+    Asset first = Asset.get(testAccount, testTime, ended.getItemID());
+    Assert.assertEquals(ended, first);
+    Assert.assertEquals(1, cache.getSize());
+    Assert.assertEquals(first, Asset.get(testAccount, testTime + 50, ended.getItemID()));
+    Assert.assertEquals(first, CachedData.get(ended.getCid()));
+    Assert.assertEquals(2, cache.getHits());
+
+    // Each hit is a separate copy, so changes by one caller are not seen by others
+    Asset copy = Asset.get(testAccount, testTime + 50, ended.getItemID());
+    Assert.assertNotSame(first, copy);
+    copy.setLifeEnd(testTime + 10);
+    copy.setMetaData("tag", "changed");
+    Asset again = Asset.get(testAccount, testTime + 50, ended.getItemID());
+    Assert.assertEquals(testTime + 100, again.getLifeEnd());
+    Assert.assertNull(again.getMetaData("tag"));
+    Assert.assertNull(Asset.get(testAccount, testTime + 100, ended.getItemID()));
+
+    // Writes invalidate
+    first.setMetaData("tag", "value");
+    CachedData.update(first);
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertEquals("value", Asset.get(testAccount, testTime, ended.getItemID())
+                                      .getMetaData("tag"));
+
+    // Writes by another process sharing the database invalidate through the history epoch
+    EntityManager other = EveKitUserAccountProvider.getFactory()
+                                                   .getEntityManager()
+                                                   .getEntityManagerFactory()
+                                                   .createEntityManager();
+    try {
+      other.getTransaction()
+           .begin();
+      Asset remote = other.find(Asset.class, ended.getCid());
+      remote.setMetaData("tag", "remote");
+      ResultCache.modified(other, Collections.singletonList(remote));
+      other.getTransaction()
+           .commit();
+    } finally {
+      other.close();
+    }
+    Assert.assertEquals(1, cache.getSize());
+    Assert.assertEquals("remote", Asset.get(testAccount, testTime, ended.getItemID())
+                                       .getMetaData("tag"));
+    Assert.assertEquals(1, cache.getInvalidations());
+    Assert.assertEquals("remote", CachedData.get(ended.getCid())
+                                            .getMetaData("tag"));
+    Assert.assertEquals(1, cache.getInvalidations());
+
+    // Cleanup invalidates entities of the removed account
+    CachedData.cleanup(testAccount, "Asset");
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertNull(CachedData.get(ended.getCid()));
+
+    // Least recently used entities are evicted at capacity
+    HistoryCache small = new HistoryCache(() -> 2);
+    List<Asset> all = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Asset next = makeAsset(testTime);
+      next.setLifeEnd(testTime + 100);
+      all.add(CachedData.insert(next));
+    }
+    ModelEpoch epoch = CachedData.runReadOnly(() -> ResultCache.epoch(EveKitUserAccountProvider.getFactory()
+                                                                                               .getEntityManager(),
+                                                                      Asset.class, testAccount));
+    for (Asset next : all)
+      small.put(next, epoch);
+    Assert.assertEquals(2, small.getSize());
+    Assert.assertEquals(1, small.getEvictions());
+    Assert.assertNull(small.get(all.get(0)
+                                   .getCid(), x -> epoch));
+    Assert.assertEquals(all.get(2), small.get(all.get(2)
+                                                 .getCid(), x -> epoch));
+    Assert.assertEquals(0.5, small.getHitRate(), 0.001);
+  }
+
+  @Test
+  public void testResultCache() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long t3 = 12345L;
+    ResultCache cache = CachedData.getResultCache();
+    List<CharacterSkill> skills = new ArrayList<>();
+    for (int i = 0; i < 2; i++)
+      skills.add(makeSkill(t1));
+    skills = CachedData.insertAll(skills);
+
+    // Repeated live queries are served from the cache until the owner and type are written
+    List<CharacterSkill> first = CharacterSkill.getAllSkills(testAccount, t1, 10, 0);
+    Assert.assertEquals(2, first.size());
+    List<CharacterSkill> hit = CharacterSkill.getAllSkills(testAccount, t1, 10, 0);
+    Assert.assertEquals(first, hit);
+    Assert.assertEquals(1, cache.getHits());
+    hit.get(0)
+       .setLifeEnd(t1 + 1);
+    Assert.assertNotSame(first.get(0), hit.get(0));
+    Assert.assertEquals(Long.MAX_VALUE, CharacterSkill.getAllSkills(testAccount, t1, 10, 0)
+                                                      .get(0)
+                                                      .getLifeEnd());
+    Assert.assertEquals(2, cache.getHits());
+    CachedData.update(makeSkill(t1));
+    Assert.assertEquals(3, CharacterSkill.getAllSkills(testAccount, t1, 10, 0)
+                                         .size());
+    Assert.assertEquals(2, cache.getHits());
+    Assert.assertEquals(1, cache.getInvalidations());
+
+    // Writes to other types or owners don't invalidate
+    CachedData.insert(makeAsset(t1));
+    CharacterSkill other = new CharacterSkill(TestBase.getUniqueRandomInteger(), 1, 1, 1);
+    other.setup(testAccount2, t1);
+    CachedData.insert(other);
+    Assert.assertEquals(3, CharacterSkill.getAllSkills(testAccount, t1, 10, 0)
+                                         .size());
+    Assert.assertEquals(3, cache.getHits());
+
+    // Writes by other processes are seen through the shared epoch
+    EveKitUserAccountProvider.getFactory()
+                             .runTransaction(() -> {
+                               EveKitUserAccountProvider.getFactory()
+                                                        .getEntityManager()
+                                                        .createNativeQuery(
+                                                            "UPDATE evekit_model_epoch SET epoch = epoch + 1 " +
+                                                                "WHERE aid = :aid AND typeName = 'CharacterSkill'")
+                                                        .setParameter("aid", testAccount.getAid())
+                                                        .executeUpdate();
+                             });
+    Assert.assertEquals(3, CharacterSkill.getAllSkills(testAccount, t1, 10, 0)
+                                         .size());
+    Assert.assertEquals(3, cache.getHits());
+    Assert.assertEquals(2, cache.getInvalidations());
+
+    // Historical results survive writes which start later
+    List<CharacterSkill> live = CharacterSkill.getAllSkills(testAccount, t1, 10, 0);
+    Assert.assertEquals(3, CachedData.endOfLife(live, t2));
+    List<CharacterSkill> historical = CharacterSkill.getAllSkills(testAccount, t1, 10, 0);
+    Assert.assertEquals(3, historical.size());
+    CachedData.insert(makeSkill(t3));
+    long hits = cache.getHits();
+    Assert.assertEquals(historical, CharacterSkill.getAllSkills(testAccount, t1, 10, 0));
+    Assert.assertEquals(hits + 1, cache.getHits());
+    Assert.assertEquals(1, CharacterSkill.getAllSkills(testAccount, t3, 10, 0)
+                                         .size());
+
+    // ...but not changes to entities in the result
+    CharacterSkill changed = historical.get(0);
+    changed.setMetaData("tag", "value");
+    CachedData.update(changed);
+    Assert.assertEquals("value", CharacterSkill.getAllSkills(testAccount, t1, 10, 0)
+                                               .get(0)
+                                               .getMetaData("tag"));
+    Assert.assertEquals(hits + 1, cache.getHits());
+
+    // Cleanup removes all results of the account
+    CachedData.cleanup(testAccount, "CharacterSkill");
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertTrue(CharacterSkill.getAllSkills(testAccount, t1, 10, 0)
+                                    .isEmpty());
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    List<Asset> assets = CachedData.insertAll(Arrays.asList(makeAsset(t1), makeAsset(t1), makeAsset(t1)));
+    List<CharacterSkill> skills = CachedData.insertAll(Arrays.asList(makeSkill(t1), makeSkill(t1)));
+    CachedData.endOfLife(Collections.singletonList(skills.get(1)), t2);
+    Asset otherAsset = makeAsset(t1);
+    otherAsset.setup(otherAccount, t1);
+    CachedData.insert(otherAsset);
+    List<Class<? extends CachedData>> types = Arrays.asList(Asset.class, CharacterSkill.class, Implant.class);
+
+    for (boolean consistent : new boolean[] {false, true}) {
+      ModelSnapshot snapshot = CachedData.snapshot(testAccount, t2, types, consistent);
+      Assert.assertEquals(consistent, snapshot.isConsistent());
+      Assert.assertEquals(new ArrayList<>(types), new ArrayList<>(snapshot.getTypes()));
+      Assert.assertEquals(assets, snapshot.get(Asset.class));
+      Assert.assertEquals(Collections.singletonList(skills.get(0)), snapshot.get(CharacterSkill.class));
+      Assert.assertEquals(skills.get(0), snapshot.getFirst(CharacterSkill.class));
+      Assert.assertTrue(snapshot.get(Implant.class)
+                                .isEmpty());
+      Assert.assertNull(snapshot.getFirst(Implant.class));
+      Assert.assertEquals(4, snapshot.size());
+      Assert.assertFalse(snapshot.contains(WalletJournal.class));
+      try {
+        snapshot.get(WalletJournal.class);
+        Assert.fail("expected IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+
+    // Entities not yet live are excluded
+    Assert.assertEquals(0, CachedData.snapshot(testAccount, t1 - 1, types)
+                                     .size());
+  }
+
+  @Test
+  public void testChangeFeed() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long t3 = 12345L;
+    Asset first = CachedData.insert(makeAsset(t1));
+    Asset second = CachedData.insert(makeAsset(t1));
+    Asset evolved = CachedData.evolve(first, makeAsset(t1), t2);
+    Assert.assertEquals(1, CachedData.endOfLife(Collections.singletonList(second), t3));
+    CachedData.insert(makeSkill(t2));
+    Asset otherAsset = makeAsset(t2);
+    otherAsset.setup(otherAccount, t2);
+    CachedData.insert(otherAsset);
+
+    // Whole history in one page
+    List<ModelChange<Asset>> all = CachedData.changes(Asset.class, testAccount, t1 - 1, t3,
+                                                      ModelChange.Position.START, 100);
+    Assert.assertEquals(5, all.size());
+    ModelChange.Kind[] kinds = {ModelChange.Kind.CREATED, ModelChange.Kind.CREATED, ModelChange.Kind.ENDED,
+                                ModelChange.Kind.CREATED, ModelChange.Kind.ENDED};
+    long[] times = {t1, t1, t2, t2, t3};
+    long[] cids = {first.getCid(), second.getCid(), first.getCid(), evolved.getCid(), second.getCid()};
+    for (int i = 0; i < all.size(); i++) {
+      Assert.assertEquals(kinds[i], all.get(i)
+                                       .getKind());
+      Assert.assertEquals(times[i], all.get(i)
+                                       .getTime());
+      Assert.assertEquals(cids[i], all.get(i)
+                                      .getData()
+                                      .getCid());
+    }
+
+    // Window excludes its start
+    List<ModelChange<Asset>> later = CachedData.changes(Asset.class, testAccount, t1, t3,
+                                                        ModelChange.Position.START, 100);
+    Assert.assertEquals(all.subList(2, 5)
+                           .stream()
+                           .map(ModelChange::getPosition)
+                           .collect(Collectors.toList()), later.stream()
+                                                               .map(ModelChange::getPosition)
+                                                               .collect(Collectors.toList()));
+
+    // Keyset paging returns the same entries
+    List<ModelChange.Position> paged = new ArrayList<>();
+    ModelChange.Position position = ModelChange.Position.START;
+    List<ModelChange<Asset>> page;
+    do {
+      page = CachedData.changes(Asset.class, testAccount, t1 - 1, t3, position, 2);
+      for (ModelChange<Asset> next : page) {
+        paged.add(next.getPosition());
+        position = ModelChange.Position.parse(next.getPosition()
+                                                  .toString());
+      }
+    } while (page.size() == 2);
+    Assert.assertEquals(all.stream()
+                           .map(ModelChange::getPosition)
+                           .collect(Collectors.toList()), paged);
+
+    // Streaming, resumed from the middle of the feed
+    CachedData.SimpleStreamExceptionHandler capture = new CachedData.SimpleStreamExceptionHandler();
+    List<ModelChange.Position> streamed = CachedData.changeStream(Asset.class, testAccount, t1 - 1, t3,
+                                                                  all.get(1)
+                                                                     .getPosition(), capture)
+                                                    .map(ModelChange::getPosition)
+                                                    .collect(Collectors.toList());
+    Assert.assertFalse(capture.hit());
+    Assert.assertEquals(paged.subList(2, 5), streamed);
+  }
+
+  private CharacterSkill makeSkill(long time) {
+    CharacterSkill next = new CharacterSkill(TestBase.getUniqueRandomInteger(), TestBase.getRandomInt(5),
+                                             TestBase.getRandomLong(), TestBase.getRandomInt(5));
+    next.setup(testAccount, time);
+    return next;
+  }
+
+  private Asset makeAsset(long time) {
+    Asset next = new Asset(TestBase.getUniqueRandomLong(), TestBase.getRandomLong(), TestBase.getRandomText(50),
+                           TestBase.getRandomText(50), TestBase.getRandomInt(), TestBase.getRandomInt(),
+                           TestBase.getRandomBoolean(), TestBase.getRandomText(50), TestBase.getRandomBoolean());
+    next.setup(testAccount, time);
+    return next;
+  }
+
+  @Test
+  public void testEventBus() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long t3 = 12345L;
+    List<ModelEvent> received = Collections.synchronizedList(new ArrayList<>());
+    ModelEventBus.Listener listener = received::addAll;
+    ModelEventBus bus = CachedData.getEventBus();
+    long dropped = bus.getDropped();
+    bus.subscribe(listener);
+    try {
+      Asset first = CachedData.insert(makeAsset(t1));
+      first.setMetaData("tag", "value");
+      first = CachedData.update(first);
+      Asset evolved = CachedData.evolve(first, makeAsset(t1), t2);
+      Assert.assertEquals(1, CachedData.endOfLife(Collections.singletonList(evolved), t3));
+      // Already ended, no event
+      Assert.assertEquals(0, CachedData.endOfLife(Collections.singletonList(evolved), t3));
+      CharacterSkill skill = CachedData.insert(makeSkill(t2));
+
+      long deadline = System.currentTimeMillis() + 10000;
+      while (received.size() < 5 && System.currentTimeMillis() < deadline)
+        Thread.sleep(10);
+      Assert.assertEquals(5, received.size());
+      ModelEvent.Kind[] kinds = {ModelEvent.Kind.CREATED, ModelEvent.Kind.META_DATA_CHANGED,
+                                 ModelEvent.Kind.EVOLVED, ModelEvent.Kind.ENDED, ModelEvent.Kind.CREATED};
+      long[] cids = {first.getCid(), first.getCid(), evolved.getCid(), evolved.getCid(), skill.getCid()};
+      long[] times = {t1, -1, t2, t3, t2};
+      for (int i = 0; i < kinds.length; i++) {
+        ModelEvent next = received.get(i);
+        Assert.assertEquals(kinds[i], next.getKind());
+        Assert.assertEquals(cids[i], next.getCid());
+        Assert.assertEquals(testAccount.getAid(), next.getOwner());
+        if (times[i] >= 0) Assert.assertEquals(times[i], next.getTime());
+      }
+      Assert.assertEquals(Asset.class, received.get(0)
+                                               .getType());
+      Assert.assertEquals(first.getCid(), received.get(2)
+                                                  .getPreviousCid());
+      Assert.assertEquals(CharacterSkill.class, received.get(4)
+                                                        .getType());
+      Assert.assertEquals(dropped, bus.getDropped());
+      Assert.assertEquals(0, bus.getLag());
+    } finally {
+      bus.unsubscribe(listener);
+    }
+    Assert.assertFalse(bus.hasListeners());
+  }
+
+  @Test
+  public void testEventBusNested() throws Exception {
+    long t1 = 8675L;
+    List<ModelEvent> received = Collections.synchronizedList(new ArrayList<>());
+    ModelEventBus.Listener listener = received::addAll;
+    ModelEventBus bus = CachedData.getEventBus();
+    bus.subscribe(listener);
+    try {
+      // Writes nested in a transaction are published when the outer transaction commits
+      final Asset[] nested = new Asset[2];
+      EveKitUserAccountProvider.getFactory()
+                               .runTransaction(() -> {
+                                 nested[0] = CachedData.update(makeAsset(t1));
+                                 nested[1] = CachedData.update(makeAsset(t1));
+                                 Thread.sleep(100);
+                                 Assert.assertTrue(received.isEmpty());
+                               });
+      long deadline = System.currentTimeMillis() + 10000;
+      while (received.size() < 2 && System.currentTimeMillis() < deadline)
+        Thread.sleep(10);
+      Assert.assertEquals(2, received.size());
+      Assert.assertEquals(nested[0].getCid(), received.get(0)
+                                                      .getCid());
+      Assert.assertEquals(nested[1].getCid(), received.get(1)
+                                                      .getCid());
+
+      // Writes nested in a transaction which rolls back are never published
+      received.clear();
+      try {
+        EveKitUserAccountProvider.getFactory()
+                                 .runTransaction(() -> {
+                                   CachedData.update(makeAsset(t1));
+                                   throw new IOException("rollback");
+                                 });
+        Assert.fail("transaction should have failed");
+      } catch (Exception e) {
+        // expected
+      }
+      // Events are delivered in publish order, so only the marker may follow the rolled back write
+      Asset marker = CachedData.insert(makeAsset(t1));
+      deadline = System.currentTimeMillis() + 10000;
+      while (received.isEmpty() && System.currentTimeMillis() < deadline)
+        Thread.sleep(10);
+      Assert.assertEquals(1, received.size());
+      Assert.assertEquals(marker.getCid(), received.get(0)
+                                                   .getCid());
+    } finally {
+      bus.unsubscribe(listener);
+    }
+  }
+
+  @Test
+  public void testEvolvePersisted() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    Asset existing = makeAsset(t1);
+    existing.setMetaData("tag", "value");
+    existing = CachedData.update(existing);
+    Asset successor = new Asset(existing.getItemID(), existing.getLocationID() + 1, existing.getLocationType(),
+                                existing.getLocationFlag(), existing.getTypeID(), existing.getQuantity(),
+                                existing.isSingleton(), existing.getBlueprintType(), existing.isBlueprintCopy());
+
+    // Stale copy of the existing entity, simulates a second writer
+    Asset stale = Asset.get(testAccount, t1, existing.getItemID());
+
+    successor = CachedData.evolve(existing, successor, t2);
+    Assert.assertTrue(successor.getCid() > 0);
+    Assert.assertTrue(existing.getCid() != successor.getCid());
+    Assert.assertEquals(t2, successor.getLifeStart());
+    Assert.assertEquals(Long.MAX_VALUE, successor.getLifeEnd());
+    Assert.assertEquals("value", successor.getMetaData("tag"));
+
+    Asset eolCheck = Asset.get(testAccount, t1, existing.getItemID());
+    Assert.assertEquals(existing.getCid(), eolCheck.getCid());
+    Assert.assertEquals(t2, eolCheck.getLifeEnd());
+    Asset liveCheck = Asset.get(testAccount, t2, existing.getItemID());
+    Assert.assertEquals(successor.getCid(), liveCheck.getCid());
+
+    // Second writer should fail to evolve the same entity and leave storage unchanged
+    Asset conflict = new Asset(existing.getItemID(), existing.getLocationID() + 2, existing.getLocationType(),
+                               existing.getLocationFlag(), existing.getTypeID(), existing.getQuantity(),
+                               existing.isSingleton(), existing.getBlueprintType(), existing.isBlueprintCopy());
+    try {
+      CachedData.evolve(stale, conflict, t2 + 1);
+      Assert.fail("expected concurrent evolve to fail");
+    } catch (IOException e) {
+      // expected
+    }
+    Assert.assertEquals(successor.getCid(), Asset.get(testAccount, t2 + 1, existing.getItemID())
+                                                 .getCid());
+    Assert.assertEquals(t2, Asset.get(testAccount, t1, existing.getItemID())
+                                 .getLifeEnd());
+  }
+
+  @Test
+  public void testEvolveRollback() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    List<Asset> existing = CachedData.insertAll(Arrays.asList(makeAsset(t1), makeAsset(t1)));
+    // The second successor's flag is too large for its column, so the chunk is rolled back when written
+    List<Asset> invalid = Arrays.asList(successorOf(existing.get(0), existing.get(0)
+                                                                         .getLocationFlag()),
+                                        successorOf(existing.get(1), TestBase.getRandomText(1000)));
+
+    // A rolled back evolve leaves the entities as they were before the call
+    try {
+      CachedData.evolveAll(existing, invalid, t2);
+      Assert.fail("expected evolve of invalid successor to fail");
+    } catch (IOException e) {
+      // expected
+    }
+    for (int i = 0; i < existing.size(); i++) {
+      Assert.assertEquals(Long.MAX_VALUE, existing.get(i)
+                                                  .getLifeEnd());
+      Assert.assertEquals(0, invalid.get(i)
+                                    .getCid());
+      Assert.assertEquals(existing.get(i)
+                                  .getCid(), Asset.get(testAccount, t2, existing.get(i)
+                                                                             .getItemID())
+                                                  .getCid());
+    }
+
+    // So the evolve can be retried
+    List<Asset> successors = Arrays.asList(invalid.get(0), successorOf(existing.get(1), existing.get(1)
+                                                                                                .getLocationFlag()));
+    CachedData.evolveAll(existing, successors, t2);
+    for (int i = 0; i < existing.size(); i++) {
+      Assert.assertEquals(t2, existing.get(i)
+                                      .getLifeEnd());
+      Assert.assertEquals(successors.get(i)
+                                    .getCid(), Asset.get(testAccount, t2, existing.get(i)
+                                                                                  .getItemID())
+                                                    .getCid());
+    }
+
+    // A rolled back update of a new entity leaves it unstored
+    Asset fresh = successorOf(makeAsset(t1), TestBase.getRandomText(1000));
+    try {
+      CachedData.update(fresh);
+      Assert.fail("expected update of invalid entity to fail");
+    } catch (IOException e) {
+      // expected
+    }
+    Assert.assertEquals(0, fresh.getCid());
+  }
+
+  private static Asset successorOf(Asset existing, String locationFlag) {
+    return new Asset(existing.getItemID(), existing.getLocationID() + 1, existing.getLocationType(), locationFlag,
+                     existing.getTypeID(), existing.getQuantity(), existing.isSingleton(),
+                     existing.getBlueprintType(), existing.isBlueprintCopy());
+  }
+
+  @Test
+  public void testEndOfLife() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    List<Asset> stored = new ArrayList<>();
+    int count = TestBase.getRandomInt(20) + 5;
+    for (int i = 0; i < count; i++)
+      stored.add(makeAsset(t1));
+    stored = CachedData.updateAll(stored);
+
+    Assert.assertEquals(count, CachedData.endOfLife(stored, t2));
+    for (Asset next : stored) {
+      Assert.assertNull(Asset.get(testAccount, t2, next.getItemID()));
+      Assert.assertEquals(t2, Asset.get(testAccount, t1, next.getItemID())
+                                   .getLifeEnd());
+    }
+
+    // Already ended entities are skipped
+    Assert.assertEquals(0, CachedData.endOfLife(stored, t2 + 1));
+  }
+
+  private static Object[] lifelineCopy(long cid) throws Exception {
+    return EveKitUserAccountProvider.getFactory()
+                                    .runTransaction(() -> EveKitUserAccountProvider.getFactory()
+                                                                                   .getEntityManager()
+                                                                                   .createQuery(
+                                                                                       "SELECT c.indexedAid, c.indexedStart, c.indexedEnd FROM Asset c WHERE c.cid = :cid",
+                                                                                       Object[].class)
+                                                                                   .setParameter("cid", cid)
+                                                                                   .getSingleResult());
+  }
+
+  private static void assertLifelineCopy(CachedData data, long start, long end) throws Exception {
+    Object[] copy = lifelineCopy(data.getCid());
+    Assert.assertEquals(data.getOwner()
+                            .getAid(), ((Number) copy[0]).longValue());
+    Assert.assertEquals(start, ((Number) copy[1]).longValue());
+    Assert.assertEquals(end, ((Number) copy[2]).longValue());
+  }
+
+  @Test
+  public void testLifelineIndex() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long t3 = 12345L;
+    Asset first = CachedData.insert(makeAsset(t1));
+    assertLifelineCopy(first, t1, Long.MAX_VALUE);
+
+    // Evolve and bulk end of life keep the copies in step
+    Asset successor = new Asset(first.getItemID(), first.getLocationID(), first.getLocationType(),
+                                first.getLocationFlag(), first.getTypeID(), first.getQuantity() + 1,
+                                first.isSingleton(), first.getBlueprintType(), first.isBlueprintCopy());
+    Asset second = CachedData.evolve(first, successor, t2);
+    assertLifelineCopy(first, t1, t2);
+    assertLifelineCopy(second, t2, Long.MAX_VALUE);
+    Assert.assertEquals(1, CachedData.endOfLife(Collections.singletonList(second), t3));
+    assertLifelineCopy(second, t2, t3);
+
+    // Meta data changes on ended entities leave the copies intact
+    first.setMetaData("tag", "value");
+    CachedData.update(first);
+    assertLifelineCopy(first, t1, t2);
+
+    // Rows which predate the mapping have no copies, so named queries filter on evekit_cached_data until the
+    // type is backfilled
+    EveKitUserAccountProvider.getFactory()
+                             .runTransaction(() -> {
+                               EntityManager em = EveKitUserAccountProvider.getFactory()
+                                                                           .getEntityManager();
+                               em.createNativeQuery(
+                                   "UPDATE evekit_data_asset SET aid = 0, lifeStart = 0, lifeEnd = 0 WHERE cid IN (:cids)")
+                                 .setParameter("cids", Arrays.asList(first.getCid(), second.getCid()))
+                                 .executeUpdate();
+                               em.createQuery("DELETE FROM LifelineBackfill")
+                                 .executeUpdate();
+                             });
+    LifelineIndexedData.clearBackfilled();
+    CachedData.getHistoryCache()
+              .clear();
+    CachedData.getResultCache()
+              .clear();
+    Assert.assertFalse(CachedData.runReadOnly(() -> LifelineIndexedData.backfilled(Asset.class)));
+    assertLookups(first, second, t1, t2, t3);
+
+    // Backfill restores copies which predate the mapping, after which named queries use the copies
+    Assert.assertTrue(LifelineIndexedData.backfill(Asset.class) >= 2);
+    assertLifelineCopy(first, t1, t2);
+    assertLifelineCopy(second, t2, t3);
+    Assert.assertTrue(CachedData.runReadOnly(() -> LifelineIndexedData.backfilled(Asset.class)));
+    CachedData.getHistoryCache()
+              .clear();
+    CachedData.getResultCache()
+              .clear();
+    assertLookups(first, second, t1, t2, t3);
+  }
+
+  private void assertLookups(Asset first, Asset second, long t1, long t2, long t3) throws Exception {
+    Assert.assertEquals(first.getCid(), Asset.get(testAccount, t1, first.getItemID())
+                                             .getCid());
+    Assert.assertEquals(second.getCid(), Asset.get(testAccount, t2, first.getItemID())
+                                              .getCid());
+    Assert.assertNull(Asset.get(testAccount, t3, first.getItemID()));
+    Assert.assertNull(Asset.get(otherAccount, t1, first.getItemID()));
+    Assert.assertEquals(Collections.singleton(first.getCid()),
+                        cidsOf(Asset.getAllAssets(testAccount, t1, 100, Long.MIN_VALUE)));
+  }
+
+  private static Set<Long> cidsOf(List<? extends CachedData> data) {
+    return data.stream()
+               .map(CachedData::getCid)
+               .collect(Collectors.toSet());
+  }
+
+  @Test
+  public void testLiveQueries() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long t3 = 12345L;
+    Asset first = CachedData.insert(makeAsset(t1));
+    Asset second = CachedData.insert(makeAsset(t1));
+    Asset third = CachedData.insert(makeAsset(t1));
+    Asset evolved = CachedData.evolve(first, new Asset(first.getItemID(), first.getLocationID(),
+                                                       first.getLocationType(), first.getLocationFlag(),
+                                                       first.getTypeID(), first.getQuantity() + 1,
+                                                       first.isSingleton(), first.getBlueprintType(),
+                                                       first.isBlueprintCopy()), t2);
+    Assert.assertEquals(1, CachedData.endOfLife(Collections.singletonList(second), t3));
+
+    // Natural key lookups find the live version only
+    Assert.assertEquals(evolved.getCid(), Asset.getLive(testAccount, first.getItemID())
+                                               .getCid());
+    Assert.assertEquals(third.getCid(), Asset.getLive(testAccount, third.getItemID())
+                                             .getCid());
+    Assert.assertNull(Asset.getLive(testAccount, second.getItemID()));
+    Assert.assertNull(Asset.getLive(otherAccount, third.getItemID()));
+
+    WalletJournal entry = new WalletJournal(1, TestBase.getUniqueRandomLong(), TestBase.getRandomLong(),
+                                            TestBase.getRandomText(50), TestBase.getRandomInt(),
+                                            TestBase.getRandomInt(), TestBase.getRandomText(50),
+                                            TestBase.getRandomLong(), TestBase.getRandomBigDecimal(100000000),
+                                            TestBase.getRandomBigDecimal(100000000), TestBase.getRandomText(50),
+                                            TestBase.getRandomInt(), TestBase.getRandomBigDecimal(100000000),
+                                            TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                            TestBase.getRandomText(50));
+    entry.setup(testAccount, t1);
+    entry = CachedData.insert(entry);
+    Assert.assertEquals(entry.getCid(), WalletJournal.getLive(testAccount, 1, entry.getRefID())
+                                                     .getCid());
+    Assert.assertNull(WalletJournal.getLive(testAccount, 2, entry.getRefID()));
+    CachedData.endOfLife(Collections.singletonList(entry), t3);
+    Assert.assertNull(WalletJournal.getLive(testAccount, 1, entry.getRefID()));
+
+    // Live access queries match point in time queries at the latest time
+    final AttributeSelector any = AttributeSelector.any();
+    AccessPredicate predicate = Asset.accessPredicate(any, any, any, any, any, any, any, any, any);
+    List<Asset> live = CachedData.accessQueryLive(Asset.class, testAccount, -1, 1000, false, predicate);
+    Assert.assertEquals(Arrays.asList(third.getCid(), evolved.getCid()), live.stream()
+                                                                             .map(CachedData::getCid)
+                                                                             .collect(Collectors.toList()));
+    Assert.assertEquals(live, CachedData.accessQuery(Asset.class, testAccount, -1, 1000, false,
+                                                     AttributeSelector.values(t3), predicate));
+    List<Asset> reversed = CachedData.accessQueryLive(Asset.class, testAccount, Long.MAX_VALUE, 1, true,
+                                                      predicate);
+    Assert.assertEquals(Collections.singletonList(evolved), reversed);
+    Assert.assertEquals(Collections.singletonList(third),
+                        CachedData.accessQueryLive(Asset.class, testAccount, -1, 1000, false,
+                                                   Asset.accessPredicate(AttributeSelector.values(third.getItemID()),
+                                                                         any, any, any, any, any, any, any, any)));
+  }
+
+  @Test
+  public void testAccessCount() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    List<WalletJournal> batch = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      WalletJournal next = new WalletJournal(i % 2 + 1, TestBase.getUniqueRandomLong(), TestBase.getRandomLong(),
+                                             TestBase.getRandomText(50), TestBase.getRandomInt(),
+                                             TestBase.getRandomInt(), TestBase.getRandomText(50),
+                                             TestBase.getRandomLong(), TestBase.getRandomBigDecimal(100000000),
+                                             TestBase.getRandomBigDecimal(100000000), TestBase.getRandomText(50),
+                                             TestBase.getRandomInt(), TestBase.getRandomBigDecimal(100000000),
+                                             TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                             TestBase.getRandomText(50));
+      next.setup(testAccount, t1);
+      batch.add(next);
+    }
+    batch = CachedData.insertAll(batch);
+    CachedData.endOfLife(batch.subList(0, 5), t2);
+
+    final AttributeSelector any = AttributeSelector.any();
+    AccessPredicate all = WalletJournal.accessPredicate(any, any, any, any, any, any, any, any, any, any, any, any,
+                                                        any, any, any, any);
+    Assert.assertEquals(25, CachedData.accessCount(WalletJournal.class, testAccount,
+                                                   AttributeSelector.values(t1), all));
+    Assert.assertEquals(20, CachedData.accessCount(WalletJournal.class, testAccount,
+                                                   AttributeSelector.values(t2), all));
+    Assert.assertEquals(0, CachedData.accessCount(WalletJournal.class, otherAccount,
+                                                  AttributeSelector.values(t1), all));
+
+    // Counts agree with the number of rows returned by the access query
+    for (int division = 1; division <= 2; division++) {
+      List<WalletJournal> matched = WalletJournal.accessQuery(testAccount, -1, 100, false,
+                                                              AttributeSelector.values(t2),
+                                                              AttributeSelector.values(division), any, any, any,
+                                                              any, any, any, any, any, any, any, any, any, any, any,
+                                                              any);
+      Assert.assertEquals(matched.size(), WalletJournal.accessCount(testAccount, AttributeSelector.values(t2),
+                                                                    AttributeSelector.values(division), any, any,
+                                                                    any, any, any, any, any, any, any, any, any,
+                                                                    any, any, any, any));
+      Assert.assertTrue(WalletJournal.accessExists(testAccount, AttributeSelector.values(t2),
+                                                   AttributeSelector.values(division), any, any, any, any, any,
+                                                   any, any, any, any, any, any, any, any, any, any));
+    }
+    Assert.assertFalse(WalletJournal.accessExists(testAccount, AttributeSelector.values(t2),
+                                                  AttributeSelector.values(3), any, any, any, any, any, any, any,
+                                                  any, any, any, any, any, any, any, any));
+    Assert.assertFalse(CachedData.accessExists(WalletJournal.class, otherAccount, AttributeSelector.values(t1),
+                                               all));
+
+    // Bounded counts stop at the limit
+    Assert.assertEquals(10, CachedData.accessCount(WalletJournal.class, testAccount,
+                                                   AttributeSelector.values(t1), all, 10));
+    Assert.assertEquals(25, CachedData.accessCount(WalletJournal.class, testAccount,
+                                                   AttributeSelector.values(t1), all, 100));
+    Assert.assertEquals(0, CachedData.accessCount(WalletJournal.class, testAccount,
+                                                  AttributeSelector.values(t1), all, 0));
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testTypeMapMigration() throws Exception {
+    // Simulate entities stored before the type discriminator was introduced: clear the discriminator and
+    // store a legacy type map entry instead.
+    List<Asset> stored = new ArrayList<>();
+    for (int i = 0; i < 5; i++)
+      stored.add(makeAsset(8675L));
+    stored = CachedData.updateAll(stored);
+    final List<Long> cids = new ArrayList<>();
+    for (Asset next : stored) {
+      cids.add(next.getCid());
+      Assert.assertEquals("Asset", ModelTypeMap.retrieveType(next.getCid()));
+      ModelTypeMap.update(new ModelTypeMap(next.getCid(), "Asset"));
+    }
+    EveKitUserAccountProvider.getFactory()
+                             .runTransaction(() -> {
+                               EveKitUserAccountProvider.getFactory()
+                                                        .getEntityManager()
+                                                        .createNativeQuery(
+                                                            "UPDATE evekit_cached_data SET typeName = NULL WHERE cid IN (:cids)")
+                                                        .setParameter("cids", cids)
+                                                        .executeUpdate();
+                             });
+
+    // Legacy entries are still visible through the compatibility view
+    for (long cid : cids)
+      Assert.assertEquals("Asset", ModelTypeMap.retrieveType(cid));
+
+    // Migrate in small chunks and verify the discriminator is restored
+    Assert.assertTrue(ModelTypeMap.migrate(2) >= cids.size());
+    for (long cid : cids) {
+      String type = EveKitUserAccountProvider.getFactory()
+                                             .runTransaction(() -> (String) EveKitUserAccountProvider.getFactory()
+                                                                                                     .getEntityManager()
+                                                                                                     .createNativeQuery(
+                                                                                                         "SELECT typeName FROM evekit_cached_data WHERE cid = :cid")
+                                                                                                     .setParameter(
+                                                                                                         "cid", cid)
+                                                                                                     .getSingleResult());
+      Assert.assertEquals("Asset", type);
+      CachedData check = CachedData.get(cid);
+      Assert.assertNotNull(check);
+      Assert.assertEquals(cid, check.getCid());
+    }
+
+    // Removing legacy entries leaves the discriminator based view intact
+    ModelTypeMap.cleanup(cids);
+    for (long cid : cids)
+      Assert.assertEquals("Asset", ModelTypeMap.retrieveType(cid));
+  }
+
+  private long countOwned(SynchronizedEveAccount owner) throws ExecutionException {
+    return EveKitUserAccountProvider.getFactory()
+                                    .runTransaction(() -> {
+                                      TypedQuery<Long> query = EveKitUserAccountProvider.getFactory()
+                                                                                        .getEntityManager()
+                                                                                        .createQuery(
+                                                                                            "SELECT count(c) FROM CachedData c where c.owner = :owner",
+                                                                                            Long.class);
+                                      query.setParameter("owner", owner);
+                                      return query.getSingleResult();
+                                    });
+  }
+
+  @Test
+  public void testCleanupAll() throws Exception {
+    // Populate both accounts with entities which have metadata and element collections
+    long testTime = 8675L;
+    List<CachedData> stored = new ArrayList<>();
+    for (SynchronizedEveAccount owner : new SynchronizedEveAccount[]{testAccount, otherAccount}) {
+      for (int i = 0; i < 5; i++) {
+        Asset asset = makeAsset(testTime);
+        asset.setMetaData(TestBase.getRandomText(30), TestBase.getRandomText(30));
+        asset.setup(owner, testTime);
+        stored.add(asset);
+
+        Contact contact = new Contact(TestBase.getRandomText(30), TestBase.getRandomInt(),
+                                      TestBase.getRandomFloat(100000000), TestBase.getRandomText(50),
+                                      TestBase.getRandomBoolean(), TestBase.getRandomBoolean(), new HashSet<>());
+        contact.getLabels()
+               .add(TestBase.getUniqueRandomLong());
+        contact.setup(owner, testTime);
+        stored.add(contact);
+
+        CharacterMailMessage mail = new CharacterMailMessage(TestBase.getRandomLong(), TestBase.getRandomInt(),
+                                                             TestBase.getRandomLong(), TestBase.getRandomText(50),
+                                                             TestBase.getRandomBoolean(), new HashSet<>(),
+                                                             new HashSet<>(), TestBase.getRandomText(1000));
+        mail.getLabels()
+            .add(TestBase.getUniqueRandomInteger());
+        mail.getRecipients()
+            .add(new MailMessageRecipient("character", TestBase.getRandomInt()));
+        mail.setMetaData(TestBase.getRandomText(30), TestBase.getRandomText(30));
+        mail.setup(owner, testTime);
+        stored.add(mail);
+
+        PlanetaryPin pin = new PlanetaryPin(
+            TestBase.getUniqueRandomInteger(), TestBase.getUniqueRandomLong(), TestBase.getRandomInt(),
+            TestBase.getRandomInt(), TestBase.getRandomLong(), TestBase.getRandomInt(), TestBase.getRandomInt(),
+            TestBase.getRandomLong(), TestBase.getRandomLong(), TestBase.getRandomInt(),
+            TestBase.getRandomFloat(50), TestBase.getRandomFloat(50), TestBase.getRandomFloat(50),
+            new HashSet<>(), new HashSet<>());
+        pin.getHeads()
+           .add(new PlanetaryPinHead(TestBase.getUniqueRandomInteger(), TestBase.getRandomFloat(100),
+                                     TestBase.getRandomFloat(100)));
+        pin.getContents()
+           .add(new PlanetaryPinContent(TestBase.getUniqueRandomInteger(), TestBase.getRandomLong()));
+        pin.setup(owner, testTime);
+        stored.add(pin);
+      }
+    }
+    CachedData.updateAll(stored);
+    long otherCount = countOwned(otherAccount);
+    Assert.assertEquals(20, countOwned(testAccount));
+    Assert.assertEquals(20, otherCount);
+
+    // Remove everything owned by the test account and verify progress is reported for every type
+    final Map<String, Long> progress = Collections.synchronizedMap(new HashMap<>());
+    Assert.assertEquals(20, CachedData.cleanupAll(testAccount, (type, removed, total) -> progress.put(type, removed)));
+    Assert.assertEquals(0, countOwned(testAccount));
+    Assert.assertEquals(4, progress.size());
+    for (String type : new String[]{"Asset", "Contact", "CharacterMailMessage", "PlanetaryPin"})
+      Assert.assertEquals(5L, (long) progress.get(type));
+
+    // The other account is untouched, including element collections
+    Assert.assertEquals(otherCount, countOwned(otherAccount));
+    for (CachedData next : stored) {
+      if (next.getOwner()
+              .equals(otherAccount)) {
+        CachedData check = CachedData.get(next.getCid());
+        Assert.assertNotNull(check);
+        Assert.assertTrue(next.equivalent(check));
+      } else {
+        Assert.assertNull(CachedData.get(next.getCid()));
+      }
+    }
+
+    // Nothing left to remove
+    Assert.assertEquals(0, CachedData.cleanupAll(testAccount));
+  }
+
   @Test
   public void testRemoveAccount()
       throws IOException, AccountCreationException, MetaDataLimitException, MetaDataCountException, ExecutionException {
@@ -0,0 +1,119 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.TestBase;
+import enterprises.orbital.evekit.model.common.Asset;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ModelReconcilerTest extends AbstractAccountBasedTest {
+
+  private Asset makeAsset(long itemID, long locationID) {
+    return new Asset(itemID, locationID, "locationType", "locationFlag", 1, 1, false, "blueprintType", false);
+  }
+
+  private ModelReconciler<Asset, Long> makeReconciler(boolean endMissing) {
+    return new ModelReconciler<>((contid, at) -> Asset.accessQuery(testAccount, contid, 1000, false, at,
+                                                                   AttributeSelector.any(), AttributeSelector.any(),
+                                                                   AttributeSelector.any(), AttributeSelector.any(),
+                                                                   AttributeSelector.any(), AttributeSelector.any(),
+                                                                   AttributeSelector.any(), AttributeSelector.any(),
+                                                                   AttributeSelector.any()),
+                                 Asset::getItemID, endMissing);
+  }
+
+  @Test
+  public void testReconcile() throws IOException {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long itemID = TestBase.getUniqueRandomLong();
+
+    // Live set: unchanged, changed and missing assets.  Also an asset owned by a different account.
+    List<Asset> live = new ArrayList<>();
+    live.add(makeAsset(itemID, 1));
+    live.add(makeAsset(itemID + 1, 1));
+    live.add(makeAsset(itemID + 2, 1));
+    for (Asset next : live) next.setup(testAccount, t1);
+    Asset other = makeAsset(itemID + 2, 1);
+    other.setup(otherAccount, t1);
+    live.add(other);
+    CachedData.updateAll(live);
+
+    // Incoming set: unchanged, changed and new assets.
+    List<Asset> incoming = new ArrayList<>();
+    incoming.add(makeAsset(itemID, 1));
+    incoming.add(makeAsset(itemID + 1, 2));
+    incoming.add(makeAsset(itemID + 3, 1));
+
+    ModelReconciler.Result<Asset> result = makeReconciler(true).reconcile(testAccount, t2, incoming);
+    Assert.assertEquals(1, result.getUnchanged()
+                                 .size());
+    Assert.assertEquals(itemID, result.getUnchanged()
+                                      .get(0)
+                                      .getItemID());
+    Assert.assertEquals(1, result.getChangedExisting()
+                                 .size());
+    Assert.assertEquals(itemID + 1, result.getChangedExisting()
+                                          .get(0)
+                                          .getItemID());
+    Assert.assertEquals(1, result.getCreated()
+                                 .size());
+    Assert.assertEquals(itemID + 3, result.getCreated()
+                                          .get(0)
+                                          .getItemID());
+    Assert.assertEquals(1, result.getDeleted()
+                                 .size());
+    Assert.assertEquals(itemID + 2, result.getDeleted()
+                                          .get(0)
+                                          .getItemID());
+
+    // Verify storage
+    Assert.assertEquals(t1, Asset.get(testAccount, t2, itemID)
+                                 .getLifeStart());
+    Asset changed = Asset.get(testAccount, t2, itemID + 1);
+    Assert.assertEquals(t2, changed.getLifeStart());
+    Assert.assertEquals(2, changed.getLocationID());
+    Assert.assertEquals(t2, Asset.get(testAccount, t1, itemID + 1)
+                                 .getLifeEnd());
+    Assert.assertNull(Asset.get(testAccount, t2, itemID + 2));
+    Assert.assertNotNull(Asset.get(testAccount, t1, itemID + 2));
+    Assert.assertNotNull(Asset.get(otherAccount, t2, itemID + 2));
+    Asset created = Asset.get(testAccount, t2, itemID + 3);
+    Assert.assertEquals(t2, created.getLifeStart());
+    Assert.assertEquals(Long.MAX_VALUE, created.getLifeEnd());
+
+    // Reconciling the same set again should be a no-op
+    result = makeReconciler(true).reconcile(testAccount, t2 + 1, incoming);
+    Assert.assertEquals(3, result.getUnchanged()
+                                 .size());
+    Assert.assertTrue(result.getChangedExisting()
+                            .isEmpty());
+    Assert.assertTrue(result.getCreated()
+                            .isEmpty());
+    Assert.assertTrue(result.getDeleted()
+                            .isEmpty());
+  }
+
+  @Test
+  public void testReconcileKeepMissing() throws IOException {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long itemID = TestBase.getUniqueRandomLong();
+
+    Asset existing = makeAsset(itemID, 1);
+    existing.setup(testAccount, t1);
+    CachedData.update(existing);
+
+    List<Asset> incoming = new ArrayList<>();
+    incoming.add(makeAsset(itemID + 1, 1));
+    ModelReconciler.Result<Asset> result = makeReconciler(false).reconcile(testAccount, t2, incoming);
+    Assert.assertEquals(1, result.getDeleted()
+                                 .size());
+    Assert.assertNotNull(Asset.get(testAccount, t2, itemID));
+    Assert.assertNotNull(Asset.get(testAccount, t2, itemID + 1));
+  }
+
+}
@@ -0,0 +1,101 @@
+package enterprises.orbital.evekit.model;
+
+import enterprises.orbital.evekit.TestBase;
+import enterprises.orbital.evekit.model.common.Asset;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class ModelWriteQueueTest extends AbstractAccountBasedTest {
+
+  private Asset makeAsset(long itemID, long locationID) {
+    return new Asset(itemID, locationID, "locationType", "locationFlag", 1, 1, false, "blueprintType", false);
+  }
+
+  @Test
+  public void testGroupCommit() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long itemID = TestBase.getUniqueRandomLong();
+    int count = 50;
+    List<Asset> assets = new ArrayList<>();
+    List<CompletableFuture<Asset>> stored = new ArrayList<>();
+    List<CompletableFuture<Asset>> evolved = new ArrayList<>();
+
+    try (ModelWriteQueue queue = new ModelWriteQueue(2, 10, 20, 100)) {
+      // Each evolve is queued behind the insert of the entity it ends, so relies on per-owner ordering
+      for (int i = 0; i < count; i++) {
+        Asset next = makeAsset(itemID + i, 1);
+        next.setup(i % 2 == 0 ? testAccount : otherAccount, t1);
+        assets.add(next);
+        stored.add(queue.update(next));
+        evolved.add(queue.evolve(next, makeAsset(itemID + i, 2), t2));
+      }
+      for (int i = 0; i < count; i++) {
+        Asset first = stored.get(i)
+                            .get();
+        Asset second = evolved.get(i)
+                              .get();
+        Assert.assertTrue(first.getCid() > 0);
+        Assert.assertTrue(second.getCid() > 0);
+        Assert.assertTrue(first.getCid() != second.getCid());
+        Asset check = Asset.get(assets.get(i)
+                                      .getOwner(), t1, itemID + i);
+        Assert.assertEquals(first.getCid(), check.getCid());
+        Assert.assertEquals(t2, check.getLifeEnd());
+        check = Asset.get(assets.get(i)
+                                .getOwner(), t2, itemID + i);
+        Assert.assertEquals(second.getCid(), check.getCid());
+        Assert.assertEquals(2, check.getLocationID());
+      }
+      Assert.assertEquals(0, queue.getQueueDepth());
+      Assert.assertEquals(2 * count, queue.getWriteCount());
+      Assert.assertEquals(0, queue.getFailedCount());
+      Assert.assertTrue(queue.getCommitCount() > 0);
+      Assert.assertTrue(queue.getMaxCommitSize() <= 20);
+    }
+  }
+
+  @Test
+  public void testFailedWriteIsolated() throws Exception {
+    long t1 = 8675L;
+    long t2 = 9999L;
+    long itemID = TestBase.getUniqueRandomLong();
+    Asset existing = makeAsset(itemID, 1);
+    existing.setup(testAccount, t1);
+    existing = CachedData.update(existing);
+    Asset stale = Asset.get(testAccount, t1, itemID);
+
+    CompletableFuture<Asset> good;
+    CompletableFuture<Asset> conflict;
+    CompletableFuture<Asset> after;
+    try (ModelWriteQueue queue = new ModelWriteQueue(1, 10, 10, 100)) {
+      good = queue.evolve(existing, makeAsset(itemID, 2), t2);
+      // Second evolve of the same entity must fail without affecting writes in the same commit
+      conflict = queue.evolve(stale, makeAsset(itemID, 3), t2 + 1);
+      Asset other = makeAsset(itemID + 1, 1);
+      other.setup(testAccount, t1);
+      after = queue.update(other);
+    }
+    Assert.assertEquals(2, good.get()
+                               .getLocationID());
+    Assert.assertTrue(after.get()
+                           .getCid() > 0);
+    try {
+      conflict.get();
+      Assert.fail("expected evolve of ended entity to fail");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+    }
+    Assert.assertEquals(good.get()
+                            .getCid(), Asset.get(testAccount, t2 + 1, itemID)
+                                            .getCid());
+    Assert.assertNotNull(Asset.get(testAccount, t1, itemID + 1));
+  }
+
+}